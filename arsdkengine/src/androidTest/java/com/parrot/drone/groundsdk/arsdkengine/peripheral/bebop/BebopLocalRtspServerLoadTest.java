@@ -0,0 +1,217 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.arsdkengine.peripheral.bebop;
+
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+
+/**
+ * Opens many concurrent RTSP sessions against the local Bebop RTSP server on loopback.
+ */
+public class BebopLocalRtspServerLoadTest {
+
+    private static final String TAG = "BebopLocalRtspServerLoadTest";
+
+    private static final int SESSION_COUNT = 50;
+
+    private static final int SOCKET_TIMEOUT = 10000;
+
+    private BebopLocalRtspServer mServer;
+
+    @Before
+    public void setUp() {
+        mServer = new BebopLocalRtspServer(false, 0);
+        mServer.startServer();
+        assertThat(mServer.getLocalPort(), greaterThan(0));
+    }
+
+    @After
+    public void tearDown() {
+        mServer.stopServer();
+    }
+
+    @Test
+    public void testConcurrentSessions() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(SESSION_COUNT);
+        CyclicBarrier barrier = new CyclicBarrier(SESSION_COUNT);
+        List<Future<Long>> sessions = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < SESSION_COUNT; i++) {
+            sessions.add(executor.submit(new Session(barrier)));
+        }
+        long maxSessionTime = 0;
+        for (Future<Long> session : sessions) {
+            maxSessionTime = Math.max(maxSessionTime, session.get(SOCKET_TIMEOUT, TimeUnit.MILLISECONDS));
+        }
+        long time = System.nanoTime() - start;
+        executor.shutdown();
+        Log.i(TAG, SESSION_COUNT + " concurrent sessions completed in " + time / 1000000 + "ms, slowest session: "
+                   + maxSessionTime / 1000000 + "ms");
+    }
+
+    @Test
+    public void testFragmentedRequest() throws IOException {
+        try (Socket socket = connect()) {
+            OutputStream output = socket.getOutputStream();
+            InputStream input = new BufferedInputStream(socket.getInputStream());
+            for (byte b : request("OPTIONS", 7).getBytes(StandardCharsets.US_ASCII)) {
+                output.write(b);
+                output.flush();
+            }
+            assertResponse(readResponse(input), "RTSP/1.0 200 OK", 7);
+        }
+    }
+
+    @Test
+    public void testUnknownMethod() throws IOException {
+        try (Socket socket = connect()) {
+            socket.getOutputStream().write((request("GET_PARAMETER", 3) + request("OPTIONS", 4))
+                    .getBytes(StandardCharsets.US_ASCII));
+            InputStream input = new BufferedInputStream(socket.getInputStream());
+            assertResponse(readResponse(input), "RTSP/1.0 501 Not Implemented", 3);
+            assertResponse(readResponse(input), "RTSP/1.0 200 OK", 4);
+        }
+    }
+
+    /** A complete RTSP session, with pipelined setup requests, run concurrently with other sessions. */
+    private final class Session implements Callable<Long> {
+
+        private final CyclicBarrier mBarrier;
+
+        Session(CyclicBarrier barrier) {
+            mBarrier = barrier;
+        }
+
+        @Override
+        public Long call() throws Exception {
+            try (Socket socket = connect()) {
+                mBarrier.await();
+                long start = System.nanoTime();
+                OutputStream output = socket.getOutputStream();
+                InputStream input = new BufferedInputStream(socket.getInputStream());
+
+                String[] methods = {"OPTIONS", "DESCRIBE", "SETUP", "PLAY"};
+                StringBuilder requests = new StringBuilder();
+                for (int i = 0; i < methods.length; i++) {
+                    requests.append(request(methods[i], i + 1));
+                }
+                output.write(requests.toString().getBytes(StandardCharsets.US_ASCII));
+                for (int i = 0; i < methods.length; i++) {
+                    String response = readResponse(input);
+                    assertResponse(response, "RTSP/1.0 200 OK", i + 1);
+                    if (methods[i].equals("DESCRIBE")) {
+                        assertThat(response.endsWith("a=control:stream=0\n"), is(true));
+                    }
+                }
+
+                output.write(request("TEARDOWN", methods.length + 1).getBytes(StandardCharsets.US_ASCII));
+                assertResponse(readResponse(input), "RTSP/1.0 200 OK", methods.length + 1);
+                return System.nanoTime() - start;
+            }
+        }
+    }
+
+    private Socket connect() throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), mServer.getLocalPort());
+        socket.setSoTimeout(SOCKET_TIMEOUT);
+        return socket;
+    }
+
+    private static String request(String method, int cseq) {
+        return method + " rtsp://127.0.0.1:5554/media/stream2 RTSP/1.0\r\n"
+               + "CSeq: " + cseq + "\r\n"
+               + "User-Agent: load-test\r\n\r\n";
+    }
+
+    /**
+     * Reads a complete response, including its body if any.
+     *
+     * @param input stream to read from
+     *
+     * @return the response
+     */
+    private static String readResponse(InputStream input) throws IOException {
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int contentLength = 0;
+        int b;
+        while ((b = input.read()) != -1) {
+            response.write(b);
+            if (b != '\n') {
+                line.write(b);
+                continue;
+            }
+            String header = line.toString("US-ASCII");
+            line.reset();
+            if (header.isEmpty()) {
+                for (int i = 0; i < contentLength; i++) {
+                    response.write(input.read());
+                }
+                return response.toString("UTF-8");
+            }
+            if (header.startsWith("Content-Length:")) {
+                contentLength = Integer.parseInt(header.substring("Content-Length:".length()).trim());
+            }
+        }
+        throw new IOException("Connection closed");
+    }
+
+    private static void assertResponse(String response, String status, int cseq) {
+        assertThat(response, startsWith(status + "\nCSeq: " + cseq + "\n"));
+    }
+}
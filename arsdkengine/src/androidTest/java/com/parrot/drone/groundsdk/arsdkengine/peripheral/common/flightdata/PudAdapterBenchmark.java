@@ -0,0 +1,192 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.arsdkengine.peripheral.common.flightdata;
+
+import android.util.Log;
+
+import com.google.gson.stream.JsonReader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Measures conversion time and memory usage of a synthetic 1-hour PUD.
+ */
+public class PudAdapterBenchmark {
+
+    private static final String TAG = "PudAdapterBenchmark";
+
+    private static final int SAMPLE_RATE = 10;
+
+    private static final int LINE_COUNT = 60 * 60 * SAMPLE_RATE;
+
+    private static final String[] INTEGER_COLUMNS = {
+            "altitude", "battery_level", "wifi_signal", "flip_type", "product_gps_sv_number", "pitch", "roll", "yaw"};
+
+    private File mPud;
+
+    private File mJson;
+
+    @Before
+    public void setUp() throws IOException {
+        mPud = File.createTempFile("benchmark", ".pud");
+        mJson = File.createTempFile("benchmark", ".json");
+        try (OutputStream output = new BufferedOutputStream(new FileOutputStream(mPud))) {
+            writePud(output);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        //noinspection ResultOfMethodCallIgnored
+        mPud.delete();
+        //noinspection ResultOfMethodCallIgnored
+        mJson.delete();
+    }
+
+    @Test
+    public void testConversion() throws IOException {
+        convert();
+        try (JsonReader reader = new JsonReader(new InputStreamReader(new FileInputStream(mJson),
+                StandardCharsets.UTF_8))) {
+            int lines = 0;
+            long runTime = -1;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "details_data":
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            reader.skipValue();
+                            lines++;
+                        }
+                        reader.endArray();
+                        break;
+                    case "run_time":
+                        runTime = reader.nextLong();
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            assertThat(lines, is(LINE_COUNT));
+            assertThat(runTime, is((LINE_COUNT - 1) * 1000L / SAMPLE_RATE));
+        }
+    }
+
+    @Test
+    public void benchmarkConversion() throws IOException {
+        Runtime runtime = Runtime.getRuntime();
+        runtime.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+
+        long start = System.nanoTime();
+        convert();
+        long time = System.nanoTime() - start;
+
+        long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+        Log.i(TAG, "Converted " + LINE_COUNT + " lines [pud: " + mPud.length() + " bytes, json: " + mJson.length()
+                   + " bytes] in " + time / 1000000 + "ms, heap growth: " + (heapAfter - heapBefore) / 1024 + "KB");
+    }
+
+    private void convert() throws IOException {
+        try (InputStream input = new FileInputStream(mPud);
+             OutputStream output = new BufferedOutputStream(new FileOutputStream(mJson))) {
+            PudAdapter.adapt(input, output);
+        }
+    }
+
+    /**
+     * Writes a synthetic PUD, resembling the ones recorded by drones, with one flight spanning the whole record.
+     *
+     * @param output stream to write PUD to
+     */
+    private static void writePud(OutputStream output) throws IOException {
+        StringBuilder header = new StringBuilder("{\"version\":\"1.0\",\"date\":\"2020-01-01T000000+0000\","
+                                                 + "\"product_id\":2324,\"details_headers\":["
+                                                 + "{\"name\":\"time\",\"type\":\"integer\",\"size\":4},"
+                                                 + "{\"name\":\"speed_vx\",\"type\":\"float\",\"size\":4},"
+                                                 + "{\"name\":\"speed_vy\",\"type\":\"float\",\"size\":4},"
+                                                 + "{\"name\":\"speed_vz\",\"type\":\"float\",\"size\":4},"
+                                                 + "{\"name\":\"product_gps_available\",\"type\":\"boolean\","
+                                                 + "\"size\":1},"
+                                                 + "{\"name\":\"product_gps_latitude\",\"type\":\"double\",\"size\":8},"
+                                                 + "{\"name\":\"product_gps_longitude\",\"type\":\"double\","
+                                                 + "\"size\":8},"
+                                                 + "{\"name\":\"alert_state\",\"type\":\"integer\",\"size\":1},"
+                                                 + "{\"name\":\"flying_state\",\"type\":\"integer\",\"size\":1}");
+        for (String column : INTEGER_COLUMNS) {
+            header.append(",{\"name\":\"").append(column).append("\",\"type\":\"integer\",\"size\":4}");
+        }
+        header.append("]}");
+        output.write(header.toString().getBytes(StandardCharsets.UTF_8));
+        output.write(0);
+
+        ByteBuffer line = ByteBuffer.allocate(4 * 4 + 1 + 2 * 8 + 2 + INTEGER_COLUMNS.length * 4)
+                                    .order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < LINE_COUNT; i++) {
+            line.clear();
+            line.putInt(i * 1000 / SAMPLE_RATE)
+                .putFloat((float) Math.sin(i / 100.0) * 5)
+                .putFloat((float) Math.cos(i / 100.0) * 5)
+                .putFloat((float) Math.sin(i / 10.0))
+                .put((byte) 1)
+                .putDouble(48.8789 + i * 1e-7)
+                .putDouble(2.3677 + i * 1e-7)
+                .put((byte) 0)
+                .put((byte) (i == 0 ? 1 : 3)); // take off, then flying
+            for (int column = 0; column < INTEGER_COLUMNS.length; column++) {
+                line.putInt(i % 1000 + column);
+            }
+            output.write(line.array());
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.arsdkengine.persistence;
+
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ * Compares cold-start load time of stored device dictionaries, in legacy json and in binary format.
+ */
+public class BinaryFormatBenchmark {
+
+    private static final String TAG = "BinaryFormatBenchmark";
+
+    private static final int DEVICE_COUNT = 20;
+
+    private static final int WARMUP_ROUNDS = 20;
+
+    private static final int ROUNDS = 200;
+
+    private byte[][] mJsonDevices;
+
+    private byte[][] mBinaryDevices;
+
+    @Before
+    public void setUp() throws Exception {
+        mJsonDevices = new byte[DEVICE_COUNT][];
+        mBinaryDevices = new byte[DEVICE_COUNT][];
+        for (int i = 0; i < DEVICE_COUNT; i++) {
+            JSONObject device = createDevice(i);
+            mJsonDevices[i] = device.toString().getBytes(StandardCharsets.UTF_8);
+            mBinaryDevices[i] = BinaryFormat.encode(device);
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        for (int i = 0; i < DEVICE_COUNT; i++) {
+            JSONObject json = new JSONObject(new String(mJsonDevices[i], StandardCharsets.UTF_8));
+            assertSameContent(BinaryFormat.decode(mBinaryDevices[i]), json);
+            assertThat(mBinaryDevices[i].length, lessThan(mJsonDevices[i].length));
+        }
+    }
+
+    @Test
+    public void benchmarkLoad() throws Exception {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            loadJson();
+            loadBinary();
+        }
+
+        long jsonTime = 0, binaryTime = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            loadJson();
+            jsonTime += System.nanoTime() - start;
+            start = System.nanoTime();
+            loadBinary();
+            binaryTime += System.nanoTime() - start;
+        }
+
+        int jsonSize = 0, binarySize = 0;
+        for (int i = 0; i < DEVICE_COUNT; i++) {
+            jsonSize += mJsonDevices[i].length;
+            binarySize += mBinaryDevices[i].length;
+        }
+        Log.i(TAG, "Loading " + DEVICE_COUNT + " devices [json: " + jsonTime / ROUNDS / 1000 + "us, "
+                   + jsonSize + " bytes] [binary: " + binaryTime / ROUNDS / 1000 + "us, " + binarySize + " bytes]");
+    }
+
+    private void loadJson() throws Exception {
+        for (byte[] device : mJsonDevices) {
+            new JSONObject(new String(device, StandardCharsets.UTF_8));
+        }
+    }
+
+    private void loadBinary() throws Exception {
+        for (byte[] device : mBinaryDevices) {
+            BinaryFormat.decode(device);
+        }
+    }
+
+    /**
+     * Asserts that a decoded json value has the same content as the expected one, including the type of each number.
+     *
+     * @param actual   decoded value
+     * @param expected expected value
+     */
+    private static void assertSameContent(Object actual, Object expected) {
+        assertThat(actual.getClass(), is((Object) expected.getClass()));
+        if (expected instanceof JSONObject) {
+            JSONObject expectedObject = (JSONObject) expected, actualObject = (JSONObject) actual;
+            assertThat(actualObject.length(), is(expectedObject.length()));
+            for (Iterator<String> iter = expectedObject.keys(); iter.hasNext(); ) {
+                String key = iter.next();
+                assertSameContent(actualObject.opt(key), expectedObject.opt(key));
+            }
+        } else if (expected instanceof JSONArray) {
+            JSONArray expectedArray = (JSONArray) expected, actualArray = (JSONArray) actual;
+            assertThat(actualArray.length(), is(expectedArray.length()));
+            for (int i = 0, N = expectedArray.length(); i < N; i++) {
+                assertSameContent(actualArray.opt(i), expectedArray.opt(i));
+            }
+        } else {
+            assertThat(actual, is(expected));
+        }
+    }
+
+    /**
+     * Creates a device dictionary resembling the ones stored by device controllers.
+     *
+     * @param index device index, used to vary content
+     *
+     * @return a device dictionary
+     */
+    private static JSONObject createDevice(int index) throws Exception {
+        JSONObject device = new JSONObject()
+                .put(PersistentStore.KEY_DEVICE_MODEL, 0x0914)
+                .put(PersistentStore.KEY_DEVICE_NAME, "ANAFI-" + (1000000 + index))
+                .put(PersistentStore.KEY_DEVICE_FIRMWARE_VERSION, "1.6." + index);
+        for (int component = 0; component < 12; component++) {
+            JSONObject settings = new JSONObject()
+                    .put("mode", "MODE_" + component % 3)
+                    .put("enabled", component % 2 == 0)
+                    .put("timestamp", 1600000000000L + index * 1000L + component)
+                    .put("supportedModes", new JSONArray().put("MODE_0").put("MODE_1").put("MODE_2"));
+            JSONObject ranges = new JSONObject();
+            for (int value = 0; value < 8; value++) {
+                ranges.put("VALUE_" + value, new JSONArray().put(-value * 0.5).put(value * 1.25 + component));
+            }
+            settings.put("ranges", ranges);
+            device.put("component" + component, settings);
+        }
+        return device;
+    }
+}
@@ -39,6 +39,7 @@ import com.parrot.drone.groundsdk.arsdkengine.devicecontroller.DeviceController;
 import com.parrot.drone.groundsdk.device.DeviceConnector;
 import com.parrot.drone.groundsdk.device.DeviceModel;
 import com.parrot.drone.groundsdk.device.DeviceState;
+import com.parrot.drone.groundsdk.internal.GroundSdkConfig;
 import com.parrot.drone.groundsdk.internal.device.DeviceConnectorCore;
 import com.parrot.drone.groundsdk.internal.device.DeviceModels;
 import com.parrot.drone.sdkcore.arsdk.ArsdkCore;
@@ -47,6 +48,7 @@ import com.parrot.drone.sdkcore.arsdk.blackbox.ArsdkBlackBoxRequest;
 import com.parrot.drone.sdkcore.arsdk.command.ArsdkCommand;
 import com.parrot.drone.sdkcore.arsdk.command.ArsdkNoAckCmdEncoder;
 import com.parrot.drone.sdkcore.arsdk.crashml.ArsdkCrashmlDownloadRequest;
+import com.parrot.drone.sdkcore.arsdk.device.ArsdkCommandBatch;
 import com.parrot.drone.sdkcore.arsdk.device.ArsdkDevice;
 import com.parrot.drone.sdkcore.arsdk.device.ArsdkRequest;
 import com.parrot.drone.sdkcore.arsdk.device.ArsdkTcpProxy;
@@ -372,12 +374,18 @@ class Arsdk {
             mDeviceController.onCommandReceived(command);
         }
 
+        @Override
+        public void onCommandsReceived(@NonNull ArsdkCommandBatch batch) {
+            mDeviceController.onCommandsReceived(batch);
+        }
+
         /**
          * Connects the device managed by the associated controller.
          *
          * @return {@code true} if the connection could be successfully initiated, otherwise {@code false}
          */
         boolean connect() {
+            mDevice.setCommandBatchingEnabled(GroundSdkConfig.get().isCommandBatchingEnabled());
             mDevice.connect(this);
             return true;
         }
@@ -199,7 +199,7 @@ public class ArsdkEngine extends EngineBase implements RcUsbAccessoryManager {
         @Override
         public void onInternetAvailabilityChanged(boolean availableNow) {
             if (availableNow) {
-                Executor.runInBackground(mSync);
+                Executor.runInBackground(mSync, Executor.Lane.TRANSFER);
             }
         }
 
@@ -401,6 +401,8 @@ public class ArsdkEngine extends EngineBase implements RcUsbAccessoryManager {
         // all remaining controllers are idle: stop arsdk
         mArsdk.stop();
 
+        mPersistentStore.flush();
+
         // stop (and remove) all idle controllers, to remove published devices from groundSdk stores
         Iterator<DeviceController> iterator = mDeviceControllers.values().iterator();
         while (iterator.hasNext()) {
@@ -37,6 +37,7 @@ import com.parrot.drone.groundsdk.arsdkengine.blackbox.data.LocationInfo;
 import com.parrot.drone.groundsdk.arsdkengine.pilotingitf.PilotingCommand;
 import com.parrot.drone.groundsdk.internal.device.DroneCore;
 import com.parrot.drone.groundsdk.internal.tasks.Executor;
+import com.parrot.drone.groundsdk.internal.utility.BlackBoxStorage;
 import com.parrot.drone.sdkcore.arsdk.ArsdkFeatureArdrone3;
 import com.parrot.drone.sdkcore.arsdk.ArsdkFeatureBattery;
 import com.parrot.drone.sdkcore.arsdk.ArsdkFeatureCommon;
@@ -67,15 +68,17 @@ public final class BlackBoxDroneSession extends BlackBoxSession {
      *
      * @param context  context that manages the session
      * @param drone    drone to record a black box from
+     * @param storage  black box storage, where recorded black box is journaled
      * @param listener listener to notify when the session closes
      */
     BlackBoxDroneSession(@NonNull BlackBoxRecorder.Context context, @NonNull DroneCore drone,
-                         @NonNull CloseListener listener) {
+                         @NonNull BlackBoxStorage storage, @NonNull CloseListener listener) {
         super(context, listener);
-        mBlackBox = new BlackBoxImpl(drone);
+        mBlackBox = new BlackBoxImpl(drone, storage);
         // start sampling
         mEnvironmentInfoSampler.start();
         mFlightInfoSampler.start();
+        mJournalFlusher.start();
         if (ULog.d(TAG_BLACKBOX)) {
             ULog.d(TAG_BLACKBOX, "Opened new Drone blackbox session [drone: " + drone.getUid()
                                  + ", session: " + System.identityHashCode(this)
@@ -139,6 +142,7 @@ public final class BlackBoxDroneSession extends BlackBoxSession {
     @Override
     public void close() {
         // stop sampling
+        mJournalFlusher.stop();
         mFlightInfoSampler.stop();
         mEnvironmentInfoSampler.stop();
         super.close();
@@ -206,7 +210,7 @@ public final class BlackBoxDroneSession extends BlackBoxSession {
 
         @Override
         void sample() {
-            mBlackBox.addFlightInfo(mContext.mFlightInfo.build());
+            mBlackBox.addFlightInfo(mContext.mFlightInfo);
         }
 
         @Override
@@ -220,7 +224,7 @@ public final class BlackBoxDroneSession extends BlackBoxSession {
 
         @Override
         void sample() {
-            mBlackBox.addEnvironmentInfo(mContext.mEnvironmentInfo.build());
+            mBlackBox.addEnvironmentInfo(mContext.mEnvironmentInfo);
         }
 
         @Override
@@ -229,6 +233,25 @@ public final class BlackBoxDroneSession extends BlackBoxSession {
         }
     };
 
+    /**
+     * Regularly flushes recorded data to the black box journal.
+     * <p>
+     * Flush interval must remain shorter than the time it takes to fill sample buffers, so that no sample gets evicted
+     * before being flushed.
+     */
+    private final Sampler mJournalFlusher = new Sampler(TimeUnit.SECONDS.toMillis(30)) {
+
+        @Override
+        void sample() {
+            mBlackBox.flush();
+        }
+
+        @Override
+        public String toString() {
+            return "Black box journal flusher";
+        }
+    };
+
     /** Callbacks called when a command of the feature ArsdkFeatureArdrone3.GPSSettingsState is decoded. */
     private final ArsdkFeatureArdrone3.GPSSettingsState.Callback mGpsSettingsStateCallback =
             new ArsdkFeatureArdrone3.GPSSettingsState.Callback() {
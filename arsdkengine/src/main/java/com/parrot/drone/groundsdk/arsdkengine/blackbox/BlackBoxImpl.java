@@ -37,26 +37,35 @@ import androidx.annotation.NonNull;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonIOException;
-import com.google.gson.annotations.Expose;
-import com.google.gson.annotations.SerializedName;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
 import com.parrot.drone.groundsdk.arsdkengine.blackbox.data.EnvironmentData;
 import com.parrot.drone.groundsdk.arsdkengine.blackbox.data.Event;
 import com.parrot.drone.groundsdk.arsdkengine.blackbox.data.FlightData;
 import com.parrot.drone.groundsdk.arsdkengine.blackbox.data.HeaderInfo;
-import com.parrot.drone.groundsdk.arsdkengine.blackbox.data.TimeStampedData;
 import com.parrot.drone.groundsdk.internal.device.DroneCore;
 import com.parrot.drone.groundsdk.internal.utility.BlackBoxStorage;
+import com.parrot.drone.sdkcore.ulog.ULog;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.io.OutputStreamWriter;
-import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.Map;
+
+import static com.parrot.drone.groundsdk.arsdkengine.Logging.TAG_BLACKBOX;
 
 /**
  * Black box data.
+ * <p>
+ * Recorded data is periodically flushed to a black box journal, each flush appending a segment that contains the
+ * current header, along with events and samples recorded since the previous flush.
  */
-class BlackBoxImpl implements BlackBoxStorage.BlackBox {
+class BlackBoxImpl {
 
     /** Maximum amount of samples in the flight data circular buffer. */
     private static final int FLIGHT_SAMPLE_COUNT = 5 * 60;
@@ -64,47 +73,69 @@ class BlackBoxImpl implements BlackBoxStorage.BlackBox {
     /** Maximum amount of samples in the environment data circular buffer. */
     private static final int ENVIRONMENT_SAMPLE_COUNT = 60;
 
+    /** Header member name. */
+    private static final String HEADER = "header";
+
+    /** Event list member name. */
+    private static final String EVENTS = "datas";
+
+    /** Flight data samples member name. */
+    private static final String FLIGHT_INFOS = "datas_5Hz";
+
+    /** Environment data samples member name. */
+    private static final String ENVIRONMENT_INFOS = "datas_1Hz";
+
+    /** Maximum amount of samples kept in the archived black box, by sample member name. */
+    private static final Map<String, Integer> CAPACITIES;
+
+    static {
+        Map<String, Integer> capacities = new HashMap<>();
+        capacities.put(FLIGHT_INFOS, FLIGHT_SAMPLE_COUNT);
+        capacities.put(ENVIRONMENT_INFOS, ENVIRONMENT_SAMPLE_COUNT);
+        CAPACITIES = Collections.unmodifiableMap(capacities);
+    }
+
     /** JSon serializer thread-safe singleton. */
     private static final Gson JSON_SERIALIZER = new GsonBuilder()
             .excludeFieldsWithModifiers(0)
             .excludeFieldsWithoutExposeAnnotation()
             .create();
 
+    /** Type of the event list, for serialization. */
+    private static final Type EVENT_LIST_TYPE = new TypeToken<LinkedList<Event>>() {}.getType();
+
     /** Black box header. */
-    @Expose
-    @SerializedName("header")
     @NonNull
     final HeaderInfo mHeader;
 
-    /** Black box list of events. */
-    @SuppressWarnings("MismatchedQueryAndUpdateOfCollection") // read when serialized to json
-    @Expose
-    @SerializedName("datas")
+    /** Black box journal, where recorded data is flushed. */
+    @NonNull
+    private final BlackBoxStorage.Journal mJournal;
+
+    /** Black box list of events recorded since latest flush. */
     @NonNull
     private final LinkedList<Event> mEvents;
 
     /** Black box flight data sample buffer. */
-    @Expose
-    @SerializedName("datas_5Hz")
     @NonNull
-    private final LinkedList<FlightData> mFlightInfos;
+    private final FlightData.Buffer mFlightInfos;
 
     /** Black box environment data sample buffer. */
-    @Expose
-    @SerializedName("datas_1Hz")
     @NonNull
-    private final LinkedList<EnvironmentData> mEnvironmentInfos;
+    private final EnvironmentData.Buffer mEnvironmentInfos;
 
     /**
      * Constructor.
      *
-     * @param drone drone that this black box is recorded for
+     * @param drone   drone that this black box is recorded for
+     * @param storage black box storage, where to open a journal for this black box
      */
-    BlackBoxImpl(@NonNull DroneCore drone) {
+    BlackBoxImpl(@NonNull DroneCore drone, @NonNull BlackBoxStorage storage) {
         mHeader = new HeaderInfo(drone);
+        mJournal = storage.openJournal(CAPACITIES);
         mEvents = new LinkedList<>();
-        mFlightInfos = new LinkedList<>();
-        mEnvironmentInfos = new LinkedList<>();
+        mFlightInfos = new FlightData.Buffer(FLIGHT_SAMPLE_COUNT);
+        mEnvironmentInfos = new EnvironmentData.Buffer(ENVIRONMENT_SAMPLE_COUNT);
     }
 
     /**
@@ -117,56 +148,76 @@ class BlackBoxImpl implements BlackBoxStorage.BlackBox {
     }
 
     /**
-     * Records a new flight data sample in the black box.
+     * Records a new sample of current flight data in the black box.
+     * <p>
+     * The sample is discarded if flight data did not change since the latest recorded sample. The eldest sample is
+     * evicted in case the flight data buffer is full.
      *
-     * @param info flight data sample to record
+     * @param info current flight data to record
      */
-    void addFlightInfo(@NonNull FlightData info) {
-        addInfo(info, mFlightInfos, FLIGHT_SAMPLE_COUNT);
+    void addFlightInfo(@NonNull FlightData.Builder info) {
+        mFlightInfos.add(info);
     }
 
     /**
-     * Records a new environment data sample in the black box.
+     * Records a new sample of current environment data in the black box.
+     * <p>
+     * The sample is discarded if environment data did not change since the latest recorded sample. The eldest sample
+     * is evicted in case the environment data buffer is full.
      *
-     * @param info environment data sample to record
+     * @param info current environment data to record
      */
-    void addEnvironmentInfo(@NonNull EnvironmentData info) {
-        addInfo(info, mEnvironmentInfos, ENVIRONMENT_SAMPLE_COUNT);
+    void addEnvironmentInfo(@NonNull EnvironmentData.Builder info) {
+        mEnvironmentInfos.add(info);
     }
 
-    @Override
-    public void writeTo(@NonNull OutputStream stream) throws IOException {
-        try {
-            Writer writer = new OutputStreamWriter(stream);
-            JSON_SERIALIZER.toJson(this, writer);
-            writer.flush();
-        } catch (JsonIOException e) {
-            throw new IOException(e);
+    /**
+     * Flushes data recorded since latest flush to the black box journal.
+     * <p>
+     * Does nothing if no data was recorded since latest flush.
+     */
+    void flush() {
+        if (mEvents.isEmpty() && !mFlightInfos.hasUnflushedSamples() && !mEnvironmentInfos.hasUnflushedSamples()) {
+            return;
         }
+        appendSegment();
     }
 
     /**
-     * Records the given info sample to the given sample buffer.
-     * <p>
-     * This method compares the timestamps of the current buffer head and of the sample to be added; in case they are
-     * the same, then the sample is discarded.
+     * Closes the black box.
      * <p>
-     * This method ensures that the destination buffer never grows past a given capacity. If adding a new sample would
-     * exceed this capacity, then the eldest element is removed beforehand.
-     *
-     * @param info           sample to record
-     * @param buffer         buffer to record to
-     * @param bufferCapacity buffer capacity to respect
-     * @param <T>            type of sample
+     * A final segment is always appended, so that the journal records the latest header even if no other data was
+     * recorded since latest flush; then the journal is closed so that it gets archived.
+     */
+    void close() {
+        appendSegment();
+        mJournal.close();
+    }
+
+    /**
+     * Appends a segment with the current header and data recorded since latest flush to the black box journal.
      */
-    private static <T extends TimeStampedData> void addInfo(@NonNull T info, @NonNull LinkedList<T> buffer,
-                                                            int bufferCapacity) {
-        TimeStampedData head = buffer.peekLast();
-        if (head == null || head.timeStampDiffersFrom(info)) {
-            if (buffer.size() >= bufferCapacity) {
-                buffer.removeFirst();
-            }
-            buffer.addLast(info);
+    private void appendSegment() {
+        ByteArrayOutputStream segment = new ByteArrayOutputStream();
+        try {
+            JsonWriter writer = JSON_SERIALIZER.newJsonWriter(new OutputStreamWriter(segment, StandardCharsets.UTF_8));
+            writer.beginObject();
+            writer.name(HEADER);
+            JSON_SERIALIZER.toJson(mHeader, HeaderInfo.class, writer);
+            writer.name(EVENTS);
+            JSON_SERIALIZER.toJson(mEvents, EVENT_LIST_TYPE, writer);
+            writer.name(FLIGHT_INFOS);
+            mFlightInfos.flushTo(writer);
+            writer.name(ENVIRONMENT_INFOS);
+            mEnvironmentInfos.flushTo(writer);
+            writer.endObject();
+            writer.close();
+        } catch (IOException | JsonIOException e) {
+            ULog.e(TAG_BLACKBOX, "Failed to serialize black box segment", e);
+            return;
+        } finally {
+            mEvents.clear();
         }
+        mJournal.append(segment.toByteArray());
     }
-}
\ No newline at end of file
+}
@@ -58,7 +58,7 @@ import static com.parrot.drone.groundsdk.arsdkengine.Logging.TAG_BLACKBOX;
  */
 public class BlackBoxRecorder {
 
-    /** Blackbox storage utility to which blackbox data is forwarded when ready. */
+    /** Blackbox storage utility where recorded blackbox data is journaled. */
     @NonNull
     private final BlackBoxStorage mStorage;
 
@@ -207,19 +207,19 @@ public class BlackBoxRecorder {
         BlackBoxDroneSession openDroneSession(@NonNull DroneCore drone,
                                               @NonNull BlackBoxSession.CloseListener listener) {
             if (mDroneSession == null) {
-                mDroneSession = new BlackBoxDroneSession(this, drone, () -> {
+                mDroneSession = new BlackBoxDroneSession(this, drone, mStorage, () -> {
                     if (mRcSession == null) {
                         closeSelf();
                     } else {
                         // inject a copy of rc info in blackbox
                         mDroneSession.mBlackBox.mHeader.setRcInfo(new RemoteControlInfo(mRcSession.mRcInfo));
                     }
-                    // forward finalized blackbox
+                    // finalize blackbox
                     if (ULog.d(TAG_BLACKBOX)) {
                         ULog.d(TAG_BLACKBOX, "Finalized blackbox: "
                                              + System.identityHashCode(mDroneSession.mBlackBox));
                     }
-                    mStorage.notifyBlackBoxReady(mDroneSession.mBlackBox);
+                    mDroneSession.mBlackBox.close();
                     mDroneSession = null;
                     listener.onBlackBoxSessionClosed();
                 });
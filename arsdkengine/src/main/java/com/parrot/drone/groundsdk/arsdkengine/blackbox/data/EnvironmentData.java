@@ -34,16 +34,18 @@ package com.parrot.drone.groundsdk.arsdkengine.blackbox.data;
 
 import android.location.Location;
 
+import androidx.annotation.IntRange;
 import androidx.annotation.NonNull;
 
-import com.google.gson.annotations.Expose;
-import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 
 /**
- * Black box environment data sample.
+ * Black box environment data.
  * <p>
  * Contains information such as current drone geo location, controller geo location, controller piloting command, wifi
- * signal level.
+ * signal level. Samples of those data are recorded in a {@link Buffer}.
  */
 public final class EnvironmentData extends TimeStampedData {
 
@@ -52,7 +54,7 @@ public final class EnvironmentData extends TimeStampedData {
      */
     public static final class Builder {
 
-        /** Mutable environment data, serves as a base to produce immutable samples. */
+        /** Mutable environment data, serves as a base to record samples. */
         @NonNull
         private final EnvironmentData mTemplate;
 
@@ -123,28 +125,90 @@ public final class EnvironmentData extends TimeStampedData {
                 mTemplate.stamp();
             }
         }
+    }
+
+    /**
+     * Fixed-capacity, columnar circular buffer of environment data samples.
+     */
+    public static final class Buffer extends SampleBuffer {
+
+        /** Drone geo location of each sample; latitude, longitude and altitude for each slot, in that order. */
+        @NonNull
+        private final double[] mDroneLocation;
+
+        /** Controller geo location of each sample; latitude, longitude and altitude for each slot, in that order. */
+        @NonNull
+        private final double[] mControllerLocation;
+
+        /** Controller piloting command of each sample; roll, pitch, yaw, gaz and source for each slot, in that order. */
+        @NonNull
+        private final int[] mRemotePcmd;
+
+        /** Wifi signal level of each sample. */
+        @NonNull
+        private final int[] mWifiSignal;
+
+        /** Battery voltage of each sample. */
+        @NonNull
+        private final int[] mBatteryVoltage;
 
         /**
-         * Generates a new sample from current data.
+         * Constructor.
          *
-         * @return a new immutable environment data sample.
+         * @param capacity maximum amount of samples in the buffer
          */
-        @NonNull
-        public EnvironmentData build() {
-            return new EnvironmentData(mTemplate);
+        public Buffer(@IntRange(from = 1) int capacity) {
+            super(capacity);
+            mDroneLocation = new double[capacity * 3];
+            mControllerLocation = new double[capacity * 3];
+            mRemotePcmd = new int[capacity * 5];
+            mWifiSignal = new int[capacity];
+            mBatteryVoltage = new int[capacity];
         }
-    }
 
+        /**
+         * Records a new sample of current environment data.
+         * <p>
+         * The sample is discarded if environment data did not change since the latest recorded sample.
+         *
+         * @param data environment data to sample
+         */
+        public void add(@NonNull Builder data) {
+            EnvironmentData sample = data.mTemplate;
+            int slot = claimSlot(sample.getTimeStamp());
+            if (slot >= 0) {
+                sample.mDroneLocation.copyTo(mDroneLocation, slot * 3);
+                sample.mControllerLocation.copyTo(mControllerLocation, slot * 3);
+                sample.mRemotePcmd.copyTo(mRemotePcmd, slot * 5);
+                mRemotePcmd[slot * 5 + 4] = sample.mRemotePcmd.mSource;
+                mWifiSignal[slot] = sample.mWifiSignal;
+                mBatteryVoltage[slot] = sample.mBatteryVoltage;
+            }
+        }
+
+        @Override
+        void writeSample(@NonNull JsonWriter writer, int slot) throws IOException {
+            writer.name("product_gps").beginObject();
+            LocationInfo.writeTo(writer, mDroneLocation, slot * 3);
+            writer.endObject();
+            writer.name("device_gps").beginObject();
+            LocationInfo.writeTo(writer, mControllerLocation, slot * 3);
+            writer.endObject();
+            int pcmd = slot * 5;
+            writer.name("mpp_pcmd").beginObject()
+                  .name("source").value(mRemotePcmd[pcmd + 4]);
+            PilotingCommandInfo.writeTo(writer, mRemotePcmd, pcmd);
+            writer.endObject();
+            writer.name("wifi_rssi").value(mWifiSignal[slot]);
+            writer.name("product_battery_voltage").value(mBatteryVoltage[slot]);
+        }
+    }
 
     /** Drone geo location. */
-    @Expose
-    @SerializedName("product_gps")
     @NonNull
     private final LocationInfo mDroneLocation;
 
     /** Controller geo location. */
-    @Expose
-    @SerializedName("device_gps")
     @NonNull
     private final LocationInfo mControllerLocation;
 
@@ -154,8 +218,6 @@ public final class EnvironmentData extends TimeStampedData {
     private static final class RcPilotingCommand extends PilotingCommandInfo {
 
         /** Piloting command source. */
-        @Expose
-        @SerializedName("source")
         private int mSource;
 
         /**
@@ -177,38 +239,16 @@ public final class EnvironmentData extends TimeStampedData {
             }
             return changed;
         }
-
-        /**
-         * Default constructor.
-         */
-        RcPilotingCommand() {
-        }
-
-        /**
-         * Copy constructor.
-         *
-         * @param other piloting command info to copy data from
-         */
-        RcPilotingCommand(@NonNull RcPilotingCommand other) {
-            super(other);
-            mSource = other.mSource;
-        }
     }
 
     /** Controller piloting command. */
-    @Expose
-    @SerializedName("mpp_pcmd")
     @NonNull
     private final RcPilotingCommand mRemotePcmd;
 
     /** Wifi signal level. */
-    @Expose
-    @SerializedName("wifi_rssi")
     private int mWifiSignal;
 
     /** Battery voltage. */
-    @Expose
-    @SerializedName("product_battery_voltage")
     private int mBatteryVoltage;
 
     /**
@@ -219,18 +259,4 @@ public final class EnvironmentData extends TimeStampedData {
         mControllerLocation = new LocationInfo();
         mRemotePcmd = new RcPilotingCommand();
     }
-
-    /**
-     * Copy constructor.
-     *
-     * @param other environment info to copy data from
-     */
-    private EnvironmentData(@NonNull EnvironmentData other) {
-        super(other);
-        mWifiSignal = other.mWifiSignal;
-        mBatteryVoltage = other.mBatteryVoltage;
-        mDroneLocation = new LocationInfo(other.mDroneLocation);
-        mControllerLocation = new LocationInfo(other.mControllerLocation);
-        mRemotePcmd = new RcPilotingCommand(other.mRemotePcmd);
-    }
 }
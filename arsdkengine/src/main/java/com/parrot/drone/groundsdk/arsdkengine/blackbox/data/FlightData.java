@@ -32,16 +32,19 @@
 
 package com.parrot.drone.groundsdk.arsdkengine.blackbox.data;
 
+import androidx.annotation.IntRange;
 import androidx.annotation.NonNull;
 
-import com.google.gson.annotations.Expose;
-import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonWriter;
 import com.parrot.drone.groundsdk.arsdkengine.pilotingitf.PilotingCommand;
 
+import java.io.IOException;
+
 /**
- * Black box flight data sample.
+ * Black box flight data.
  * <p>
- * Contains information such as current drone speed, attitude, altitude and piloting command.
+ * Contains information such as current drone speed, attitude, altitude and piloting command. Samples of those data
+ * are recorded in a {@link Buffer}.
  */
 public final class FlightData extends TimeStampedData {
 
@@ -50,7 +53,7 @@ public final class FlightData extends TimeStampedData {
      */
     public static final class Builder {
 
-        /** Mutable flight data, serves as a base to produce immutable samples. */
+        /** Mutable flight data, serves as a base to record samples. */
         @NonNull
         private final FlightData mTemplate;
 
@@ -122,15 +125,110 @@ public final class FlightData extends TimeStampedData {
                 mTemplate.stamp();
             }
         }
+    }
+
+    /**
+     * Fixed-capacity, columnar circular buffer of flight data samples.
+     */
+    public static final class Buffer extends SampleBuffer {
+
+        /** Drone speed X component of each sample. */
+        @NonNull
+        private final float[] mSpeedX;
+
+        /** Drone speed Y component of each sample. */
+        @NonNull
+        private final float[] mSpeedY;
+
+        /** Drone speed Z component of each sample. */
+        @NonNull
+        private final float[] mSpeedZ;
+
+        /** Drone attitude roll of each sample. */
+        @NonNull
+        private final float[] mRoll;
+
+        /** Drone attitude pitch of each sample. */
+        @NonNull
+        private final float[] mPitch;
+
+        /** Drone attitude yaw of each sample. */
+        @NonNull
+        private final float[] mYaw;
+
+        /** Drone altitude of each sample. */
+        @NonNull
+        private final double[] mAltitude;
+
+        /** Drone height above ground level of each sample. */
+        @NonNull
+        private final float[] mHeightAboveGround;
+
+        /** Piloting command of each sample; roll, pitch, yaw, gaz and flag for each slot, in that order. */
+        @NonNull
+        private final int[] mPcmd;
+
+        /**
+         * Constructor.
+         *
+         * @param capacity maximum amount of samples in the buffer
+         */
+        public Buffer(@IntRange(from = 1) int capacity) {
+            super(capacity);
+            mSpeedX = new float[capacity];
+            mSpeedY = new float[capacity];
+            mSpeedZ = new float[capacity];
+            mRoll = new float[capacity];
+            mPitch = new float[capacity];
+            mYaw = new float[capacity];
+            mAltitude = new double[capacity];
+            mHeightAboveGround = new float[capacity];
+            mPcmd = new int[capacity * 5];
+        }
 
         /**
-         * Generates a new sample from current data.
+         * Records a new sample of current flight data.
+         * <p>
+         * The sample is discarded if flight data did not change since the latest recorded sample.
          *
-         * @return a new immutable flight data sample.
+         * @param data flight data to sample
          */
-        @NonNull
-        public FlightData build() {
-            return new FlightData(mTemplate);
+        public void add(@NonNull Builder data) {
+            FlightData sample = data.mTemplate;
+            int slot = claimSlot(sample.getTimeStamp());
+            if (slot >= 0) {
+                mSpeedX[slot] = sample.mSpeed.mX;
+                mSpeedY[slot] = sample.mSpeed.mY;
+                mSpeedZ[slot] = sample.mSpeed.mZ;
+                mRoll[slot] = sample.mAttitude.mRoll;
+                mPitch[slot] = sample.mAttitude.mPitch;
+                mYaw[slot] = sample.mAttitude.mYaw;
+                mAltitude[slot] = sample.mAltitude;
+                mHeightAboveGround[slot] = sample.mHeightAboveGround;
+                sample.mDronePcmd.copyTo(mPcmd, slot * 5);
+                mPcmd[slot * 5 + 4] = sample.mDronePcmd.mFlag;
+            }
+        }
+
+        @Override
+        void writeSample(@NonNull JsonWriter writer, int slot) throws IOException {
+            writer.name("product_speed").beginObject()
+                  .name("vx").value((Float) mSpeedX[slot])
+                  .name("vy").value((Float) mSpeedY[slot])
+                  .name("vz").value((Float) mSpeedZ[slot])
+                  .endObject();
+            writer.name("product_angles").beginObject()
+                  .name("roll").value((Float) mRoll[slot])
+                  .name("pitch").value((Float) mPitch[slot])
+                  .name("yaw").value((Float) mYaw[slot])
+                  .endObject();
+            writer.name("product_alt").value(mAltitude[slot]);
+            writer.name("product_height_above_ground").value((Float) mHeightAboveGround[slot]);
+            int pcmd = slot * 5;
+            writer.name("device_pcmd").beginObject()
+                  .name("flag").value(mPcmd[pcmd + 4]);
+            PilotingCommandInfo.writeTo(writer, mPcmd, pcmd);
+            writer.endObject();
         }
     }
 
@@ -140,18 +238,12 @@ public final class FlightData extends TimeStampedData {
     private static final class SpeedInfo {
 
         /** Drone speed X component. */
-        @Expose
-        @SerializedName("vx")
         private float mX;
 
         /** Drone speed Y component. */
-        @Expose
-        @SerializedName("vy")
         private float mY;
 
         /** Drone speed Z component. */
-        @Expose
-        @SerializedName("vz")
         private float mZ;
 
         /**
@@ -179,28 +271,9 @@ public final class FlightData extends TimeStampedData {
             }
             return changed;
         }
-
-        /**
-         * Default constructor.
-         */
-        SpeedInfo() {
-        }
-
-        /**
-         * Copy constructor.
-         *
-         * @param other speed info to copy data from
-         */
-        SpeedInfo(@NonNull SpeedInfo other) {
-            mX = other.mX;
-            mY = other.mY;
-            mZ = other.mZ;
-        }
     }
 
     /** Drone speed. */
-    @Expose
-    @SerializedName("product_speed")
     @NonNull
     private final SpeedInfo mSpeed;
 
@@ -210,18 +283,12 @@ public final class FlightData extends TimeStampedData {
     private static final class AttitudeInfo {
 
         /** Drone attitude roll. */
-        @Expose
-        @SerializedName("roll")
         private float mRoll;
 
         /** Drone attitude pitch. */
-        @Expose
-        @SerializedName("pitch")
         private float mPitch;
 
         /** Drone attitude yaw. */
-        @Expose
-        @SerializedName("yaw")
         private float mYaw;
 
         /**
@@ -249,39 +316,16 @@ public final class FlightData extends TimeStampedData {
             }
             return changed;
         }
-
-        /**
-         * Default constructor.
-         */
-        AttitudeInfo() {
-        }
-
-        /**
-         * Copy constructor.
-         *
-         * @param other attitude info to copy data from
-         */
-        AttitudeInfo(@NonNull AttitudeInfo other) {
-            mRoll = other.mRoll;
-            mPitch = other.mPitch;
-            mYaw = other.mYaw;
-        }
     }
 
     /** Drone attitude. */
-    @Expose
-    @SerializedName("product_angles")
     @NonNull
     private final AttitudeInfo mAttitude;
 
     /** Drone altitude. */
-    @Expose
-    @SerializedName("product_alt")
     private double mAltitude;
 
     /** Drone height above ground level. */
-    @Expose
-    @SerializedName("product_height_above_ground")
     private float mHeightAboveGround;
 
     /**
@@ -290,8 +334,6 @@ public final class FlightData extends TimeStampedData {
     private static final class DronePilotingCommand extends PilotingCommandInfo {
 
         /** Piloting command flag. */
-        @Expose
-        @SerializedName("flag")
         private int mFlag;
 
         /**
@@ -313,27 +355,9 @@ public final class FlightData extends TimeStampedData {
             }
             return changed;
         }
-
-        /**
-         * Default constructor.
-         */
-        DronePilotingCommand() {
-        }
-
-        /**
-         * Copy constructor.
-         *
-         * @param other piloting command info to copy data from
-         */
-        DronePilotingCommand(@NonNull DronePilotingCommand other) {
-            super(other);
-            mFlag = other.mFlag;
-        }
     }
 
     /** Drone piloting command. */
-    @Expose
-    @SerializedName("device_pcmd")
     @NonNull
     private final DronePilotingCommand mDronePcmd;
 
@@ -345,18 +369,4 @@ public final class FlightData extends TimeStampedData {
         mAttitude = new AttitudeInfo();
         mDronePcmd = new DronePilotingCommand();
     }
-
-    /**
-     * Copy constructor.
-     *
-     * @param other flight info to copy data from
-     */
-    private FlightData(@NonNull FlightData other) {
-        super(other);
-        mSpeed = new SpeedInfo(other.mSpeed);
-        mAttitude = new AttitudeInfo(other.mAttitude);
-        mAltitude = other.mAltitude;
-        mHeightAboveGround = other.mHeightAboveGround;
-        mDronePcmd = new DronePilotingCommand(other.mDronePcmd);
-    }
 }
@@ -38,6 +38,9 @@ import androidx.annotation.NonNull;
 
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 
 /**
  * Geo location information.
@@ -80,12 +83,17 @@ public final class LocationInfo {
     }
 
     /**
-     * Copy constructor.
+     * Copies location information to an array.
+     * <p>
+     * Latitude, longitude and altitude are copied, in that order, starting at the given offset.
      *
-     * @param other location info to copy data from
+     * @param dst    array to copy to
+     * @param offset index in {@code dst} where to copy latitude
      */
-    LocationInfo(@NonNull LocationInfo other) {
-        this(other.mLatitude, other.mLongitude, other.mAltitude);
+    void copyTo(@NonNull double[] dst, int offset) {
+        dst[offset] = mLatitude;
+        dst[offset + 1] = mLongitude;
+        dst[offset + 2] = mAltitude;
     }
 
     /**
@@ -135,4 +143,19 @@ public final class LocationInfo {
         }
         return changed;
     }
+
+    /**
+     * Serializes location information copied by {@link #copyTo} as JSON object members.
+     *
+     * @param writer JSON writer to serialize to
+     * @param src    array containing location information
+     * @param offset index in {@code src} of latitude
+     *
+     * @throws IOException in case serialization failed
+     */
+    static void writeTo(@NonNull JsonWriter writer, @NonNull double[] src, int offset) throws IOException {
+        writer.name("latitude").value(src[offset])
+              .name("longitude").value(src[offset + 1])
+              .name("altitude").value(src[offset + 2]);
+    }
 }
@@ -34,8 +34,9 @@ package com.parrot.drone.groundsdk.arsdkengine.blackbox.data;
 
 import androidx.annotation.NonNull;
 
-import com.google.gson.annotations.Expose;
-import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 
 /**
  * Piloting command information.
@@ -43,23 +44,15 @@ import com.google.gson.annotations.SerializedName;
 class PilotingCommandInfo {
 
     /** Piloting command roll. */
-    @Expose
-    @SerializedName("roll")
     private int mRoll;
 
     /** Piloting command pitch. */
-    @Expose
-    @SerializedName("pitch")
     private int mPitch;
 
     /** Piloting command yaw. */
-    @Expose
-    @SerializedName("yaw")
     private int mYaw;
 
     /** Piloting command gaz. */
-    @Expose
-    @SerializedName("gaz")
     private int mGaz;
 
     /**
@@ -69,15 +62,18 @@ class PilotingCommandInfo {
     }
 
     /**
-     * Copy constructor.
+     * Copies piloting command information to an array.
+     * <p>
+     * Roll, pitch, yaw and gaz are copied, in that order, starting at the given offset.
      *
-     * @param other piloting command info to copy data from
+     * @param dst    array to copy to
+     * @param offset index in {@code dst} where to copy roll
      */
-    PilotingCommandInfo(@NonNull PilotingCommandInfo other) {
-        mRoll = other.mRoll;
-        mPitch = other.mPitch;
-        mYaw = other.mYaw;
-        mGaz = other.mGaz;
+    final void copyTo(@NonNull int[] dst, int offset) {
+        dst[offset] = mRoll;
+        dst[offset + 1] = mPitch;
+        dst[offset + 2] = mYaw;
+        dst[offset + 3] = mGaz;
     }
 
     /**
@@ -110,4 +106,20 @@ class PilotingCommandInfo {
         }
         return changed;
     }
+
+    /**
+     * Serializes piloting command information copied by {@link #copyTo} as JSON object members.
+     *
+     * @param writer JSON writer to serialize to
+     * @param src    array containing piloting command information
+     * @param offset index in {@code src} of roll
+     *
+     * @throws IOException in case serialization failed
+     */
+    static void writeTo(@NonNull JsonWriter writer, @NonNull int[] src, int offset) throws IOException {
+        writer.name("roll").value(src[offset])
+              .name("pitch").value(src[offset + 1])
+              .name("yaw").value(src[offset + 2])
+              .name("gaz").value(src[offset + 3]);
+    }
 }
@@ -0,0 +1,152 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.arsdkengine.blackbox.data;
+
+import androidx.annotation.IntRange;
+import androidx.annotation.NonNull;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Base for fixed-capacity, columnar circular buffers of timestamped data samples.
+ * <p>
+ * Subclasses store each sample field in a dedicated primitive array, allocated once upon construction. Recording a
+ * sample copies current field values to the next array slot, evicting the eldest sample once the buffer is full.
+ * Samples are serialized straight from those arrays, without ever creating per-sample objects. Only samples recorded
+ * since the latest flush are serialized.
+ */
+public abstract class SampleBuffer {
+
+    /** Timestamp of each sample, in milliseconds. */
+    @NonNull
+    private final long[] mTimeStamps;
+
+    /** Index of the eldest sample. */
+    private int mHead;
+
+    /** Amount of recorded samples. */
+    private int mSize;
+
+    /** Amount of samples recorded since latest flush. */
+    private int mUnflushed;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity maximum amount of samples in the buffer
+     */
+    SampleBuffer(@IntRange(from = 1) int capacity) {
+        mTimeStamps = new long[capacity];
+    }
+
+    /**
+     * Gives the amount of samples in the buffer.
+     *
+     * @return sample count
+     */
+    public final int size() {
+        return mSize;
+    }
+
+    /**
+     * Tells whether samples were recorded since latest flush.
+     *
+     * @return {@code true} if some samples were not flushed yet, otherwise {@code false}
+     */
+    public final boolean hasUnflushedSamples() {
+        return mUnflushed > 0;
+    }
+
+    /**
+     * Serializes all samples recorded since latest flush, from eldest to latest, as a JSON array.
+     * <p>
+     * Serialized samples are considered flushed afterwards, and won't be serialized by subsequent calls.
+     *
+     * @param writer JSON writer to serialize samples to
+     *
+     * @throws IOException in case serialization failed
+     */
+    public final void flushTo(@NonNull JsonWriter writer) throws IOException {
+        writer.beginArray();
+        for (int i = mSize - mUnflushed; i < mSize; i++) {
+            int slot = (mHead + i) % mTimeStamps.length;
+            writer.beginObject();
+            writeSample(writer, slot);
+            // TODO: this should be changed in black boxes.
+            writer.name("timestamp").value(mTimeStamps[slot] / 1000.0);
+            writer.endObject();
+        }
+        writer.endArray();
+        mUnflushed = 0;
+    }
+
+    /**
+     * Claims the slot where to record a new sample.
+     * <p>
+     * In case the given timestamp is the same as the one of the latest sample, then the sample is discarded and no
+     * slot is claimed. Otherwise, if the buffer is full, the eldest sample is evicted to free its slot.
+     *
+     * @param timeStamp timestamp of the new sample, in milliseconds
+     *
+     * @return index of the slot where to record the new sample fields, {@code -1} if the sample must be discarded
+     */
+    final int claimSlot(long timeStamp) {
+        int capacity = mTimeStamps.length;
+        if (mSize > 0 && mTimeStamps[(mHead + mSize - 1) % capacity] == timeStamp) {
+            return -1;
+        }
+        int slot;
+        if (mSize == capacity) {
+            slot = mHead;
+            mHead = (mHead + 1) % capacity;
+        } else {
+            slot = (mHead + mSize) % capacity;
+            mSize++;
+        }
+        mTimeStamps[slot] = timeStamp;
+        mUnflushed = Math.min(mUnflushed + 1, mSize);
+        return slot;
+    }
+
+    /**
+     * Serializes the fields of a sample as JSON object members, except its timestamp.
+     *
+     * @param writer JSON writer to serialize the sample to
+     * @param slot   index of the sample slot
+     *
+     * @throws IOException in case serialization failed
+     */
+    abstract void writeSample(@NonNull JsonWriter writer, int slot) throws IOException;
+}
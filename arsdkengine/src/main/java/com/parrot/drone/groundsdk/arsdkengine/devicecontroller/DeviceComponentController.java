@@ -33,11 +33,14 @@
 package com.parrot.drone.groundsdk.arsdkengine.devicecontroller;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.parrot.drone.groundsdk.internal.GroundSdkConfig;
 import com.parrot.drone.groundsdk.internal.component.ComponentStore;
 import com.parrot.drone.sdkcore.arsdk.command.ArsdkCommand;
 
+import java.util.Arrays;
+
 /**
  * Device component controller.
  *
@@ -53,6 +56,13 @@ public abstract class DeviceComponentController<TYPE, CTRL extends DeviceControl
     @NonNull
     protected final ComponentStore<TYPE> mComponentStore;
 
+    /**
+     * Uids of the features whose commands this component controller consumes. {@code null} when the component
+     * controller did not register any feature, in which case it receives all commands.
+     */
+    @Nullable
+    private int[] mCommandFeatureUids;
+
     /**
      * Constructor.
      *
@@ -64,6 +74,39 @@ public abstract class DeviceComponentController<TYPE, CTRL extends DeviceControl
         mComponentStore = componentStore;
     }
 
+    /**
+     * Registers features whose commands this component controller consumes.
+     * <p>
+     * Once at least one feature is registered, the owning device controller only forwards to
+     * {@link #onCommandReceived} the commands that belong to the registered features. A component controller that
+     * never registers any feature receives all commands. <br/>
+     * Subsequent calls add to the features registered so far, so that subclasses may register their own features in
+     * addition to those of their parent class.
+     * <p>
+     * Must be called from the constructor, before the component controller is registered to its device controller.
+     *
+     * @param featureUids uids of the features to register
+     */
+    protected final void registerCommandFeatures(@NonNull int... featureUids) {
+        if (mCommandFeatureUids == null) {
+            mCommandFeatureUids = featureUids.clone();
+        } else {
+            int registeredCount = mCommandFeatureUids.length;
+            mCommandFeatureUids = Arrays.copyOf(mCommandFeatureUids, registeredCount + featureUids.length);
+            System.arraycopy(featureUids, 0, mCommandFeatureUids, registeredCount, featureUids.length);
+        }
+    }
+
+    /**
+     * Gets the uids of the features whose commands this component controller consumes.
+     *
+     * @return registered feature uids, or {@code null} if this component controller consumes all commands
+     */
+    @Nullable
+    final int[] getCommandFeatureUids() {
+        return mCommandFeatureUids;
+    }
+
     /**
      * Tells whether the component controller is connected.
      *
@@ -154,6 +197,9 @@ public abstract class DeviceComponentController<TYPE, CTRL extends DeviceControl
     /**
      * Called when a command has been received from the managed device.
      * <p>
+     * Only commands from {@link #registerCommandFeatures registered features} are forwarded here, unless no feature
+     * has been registered at all.
+     * <p>
      * May be overridden by sub classes. Default implementation does nothing.
      *
      * @param command the command received
@@ -45,6 +45,7 @@ import com.parrot.drone.groundsdk.device.DeviceModel;
 import com.parrot.drone.groundsdk.device.DeviceState;
 import com.parrot.drone.groundsdk.device.Drone;
 import com.parrot.drone.groundsdk.facility.firmware.FirmwareVersion;
+import com.parrot.drone.groundsdk.internal.component.ComponentCore;
 import com.parrot.drone.groundsdk.internal.device.DeviceConnectorCore;
 import com.parrot.drone.groundsdk.internal.device.DeviceCore;
 import com.parrot.drone.groundsdk.internal.device.DeviceStateCore;
@@ -56,6 +57,7 @@ import com.parrot.drone.sdkcore.arsdk.blackbox.ArsdkBlackBoxRequest;
 import com.parrot.drone.sdkcore.arsdk.command.ArsdkCommand;
 import com.parrot.drone.sdkcore.arsdk.command.ArsdkNoAckCmdEncoder;
 import com.parrot.drone.sdkcore.arsdk.crashml.ArsdkCrashmlDownloadRequest;
+import com.parrot.drone.sdkcore.arsdk.device.ArsdkCommandBatch;
 import com.parrot.drone.sdkcore.arsdk.device.ArsdkRequest;
 import com.parrot.drone.sdkcore.arsdk.device.ArsdkTcpProxy;
 import com.parrot.drone.sdkcore.arsdk.firmware.ArsdkFirmwareUploadRequest;
@@ -306,6 +308,20 @@ public abstract class DeviceController<D extends DeviceCore> {
     @NonNull
     private final List<DeviceComponentController<?, ?>> mComponentControllers;
 
+    /**
+     * Received command routing table. Associates the uid of a feature to the route that dispatches commands from that
+     * feature to the component controllers that consume them.
+     */
+    @NonNull
+    private final SparseArray<CommandRoute> mCommandRoutes;
+
+    /**
+     * Component controllers that did not register any command feature, and thus receive all commands, in registration
+     * order.
+     */
+    @NonNull
+    private DeviceComponentController<?, ?>[] mUnroutedControllers;
+
     /** Registered providers for this device controller, by connector. */
     @NonNull
     private final Map<DeviceConnector, DeviceProvider> mDeviceProviders;
@@ -382,6 +398,8 @@ public abstract class DeviceController<D extends DeviceCore> {
         mConnectionState = ControllerConnectionState.DISCONNECTED;
         mDevice = deviceFactory.create(mDeviceDelegate);
         mComponentControllers = new ArrayList<>();
+        mCommandRoutes = new SparseArray<>();
+        mUnroutedControllers = new DeviceComponentController<?, ?>[0];
         mDeviceProviders = new HashMap<>();
         mNoAckLoopPeriod = nonAckLoopPeriod;
         PersistentStore persistentStore = engine.getPersistentStore();
@@ -607,7 +625,7 @@ public abstract class DeviceController<D extends DeviceCore> {
     /**
      * Called when a command is received from the controlled device.
      * <p>
-     * Forwards the command to all controller's component controllers. <br/>
+     * Forwards the command to the controller's component controllers that consume the command's feature. <br/>
      * Subclasses may override this method to perform further processing, but <strong>MUST</strong> call super in that
      * case.
      *
@@ -615,15 +633,42 @@ public abstract class DeviceController<D extends DeviceCore> {
      */
     @CallSuper
     public void onCommandReceived(@NonNull ArsdkCommand command) {
-        // Note: intentional classic for-loop, otherwise an iterator is allocated for each received command.
-        for (int i = 0, N = mComponentControllers.size(); i < N; i++) {
-            mComponentControllers.get(i).onCommandReceived(command);
+        int featureId = command.getFeatureId();
+        CommandRoute route = mCommandRoutes.get(featureId);
+        if (route == null) {
+            // feature not registered by any component controller; remember it so that it gets counted as well
+            route = new CommandRoute(mUnroutedControllers);
+            mCommandRoutes.put(featureId, route);
         }
+        route.dispatch(command);
         if (mBlackBoxSession != null) {
             mBlackBoxSession.onCommandReceived(command);
         }
     }
 
+    /**
+     * Called when a batch of commands is received from the controlled device.
+     * <p>
+     * Forwards each command of the batch, in reception order, to {@link #onCommandReceived(ArsdkCommand)}. <br/>
+     * Device components updated while processing the batch are notified only once, after the whole batch has been
+     * processed, unless they are notified using {@link ComponentCore#notifyUpdatedNow()}, which transient states
+     * require.
+     * <p>
+     * The batch and the commands it contains are only valid for the duration of this call.
+     *
+     * @param batch received command batch
+     */
+    public final void onCommandsReceived(@NonNull ArsdkCommandBatch batch) {
+        mDevice.beginComponentTransaction();
+        try {
+            for (int i = 0, N = batch.size(); i < N; i++) {
+                onCommandReceived(batch.get(i));
+            }
+        } finally {
+            mDevice.endComponentTransaction();
+        }
+    }
+
     /**
      * Forces the controller to stop.
      * <p>
@@ -1056,6 +1101,53 @@ public abstract class DeviceController<D extends DeviceCore> {
     final void registerComponentControllers(@NonNull DeviceComponentController<?, ?>... controllers) {
         mComponentControllers.addAll(Arrays.asList(controllers));
         mComponentControllers.removeAll(Collections.<DeviceComponentController<?, ?>>singleton(null));
+        buildCommandRoutes();
+    }
+
+    /**
+     * Builds the received command routing table from the command features registered by each component controller.
+     * <p>
+     * For each feature, component controllers are kept in registration order, so that commands are dispatched in the
+     * same order as if they were forwarded to all component controllers.
+     */
+    private void buildCommandRoutes() {
+        SparseArray<List<DeviceComponentController<?, ?>>> routes = new SparseArray<>();
+        List<DeviceComponentController<?, ?>> unrouted = new ArrayList<>();
+        for (DeviceComponentController<?, ?> controller : mComponentControllers) {
+            int[] featureUids = controller.getCommandFeatureUids();
+            if (featureUids == null) {
+                unrouted.add(controller);
+            } else {
+                for (int featureUid : featureUids) {
+                    if (routes.get(featureUid) == null) {
+                        routes.put(featureUid, new ArrayList<>());
+                    }
+                }
+            }
+        }
+
+        for (DeviceComponentController<?, ?> controller : mComponentControllers) {
+            int[] featureUids = controller.getCommandFeatureUids();
+            if (featureUids == null) {
+                for (int i = 0, N = routes.size(); i < N; i++) {
+                    routes.valueAt(i).add(controller);
+                }
+            } else {
+                for (int featureUid : featureUids) {
+                    List<DeviceComponentController<?, ?>> route = routes.get(featureUid);
+                    if (!route.contains(controller)) {
+                        route.add(controller);
+                    }
+                }
+            }
+        }
+
+        mCommandRoutes.clear();
+        for (int i = 0, N = routes.size(); i < N; i++) {
+            mCommandRoutes.put(routes.keyAt(i), new CommandRoute(
+                    routes.valueAt(i).toArray(new DeviceComponentController<?, ?>[0])));
+        }
+        mUnroutedControllers = unrouted.toArray(new DeviceComponentController<?, ?>[0]);
     }
 
     /**
@@ -1288,10 +1380,12 @@ public abstract class DeviceController<D extends DeviceCore> {
             }
 
             if (mFlightPlanFtpSession != null) {
+                mFlightPlanFtpSession.close();
                 mFlightPlanFtpSession = null;
             }
 
             if (mMediaStoreFtpSession != null) {
+                mMediaStoreFtpSession.close();
                 mMediaStoreFtpSession = null;
             }
 
@@ -1300,6 +1394,9 @@ public abstract class DeviceController<D extends DeviceCore> {
             clearConnectionTimeout();
             onProtocolDisconnected();
 
+            // settings received while connected are no longer expected to change: persist them now
+            mEngine.getPersistentStore().flush();
+
             if (!mAutoReconnect || mActiveProvider == null || !connectDevice(mActiveProvider, null,
                     DeviceState.ConnectionStateCause.CONNECTION_LOST)) {
                 mActiveProvider = null;
@@ -1345,6 +1442,46 @@ public abstract class DeviceController<D extends DeviceCore> {
         writer.write(prefix + "\tProviders: "
                      + (mDeviceProviders.isEmpty() ? "None" : TextUtils.join(", ", mDeviceProviders.values()))
                      + " [active: " + mActiveProvider + "]\n");
+        writer.write(prefix + "\tCommand routes: " + mCommandRoutes.size() + "\n");
+        for (int i = 0, N = mCommandRoutes.size(); i < N; i++) {
+            CommandRoute route = mCommandRoutes.valueAt(i);
+            writer.write(prefix + "\t\tFeature " + String.format("0x%04x", mCommandRoutes.keyAt(i))
+                         + ": dispatched " + route.mDispatchCount + " times to "
+                         + Arrays.toString(route.mControllers) + "\n");
+        }
+    }
+
+    /** Dispatches received commands of a given feature to the component controllers that consume them. */
+    private static final class CommandRoute {
+
+        /** Component controllers to dispatch commands to, in registration order. */
+        @NonNull
+        private final DeviceComponentController<?, ?>[] mControllers;
+
+        /** Count of commands dispatched through this route. */
+        private int mDispatchCount;
+
+        /**
+         * Constructor.
+         *
+         * @param controllers component controllers to dispatch commands to
+         */
+        CommandRoute(@NonNull DeviceComponentController<?, ?>[] controllers) {
+            mControllers = controllers;
+        }
+
+        /**
+         * Dispatches a command to all component controllers of this route.
+         *
+         * @param command command to dispatch
+         */
+        void dispatch(@NonNull ArsdkCommand command) {
+            mDispatchCount++;
+            // Note: intentional classic for-loop, otherwise an iterator is allocated for each received command.
+            for (int i = 0, N = mControllers.length; i < N; i++) {
+                mControllers[i].onCommandReceived(command);
+            }
+        }
     }
 
     @NonNull
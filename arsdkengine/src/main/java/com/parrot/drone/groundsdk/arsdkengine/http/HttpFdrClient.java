@@ -202,7 +202,7 @@ public class HttpFdrClient extends HttpClient {
             } finally {
                 body.close();
             }
-        }).whenComplete((result, error, canceled) -> {
+        }, Executor.Lane.TRANSFER).whenComplete((result, error, canceled) -> {
             if (error != null) {
                 if (ULog.e(TAG_HTTP)) {
                     ULog.e(TAG_HTTP, "Download request failed [url:" + url + ", dest: " + dest + "]", error);
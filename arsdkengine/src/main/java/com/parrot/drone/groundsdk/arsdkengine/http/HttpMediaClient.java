@@ -35,24 +35,31 @@ package com.parrot.drone.groundsdk.arsdkengine.http;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
 
 import com.google.gson.FieldNamingPolicy;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
 import com.parrot.drone.groundsdk.internal.http.HttpClient;
 import com.parrot.drone.groundsdk.internal.http.HttpRequest;
 import com.parrot.drone.groundsdk.internal.http.HttpSession;
-import com.parrot.drone.groundsdk.internal.http.ProgressCaptor;
-import com.parrot.drone.groundsdk.internal.io.Files;
+import com.parrot.drone.groundsdk.internal.http.ProgressReporter;
 import com.parrot.drone.groundsdk.internal.tasks.Executor;
 import com.parrot.drone.groundsdk.internal.tasks.Task;
 import com.parrot.drone.sdkcore.ulog.ULog;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 
 import okhttp3.ResponseBody;
@@ -63,6 +70,7 @@ import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
 import retrofit2.http.DELETE;
 import retrofit2.http.GET;
+import retrofit2.http.Header;
 import retrofit2.http.Path;
 import retrofit2.http.Streaming;
 import retrofit2.http.Url;
@@ -86,6 +94,18 @@ public class HttpMediaClient extends HttpClient {
     @VisibleForTesting // tests refer to this to test progress
     static final int CHUNK_SIZE = 8192; // we use the same size as Okio segments, for consistency
 
+    /** Minimal size of a media/resource for it to be downloaded over several concurrent connections, in bytes. */
+    private static final long SEGMENTED_DOWNLOAD_THRESHOLD = 64 * 1024 * 1024;
+
+    /** Amount of concurrent connections used to download media/resources in segmented mode. */
+    private static final int SEGMENTED_DOWNLOAD_CONNECTIONS = 4;
+
+    /** HTTP status code sent by the server when it honors a range request. */
+    private static final int HTTP_PARTIAL_CONTENT = 206;
+
+    /** HTTP status code sent by the server when a requested range cannot be satisfied. */
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+
     /** An interface for receiving media events. */
     public interface Listener {
 
@@ -130,6 +150,21 @@ public class HttpMediaClient extends HttpClient {
         void onIndexingStateChanged(@NonNull HttpMediaIndexingState state);
     }
 
+    /**
+     * An interface for receiving media items progressively while the media list is being browsed.
+     *
+     * @param <T> type of media items
+     */
+    public interface BrowseListener<T> {
+
+        /**
+         * Called back on main thread when a page of media items has been received.
+         *
+         * @param page received media items, in browse order
+         */
+        void onPage(@NonNull List<T> page);
+    }
+
     /** HTTP session. */
     @NonNull
     private final HttpSession mSession;
@@ -221,43 +256,101 @@ public class HttpMediaClient extends HttpClient {
     }
 
     /**
-     * Browse available medias.
+     * Browse available medias, streaming the result.
+     * <p>
+     * The media list is decoded progressively as it is received, one media at a time, without ever holding the whole
+     * list in memory. Each decoded media is handed to the given {@code transform} on the background thread that
+     * decodes the list; transformed media are then forwarded to the given {@code listener} on main thread, by pages of
+     * at most {@code pageSize} items.
+     * <p>
+     * All pages are forwarded before {@code callback} is notified of request completion. No page is forwarded once
+     * the request is canceled.
      *
-     * @param callback callback notified of request completion status and result (list of medias)
+     * @param transform function to apply to each received media, may return {@code null} to drop the media
+     * @param pageSize  maximum count of media items in a page
+     * @param listener  listener notified of received media items
+     * @param callback  callback notified of request completion status
+     * @param <T>       type of transformed media items
      *
      * @return the ongoing request, that can be canceled
      */
     @NonNull
-    public HttpRequest browse(@NonNull HttpRequest.ResultCallback<List<HttpMediaItem>> callback) {
-        Call<List<HttpMediaItem>> call = mService.list();
-        call.enqueue(new Callback<List<HttpMediaItem>>() {
-
-            @Override
-            public void onResponse(Call<List<HttpMediaItem>> call, Response<List<HttpMediaItem>> response) {
-                int code = response.code();
-                if (response.isSuccessful()) {
-                    callback.onRequestComplete(HttpRequest.Status.SUCCESS, code, response.body());
-                } else {
-                    if (ULog.e(TAG_HTTP)) {
-                        ULog.e(TAG_HTTP, "Failed to browse media list [code: " + code + "]");
+    public <T> HttpRequest browse(@NonNull Function<HttpMediaItem, T> transform, int pageSize,
+                                  @NonNull BrowseListener<T> listener, @NonNull HttpRequest.StatusCallback callback) {
+        Call<ResponseBody> browseCall = mService.streamList();
+        AtomicBoolean canceled = new AtomicBoolean();
+        Task<Void> browseTask = Executor.runInBackground((Callable<Void>) () -> {
+            Response<ResponseBody> response = browseCall.execute();
+            if (browseCall.isCanceled()) {
+                // retrofit call.execute silently eats InterruptedException, so we rely on the call canceled flag
+                // to restore the interruption status after the call
+                throw new InterruptedException("Canceled retrofit call");
+            }
+            if (!response.isSuccessful()) {
+                throw new HttpException(response.message(), response.code());
+            }
+            ResponseBody body = response.body();
+            assert body != null;
+            try (JsonReader reader = new JsonReader(body.charStream())) {
+                List<T> page = new ArrayList<>(pageSize);
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedException("Canceled media list streaming");
+                    }
+                    HttpMediaItem media = mGson.fromJson(reader, HttpMediaItem.class);
+                    T item = media == null ? null : transform.apply(media);
+                    if (item != null) {
+                        page.add(item);
+                        if (page.size() == pageSize) {
+                            postPage(page, listener, canceled);
+                            page = new ArrayList<>(pageSize);
+                        }
                     }
-                    callback.onRequestComplete(HttpRequest.Status.FAILED, code, null);
+                }
+                reader.endArray();
+                if (!page.isEmpty()) {
+                    postPage(page, listener, canceled);
                 }
             }
-
-            @Override
-            public void onFailure(Call<List<HttpMediaItem>> call, Throwable error) {
-                if (call.isCanceled()) {
-                    callback.onRequestComplete(HttpRequest.Status.CANCELED, HttpRequest.STATUS_CODE_UNKNOWN, null);
-                } else {
-                    if (ULog.e(TAG_HTTP)) {
-                        ULog.e(TAG_HTTP, "Failed to browse media list", error);
-                    }
-                    callback.onRequestComplete(HttpRequest.Status.FAILED, HttpRequest.STATUS_CODE_UNKNOWN, null);
+            return null;
+        }).whenComplete((result, error, taskCanceled) -> {
+            if (error != null) {
+                if (ULog.e(TAG_HTTP)) {
+                    ULog.e(TAG_HTTP, "Failed to stream media list", error);
                 }
+                callback.onRequestComplete(HttpRequest.Status.FAILED, error instanceof HttpException ?
+                        ((HttpException) error).getCode() : HttpRequest.STATUS_CODE_UNKNOWN);
+            } else if (taskCanceled) {
+                callback.onRequestComplete(HttpRequest.Status.CANCELED, HttpRequest.STATUS_CODE_UNKNOWN);
+            } else {
+                callback.onRequestComplete(HttpRequest.Status.SUCCESS, 200);
+            }
+        });
+        return bookRequest(() -> {
+            canceled.set(true);
+            browseCall.cancel();
+            browseTask.cancel();
+        });
+    }
+
+    /**
+     * Forwards a page of browsed media items to a listener, on main thread.
+     * <p>
+     * This method must be called from a background thread.
+     *
+     * @param page     media items to forward
+     * @param listener listener to forward media items to
+     * @param canceled browse request cancellation flag; media items are not forwarded if the request is canceled
+     * @param <T>      type of media items
+     */
+    private static <T> void postPage(@NonNull List<T> page, @NonNull BrowseListener<T> listener,
+                                     @NonNull AtomicBoolean canceled) {
+        Executor.postOnMainThread(() -> {
+            if (!canceled.get()) {
+                listener.onPage(page);
             }
         });
-        return bookRequest(call::cancel);
     }
 
     /**
@@ -455,6 +548,12 @@ public class HttpMediaClient extends HttpClient {
 
     /**
      * Downloads a media/resource.
+     * <p>
+     * Data is downloaded to a partial file next to {@code dest}, which is renamed to {@code dest} once the download
+     * completes. In case the download fails, or is interrupted because this client is disposed, the partial file is
+     * kept so that a subsequent download to the same destination resumes from where the previous one stopped, using an
+     * HTTP {@code Range} request, provided that the remote file did not change meanwhile. In case the returned request
+     * is canceled, the partial file is deleted.
      *
      * @param url      url of the media/resource to download
      * @param dest     file where to store the downloaded media/resource
@@ -465,42 +564,71 @@ public class HttpMediaClient extends HttpClient {
     @NonNull
     public HttpRequest download(@NonNull String url, @NonNull File dest,
                                 @NonNull HttpRequest.ProgressStatusCallback callback) {
-        Call<ResponseBody> downloadCall = mService.download(url);
-        Task<Void> downloadTask = Executor.runInBackground((Callable<Void>) () -> {
-            Response<ResponseBody> response = downloadCall.execute();
-            if (downloadCall.isCanceled()) {
-                // retrofit call.execute silently eats InterruptedException, so we rely on the call canceled flag
-                // to restore the interruption status after the call
-                throw new InterruptedException("Canceled retrofit call");
-            }
+        return download(url, dest, -1, callback);
+    }
 
-            ResponseBody body = response.body();
-            if (!response.isSuccessful()) {
-                throw new HttpException(response.message(), response.code());
-            }
+    /**
+     * Downloads a media/resource of known size.
+     * <p>
+     * Media/resources larger than {@link #SEGMENTED_DOWNLOAD_THRESHOLD} are downloaded in segmented mode: the file is
+     * split in {@link #SEGMENTED_DOWNLOAD_CONNECTIONS} byte ranges, downloaded concurrently over distinct connections.
+     * In that mode, the callback is also notified of the throughput of each connection. Smaller media/resources are
+     * downloaded over a single connection, as with {@link #download(String, File, HttpRequest.ProgressStatusCallback)}.
+     * <p>
+     * In both modes, interrupted downloads are resumed by subsequent downloads to the same destination, and downloaded
+     * data is checked against the given size, even if the server does not advertise the size of the file.
+     *
+     * @param url      url of the media/resource to download
+     * @param dest     file where to store the downloaded media/resource
+     * @param size     size of the media/resource, in bytes; negative if unknown
+     * @param callback callback notified of request progress and completion status
+     *
+     * @return the ongoing request, that can be canceled
+     */
+    @NonNull
+    public HttpRequest download(@NonNull String url, @NonNull File dest, long size,
+                                @NonNull HttpRequest.ProgressStatusCallback callback) {
+        AtomicBoolean discard = new AtomicBoolean();
+        HttpRequest request = size < SEGMENTED_DOWNLOAD_THRESHOLD ? startDownload(url, dest, size, discard, callback)
+                : new SegmentedDownload(dest, size, SEGMENTED_DOWNLOAD_CONNECTIONS,
+                        (range, ifRange) -> mService.download(url, range, ifRange),
+                        () -> startDownload(url, dest, size, discard, callback), discard, callback).start();
+        // disposal cancels the booked request, keeping downloaded data; only the caller may cancel and discard it
+        bookRequest(request);
+        return () -> {
+            discard.set(true);
+            request.cancel();
+        };
+    }
 
-            assert body != null;
-            body = ProgressCaptor.captureOf(body,
-                    percent -> Executor.postOnMainThread(() -> callback.onRequestProgress(percent)));
+    /**
+     * Starts downloading a media/resource over a single connection.
+     *
+     * @param url      url of the media/resource to download
+     * @param dest     file where to store the downloaded media/resource
+     * @param size     size of the media/resource, in bytes; negative if unknown
+     * @param discard  set when the download is canceled by the caller, in which case the partial file is deleted
+     * @param callback callback notified of request progress and completion status
+     *
+     * @return the ongoing request, that can be canceled
+     */
+    @NonNull
+    private HttpRequest startDownload(@NonNull String url, @NonNull File dest, long size,
+                                      @NonNull AtomicBoolean discard,
+                                      @NonNull HttpRequest.ProgressStatusCallback callback) {
+        AtomicReference<Call<ResponseBody>> downloadCall = new AtomicReference<>();
+        Task<Void> downloadTask = Executor.runInBackground((Callable<Void>) () -> {
+            PartialDownload partial = PartialDownload.of(dest);
             try {
-                Files.writeFile(body.byteStream(), dest, CHUNK_SIZE);
-                long received = dest.length();
-                long expected = body.contentLength();
-                if (received != expected) {
-                    throw new IOException("Received content mismatch [expected: " + expected
-                                          + ", received: " + received + "]");
-                }
-                return null;
+                download(url, partial, size, downloadCall, callback);
             } catch (IOException | InterruptedException e) {
-                // ensure we cleanup the file before getting out of the background task
-                if (dest.exists() && !dest.delete() && ULog.w(TAG_HTTP)) {
-                    ULog.w(TAG_HTTP, "Could not clean up partially downloaded file: " + dest);
+                if (discard.get()) {
+                    partial.discard();
                 }
                 throw e;
-            } finally {
-                body.close();
             }
-        }).whenComplete((result, error, canceled) -> {
+            return null;
+        }, Executor.Lane.TRANSFER).whenComplete((result, error, canceled) -> {
             if (error != null) {
                 if (ULog.e(TAG_HTTP)) {
                     ULog.e(TAG_HTTP, "Download request failed [url:" + url + ", dest: " + dest + "]", error);
@@ -514,23 +642,172 @@ public class HttpMediaClient extends HttpClient {
             }
         });
 
-        return bookRequest(() -> {
-            downloadCall.cancel();
+        return () -> {
+            Call<ResponseBody> call = downloadCall.get();
+            if (call != null) {
+                call.cancel();
+            }
             downloadTask.cancel();
-        });
+        };
+    }
+
+    /**
+     * Downloads a media/resource over a single connection, resuming a previous download if possible.
+     * <p>
+     * A previous download is only resumed if a validator was recorded for it, which is sent in an {@code If-Range}
+     * header; otherwise it is discarded and the whole media/resource is downloaded again.
+     *
+     * @param url          url of the media/resource to download
+     * @param partial      partial download state
+     * @param size         size of the media/resource, in bytes; negative if unknown. Used to check downloaded data in
+     *                     case the server does not advertise the size of the file
+     * @param downloadCall receives the download call, so that it can be canceled
+     * @param callback     callback notified of request progress
+     *
+     * @throws IOException          in case the download failed
+     * @throws InterruptedException in case the download was canceled
+     */
+    @WorkerThread
+    private void download(@NonNull String url, @NonNull PartialDownload partial, long size,
+                          @NonNull AtomicReference<Call<ResponseBody>> downloadCall,
+                          @NonNull HttpRequest.ProgressStatusCallback callback)
+            throws IOException, InterruptedException {
+        long offset = partial.getResumeOffset();
+        String validator = partial.getValidator();
+        if (offset > 0 && validator == null) {
+            // cannot tell whether the remote file changed meanwhile, so download it whole
+            if (ULog.i(TAG_HTTP)) {
+                ULog.i(TAG_HTTP, "Discarding partial download without validator [url:" + url + "]");
+            }
+            partial.discard();
+            offset = 0;
+        }
+        Call<ResponseBody> call = offset > 0 ?
+                mService.download(url, "bytes=" + offset + "-", validator)
+                : mService.download(url, null, null);
+        downloadCall.set(call);
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException("Canceled download");
+        }
+        Response<ResponseBody> response = call.execute();
+        if (call.isCanceled()) {
+            // retrofit call.execute silently eats InterruptedException, so we rely on the call canceled flag
+            // to restore the interruption status after the call
+            throw new InterruptedException("Canceled retrofit call");
+        }
+
+        try (ResponseBody body = response.body()) {
+            if (offset > 0 && response.code() == HTTP_PARTIAL_CONTENT) {
+                String contentRange = response.headers().get("Content-Range");
+                if (!isResumedRange(contentRange, offset, partial.getExpectedSize())) {
+                    partial.discard();
+                    throw new IOException("Unexpected content range: " + contentRange);
+                }
+                if (ULog.i(TAG_HTTP)) {
+                    ULog.i(TAG_HTTP, "Resuming download [url:" + url + ", offset: " + offset + "]");
+                }
+            } else if (response.isSuccessful()) {
+                // either a fresh download, or the remote file changed and the server sent it whole
+                assert body != null;
+                offset = 0;
+                long contentLength = body.contentLength();
+                partial.restart(contentLength >= 0 ? contentLength : size, response.headers().get("ETag"),
+                        response.headers().get("Last-Modified"));
+            } else {
+                if (response.code() == HTTP_RANGE_NOT_SATISFIABLE) {
+                    partial.discard();
+                }
+                throw new HttpException(response.message(), response.code());
+            }
+
+            assert body != null;
+            transfer(body.byteStream(), partial.getPartFile(), offset, partial.getExpectedSize(),
+                    ProgressReporter.of(callback));
+            partial.complete();
+        }
+    }
+
+    /**
+     * Tells whether a {@code Content-Range} response header matches a resumed download request.
+     *
+     * @param contentRange  {@code Content-Range} header value, {@code null} if absent
+     * @param offset        offset from which the download was requested to resume
+     * @param expectedTotal expected total size of the downloaded file; negative if unknown
+     *
+     * @return {@code true} if the received range starts at {@code offset} and, when known, matches the expected total
+     *         size, otherwise {@code false}
+     */
+    @VisibleForTesting
+    static boolean isResumedRange(@Nullable String contentRange, long offset, long expectedTotal) {
+        // expected format: "bytes <first>-<last>/<total>", total may be '*' if unknown
+        if (contentRange == null || !contentRange.startsWith("bytes ")) {
+            return false;
+        }
+        int dash = contentRange.indexOf('-');
+        int slash = contentRange.indexOf('/');
+        if (dash < 0 || slash < dash) {
+            return false;
+        }
+        try {
+            long first = Long.parseLong(contentRange.substring("bytes ".length(), dash).trim());
+            String total = contentRange.substring(slash + 1).trim();
+            return first == offset
+                   && (expectedTotal < 0 || total.equals("*") || Long.parseLong(total) == expectedTotal);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Transfers downloaded data to a file, reporting progress over the whole file.
+     *
+     * @param src        stream to read downloaded data from
+     * @param dest       file to write to
+     * @param offset     offset in {@code dest} where to start writing; {@code dest} is appended to if positive,
+     *                   otherwise overwritten
+     * @param totalSize  total size of the downloaded file, used to compute progress; negative if unknown
+     * @param reporter   reporter notified of the amount of bytes received so far, over the whole file
+     *
+     * @throws IOException          in case reading or writing failed
+     * @throws InterruptedException if the current thread is interrupted while this method executes. Interruption
+     *                              status is checked in between each chunk read and write.
+     */
+    private static void transfer(@NonNull InputStream src, @NonNull File dest, long offset, long totalSize,
+                                 @NonNull ProgressReporter reporter) throws IOException, InterruptedException {
+        byte[] buffer = new byte[CHUNK_SIZE];
+        long received = offset;
+        if (received > 0) {
+            reporter.onTransferred(received, totalSize);
+        }
+        try (OutputStream dst = new FileOutputStream(dest, offset > 0)) {
+            int read;
+            while ((read = src.read(buffer)) != -1) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException("Download interrupted");
+                }
+                dst.write(buffer, 0, read);
+                received += read;
+                reporter.onTransferred(received, totalSize);
+            }
+        }
     }
 
     /** REST API. */
     private interface Service {
 
         /**
-         * Retrieves the list of medias on the drone.
+         * Retrieves the list of medias on the drone, as a stream.
+         * <p>
+         * This endpoint is intended to be used to decode media lists progressively, without holding the whole list in
+         * memory.
          *
-         * @return drone media list
+         * @return a retrofit call for sending the request out. The received response body provides a connected input
+         *         stream that can be read to receive the JSON media list progressively
          */
         @NonNull
         @GET(MEDIA_ENDPOINT_BASE + "medias")
-        Call<List<HttpMediaItem>> list();
+        @Streaming
+        Call<ResponseBody> streamList();
 
         /**
          * Downloads a media/resource file from the drone.
@@ -538,7 +815,10 @@ public class HttpMediaClient extends HttpClient {
          * This endpoint is intended to be used to download large files, that are dumped directly to the system storage
          * without being held in their totality in memory.
          *
-         * @param url url of the media/resource to download
+         * @param url     url of the media/resource to download
+         * @param range   byte range to download, {@code null} to download the whole file
+         * @param ifRange validator of the file the range applies to, {@code null} if none. When provided, the server
+         *                sends the whole file instead of the requested range if the file does not match this validator
          *
          * @return a retrofit call for sending the request out. The received response body does not contain any data
          *         per-se but provides a connected input stream that can be read to receive data progressively
@@ -546,7 +826,8 @@ public class HttpMediaClient extends HttpClient {
         @GET
         @Streaming
         @NonNull
-        Call<ResponseBody> download(@NonNull @Url String url);
+        Call<ResponseBody> download(@NonNull @Url String url, @Nullable @Header("Range") String range,
+                                    @Nullable @Header("If-Range") String ifRange);
 
         /**
          * Fetches a media/resource file from the drone.
@@ -627,6 +627,79 @@ public final class HttpMediaItem implements Iterable<HttpMediaItem.Resource> {
         this.resources = resources.toArray(new Resource[0]);
     }
 
+    /**
+     * Copy constructor, replacing media resources.
+     *
+     * @param other     media to copy
+     * @param resources resources of the new media
+     * @param size      total size of the new media, in bytes
+     */
+    private HttpMediaItem(@NonNull HttpMediaItem other, @NonNull Resource[] resources, @IntRange(from = 0) long size) {
+        this.mediaId = other.mediaId;
+        this.type = other.type;
+        this.datetime = other.datetime;
+        this.size = size;
+        this.runId = other.runId;
+        this.expectedCount = other.expectedCount;
+        this.thumbnail = other.thumbnail;
+        this.replayUrl = other.replayUrl;
+        this.gps = other.gps;
+        this.photoMode = other.photoMode;
+        this.panoramaType = other.panoramaType;
+        this.thermal = other.thermal;
+        this.resources = resources;
+    }
+
+    /**
+     * Creates a copy of this media, with the given resource added.
+     * <p>
+     * If this media already contains a resource with the same identifier, that resource is replaced.
+     *
+     * @param resource resource to add
+     *
+     * @return a new media, containing the given resource
+     */
+    @NonNull
+    public HttpMediaItem withResource(@NonNull Resource resource) {
+        Resource[] current = resources == null ? new Resource[0] : resources;
+        long newSize = size + resource.size;
+        for (int i = 0; i < current.length; i++) {
+            Resource existing = current[i];
+            if (existing != null && Objects.equals(existing.resourceId, resource.resourceId)) {
+                Resource[] updated = current.clone();
+                updated[i] = resource;
+                return new HttpMediaItem(this, updated, Math.max(0, newSize - existing.size));
+            }
+        }
+        Resource[] updated = new Resource[current.length + 1];
+        System.arraycopy(current, 0, updated, 0, current.length);
+        updated[current.length] = resource;
+        return new HttpMediaItem(this, updated, newSize);
+    }
+
+    /**
+     * Creates a copy of this media, with the given resource removed.
+     *
+     * @param resourceId identifier of the resource to remove
+     *
+     * @return a new media, without the given resource, or {@code null} if this media contains no such resource
+     */
+    @Nullable
+    public HttpMediaItem withoutResource(@NonNull String resourceId) {
+        if (resources != null) {
+            for (int i = 0; i < resources.length; i++) {
+                Resource existing = resources[i];
+                if (existing != null && resourceId.equals(existing.resourceId)) {
+                    Resource[] updated = new Resource[resources.length - 1];
+                    System.arraycopy(resources, 0, updated, 0, i);
+                    System.arraycopy(resources, i + 1, updated, i, resources.length - i - 1);
+                    return new HttpMediaItem(this, updated, Math.max(0, size - existing.size));
+                }
+            }
+        }
+        return null;
+    }
+
     /**
      * Retrieves the unique identifier of this media.
      *
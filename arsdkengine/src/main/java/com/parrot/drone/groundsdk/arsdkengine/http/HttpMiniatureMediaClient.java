@@ -40,6 +40,7 @@ import com.parrot.drone.groundsdk.internal.http.HttpClient;
 import com.parrot.drone.groundsdk.internal.http.HttpRequest;
 import com.parrot.drone.groundsdk.internal.http.HttpSession;
 import com.parrot.drone.groundsdk.internal.http.ProgressCaptor;
+import com.parrot.drone.groundsdk.internal.http.ProgressReporter;
 import com.parrot.drone.groundsdk.internal.io.Files;
 import com.parrot.drone.groundsdk.internal.tasks.Executor;
 import com.parrot.drone.groundsdk.internal.tasks.Task;
@@ -479,8 +480,7 @@ public class HttpMiniatureMediaClient extends HttpClient {
             }
 
             assert body != null;
-            body = ProgressCaptor.captureOf(body,
-                    percent -> Executor.postOnMainThread(() -> callback.onRequestProgress(percent)));
+            body = ProgressCaptor.captureOf(body, ProgressReporter.of(callback));
             try {
                 Files.writeFile(body.byteStream(), dest, CHUNK_SIZE);
                 long received = dest.length();
@@ -499,7 +499,7 @@ public class HttpMiniatureMediaClient extends HttpClient {
             } finally {
                 body.close();
             }
-        }).whenComplete((result, error, canceled) -> {
+        }, Executor.Lane.TRANSFER).whenComplete((result, error, canceled) -> {
             if (error != null) {
                 if (ULog.e(TAG_HTTP)) {
                     ULog.e(TAG_HTTP, "Download request failed [url:" + url + ", dest: " + dest + "]", error);
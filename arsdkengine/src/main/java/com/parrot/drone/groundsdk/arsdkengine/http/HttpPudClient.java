@@ -224,7 +224,7 @@ public class HttpPudClient extends HttpClient {
             } finally {
                 body.close();
             }
-        }).whenComplete((result, error, canceled) -> {
+        }, Executor.Lane.TRANSFER).whenComplete((result, error, canceled) -> {
             if (error != null) {
                 if (ULog.e(TAG_HTTP)) {
                     ULog.e(TAG_HTTP, "PUD download request failed [url:" + url + ", dest: " + dest + "]", error);
@@ -192,7 +192,7 @@ public class HttpReportClient extends HttpClient {
             } finally {
                 body.close();
             }
-        }).whenComplete((result, error, canceled) -> {
+        }, Executor.Lane.TRANSFER).whenComplete((result, error, canceled) -> {
             if (error != null) {
                 if (ULog.e(TAG_HTTP)) {
                     ULog.e(TAG_HTTP, "Download request failed [url:" + url + ", dest: " + dest + "]", error);
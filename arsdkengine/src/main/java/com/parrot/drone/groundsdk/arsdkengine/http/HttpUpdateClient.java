@@ -38,7 +38,7 @@ import com.parrot.drone.groundsdk.internal.http.HttpClient;
 import com.parrot.drone.groundsdk.internal.http.HttpRequest;
 import com.parrot.drone.groundsdk.internal.http.HttpSession;
 import com.parrot.drone.groundsdk.internal.http.ProgressCaptor;
-import com.parrot.drone.groundsdk.internal.tasks.Executor;
+import com.parrot.drone.groundsdk.internal.http.ProgressReporter;
 import com.parrot.drone.sdkcore.ulog.ULog;
 
 import java.io.InputStream;
@@ -87,7 +87,7 @@ public class HttpUpdateClient extends HttpClient {
     public HttpRequest uploadFirmware(@NonNull InputStream firmware,
                                       @NonNull HttpRequest.ProgressStatusCallback callback) {
         Call<Void> uploadCall = mService.upload(ProgressCaptor.captureOf(InputStreamRequestBody.create(null, firmware),
-                percent -> Executor.postOnMainThread(() -> callback.onRequestProgress(percent))));
+                ProgressReporter.of(callback)));
         uploadCall.enqueue(new Callback<Void>() {
 
             @Override
@@ -0,0 +1,410 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.arsdkengine.http;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.parrot.drone.groundsdk.internal.io.Files;
+import com.parrot.drone.sdkcore.ulog.ULog;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static com.parrot.drone.groundsdk.arsdkengine.Logging.TAG_HTTP;
+
+/**
+ * State of a download that may be interrupted and resumed later.
+ * <p>
+ * Downloaded data is written to a partial file next to the final destination file. A small sidecar file records the
+ * expected total size of the download and the validators (ETag, Last-Modified) sent by the server, so that a later
+ * download of the same file can request only the missing bytes using an HTTP {@code Range} request, and only if the
+ * remote file did not change meanwhile. Once complete, the partial file is renamed to the destination file.
+ * <p>
+ * A download may also be split in several contiguous segments downloaded concurrently into a preallocated partial
+ * file. In that case, the sidecar file also records the amount of bytes downloaded for each segment.
+ * <p>
+ * Partial and sidecar files are deleted when the download completes, is discarded or starts over. Files left over by
+ * downloads that were never resumed are deleted once they are older than {@link #STALE_PERIOD}, the first time a
+ * download to the same directory starts.
+ */
+@WorkerThread
+final class PartialDownload {
+
+    /** Extension appended to the destination file name to form the partial file name. */
+    private static final String PART_EXT = ".part";
+
+    /** Extension appended to the destination file name to form the sidecar file name. */
+    private static final String META_EXT = ".part.meta";
+
+    /** Time after which partial and sidecar files of a download that was never resumed are deleted, in ms. */
+    private static final long STALE_PERIOD = TimeUnit.DAYS.toMillis(7);
+
+    /** Directories swept from stale partial and sidecar files so far. */
+    private static final Set<File> sSweptDirs = Collections.synchronizedSet(new HashSet<>());
+
+    /** Sidecar key for the expected total size of the download, in bytes. */
+    private static final String KEY_SIZE = "size";
+
+    /** Sidecar key for the ETag validator. */
+    private static final String KEY_ETAG = "etag";
+
+    /** Sidecar key for the Last-Modified validator. */
+    private static final String KEY_LAST_MODIFIED = "lastModified";
+
+    /** Sidecar key for the comma-separated amounts of bytes downloaded for each segment of a segmented download. */
+    private static final String KEY_SEGMENTS = "segments";
+
+    /** Final destination file. */
+    @NonNull
+    private final File mDest;
+
+    /** File receiving downloaded data until the download completes. */
+    @NonNull
+    private final File mPartFile;
+
+    /** Sidecar file, recording information required to resume the download. */
+    @NonNull
+    private final File mMetaFile;
+
+    /** Expected total size of the download, in bytes; negative if unknown. */
+    private long mExpectedSize;
+
+    /** ETag validator of the downloaded file, {@code null} if unknown. */
+    @Nullable
+    private String mEtag;
+
+    /** Last-Modified validator of the downloaded file, {@code null} if unknown. */
+    @Nullable
+    private String mLastModified;
+
+    /** Amount of bytes downloaded for each segment, {@code null} unless the download is segmented. */
+    @Nullable
+    private long[] mSegments;
+
+    /**
+     * Loads the state of a download.
+     * <p>
+     * If a previous download to the same destination was interrupted, the returned state allows to resume it.
+     *
+     * @param dest final destination file
+     *
+     * @return download state
+     */
+    @NonNull
+    static PartialDownload of(@NonNull File dest) {
+        File dir = dest.getParentFile();
+        if (dir != null && sSweptDirs.add(dir)) {
+            sweep(dir);
+        }
+        PartialDownload download = new PartialDownload(dest);
+        download.load();
+        return download;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param dest final destination file
+     */
+    private PartialDownload(@NonNull File dest) {
+        mDest = dest;
+        mPartFile = new File(dest.getPath() + PART_EXT);
+        mMetaFile = new File(dest.getPath() + META_EXT);
+        mExpectedSize = -1;
+    }
+
+    /**
+     * Gives the offset from which the download may be resumed.
+     *
+     * @return amount of bytes already downloaded, {@code 0} if the download cannot be resumed
+     */
+    long getResumeOffset() {
+        if (mExpectedSize <= 0 || mSegments != null || !mPartFile.isFile()) {
+            return 0;
+        }
+        long length = mPartFile.length();
+        return length < mExpectedSize ? length : 0;
+    }
+
+    /**
+     * Gives the amount of bytes already downloaded for each segment of a segmented download.
+     *
+     * @param size         total size of the download, in bytes
+     * @param segmentCount amount of segments the download is split into
+     *
+     * @return a new array containing the amount of downloaded bytes for each segment, or {@code null} if there is no
+     *         resumable segmented download of the given size and segment count
+     */
+    @Nullable
+    long[] getSegmentProgress(long size, int segmentCount) {
+        if (mSegments == null || mSegments.length != segmentCount || mExpectedSize != size
+            || mPartFile.length() != size) {
+            return null;
+        }
+        return mSegments.clone();
+    }
+
+    /**
+     * Gives the validator to send in an {@code If-Range} header when resuming the download.
+     * <p>
+     * A strong ETag is preferred; weak ETags cannot be used for range requests, so Last-Modified is used instead.
+     *
+     * @return validator to use, {@code null} if none is known
+     */
+    @Nullable
+    String getValidator() {
+        if (mEtag != null && !mEtag.startsWith("W/")) {
+            return mEtag;
+        }
+        return mLastModified;
+    }
+
+    /**
+     * Gives the expected total size of the download.
+     *
+     * @return expected total size, in bytes; negative if unknown
+     */
+    long getExpectedSize() {
+        return mExpectedSize;
+    }
+
+    /**
+     * Gives the file receiving downloaded data.
+     *
+     * @return partial file
+     */
+    @NonNull
+    File getPartFile() {
+        return mPartFile;
+    }
+
+    /**
+     * Starts the download over from the beginning.
+     * <p>
+     * Deletes previously downloaded data, then records the given information in the sidecar file and creates an empty
+     * partial file.
+     *
+     * @param expectedSize expected total size of the download, in bytes; negative if unknown
+     * @param etag         ETag validator sent by the server, {@code null} if none
+     * @param lastModified Last-Modified validator sent by the server, {@code null} if none
+     *
+     * @throws IOException in case the partial or sidecar file could not be written
+     */
+    void restart(long expectedSize, @Nullable String etag, @Nullable String lastModified) throws IOException {
+        mExpectedSize = expectedSize;
+        mEtag = etag;
+        mLastModified = lastModified;
+        mSegments = null;
+        deleteFile(mPartFile);
+        Files.makeDirectories(mDest.getParentFile());
+        save();
+        new FileOutputStream(mPartFile).close();
+    }
+
+    /**
+     * Starts a segmented download over from the beginning.
+     * <p>
+     * Deletes previously downloaded data, then preallocates the partial file to the given size and records the segment
+     * count and the given validators in the sidecar file.
+     *
+     * @param size         total size of the download, in bytes
+     * @param segmentCount amount of segments the download is split into
+     * @param etag         ETag validator sent by the server, {@code null} if none
+     * @param lastModified Last-Modified validator sent by the server, {@code null} if none
+     *
+     * @throws IOException in case the partial or sidecar file could not be written
+     */
+    void restartSegmented(long size, int segmentCount, @Nullable String etag, @Nullable String lastModified)
+            throws IOException {
+        mExpectedSize = size;
+        mEtag = etag;
+        mLastModified = lastModified;
+        mSegments = new long[segmentCount];
+        deleteFile(mPartFile);
+        Files.makeDirectories(mDest.getParentFile());
+        try (RandomAccessFile file = new RandomAccessFile(mPartFile, "rw")) {
+            file.setLength(size);
+        }
+        save();
+    }
+
+    /**
+     * Records the progress of a segmented download, so that it can be resumed later.
+     * <p>
+     * Validators recorded when the download started are kept, so that all segments are checked against the same
+     * version of the remote file.
+     *
+     * @param segments amount of bytes downloaded for each segment
+     *
+     * @throws IOException in case the sidecar file could not be written
+     */
+    void updateSegments(@NonNull long[] segments) throws IOException {
+        mSegments = segments.clone();
+        save();
+    }
+
+    /**
+     * Completes the download.
+     * <p>
+     * Checks that the partial file has the expected size, then renames it to the destination file and deletes the
+     * sidecar file. In case of size mismatch, the download is {@link #discard() discarded}.
+     *
+     * @throws IOException in case the partial file does not have the expected size or could not be renamed
+     */
+    void complete() throws IOException {
+        long received = mPartFile.length();
+        long expected = mExpectedSize;
+        if (expected >= 0 && received != expected) {
+            discard();
+            throw new IOException("Received content mismatch [expected: " + expected + ", received: " + received + "]");
+        }
+        if (mDest.exists() && !mDest.delete()) {
+            throw new IOException("Could not replace existing file: " + mDest);
+        }
+        if (!mPartFile.renameTo(mDest)) {
+            throw new IOException("Could not rename " + mPartFile + " to " + mDest);
+        }
+        deleteFile(mMetaFile);
+    }
+
+    /**
+     * Discards the download, deleting both partial and sidecar files.
+     */
+    void discard() {
+        mExpectedSize = -1;
+        mEtag = mLastModified = null;
+        mSegments = null;
+        deleteFile(mPartFile);
+        deleteFile(mMetaFile);
+    }
+
+    /**
+     * Loads download information from the sidecar file, if any.
+     * <p>
+     * An unreadable sidecar file causes the download to be discarded.
+     */
+    private void load() {
+        if (!mMetaFile.isFile()) {
+            return;
+        }
+        Properties meta = new Properties();
+        try (InputStream in = new FileInputStream(mMetaFile)) {
+            meta.load(in);
+            mExpectedSize = Long.parseLong(meta.getProperty(KEY_SIZE, "-1"));
+            mEtag = meta.getProperty(KEY_ETAG);
+            mLastModified = meta.getProperty(KEY_LAST_MODIFIED);
+            String segments = meta.getProperty(KEY_SEGMENTS);
+            if (segments != null) {
+                String[] values = segments.split(",");
+                mSegments = new long[values.length];
+                for (int i = 0; i < values.length; i++) {
+                    mSegments[i] = Long.parseLong(values[i]);
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            if (ULog.w(TAG_HTTP)) {
+                ULog.w(TAG_HTTP, "Discarding unreadable partial download info: " + mMetaFile, e);
+            }
+            discard();
+        }
+    }
+
+    /**
+     * Writes download information to the sidecar file.
+     *
+     * @throws IOException in case the sidecar file could not be written
+     */
+    private void save() throws IOException {
+        Properties meta = new Properties();
+        meta.setProperty(KEY_SIZE, Long.toString(mExpectedSize));
+        if (mEtag != null) {
+            meta.setProperty(KEY_ETAG, mEtag);
+        }
+        if (mLastModified != null) {
+            meta.setProperty(KEY_LAST_MODIFIED, mLastModified);
+        }
+        if (mSegments != null) {
+            StringBuilder segments = new StringBuilder();
+            for (int i = 0; i < mSegments.length; i++) {
+                segments.append(i == 0 ? "" : ",").append(mSegments[i]);
+            }
+            meta.setProperty(KEY_SEGMENTS, segments.toString());
+        }
+        try (OutputStream out = new FileOutputStream(mMetaFile)) {
+            meta.store(out, null);
+        }
+    }
+
+    /**
+     * Deletes partial and sidecar files older than {@link #STALE_PERIOD} from a directory.
+     *
+     * @param dir directory to sweep
+     */
+    private static void sweep(@NonNull File dir) {
+        long staleTime = System.currentTimeMillis() - STALE_PERIOD;
+        File[] stale = dir.listFiles(file -> (file.getName().endsWith(PART_EXT) || file.getName().endsWith(META_EXT))
+                                             && file.lastModified() < staleTime);
+        if (stale == null) {
+            return;
+        }
+        for (File file : stale) {
+            if (ULog.i(TAG_HTTP)) {
+                ULog.i(TAG_HTTP, "Deleting stale partial download file: " + file);
+            }
+            deleteFile(file);
+        }
+    }
+
+    /**
+     * Deletes a file, logging failure.
+     *
+     * @param file file to delete
+     */
+    private static void deleteFile(@NonNull File file) {
+        if (file.exists() && !file.delete() && ULog.w(TAG_HTTP)) {
+            ULog.w(TAG_HTTP, "Could not delete file: " + file);
+        }
+    }
+}
@@ -0,0 +1,609 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.arsdkengine.http;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.parrot.drone.groundsdk.internal.http.HttpRequest;
+import com.parrot.drone.groundsdk.internal.tasks.Executor;
+import com.parrot.drone.groundsdk.internal.tasks.TaskGroup;
+import com.parrot.drone.sdkcore.ulog.ULog;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+import okhttp3.Headers;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Response;
+
+import static com.parrot.drone.groundsdk.arsdkengine.Logging.TAG_HTTP;
+
+/**
+ * A download split in several byte ranges, downloaded concurrently over distinct connections.
+ * <p>
+ * Each segment is written at its own offset in a preallocated partial file, managed by {@link PartialDownload}. When
+ * the download fails or is canceled, the amount of data received for each segment is recorded so that a subsequent
+ * download resumes each segment where it stopped. Once all segments complete, the partial file is verified against
+ * the expected size and renamed to the destination file. When the download is canceled by its caller, as notified
+ * through the provided discard flag, the partial file is deleted instead.
+ * <p>
+ * In case the server does not honor range requests, the download falls back to a provided single connection
+ * download.
+ * <p>
+ * Progress and per-segment throughput are reported periodically on the main thread, rather than for each received
+ * chunk of data.
+ */
+final class SegmentedDownload implements HttpRequest {
+
+    /** Creates calls to download a byte range of the remote file. */
+    interface CallFactory {
+
+        /**
+         * Creates a call that downloads a byte range.
+         *
+         * @param range   byte range to download, in HTTP {@code Range} header format
+         * @param ifRange validator of the file the range applies to, {@code null} if none
+         *
+         * @return a new call for sending the request out
+         */
+        @NonNull
+        Call<ResponseBody> create(@NonNull String range, @Nullable String ifRange);
+    }
+
+    /** Period at which progress and throughput are reported, in milliseconds. */
+    private static final long REPORT_PERIOD = 500;
+
+    /** HTTP status code sent by the server when it honors a range request. */
+    private static final int HTTP_PARTIAL_CONTENT = 206;
+
+    /** Size of chunks of data read from the network and written to the partial file, in bytes. */
+    private static final int CHUNK_SIZE = HttpMediaClient.CHUNK_SIZE;
+
+    /** Final destination file. */
+    @NonNull
+    private final File mDest;
+
+    /** Total size of the download, in bytes. */
+    private final long mSize;
+
+    /** Amount of segments the download is split into. */
+    private final int mSegmentCount;
+
+    /** Creates calls to download each segment. */
+    @NonNull
+    private final CallFactory mCallFactory;
+
+    /** Starts a single connection download, used in case the server does not honor range requests. */
+    @NonNull
+    private final Supplier<HttpRequest> mFallback;
+
+    /** Set when the download is canceled by its caller, in which case downloaded data is deleted. */
+    @NonNull
+    private final AtomicBoolean mDiscard;
+
+    /** Callback notified of download progress and completion. */
+    @NonNull
+    private final HttpRequest.ProgressStatusCallback mCallback;
+
+    /** Background tasks of this download. */
+    @NonNull
+    private final TaskGroup mTasks;
+
+    /** Amount of bytes downloaded for each segment. Updated from background threads. */
+    @NonNull
+    private final AtomicLongArray mDone;
+
+    /** Ongoing call for each segment, {@code null} if none. Updated from background threads. */
+    @NonNull
+    private final AtomicReferenceArray<Call<ResponseBody>> mCalls;
+
+    /** Reports progress and throughput, then reschedules itself. */
+    @NonNull
+    private final Runnable mReportProgress = this::reportProgress;
+
+    /** Validator obtained when the download started, sent with each segment request; {@code null} if none. */
+    @Nullable
+    private volatile String mValidator;
+
+    /** Partial download state, {@code null} until loaded. */
+    @Nullable
+    private PartialDownload mPartial;
+
+    /** Single connection download started as a fallback, {@code null} if none. */
+    @Nullable
+    private HttpRequest mFallbackRequest;
+
+    /** Amount of segment downloads still running. */
+    private int mRunningSegments;
+
+    /** First error that occurred while downloading a segment, {@code null} if none. */
+    @Nullable
+    private Throwable mError;
+
+    /** {@code true} when the download has been canceled. */
+    private boolean mCanceled;
+
+    /** {@code true} once completion has been notified to the callback. */
+    private boolean mCompleted;
+
+    /** Amount of bytes downloaded for each segment at last progress report. */
+    @NonNull
+    private final long[] mReportedDone;
+
+    /** Time of last progress report, in nanoseconds. */
+    private long mReportTime;
+
+    /** Last reported progress. */
+    private int mReportedProgress;
+
+    /**
+     * Constructor.
+     *
+     * @param dest         final destination file
+     * @param size         total size of the download, in bytes
+     * @param segmentCount amount of segments to split the download into
+     * @param callFactory  creates calls to download each segment
+     * @param fallback     starts a single connection download, used if the server does not honor range requests
+     * @param discard      set when the download is canceled by its caller, in which case downloaded data is deleted
+     *                     instead of being kept for a subsequent download to resume
+     * @param callback     callback notified of download progress and completion
+     */
+    SegmentedDownload(@NonNull File dest, long size, int segmentCount, @NonNull CallFactory callFactory,
+                      @NonNull Supplier<HttpRequest> fallback, @NonNull AtomicBoolean discard,
+                      @NonNull HttpRequest.ProgressStatusCallback callback) {
+        mDest = dest;
+        mSize = size;
+        mSegmentCount = segmentCount;
+        mCallFactory = callFactory;
+        mFallback = fallback;
+        mDiscard = discard;
+        mCallback = callback;
+        mTasks = new TaskGroup();
+        mDone = new AtomicLongArray(segmentCount);
+        mCalls = new AtomicReferenceArray<>(segmentCount);
+        mReportedDone = new long[segmentCount];
+        mReportedProgress = -1;
+    }
+
+    /**
+     * Starts the download.
+     *
+     * @return this, to allow call chaining
+     */
+    @NonNull
+    SegmentedDownload start() {
+        mTasks.add(Executor.runInBackground(this::prepare, Executor.Lane.TRANSFER).whenComplete(
+                (partial, error, canceled) -> {
+                    if (partial != null && mCanceled && mDiscard.get()) {
+                        discard(partial);
+                    } else if (error instanceof RangeNotHonoredException && !mCanceled) {
+                        fallBack();
+                    } else if (error != null || canceled || mCanceled) {
+                        complete(error, canceled || mCanceled);
+                    } else {
+                        mPartial = partial;
+                        launchSegments();
+                    }
+                }));
+        return this;
+    }
+
+    @Override
+    public void cancel() {
+        if (mCompleted || mCanceled) {
+            return;
+        }
+        mCanceled = true;
+        if (mFallbackRequest != null) {
+            mFallbackRequest.cancel();
+        } else {
+            cancelSegments();
+        }
+    }
+
+    /**
+     * Loads the partial download state.
+     * <p>
+     * If the download cannot be resumed, probes the server to obtain the validators of the remote file, so that each
+     * segment request carries an {@code If-Range} header, then preallocates the partial file. A previous download is
+     * only resumed if a validator was recorded for it, since without one there is no way to tell whether the remote
+     * file changed meanwhile.
+     *
+     * @return partial download state
+     *
+     * @throws IOException          in case probing the server failed or the partial file could not be preallocated
+     * @throws InterruptedException in case the download was canceled
+     */
+    @WorkerThread
+    @NonNull
+    private PartialDownload prepare() throws IOException, InterruptedException {
+        PartialDownload partial = PartialDownload.of(mDest);
+        long[] done = partial.getSegmentProgress(mSize, mSegmentCount);
+        if (done != null && partial.getValidator() == null) {
+            if (ULog.i(TAG_HTTP)) {
+                ULog.i(TAG_HTTP, "Restarting segmented download without validator [dest: " + mDest + "]");
+            }
+            done = null;
+        }
+        if (done == null) {
+            Headers headers = probe();
+            partial.restartSegmented(mSize, mSegmentCount, headers.get("ETag"), headers.get("Last-Modified"));
+            done = new long[mSegmentCount];
+        } else if (ULog.i(TAG_HTTP)) {
+            ULog.i(TAG_HTTP, "Resuming segmented download [dest: " + mDest + "]");
+        }
+        for (int i = 0; i < mSegmentCount; i++) {
+            mDone.set(i, done[i]);
+        }
+        mValidator = partial.getValidator();
+        return partial;
+    }
+
+    /**
+     * Requests the first byte of the remote file, to check that the server honors range requests and to obtain the
+     * validators of the remote file.
+     *
+     * @return headers of the server response
+     *
+     * @throws IOException          in case the request failed or the server does not honor range requests
+     * @throws InterruptedException in case the download was canceled
+     */
+    @WorkerThread
+    @NonNull
+    private Headers probe() throws IOException, InterruptedException {
+        Call<ResponseBody> call = mCallFactory.create("bytes=0-0", null);
+        mCalls.set(0, call);
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException("Canceled probe");
+        }
+        Response<ResponseBody> response = call.execute();
+        if (call.isCanceled()) {
+            throw new InterruptedException("Canceled retrofit call");
+        }
+        try (ResponseBody ignored = response.body()) {
+            if (response.isSuccessful() && response.code() != HTTP_PARTIAL_CONTENT) {
+                throw new RangeNotHonoredException();
+            } else if (!response.isSuccessful()) {
+                throw new ResponseException(response.message(), response.code());
+            }
+            String contentRange = response.headers().get("Content-Range");
+            if (!HttpMediaClient.isResumedRange(contentRange, 0, mSize)) {
+                throw new IOException("Unexpected content range: " + contentRange);
+            }
+            return response.headers();
+        }
+    }
+
+    /**
+     * Starts downloading all incomplete segments.
+     */
+    private void launchSegments() {
+        for (int i = 0; i < mSegmentCount; i++) {
+            mReportedDone[i] = mDone.get(i);
+            if (segmentStart(i) + mDone.get(i) < segmentStart(i + 1)) {
+                int segment = i;
+                mRunningSegments++;
+                mTasks.add(Executor.runInBackground(() -> {
+                    downloadSegment(segment);
+                    return null;
+                }, Executor.Lane.TRANSFER).whenComplete((result, error, canceled) -> onSegmentComplete(error)));
+            }
+        }
+        if (mRunningSegments == 0) {
+            finish();
+        } else {
+            mReportTime = System.nanoTime();
+            reportProgress();
+        }
+    }
+
+    /**
+     * Downloads the remaining part of a segment.
+     *
+     * @param segment index of the segment to download
+     *
+     * @throws IOException          in case the download failed
+     * @throws InterruptedException in case the download was canceled
+     */
+    @WorkerThread
+    private void downloadSegment(int segment) throws IOException, InterruptedException {
+        assert mPartial != null;
+        long position = segmentStart(segment) + mDone.get(segment);
+        long end = segmentStart(segment + 1);
+        Call<ResponseBody> call = mCallFactory.create("bytes=" + position + "-" + (end - 1), mValidator);
+        mCalls.set(segment, call);
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException("Canceled segment download");
+        }
+        Response<ResponseBody> response = call.execute();
+        if (call.isCanceled()) {
+            // retrofit call.execute silently eats InterruptedException, so we rely on the call canceled flag
+            // to restore the interruption status after the call
+            throw new InterruptedException("Canceled retrofit call");
+        }
+
+        try (ResponseBody body = response.body()) {
+            if (response.isSuccessful() && response.code() != HTTP_PARTIAL_CONTENT) {
+                throw new RangeNotHonoredException();
+            } else if (!response.isSuccessful()) {
+                throw new ResponseException(response.message(), response.code());
+            }
+            String contentRange = response.headers().get("Content-Range");
+            if (!HttpMediaClient.isResumedRange(contentRange, position, mSize)) {
+                throw new IOException("Unexpected content range: " + contentRange);
+            }
+
+            assert body != null;
+            try (InputStream src = body.byteStream();
+                 RandomAccessFile file = new RandomAccessFile(mPartial.getPartFile(), "rw")) {
+                FileChannel channel = file.getChannel();
+                byte[] chunk = new byte[CHUNK_SIZE];
+                ByteBuffer buffer = ByteBuffer.wrap(chunk);
+                int read;
+                while (position < end && (read = src.read(chunk, 0, (int) Math.min(CHUNK_SIZE, end - position)))
+                                         != -1) {
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException("Download interrupted");
+                    }
+                    buffer.clear();
+                    buffer.limit(read);
+                    while (buffer.hasRemaining()) {
+                        position += channel.write(buffer, position);
+                    }
+                    mDone.addAndGet(segment, read);
+                }
+            }
+            if (position < end) {
+                throw new IOException("Premature end of segment " + segment + " [missing: " + (end - position) + "]");
+            }
+        }
+    }
+
+    /**
+     * Called back on main thread when a segment download completes.
+     *
+     * @param error error that caused the segment download to fail, {@code null} if none
+     */
+    private void onSegmentComplete(@Nullable Throwable error) {
+        mRunningSegments--;
+        if (error != null && mError == null) {
+            mError = error;
+            cancelSegments();
+        }
+        if (mRunningSegments > 0) {
+            return;
+        }
+        Executor.unschedule(mReportProgress);
+        if (mError instanceof RangeNotHonoredException && !mCanceled) {
+            PartialDownload partial = mPartial;
+            assert partial != null;
+            mTasks.add(Executor.runInBackground(() -> {
+                partial.discard();
+                return null;
+            }, Executor.Lane.TRANSFER).whenComplete((result, discardError, canceled) -> {
+                if (mCanceled) {
+                    complete(null, true);
+                } else {
+                    fallBack();
+                }
+            }));
+        } else if (mCanceled && mDiscard.get()) {
+            PartialDownload partial = mPartial;
+            assert partial != null;
+            discard(partial);
+        } else if (mError != null || mCanceled) {
+            // record progress, so that a subsequent download may resume
+            long[] done = snapshot();
+            PartialDownload partial = mPartial;
+            assert partial != null;
+            Executor.runInBackground(() -> {
+                partial.updateSegments(done);
+                return null;
+            }, Executor.Lane.TRANSFER).whenComplete((result, saveError, canceled) -> complete(mError, mCanceled));
+        } else {
+            finish();
+        }
+    }
+
+    /**
+     * Verifies and finalizes the download once all segments have completed.
+     */
+    private void finish() {
+        PartialDownload partial = mPartial;
+        assert partial != null;
+        mTasks.add(Executor.runInBackground(() -> {
+            partial.complete();
+            return null;
+        }, Executor.Lane.TRANSFER).whenComplete((result, error, canceled) -> {
+            if (error == null && !canceled) {
+                reportProgress(); // report final progress
+            }
+            complete(error, canceled);
+        }));
+    }
+
+    /**
+     * Falls back to a single connection download, after the server did not honor a range request.
+     */
+    private void fallBack() {
+        if (ULog.w(TAG_HTTP)) {
+            ULog.w(TAG_HTTP, "Range requests not supported, falling back to single connection download [dest: "
+                             + mDest + "]");
+        }
+        mFallbackRequest = mFallback.get();
+    }
+
+    /**
+     * Deletes downloaded data, then notifies download cancellation.
+     *
+     * @param partial partial download state
+     */
+    private void discard(@NonNull PartialDownload partial) {
+        Executor.runInBackground(() -> {
+            partial.discard();
+            return null;
+        }, Executor.Lane.TRANSFER).whenComplete((result, error, canceled) -> complete(null, true));
+    }
+
+    /**
+     * Cancels all ongoing segment downloads.
+     */
+    private void cancelSegments() {
+        for (int i = 0; i < mSegmentCount; i++) {
+            Call<ResponseBody> call = mCalls.get(i);
+            if (call != null) {
+                call.cancel();
+            }
+        }
+        mTasks.cancelAll();
+    }
+
+    /**
+     * Notifies download completion, if not done already.
+     *
+     * @param error    error that caused the download to fail, {@code null} if none
+     * @param canceled {@code true} if the download was canceled
+     */
+    private void complete(@Nullable Throwable error, boolean canceled) {
+        if (mCompleted) {
+            return;
+        }
+        mCompleted = true;
+        Executor.unschedule(mReportProgress);
+        if (canceled) {
+            mCallback.onRequestComplete(Status.CANCELED, STATUS_CODE_UNKNOWN);
+        } else if (error != null) {
+            if (ULog.e(TAG_HTTP)) {
+                ULog.e(TAG_HTTP, "Segmented download failed [dest: " + mDest + "]", error);
+            }
+            mCallback.onRequestComplete(Status.FAILED, error instanceof ResponseException ?
+                    ((ResponseException) error).mCode : STATUS_CODE_UNKNOWN);
+        } else {
+            mCallback.onRequestComplete(Status.SUCCESS, 200);
+        }
+    }
+
+    /**
+     * Reports download progress and per-segment throughput, then schedules next report.
+     */
+    private void reportProgress() {
+        long now = System.nanoTime();
+        long elapsed = now - mReportTime;
+        long[] throughputs = new long[mSegmentCount];
+        long received = 0;
+        for (int i = 0; i < mSegmentCount; i++) {
+            long done = mDone.get(i);
+            received += done;
+            if (elapsed > 0) {
+                throughputs[i] = (done - mReportedDone[i]) * TimeUnit.SECONDS.toNanos(1) / elapsed;
+            }
+            mReportedDone[i] = done;
+        }
+        mReportTime = now;
+        int progress = (int) (received * 100 / mSize);
+        if (progress > mReportedProgress) {
+            mReportedProgress = progress;
+            mCallback.onRequestProgress(progress);
+        }
+        mCallback.onRequestThroughput(throughputs);
+        if (mRunningSegments > 0) {
+            Executor.schedule(mReportProgress, REPORT_PERIOD);
+        }
+    }
+
+    /**
+     * Takes a snapshot of the amount of bytes downloaded for each segment.
+     *
+     * @return amount of bytes downloaded for each segment
+     */
+    @NonNull
+    private long[] snapshot() {
+        long[] done = new long[mSegmentCount];
+        for (int i = 0; i < mSegmentCount; i++) {
+            done[i] = mDone.get(i);
+        }
+        return done;
+    }
+
+    /**
+     * Computes the offset of the first byte of a segment in the downloaded file.
+     *
+     * @param segment segment index; {@code mSegmentCount} gives the total download size
+     *
+     * @return segment start offset
+     */
+    private long segmentStart(int segment) {
+        return mSize * segment / mSegmentCount;
+    }
+
+    /** Thrown when the server answers a range request with the whole file. */
+    private static final class RangeNotHonoredException extends IOException {
+
+        /**
+         * Constructor.
+         */
+        RangeNotHonoredException() {
+            super("Range request not honored");
+        }
+    }
+
+    /** Thrown when the server answers a segment request with an error. */
+    private static final class ResponseException extends IOException {
+
+        /** HTTP status code of the response. */
+        final int mCode;
+
+        /**
+         * Constructor.
+         *
+         * @param message error message
+         * @param code    HTTP status code of the response
+         */
+        ResponseException(@NonNull String message, int code) {
+            super(message);
+            mCode = code;
+        }
+    }
+}
@@ -73,6 +73,8 @@ public class AnafiAlarms extends DroneInstrumentController {
      */
     public AnafiAlarms(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureArdrone3.PilotingState.UID, ArsdkFeatureArdrone3.SettingsState.UID,
+                ArsdkFeatureBattery.UID, ArsdkFeatureCommon.CommonState.UID);
         mAlarms = new AlarmsCore(mComponentStore)
                 .updateAlarmsLevel(Alarms.Alarm.Level.OFF, Alarms.Alarm.Kind.values());
         mDroneHoveringTooDarkAlarmLevel = Alarms.Alarm.Level.OFF;
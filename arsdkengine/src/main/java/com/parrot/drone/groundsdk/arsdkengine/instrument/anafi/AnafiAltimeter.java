@@ -54,6 +54,7 @@ public class AnafiAltimeter extends DroneInstrumentController {
      */
     public AnafiAltimeter(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureArdrone3.PilotingState.UID);
         mAltimeter = new AltimeterCore(mComponentStore);
     }
 
@@ -54,6 +54,7 @@ public class AnafiAttitudeIndicator extends DroneInstrumentController {
      */
     public AnafiAttitudeIndicator(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureArdrone3.PilotingState.UID);
         mAttitudeIndicator = new AttitudeIndicatorCore(mComponentStore);
     }
 
@@ -55,6 +55,7 @@ public class AnafiBatteryInfo extends DroneInstrumentController {
      */
     public AnafiBatteryInfo(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureBattery.UID, ArsdkFeatureCommon.CommonState.UID);
         mBatteryInfo = new BatteryInfoCore(mComponentStore);
     }
 
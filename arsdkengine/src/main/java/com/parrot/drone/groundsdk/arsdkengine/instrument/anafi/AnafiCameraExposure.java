@@ -73,6 +73,7 @@ public final class AnafiCameraExposure extends DroneInstrumentController {
      */
     public AnafiCameraExposure(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureCamera.UID);
         mCameraExposure = new CameraExposureValuesCore(mComponentStore);
     }
 
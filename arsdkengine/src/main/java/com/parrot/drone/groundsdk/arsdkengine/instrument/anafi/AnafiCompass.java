@@ -56,6 +56,7 @@ public class AnafiCompass extends DroneInstrumentController {
 
     public AnafiCompass(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureArdrone3.PilotingState.UID);
         mCompass = new CompassCore(mComponentStore);
     }
 
@@ -72,6 +72,7 @@ public class AnafiFlightMeter extends DroneInstrumentController {
      */
     public AnafiFlightMeter(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureArdrone3.SettingsState.UID);
         mDeviceDict = mDeviceController.getDeviceDict().getDictionary(SETTINGS_KEY);
         mFlightMeter = new FlightMeterCore(mComponentStore);
 
@@ -56,6 +56,7 @@ public class AnafiFlyingIndicators extends DroneInstrumentController {
      */
     public AnafiFlyingIndicators(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureArdrone3.PilotingState.UID);
         mFlyingIndicator = new FlyingIndicatorsCore(mComponentStore);
         mFlyingIndicator.updateLandedState(FlyingIndicators.LandedState.IDLE)
                         .updateFlyingState(FlyingIndicators.FlyingState.NONE)
@@ -83,6 +83,8 @@ public class AnafiGps extends DroneInstrumentController {
      */
     public AnafiGps(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureArdrone3.GPSSettingsState.UID, ArsdkFeatureArdrone3.GPSState.UID,
+                ArsdkFeatureArdrone3.PilotingState.UID);
         mDeviceDict = mDeviceController.getDeviceDict().getDictionary(SETTINGS_KEY);
         mGps = new GpsCore(mComponentStore);
 
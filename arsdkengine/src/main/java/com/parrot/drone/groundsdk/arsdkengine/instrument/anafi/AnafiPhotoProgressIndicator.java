@@ -55,6 +55,7 @@ public class AnafiPhotoProgressIndicator extends DroneInstrumentController {
      */
     public AnafiPhotoProgressIndicator(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureCamera.UID);
         mPhotoProgressIndicator = new PhotoProgressIndicatorCore(mComponentStore);
     }
 
@@ -58,6 +58,7 @@ public class AnafiRadio extends DroneInstrumentController {
      */
     public AnafiRadio(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureCommon.CommonState.UID, ArsdkFeatureWifi.UID);
         mRadio = new RadioCore(mComponentStore);
     }
 
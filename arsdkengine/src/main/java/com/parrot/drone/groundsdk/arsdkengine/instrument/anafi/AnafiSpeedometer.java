@@ -54,6 +54,7 @@ public class AnafiSpeedometer extends DroneInstrumentController {
      */
     public AnafiSpeedometer(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureArdrone3.PilotingState.UID);
         mSpeedometer = new SpeedometerCore(mComponentStore);
     }
 
@@ -55,6 +55,7 @@ public class BebopRadio extends DroneInstrumentController {
      */
     public BebopRadio(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureCommon.CommonState.UID);
         mRadio = new RadioCore(mComponentStore);
     }
 
@@ -68,6 +68,7 @@ public class MiniatureAlarms extends DroneInstrumentController {
      */
     public MiniatureAlarms(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureCommon.CommonState.UID, ArsdkFeatureMinidrone.PilotingState.UID);
         mAlarms = new AlarmsCore(mComponentStore)
                 .updateAlarmsLevel(Alarms.Alarm.Level.OFF, Alarms.Alarm.Kind.values());
         mDroneHoveringTooDarkAlarmLevel = Alarms.Alarm.Level.OFF;
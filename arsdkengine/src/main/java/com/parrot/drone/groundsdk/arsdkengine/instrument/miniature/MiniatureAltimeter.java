@@ -54,6 +54,7 @@ public class MiniatureAltimeter extends DroneInstrumentController {
      */
     public MiniatureAltimeter(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureMinidrone.NavigationDataState.UID);
         mAltimeter = new AltimeterCore(mComponentStore);
     }
 
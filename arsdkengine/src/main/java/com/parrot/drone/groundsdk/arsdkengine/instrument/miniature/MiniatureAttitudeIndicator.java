@@ -56,6 +56,7 @@ public class MiniatureAttitudeIndicator extends DroneInstrumentController {
      */
     public MiniatureAttitudeIndicator(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureMinidrone.NavigationDataState.UID);
         mAttitudeIndicator = new AttitudeIndicatorCore(mComponentStore);
     }
 
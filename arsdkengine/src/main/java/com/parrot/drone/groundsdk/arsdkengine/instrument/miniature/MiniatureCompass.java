@@ -79,6 +79,7 @@ public class MiniatureCompass extends DroneInstrumentController implements Syste
      */
     public MiniatureCompass(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureMinidrone.NavigationDataState.UID);
 
         miniatureCompass = this;
         this.droneController = droneController;
@@ -147,6 +147,7 @@ public class MiniatureFlyingIndicators extends DroneInstrumentController {
      */
     public MiniatureFlyingIndicators(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureMinidrone.PilotingState.UID);
         mFlyingIndicator = new FlyingIndicatorsCore(mComponentStore);
         mMainHandler = new Handler(Looper.getMainLooper());
         mFlyingIndicator.updateLandedState(FlyingIndicators.LandedState.IDLE)
@@ -110,6 +110,7 @@ public class MiniatureGps extends DroneInstrumentController implements SystemLoc
      */
     public MiniatureGps(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureMinidrone.NavigationDataState.UID);
 
         miniatureGps = this;
         this.droneController = droneController;
@@ -66,6 +66,7 @@ public class MiniatureRadio extends DroneInstrumentController {
      */
     public MiniatureRadio(@NonNull Context ctx, @NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureCommon.CommonState.UID);
         this.ctx = ctx;
         mRadio = new RadioCore(mComponentStore);
     }
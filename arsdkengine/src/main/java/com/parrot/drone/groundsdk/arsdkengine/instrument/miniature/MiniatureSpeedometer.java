@@ -56,6 +56,7 @@ public class MiniatureSpeedometer extends DroneInstrumentController {
      */
     public MiniatureSpeedometer(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureMinidrone.NavigationDataState.UID);
         mSpeedometer = new SpeedometerCore(mComponentStore);
     }
 
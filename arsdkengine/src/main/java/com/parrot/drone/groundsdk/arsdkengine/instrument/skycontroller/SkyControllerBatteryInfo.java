@@ -54,6 +54,7 @@ public class SkyControllerBatteryInfo extends RCInstrumentController {
      */
     public SkyControllerBatteryInfo(@NonNull RCController rcController) {
         super(rcController);
+        registerCommandFeatures(ArsdkFeatureSkyctrl.SkyControllerState.UID);
         mBatteryInfo = new BatteryInfoCore(mComponentStore);
     }
 
@@ -56,6 +56,7 @@ public class SkyControllerCompass extends RCInstrumentController {
 
     public SkyControllerCompass(@NonNull RCController rcController) {
         super(rcController);
+        registerCommandFeatures(ArsdkFeatureSkyctrl.SkyControllerState.UID);
         mCompass = new CompassCore(mComponentStore);
     }
 
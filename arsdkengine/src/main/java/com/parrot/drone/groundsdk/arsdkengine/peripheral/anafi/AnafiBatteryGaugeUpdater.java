@@ -62,6 +62,7 @@ public class AnafiBatteryGaugeUpdater extends DronePeripheralController {
      */
     public AnafiBatteryGaugeUpdater(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureGaugeFwUpdater.UID);
         mGaugeUpdater = new BatteryGaugeUpdaterCore(mComponentStore, mBackend);
     }
 
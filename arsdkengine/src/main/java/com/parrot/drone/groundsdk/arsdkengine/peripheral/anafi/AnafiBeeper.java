@@ -83,6 +83,7 @@ public final class AnafiBeeper extends DronePeripheralController {
      */
     public AnafiBeeper(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureArdrone3.SoundState.UID);
         mBeeper = new BeeperCore(mComponentStore, mBackend);
     }
 
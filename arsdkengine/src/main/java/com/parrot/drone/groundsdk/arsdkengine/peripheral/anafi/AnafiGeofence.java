@@ -110,6 +110,8 @@ public final class AnafiGeofence extends DronePeripheralController {
      */
     public AnafiGeofence(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureArdrone3.GPSSettingsState.UID,
+                ArsdkFeatureArdrone3.PilotingSettingsState.UID);
         mGeofence = new GeofenceCore(mComponentStore, mBackend);
         mDeviceDict = offlineSettingsEnabled() ? mDeviceController.getDeviceDict().getDictionary(SETTINGS_KEY) : null;
         mPresetDict = offlineSettingsEnabled() ? mDeviceController.getPresetDict().getDictionary(SETTINGS_KEY) : null;
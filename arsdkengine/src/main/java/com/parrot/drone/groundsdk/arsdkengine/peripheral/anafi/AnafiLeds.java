@@ -88,6 +88,7 @@ public class AnafiLeds extends DronePeripheralController {
      */
     public AnafiLeds(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureLeds.UID);
         mLeds = new LedsCore(mComponentStore, mBackend);
         mPresetDict = offlineSettingsEnabled() ? mDeviceController.getPresetDict().getDictionary(SETTINGS_KEY) : null;
         mDeviceDict = offlineSettingsEnabled() ? mDeviceController.getDeviceDict().getDictionary(SETTINGS_KEY) : null;
@@ -66,6 +66,7 @@ public final class AnafiMagnetometer extends DronePeripheralController {
      */
     public AnafiMagnetometer(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureCommon.CalibrationState.UID);
         mMagnetometer = new MagnetometerWith3StepCalibrationCore(mComponentStore, mBackend);
     }
 
@@ -151,8 +152,9 @@ public final class AnafiMagnetometer extends DronePeripheralController {
                 @Override
                 public void onMagnetoCalibrationStartedChanged(int started) {
                     if (started == 0) {
-                        // calibration process stopped
-                        mMagnetometer.updateCalibProcessFailed(mCalibrationFailed).notifyUpdated();
+                        // calibration process stopped; failure is transient, notify it immediately before the
+                        // calibration process state is cleared
+                        mMagnetometer.updateCalibProcessFailed(mCalibrationFailed).notifyUpdatedNow();
                         mMagnetometer.calibrationProcessStopped().notifyUpdated();
                     }
                     // reset the failure indicator when starting or stopping the calibration process
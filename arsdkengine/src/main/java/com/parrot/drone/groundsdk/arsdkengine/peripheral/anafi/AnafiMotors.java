@@ -77,6 +77,7 @@ public final class AnafiMotors extends DronePeripheralController {
      */
     public AnafiMotors(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureArdrone3.SettingsState.UID);
         mDeviceDict = mDeviceController.getDeviceDict().getDictionary(SETTINGS_KEY);
         mCopterMotors = new CopterMotorsCore(mComponentStore, mBackend);
 
@@ -58,6 +58,7 @@ public class AnafiPilotingControl extends DronePeripheralController {
      */
     public AnafiPilotingControl(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeaturePilotingStyle.UID);
         mPilotingControl = new PilotingControlCore(mComponentStore, mBackend);
     }
 
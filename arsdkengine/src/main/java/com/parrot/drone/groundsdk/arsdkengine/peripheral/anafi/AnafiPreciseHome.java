@@ -93,6 +93,7 @@ public class AnafiPreciseHome extends DronePeripheralController {
      */
     public AnafiPreciseHome(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeaturePreciseHome.UID);
         mPreciseHome = new PreciseHomeCore(mComponentStore, mBackend);
         mPresetDict = offlineSettingsEnabled() ? mDeviceController.getPresetDict().getDictionary(SETTINGS_KEY) : null;
         mDeviceDict = offlineSettingsEnabled() ? mDeviceController.getDeviceDict().getDictionary(SETTINGS_KEY) : null;
@@ -84,6 +84,7 @@ public class AnafiRemovableUserStorage extends DronePeripheralController {
      */
     public AnafiRemovableUserStorage(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureUserStorage.UID);
         mRemovableUserStorage = new RemovableUserStorageCore(mComponentStore, mBackend);
     }
 
@@ -51,6 +51,8 @@ public final class AnafiSystemInfo extends SystemInfoControllerBase {
      */
     public AnafiSystemInfo(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureArdrone3.SettingsState.UID, ArsdkFeatureCommon.ARLibsVersionsState.UID,
+                ArsdkFeatureCommon.SettingsState.UID);
     }
 
     @Override
@@ -73,6 +73,7 @@ public class AnafiTargetTracker extends DronePeripheralController {
      */
     public AnafiTargetTracker(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureFollowMe.UID);
         mHorizontalFraming = mVerticalFraming = TargetTrackerCore.DEFAULT_FRAMING_POSITION;
         mTracker = new TargetTrackerCore(mComponentStore, mBackend);
 
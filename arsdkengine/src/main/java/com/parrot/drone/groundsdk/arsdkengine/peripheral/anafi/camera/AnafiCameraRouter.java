@@ -97,6 +97,7 @@ public final class AnafiCameraRouter extends DronePeripheralController {
      */
     public AnafiCameraRouter(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureCamera.UID);
         mCameraControllers = new SparseArray<>();
 
         if (offlineSettingsEnabled()) {
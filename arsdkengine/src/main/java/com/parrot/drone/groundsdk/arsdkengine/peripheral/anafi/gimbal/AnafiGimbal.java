@@ -145,6 +145,7 @@ public final class AnafiGimbal extends DronePeripheralController {
      */
     public AnafiGimbal(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureGimbal.UID);
         mGimbal = new GimbalCore(mComponentStore, mBackend);
         mGimbalControlEncoder = new GimbalControlCommandEncoder();
         mDeviceDict = offlineSettingsEnabled() ? mDeviceController.getDeviceDict().getDictionary(SETTINGS_KEY) : null;
@@ -698,16 +699,17 @@ public final class AnafiGimbal extends DronePeripheralController {
 
             switch (result) {
                 case SUCCESS:
-                    mGimbal.updateCalibrationProcessState(Gimbal.CalibrationProcessState.SUCCESS).notifyUpdated();
+                    mGimbal.updateCalibrationProcessState(Gimbal.CalibrationProcessState.SUCCESS).notifyUpdatedNow();
                     break;
                 case FAILURE:
-                    mGimbal.updateCalibrationProcessState(Gimbal.CalibrationProcessState.FAILURE).notifyUpdated();
+                    mGimbal.updateCalibrationProcessState(Gimbal.CalibrationProcessState.FAILURE).notifyUpdatedNow();
                     break;
                 case CANCELED:
-                    mGimbal.updateCalibrationProcessState(Gimbal.CalibrationProcessState.CANCELED).notifyUpdated();
+                    mGimbal.updateCalibrationProcessState(Gimbal.CalibrationProcessState.CANCELED).notifyUpdatedNow();
                     break;
             }
-            // SUCCESS, FAILURE and CANCELED status are transient, reset calibration process state to NONE
+            // SUCCESS, FAILURE and CANCELED status are transient and notified immediately, reset calibration process
+            // state to NONE
             mGimbal.updateCalibrationProcessState(Gimbal.CalibrationProcessState.NONE).notifyUpdated();
         }
 
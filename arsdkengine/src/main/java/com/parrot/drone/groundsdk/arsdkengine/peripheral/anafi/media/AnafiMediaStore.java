@@ -32,8 +32,6 @@
 
 package com.parrot.drone.groundsdk.arsdkengine.peripheral.anafi.media;
 
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -53,6 +51,8 @@ import com.parrot.drone.sdkcore.arsdk.command.ArsdkCommand;
 import com.parrot.drone.sdkcore.ulog.ULog;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static com.parrot.drone.groundsdk.arsdkengine.Logging.TAG_MEDIA;
@@ -60,6 +60,9 @@ import static com.parrot.drone.groundsdk.arsdkengine.Logging.TAG_MEDIA;
 /** MediaStore peripheral controller for Anafi family drones. */
 public final class AnafiMediaStore extends DronePeripheralController {
 
+    /** Maximum count of media items received from the drone before a partial media list is notified. */
+    private static final int BROWSE_PAGE_SIZE = 100;
+
     /** The MediaStore peripheral for which this object is the backend. */
     @NonNull
     private final MediaStoreCore mMediaStore;
@@ -68,9 +71,12 @@ public final class AnafiMediaStore extends DronePeripheralController {
     @Nullable
     private HttpMediaClient mMediaClient;
 
-    /** Caches last media list browse result, when content changes are being watched; {@code null} otherwise. */
+    /**
+     * Indexed media list, initialized from the last media list browse result and updated from media change events,
+     * when content changes are being watched; {@code null} otherwise, or when a full browse is required.
+     */
     @Nullable
-    private List<MediaItemImpl> mCachedMediaList;
+    private MediaIndex mMediaIndex;
 
     /**
      * Constructor.
@@ -79,7 +85,8 @@ public final class AnafiMediaStore extends DronePeripheralController {
      */
     public AnafiMediaStore(@NonNull DroneController droneController) {
         super(droneController);
-        mMediaStore = new MediaStoreCore(mComponentStore, mBackend);
+        registerCommandFeatures(ArsdkFeatureMediastore.UID);
+        mMediaStore = new MediaStoreCore(mComponentStore, mBackend, mDeviceController.getUid());
     }
 
     @Override
@@ -100,7 +107,7 @@ public final class AnafiMediaStore extends DronePeripheralController {
     @Override
     protected void onDisconnecting() {
         mMediaStore.unpublish();
-        mCachedMediaList = null;
+        mMediaIndex = null;
         if (mMediaClient != null) {
             mMediaClient.dispose();
         }
@@ -145,7 +152,9 @@ public final class AnafiMediaStore extends DronePeripheralController {
             if (ULog.d(TAG_MEDIA)) {
                 ULog.d(TAG_MEDIA, "Media added: " + media.getId());
             }
-            onStateChanged();
+            if (mMediaIndex == null || mMediaIndex.addMedia(media)) {
+                mMediaStore.notifyObservers();
+            }
         }
 
         @Override
@@ -153,7 +162,7 @@ public final class AnafiMediaStore extends DronePeripheralController {
             if (ULog.d(TAG_MEDIA)) {
                 ULog.d(TAG_MEDIA, "Media removed: " + mediaId);
             }
-            onStateChanged();
+            onDeltaApplied(mMediaIndex == null || mMediaIndex.removeMedia(mediaId));
         }
 
         @Override
@@ -161,7 +170,7 @@ public final class AnafiMediaStore extends DronePeripheralController {
             if (ULog.d(TAG_MEDIA)) {
                 ULog.d(TAG_MEDIA, "All media removed");
             }
-            onStateChanged();
+            onContentChanged();
         }
 
         @Override
@@ -169,7 +178,7 @@ public final class AnafiMediaStore extends DronePeripheralController {
             if (ULog.d(TAG_MEDIA)) {
                 ULog.d(TAG_MEDIA, "Resource added: " + resource.getId());
             }
-            onStateChanged();
+            onDeltaApplied(mMediaIndex == null || mMediaIndex.addResource(resource));
         }
 
         @Override
@@ -177,18 +186,41 @@ public final class AnafiMediaStore extends DronePeripheralController {
             if (ULog.d(TAG_MEDIA)) {
                 ULog.d(TAG_MEDIA, "Resource removed: " + resourceId);
             }
-            onStateChanged();
+            onDeltaApplied(mMediaIndex == null || mMediaIndex.removeResource(resourceId));
         }
 
         @Override
         public void onIndexingStateChanged(@NonNull HttpMediaIndexingState state) {
             if (state == HttpMediaIndexingState.INDEXED) {
-                onStateChanged();
+                onContentChanged();
             }
         }
 
-        private void onStateChanged() {
-            mCachedMediaList = null;
+        /**
+         * Called after a media change event has been applied to the media index.
+         * <p>
+         * In case the event could not be applied, the index is dropped so that the next browse request fetches the
+         * full media list from the drone.
+         *
+         * @param applied {@code true} if the event was successfully applied, {@code false} otherwise
+         */
+        private void onDeltaApplied(boolean applied) {
+            if (!applied) {
+                if (ULog.i(TAG_MEDIA)) {
+                    ULog.i(TAG_MEDIA, "Media list out of sync, full browse required");
+                }
+                mMediaIndex = null;
+            }
+            mMediaStore.notifyObservers();
+        }
+
+        /**
+         * Called when the media content changed as a whole.
+         * <p>
+         * The media index is dropped so that the next browse request fetches the full media list from the drone.
+         */
+        private void onContentChanged() {
+            mMediaIndex = null;
             mMediaStore.notifyObservers();
         }
     };
@@ -213,39 +245,21 @@ public final class AnafiMediaStore extends DronePeripheralController {
             if (mMediaClient != null) {
                 mMediaClient.setListener(null);
                 mWatching = false;
-                mCachedMediaList = null;
+                mMediaIndex = null;
             }
         }
 
         @Nullable
         @Override
         public MediaRequest browse(@NonNull MediaRequest.ResultCallback<List<? extends MediaItemCore>> callback) {
-            MediaRequest request = null;
-            if (mCachedMediaList != null) {
-                callback.onRequestComplete(MediaRequest.Status.SUCCESS, mCachedMediaList);
-            } else if (mMediaClient == null) {
-                callback.onRequestComplete(MediaRequest.Status.FAILED, null);
-            } else {
-                request = mMediaClient.browse((status, code, result) -> {
-                    switch (status) {
-                        case SUCCESS:
-                            assert result != null;
-                            List<MediaItemImpl> list = MediaItemImpl.from(result);
-                            if (mWatching) {
-                                mCachedMediaList = list;
-                            }
-                            callback.onRequestComplete(MediaRequest.Status.SUCCESS, list);
-                            break;
-                        case FAILED:
-                            callback.onRequestComplete(MediaRequest.Status.FAILED, null);
-                            break;
-                        case CANCELED:
-                            callback.onRequestComplete(MediaRequest.Status.CANCELED, null);
-                            break;
-                    }
-                })::cancel;
-            }
-            return request;
+            return browse(callback, null);
+        }
+
+        @Nullable
+        @Override
+        public MediaRequest browseProgressively(
+                @NonNull MediaRequest.PartialResultCallback<List<? extends MediaItemCore>> callback) {
+            return browse(callback, callback);
         }
 
         @Nullable
@@ -259,13 +273,18 @@ public final class AnafiMediaStore extends DronePeripheralController {
 
             File dest = new File(destDir, resource.getUid());
             return mMediaClient.download(MediaResourceImpl.unwrap(resource).getDownloadUrl(), dest,
-                    new HttpRequest.ProgressStatusCallback() {
+                    resource.getSize(), new HttpRequest.ProgressStatusCallback() {
 
                         @Override
                         public void onRequestProgress(int progress) {
                             callback.onRequestProgress(progress);
                         }
 
+                        @Override
+                        public void onRequestThroughput(@NonNull long[] throughputs) {
+                            callback.onRequestThroughput(throughputs);
+                        }
+
                         @Override
                         public void onRequestComplete(@NonNull HttpRequest.Status status, int code) {
                             switch (status) {
@@ -287,7 +306,7 @@ public final class AnafiMediaStore extends DronePeripheralController {
         @Nullable
         @Override
         public MediaRequest fetchThumbnail(@NonNull MediaItemCore media,
-                                           @NonNull MediaRequest.ResultCallback<Bitmap> callback) {
+                                           @NonNull MediaRequest.ResultCallback<byte[]> callback) {
             String url;
             if (mMediaClient == null || (url = MediaItemImpl.unwrap(media).getThumbnailUrl()) == null) {
                 callback.onRequestComplete(MediaRequest.Status.SUCCESS, null);
@@ -299,7 +318,7 @@ public final class AnafiMediaStore extends DronePeripheralController {
         @Nullable
         @Override
         public MediaRequest fetchThumbnail(@NonNull MediaResourceCore resource,
-                                           @NonNull MediaRequest.ResultCallback<Bitmap> callback) {
+                                           @NonNull MediaRequest.ResultCallback<byte[]> callback) {
             String url;
             if (mMediaClient == null || (url = MediaResourceImpl.unwrap(resource).getThumbnailUrl()) == null) {
                 callback.onRequestComplete(MediaRequest.Status.SUCCESS, null);
@@ -377,6 +396,55 @@ public final class AnafiMediaStore extends DronePeripheralController {
             })::cancel;
         }
 
+        /**
+         * Requests a list of the available media on the drone.
+         * <p>
+         * The media list is served from the media index when available; otherwise it is streamed from the drone, and
+         * media items are converted as they are received.
+         *
+         * @param callback        callback notified when the list is available
+         * @param partialCallback callback notified of partial lists while the list is being received, may be
+         *                        {@code null}
+         *
+         * @return a request that can be canceled, or {@code null} if the request was processed directly
+         */
+        @Nullable
+        private MediaRequest browse(
+                @NonNull MediaRequest.ResultCallback<List<? extends MediaItemCore>> callback,
+                @Nullable MediaRequest.PartialResultCallback<List<? extends MediaItemCore>> partialCallback) {
+            MediaRequest request = null;
+            if (mMediaIndex != null) {
+                callback.onRequestComplete(MediaRequest.Status.SUCCESS, mMediaIndex.getMedias());
+            } else if (mMediaClient == null) {
+                callback.onRequestComplete(MediaRequest.Status.FAILED, null);
+            } else {
+                MediaList list = new MediaList();
+                request = mMediaClient.browse(MediaItemImpl::from, BROWSE_PAGE_SIZE, page -> {
+                    list.addAll(page);
+                    if (partialCallback != null) {
+                        partialCallback.onRequestPartialResult(list.snapshot());
+                    }
+                }, (status, code) -> {
+                    switch (status) {
+                        case SUCCESS:
+                            List<MediaItemImpl> medias = list.snapshot();
+                            if (mWatching) {
+                                mMediaIndex = new MediaIndex(medias);
+                            }
+                            callback.onRequestComplete(MediaRequest.Status.SUCCESS, medias);
+                            break;
+                        case FAILED:
+                            callback.onRequestComplete(MediaRequest.Status.FAILED, null);
+                            break;
+                        case CANCELED:
+                            callback.onRequestComplete(MediaRequest.Status.CANCELED, null);
+                            break;
+                    }
+                })::cancel;
+            }
+            return request;
+        }
+
         /**
          * Fetches the thumbnail at the given url.
          * <p>
@@ -394,18 +462,12 @@ public final class AnafiMediaStore extends DronePeripheralController {
          */
         @NonNull
         private MediaRequest fetchThumbnail(@NonNull String url, @NonNull String itemUid,
-                                            @NonNull MediaRequest.ResultCallback<Bitmap> callback) {
+                                            @NonNull MediaRequest.ResultCallback<byte[]> callback) {
             assert mMediaClient != null;
-            return mMediaClient.fetch(url, (data) -> {
-                Bitmap thumbnail = BitmapFactory.decodeByteArray(data, 0, data.length);
-                if (thumbnail == null && ULog.w(TAG_MEDIA)) {
-                    ULog.w(TAG_MEDIA, "Failed to decode thumbnail [item:" + itemUid + "]");
-                }
-                return thumbnail;
-            }, (status, code, thumbnail) -> {
+            return mMediaClient.fetch(url, (status, code, data) -> {
                 switch (status) {
                     case SUCCESS:
-                        callback.onRequestComplete(MediaRequest.Status.SUCCESS, thumbnail);
+                        callback.onRequestComplete(MediaRequest.Status.SUCCESS, data);
                         break;
                     case FAILED:
                         callback.onRequestComplete(code < HttpRequest.STATUS_CODE_SERVER_ERROR ?
@@ -418,4 +480,46 @@ public final class AnafiMediaStore extends DronePeripheralController {
             })::cancel;
         }
     };
+
+    /**
+     * Accumulates media items received while browsing, and provides snapshots of the items received so far.
+     * <p>
+     * Items are stored in an array that is only ever appended to, and reallocated with doubled capacity when full.
+     * A snapshot is a read-only view on the filled part of the current array, which subsequent appends never modify,
+     * so that notifying a partial list does not copy all items received so far.
+     */
+    private static final class MediaList {
+
+        /** Received media items; only the first {@link #mSize} entries are set. */
+        @NonNull
+        private MediaItemImpl[] mItems = new MediaItemImpl[BROWSE_PAGE_SIZE];
+
+        /** Count of received media items. */
+        private int mSize;
+
+        /**
+         * Appends media items.
+         *
+         * @param items media items to append
+         */
+        void addAll(@NonNull List<MediaItemImpl> items) {
+            int size = mSize + items.size();
+            if (size > mItems.length) {
+                mItems = Arrays.copyOf(mItems, Math.max(size, mItems.length * 2));
+            }
+            for (int i = 0, N = items.size(); i < N; i++) {
+                mItems[mSize++] = items.get(i);
+            }
+        }
+
+        /**
+         * Gives the media items received so far.
+         *
+         * @return a read-only list of received media items, unaffected by subsequent appends
+         */
+        @NonNull
+        List<MediaItemImpl> snapshot() {
+            return Collections.unmodifiableList(Arrays.asList(mItems).subList(0, mSize));
+        }
+    }
 }
@@ -0,0 +1,214 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+
+package com.parrot.drone.groundsdk.arsdkengine.peripheral.anafi.media;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.parrot.drone.groundsdk.arsdkengine.http.HttpMediaItem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Indexed, in-memory copy of the drone media list.
+ * <p>
+ * The index is initialized from a full media browse result, then kept up to date by applying media and resource
+ * change events as deltas. Whenever an event cannot be applied consistently (for instance because it references an
+ * unknown media), the update methods report it, meaning that the index is out of sync and a full browse is required.
+ */
+final class MediaIndex {
+
+    /** Media items, by media uid, in browse order. */
+    @NonNull
+    private final LinkedHashMap<String, MediaItemImpl> mMedias;
+
+    /** Uid of the media owning each resource, by resource uid. */
+    @NonNull
+    private final Map<String, String> mResourceOwners;
+
+    /** Media list snapshot, built on demand; {@code null} when it must be rebuilt. */
+    @Nullable
+    private List<MediaItemImpl> mSnapshot;
+
+    /**
+     * Constructor.
+     *
+     * @param medias media list to initialize the index with, as obtained from a full browse
+     */
+    MediaIndex(@NonNull List<MediaItemImpl> medias) {
+        mMedias = new LinkedHashMap<>();
+        mResourceOwners = new HashMap<>();
+        for (int i = 0, N = medias.size(); i < N; i++) {
+            index(medias.get(i));
+        }
+        mSnapshot = Collections.unmodifiableList(medias);
+    }
+
+    /**
+     * Gives the current media list.
+     * <p>
+     * The same list instance is returned until the index content changes.
+     *
+     * @return current media list, in browse order; new media are listed last
+     */
+    @NonNull
+    List<MediaItemImpl> getMedias() {
+        if (mSnapshot == null) {
+            mSnapshot = Collections.unmodifiableList(new ArrayList<>(mMedias.values()));
+        }
+        return mSnapshot;
+    }
+
+    /**
+     * Adds a media to the index, or replaces the media with the same uid.
+     *
+     * @param httpMedia added media
+     *
+     * @return {@code true} if the index was updated, {@code false} if the media is invalid; such a media would be
+     *         excluded from a full browse result as well, so the index remains in sync
+     */
+    boolean addMedia(@NonNull HttpMediaItem httpMedia) {
+        MediaItemImpl media = MediaItemImpl.from(httpMedia);
+        if (media == null) {
+            return false;
+        }
+        unindex(mMedias.get(media.getUid()));
+        index(media);
+        mSnapshot = null;
+        return true;
+    }
+
+    /**
+     * Removes a media from the index.
+     *
+     * @param mediaUid uid of the removed media
+     *
+     * @return {@code true} if the index was updated, {@code false} if the media is unknown
+     */
+    boolean removeMedia(@NonNull String mediaUid) {
+        MediaItemImpl media = mMedias.remove(mediaUid);
+        if (media == null) {
+            return false;
+        }
+        unindex(media);
+        mSnapshot = null;
+        return true;
+    }
+
+    /**
+     * Adds a resource to the media that owns it, or replaces the resource with the same uid.
+     *
+     * @param resource added resource
+     *
+     * @return {@code true} if the index was updated, {@code false} if the owning media is unknown or the resulting
+     *         media is invalid
+     */
+    boolean addResource(@NonNull HttpMediaItem.Resource resource) {
+        String mediaUid = resource.getMediaId();
+        MediaItemImpl media = mediaUid == null ? null : mMedias.get(mediaUid);
+        return media != null && resource.isValid() && replace(media, media.getHttpMedia().withResource(resource));
+    }
+
+    /**
+     * Removes a resource from the media that owns it.
+     *
+     * @param resourceUid uid of the removed resource
+     *
+     * @return {@code true} if the index was updated, {@code false} if the resource is unknown or the resulting media
+     *         is invalid
+     */
+    boolean removeResource(@NonNull String resourceUid) {
+        String mediaUid = mResourceOwners.get(resourceUid);
+        MediaItemImpl media = mediaUid == null ? null : mMedias.get(mediaUid);
+        if (media == null) {
+            return false;
+        }
+        HttpMediaItem httpMedia = media.getHttpMedia().withoutResource(resourceUid);
+        return httpMedia != null && replace(media, httpMedia);
+    }
+
+    /**
+     * Replaces a media in the index.
+     *
+     * @param media     media to replace
+     * @param httpMedia replacing HTTP media
+     *
+     * @return {@code true} if the media was replaced, {@code false} if the replacing media is invalid
+     */
+    private boolean replace(@NonNull MediaItemImpl media, @NonNull HttpMediaItem httpMedia) {
+        MediaItemImpl newMedia = MediaItemImpl.from(httpMedia);
+        if (newMedia == null) {
+            return false;
+        }
+        unindex(media);
+        index(newMedia);
+        mSnapshot = null;
+        return true;
+    }
+
+    /**
+     * Indexes a media and its resources.
+     * <p>
+     * A media with the same uid already in the index keeps its position.
+     *
+     * @param media media to index
+     */
+    private void index(@NonNull MediaItemImpl media) {
+        String mediaUid = media.getUid();
+        mMedias.put(mediaUid, media);
+        List<MediaResourceImpl> resources = media.getResources();
+        for (int i = 0, N = resources.size(); i < N; i++) {
+            mResourceOwners.put(resources.get(i).getUid(), mediaUid);
+        }
+    }
+
+    /**
+     * Removes the resources of a media from the resource index.
+     *
+     * @param media media whose resources must be unindexed, may be {@code null}
+     */
+    private void unindex(@Nullable MediaItemImpl media) {
+        if (media != null) {
+            List<MediaResourceImpl> resources = media.getResources();
+            for (int i = 0, N = resources.size(); i < N; i++) {
+                mResourceOwners.remove(resources.get(i).getUid());
+            }
+        }
+    }
+}
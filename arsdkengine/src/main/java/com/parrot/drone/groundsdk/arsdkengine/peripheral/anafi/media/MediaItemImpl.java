@@ -72,6 +72,18 @@ final class MediaItemImpl implements MediaItemCore {
                          .collect(Collectors.toList());
     }
 
+    /**
+     * Builds a {@code MediaItemImpl} instance from a {@code HttpMediaItem}.
+     *
+     * @param httpMedia http media item to convert
+     *
+     * @return a corresponding {@code MediaItemImpl} instance, or {@code null} if the HTTP item does not pass validation
+     */
+    @Nullable
+    static MediaItemImpl from(@NonNull HttpMediaItem httpMedia) {
+        return httpMedia.isValid() ? new MediaItemImpl(httpMedia) : null;
+    }
+
     /**
      * Unwraps a media item to its internal {@code MediaItemImpl} representation.
      * <p>
@@ -186,6 +198,16 @@ final class MediaItemImpl implements MediaItemCore {
         return Collections.unmodifiableList(mResources);
     }
 
+    /**
+     * Retrieves the HTTP media item that backs this media.
+     *
+     * @return backing HTTP media item
+     */
+    @NonNull
+    HttpMediaItem getHttpMedia() {
+        return mHttpMedia;
+    }
+
     /**
      * Retrieves the URL to use to fetch the thumbnail for this media.
      *
@@ -135,6 +135,7 @@ public class AnafiThermalControl extends DronePeripheralController {
      */
     public AnafiThermalControl(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureThermal.UID);
         mThermal = new ThermalControlCore(mComponentStore, mBackend);
         mPresetDict = offlineSettingsEnabled() ? mDeviceController.getPresetDict().getDictionary(SETTINGS_KEY) : null;
         mDeviceDict = offlineSettingsEnabled() ? mDeviceController.getDeviceDict().getDictionary(SETTINGS_KEY) : null;
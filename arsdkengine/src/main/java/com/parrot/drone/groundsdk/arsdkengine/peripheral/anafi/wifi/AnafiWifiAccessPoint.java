@@ -121,6 +121,7 @@ public class AnafiWifiAccessPoint extends DronePeripheralController {
      */
     public AnafiWifiAccessPoint(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureCommon.SettingsState.UID, ArsdkFeatureWifi.UID);
         mReverseGeocoder = mDeviceController.getEngine().getUtility(ReverseGeocoderUtility.class);
         mWifiAccessPoint = new WifiAccessPointCore(mComponentStore, mAccessPointBackend);
         mWifiScanner = new WifiScannerCore(mComponentStore, mScannerBackend);
@@ -4,18 +4,17 @@ import android.util.Log;
 
 import com.parrot.drone.groundsdk.arsdkengine.BuildConfig;
 
-import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
 import java.net.InetAddress;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Iterator;
-import java.util.Locale;
 
 /**
  * Localhost fake RTSP server bridging legacy Bebop/Mambo arstream2 video into pdraw.
@@ -33,7 +32,8 @@ import java.util.Locale;
  *       approach desynced permanently after any TEARDOWN/reconnect because the client resets
  *       its counter to 1 while the server counter carried forward.</li>
  *   <li><b>Content-Length</b>: computed as the exact UTF-8 byte length of the SDP body string
- *       using LF line endings (what {@link PrintWriter#println()} emits on Android).
+ *       using LF line endings (what the former {@code PrintWriter.println()} emitted on Android,
+ *       and what all responses still use).
  *       librtsp's {@code find_double_newline()} accepts both {@code \r\n\r\n} and {@code \n\n},
  *       so LF-only endings are tolerated.  The old hardcoded literals 289/290 were correct only
  *       by coincidence for the specific SDP text at the time they were written.</li>
@@ -56,23 +56,45 @@ import java.util.Locale;
  *       paths — see {@link BebopStreamServer#onConnected()}.  For SkyController 2/2+ (MUX)
  *       the bridge is skipped entirely, so RTSP_TRANSPORT_NET is always correct here even when
  *       {@code skyController} is true (SC1 over Wi-Fi reaches this path).</li>
+ *   <li><b>Pipelining</b>: requests are parsed as soon as their header block is complete, so a
+ *       client may send several requests without waiting; responses are sent back in request
+ *       order.  A request {@code Content-Length} body (e.g. SET_PARAMETER) is skipped.</li>
  * </ul>
+ *
+ * <h3>I/O model</h3>
+ * A single thread multiplexes the listening channel and all client channels with a
+ * {@link Selector}; channels are non-blocking, so any number of local consumers (recorder,
+ * analytics, preview) can be served without a thread per client.  Each session owns one request
+ * buffer, parsed in place, and one response buffer that accumulates all responses to the
+ * requests parsed from a single read and is written out at once.
  */
 public class BebopLocalRtspServer {
-    private final RtspListenerThread listenerThread = new RtspListenerThread();
-    private Collection<ClientThread> clients = new ArrayList<>();
-
     private static final String TAG = BebopLocalRtspServer.class.getSimpleName();
 
+    /* Port pdraw's RTSP client connects to. */
+    private static final int DEFAULT_PORT = 5554;
+
+    /*
+     * Pending connection backlog.  pdraw opens a single connection, but the stream may be fanned
+     * out to several local consumers that all connect at once.
+     */
+    private static final int BACKLOG = 64;
+
+    /* Per-session request buffer size; also the maximum size of a request header block. */
+    private static final int REQUEST_BUFFER_SIZE = 4096;
+
+    /* Initial per-session response buffer size; grows as needed. */
+    private static final int RESPONSE_BUFFER_SIZE = 1024;
+
     /* Fixed RTSP response status lines */
     private static final String RTSP_OK = "RTSP/1.0 200 OK";
     private static final String RTSP_NOT_IMPLEMENTED = "RTSP/1.0 501 Not Implemented";
 
     /**
-     * CSeq response format.  Value must echo the CSeq from the incoming request.
+     * CSeq response header name.  Value must echo the CSeq from the incoming request.
      * See class-level javadoc and rtsp_client.c for the mismatch-drop contract.
      */
-    private static final String RTSP_CSEQ = "CSeq: %d";
+    private static final String RTSP_CSEQ = "CSeq: ";
 
     private static final String RTSP_PUBLIC =
             "Public: OPTIONS, DESCRIBE, SETUP, TEARDOWN, PLAY, PAUSE, SET_PARAMETER";
@@ -87,477 +109,547 @@ public class BebopLocalRtspServer {
     private static final String RTSP_TRANSPORT_NET =
             "Transport: RTP/AVP/UDP;unicast;client_port=55004-55005;server_port=5004-5005";
 
+    /* Supported methods, matched as request-line prefixes; index in this array is the method id. */
+    private static final String[] METHODS = {"OPTIONS", "DESCRIBE", "SETUP", "PLAY", "PAUSE", "TEARDOWN"};
+    private static final int METHOD_OPTIONS = 0;
+    private static final int METHOD_DESCRIBE = 1;
+    private static final int METHOD_SETUP = 2;
+    private static final int METHOD_PLAY = 3;
+    private static final int METHOD_PAUSE = 4;
+    private static final int METHOD_TEARDOWN = 5;
+    private static final int METHOD_UNKNOWN = METHODS.length;
+
+    /* Request-line prefixes and header names, pre-encoded for in-place matching. */
+    private static final byte[][] METHOD_BYTES = new byte[METHODS.length][];
+    private static final byte[] HEADER_CSEQ = ascii("CSeq:");
+    private static final byte[] HEADER_CONTENT_LENGTH = ascii("Content-Length:");
+
+    static {
+        for (int i = 0; i < METHODS.length; i++) {
+            METHOD_BYTES[i] = ascii(METHODS[i]);
+        }
+    }
+
+    /*
+     * Pre-encoded response fragments.  A response is a status line, the CSeq line, then a
+     * method-specific tail ending with the blank line (and body, for DESCRIBE).
+     */
+    private static final byte[] STATUS_OK = ascii(RTSP_OK + "\n");
+    private static final byte[] STATUS_NOT_IMPLEMENTED = ascii(RTSP_NOT_IMPLEMENTED + "\n");
+    private static final byte[] CSEQ_PREFIX = ascii(RTSP_CSEQ);
+    private static final byte[] OPTIONS_TAIL = ascii(RTSP_PUBLIC + "\n\n");
+    /*
+     * Always advertise UDP/NET transport.  This server is only instantiated for non-MUX paths —
+     * BebopStreamServer.onConnected() skips bridge creation when useMux=true (SC2/SC2+).  A Bebop
+     * behind SC1 has skyController=true but useMux=false, so it reaches this code and still
+     * requires NET transport.
+     */
+    private static final byte[] SETUP_TAIL =
+            ascii(RTSP_TIMESTAMP + "\n" + RTSP_SESSION + "\n" + RTSP_TRANSPORT_NET + "\n\n");
+    private static final byte[] SESSION_TAIL = ascii(RTSP_TIMESTAMP + "\n" + RTSP_SESSION + "\n\n");
+    private static final byte[] EMPTY_TAIL = ascii("\n");
+
     /**
      * {@code skyController} selects the correct device IP for the SDP body.
      * It does NOT affect transport selection — this server is only created for non-MUX paths.
      */
     private final boolean skyController;
-    private final Object lock = new Object();
+
+    /* DESCRIBE response tail, including the SDP body; only depends on skyController. */
+    private final byte[] describeTail;
+
+    private final RtspSelectorThread selectorThread;
 
     BebopLocalRtspServer(final boolean skyController) {
+        this(skyController, DEFAULT_PORT);
+    }
+
+    /**
+     * @param skyController {@code true} when the drone is reached through a SkyController
+     * @param port          loopback port to listen on, {@code 0} for an ephemeral port
+     */
+    BebopLocalRtspServer(final boolean skyController, final int port) {
         this.skyController = skyController;
+        this.describeTail = buildDescribeTail();
+        this.selectorThread = new RtspSelectorThread(port);
     }
 
     void startServer() {
-        listenerThread.start();
+        selectorThread.start();
     }
 
     void stopServer() {
-        if (listenerThread.isAlive()) {
-            listenerThread.interrupt();
-
-            // Close client sockets before joining so readLine() unblocks in each ClientThread.
-            synchronized (lock) {
-                for (final ClientThread client : clients) {
-                    try {
-                        client.socket.close();
-                    } catch (Exception e) {
-                        logEvent(Log.WARN,
-                                "unable to close client socket on stop: " + e.getMessage(), e);
-                    }
-                }
-            }
-
-            try {
-                listenerThread.server.close();
-            } catch (Exception e) {
-                logEvent(Log.WARN, "unable to close server socket: " + e.getMessage(), e);
+        if (selectorThread.isAlive()) {
+            selectorThread.interrupt();
+            if (selectorThread.selector != null) {
+                selectorThread.selector.wakeup();
             }
-
             try {
-                listenerThread.join(5000);
+                selectorThread.join(5000);
             } catch (Exception e) {
-                logEvent(Log.WARN, "unable to clean up listener: " + e.getMessage(), e);
+                logEvent(Log.WARN, "unable to clean up selector thread: " + e.getMessage(), e);
             }
+        } else {
+            selectorThread.closeAll();
         }
     }
 
-    private class RtspListenerThread extends Thread {
-        private final CleanupThread cleanupThread = new CleanupThread();
-        ServerSocket server;
+    /**
+     * @return the port the server listens on, or {@code -1} if it could not be bound
+     */
+    int getLocalPort() {
+        return selectorThread.server == null ? -1 : selectorThread.server.socket().getLocalPort();
+    }
 
-        private RtspListenerThread() {
-            this(5554);
-        }
+    /**
+     * Build the DESCRIBE response tail with an SDP session description.
+     *
+     * <p><b>Content-Length</b>: measured as the exact UTF-8 byte length of the SDP body
+     * string (LF line endings) rather than the old hardcoded literals 289/290, which were
+     * fragile and only happened to be correct for a specific version of the SDP text.
+     *
+     * <p>See class-level javadoc for the protocol assumptions behind device IP selection,
+     * port values, and sprop-parameter-sets.
+     */
+    private byte[] buildDescribeTail() {
+        /*
+         * Device IP — fixed by Parrot firmware network configuration:
+         *   192.168.42.1  Bebop/Mambo direct Wi-Fi (access-point mode)
+         *   192.168.43.1  Bebop behind SkyController bridge subnet
+         */
+        final String deviceIp = skyController ? "192.168.43.1" : "192.168.42.1";
+
+        /*
+         * arstream2 RTP data port on the device side, injected by arsdk-ng:
+         *   5004   SkyController path
+         *   55004  direct Wi-Fi path
+         */
+        final int videoPort = skyController ? 5004 : 55004;
+
+        /*
+         * Build the SDP body as a single string with '\n' line endings, so Content-Length is the
+         * UTF-8 byte count of this string.  librtsp's find_double_newline() accepts \n\n as the
+         * header terminator.
+         */
+        final String sdpBody =
+                "v=0\n"
+                + "o=- 0 0 IN IP4 127.0.0.1\n"
+                + "s=media/stream2\n"
+                + "i=A Seminar on the session description protocol\n"
+                + "c=IN IP4 " + deviceIp + "\n"
+                + "t=0 0\n"
+                + "m=video " + videoPort + " RTP/AVP 96\n"
+                + "a=rtpmap:96 H264/90000\n"
+                /*
+                 * sprop-parameter-sets: Bebop 2 H.264 baseline Level 4.0 defaults.
+                 * pdraw uses these for early out-of-band codec pre-configuration;
+                 * arstream2 always also carries SPS/PPS in-band so these are not
+                 * strictly required, but providing them reduces first-frame latency.
+                 * TODO(bench): verify these match actual firmware SPS/PPS — see class
+                 * javadoc.
+                 */
+                + "a=fmtp:96 packetization-mode=1;profile-level-id=000042;"
+                + "sprop-parameter-sets=Z01AKZZUAoAtyA==,aO44gA==\n"
+                + "a=control:stream=0\n";
+
+        final byte[] body = sdpBody.getBytes(StandardCharsets.UTF_8);
+        final byte[] headers = ascii(RTSP_TIMESTAMP + "\n"
+                + "Content-Base: rtsp://" + deviceIp + "/media/stream2/\n"
+                + "Content-Type: application/sdp\n"
+                + "Content-Length: " + body.length + "\n\n");
+
+        final byte[] tail = new byte[headers.length + body.length];
+        System.arraycopy(headers, 0, tail, 0, headers.length);
+        System.arraycopy(body, 0, tail, headers.length, body.length);
+        return tail;
+    }
 
-        private RtspListenerThread(final int port) {
+    private class RtspSelectorThread extends Thread {
+        Selector selector;
+        ServerSocketChannel server;
+
+        private RtspSelectorThread(final int port) {
+            super("rtsp-bridge");
             try {
+                selector = Selector.open();
                 /*
                  * Bind to loopback only — this fake server must not be reachable from the
-                 * network.  InetAddress.getLoopbackAddress() returns 127.0.0.1 (available since
-                 * Java 7 / Android API 1 via InetAddress.getByName("localhost")).
-                 * The three-argument ServerSocket constructor also sets SO_REUSEADDR implicitly.
-                 * Backlog of 5 is sufficient for the single pdraw client that uses this server.
+                 * network.  SO_REUSEADDR is set so that the port can be rebound right after a
+                 * reconnection.
                  */
-                server = new ServerSocket(port, 5, InetAddress.getLoopbackAddress());
+                server = ServerSocketChannel.open();
+                server.socket().setReuseAddress(true);
+                server.socket().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+                        BACKLOG);
+                server.configureBlocking(false);
+                server.register(selector, SelectionKey.OP_ACCEPT);
             } catch (IOException e) {
-                server = null;
                 /* ERROR is always emitted (not debug-gated): a bind failure means no video. */
                 logEvent(Log.ERROR,
                         "unable to open listener on port " + port + ": " + e.getMessage(), e);
+                closeQuietly(server);
+                server = null;
             }
         }
 
         @Override
         public void run() {
             if (server == null) {
-                logEvent(Log.ERROR, "unable to start socket server: no ServerSocket");
+                logEvent(Log.ERROR, "unable to start socket server: no ServerSocketChannel");
+                closeAll();
                 return;
             }
 
-            cleanupThread.start();
+            try {
+                while (!isInterrupted()) {
+                    selector.select();
+
+                    final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        final SelectionKey key = keys.next();
+                        keys.remove();
 
-            boolean running = true;
+                        if (!key.isValid()) {
+                            continue;
+                        }
 
-            while (running) {
-                try {
-                    final Socket socket = server.accept();
-                    final ClientThread client = new ClientThread(socket);
+                        if (key.isAcceptable()) {
+                            accept();
+                            continue;
+                        }
 
-                    synchronized (lock) {
-                        clients.add(client);
+                        final RtspSession session = (RtspSession) key.attachment();
+                        try {
+                            if (key.isReadable()) {
+                                session.onReadable();
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                session.onWritable();
+                            }
+                        } catch (IOException e) {
+                            session.close();
+                        }
                     }
+                }
+            } catch (IOException e) {
+                logEvent(Log.WARN, "selector failure: " + e.getMessage(), e);
+            } finally {
+                closeAll();
+            }
+        }
 
+        private void accept() {
+            try {
+                SocketChannel channel;
+                while ((channel = server.accept()) != null) {
+                    channel.configureBlocking(false);
+                    channel.socket().setTcpNoDelay(true);
+                    final RtspSession session = new RtspSession(channel);
+                    session.key = channel.register(selector, SelectionKey.OP_READ, session);
                     logEvent("client added");
-
-                    client.start();
-                } catch (Exception ex) {
-                    running = false;
                 }
+            } catch (IOException e) {
+                logEvent(Log.WARN, "unable to accept client: " + e.getMessage(), e);
             }
+        }
 
-            cleanupThread.interrupt();
+        void closeAll() {
+            if (selector == null) {
+                return;
+            }
             try {
-                cleanupThread.join();
-            } catch (InterruptedException e) {
-                logEvent(Log.WARN, "unable to join cleanup thread: " + e.getMessage(), e);
+                for (final SelectionKey key : selector.keys()) {
+                    closeQuietly(key.channel());
+                }
+            } catch (Exception e) {
+                logEvent(Log.WARN, "unable to close channels: " + e.getMessage(), e);
             }
+            closeQuietly(selector);
         }
     }
 
-    private class ClientThread extends Thread {
-        private final Socket socket;
+    private final class RtspSession {
+        private final SocketChannel channel;
+        SelectionKey key;
 
-        private BufferedReader is = null;
-        private PrintWriter os = null;
+        /* Received bytes, in write mode; parsed in place once a complete header block is in. */
+        private final ByteBuffer request = ByteBuffer.allocate(REQUEST_BUFFER_SIZE);
 
-        private ClientThread(final Socket socket) {
-            this.socket = socket;
+        /* Responses not sent yet, in write mode. */
+        private ByteBuffer response = ByteBuffer.allocate(RESPONSE_BUFFER_SIZE);
 
-            try {
-                is = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-                os = new PrintWriter(socket.getOutputStream(), true);
-            } catch (Exception e) {
-                logEvent(Log.WARN,
-                        "unable to open input/output streams: " + e.getMessage(), e);
-            }
-        }
+        /* Remaining request body bytes to skip. */
+        private int pendingBody;
 
-        /**
-         * Drain RTSP request headers until the blank line that terminates them, logging each
-         * header line and extracting the CSeq value.
-         *
-         * <p>RFC 2326 §6: the request-line has already been consumed by the caller; this method
-         * starts from the first header line.  librtsp sends {@code CSeq: <n>} as the second
-         * header on every method; parsing it here ensures the response echoes the request's
-         * sequence number regardless of reconnects or TEARDOWN resets.
-         *
-         * <p>Case-insensitive match per RFC 2326 §4.2 (header field names are case-insensitive).
-         *
-         * @param firstHeaderLine the line immediately after the request-line (may be null if
-         *                        the connection was closed)
-         * @return the CSeq integer from the request headers, or {@code -1} if not found or
-         *         malformed
-         */
-        private int drainHeaders(final String firstHeaderLine) throws IOException {
-            int cseq = -1;
-            String line = firstHeaderLine;
-            while (line != null && line.length() > 0) {
-                logEvent(line);
-                if (line.regionMatches(true, 0, "CSeq:", 0, 5)) {
-                    try {
-                        cseq = Integer.parseInt(line.substring(5).trim());
-                    } catch (NumberFormatException ignored) {
-                        logEvent(Log.WARN, "malformed CSeq header: " + line);
-                    }
-                }
-                line = is.readLine();
-            }
-            return cseq;
+        private RtspSession(final SocketChannel channel) {
+            this.channel = channel;
         }
 
-        @Override
-        public void run() {
-            if (is == null || os == null) {
-                logEvent(Log.ERROR, "unable to start socket client: streams not initialized");
+        void onReadable() throws IOException {
+            if (channel.read(request) < 0) {
+                // Connection closed by peer.
+                close();
                 return;
             }
 
-            boolean running = true;
+            request.flip();
+            while (skipBody() && parseRequest()) {
+                // pipelined requests are answered in a single write below
+            }
+            request.compact();
 
-            while (running) {
-                try {
-                    final String inputLine = is.readLine();
+            if (!request.hasRemaining()) {
+                logEvent(Log.WARN, "request header block exceeds " + REQUEST_BUFFER_SIZE + " bytes");
+                close();
+                return;
+            }
 
-                    if (inputLine == null) {
-                        // Connection closed by peer.
-                        running = false;
-                        continue;
-                    }
+            flush();
+        }
 
-                    if (inputLine.startsWith("OPTIONS")) {
-                        final int cseq = drainHeaders(is.readLine());
-                        processOptions(cseq);
-                        continue;
-                    }
+        void onWritable() throws IOException {
+            flush();
+        }
 
-                    if (inputLine.startsWith("DESCRIBE")) {
-                        final int cseq = drainHeaders(is.readLine());
-                        processDescribe(cseq);
-                        continue;
-                    }
+        /**
+         * Send as much pending response data as possible.  While responses are pending, the
+         * session stops reading requests, so that a client that does not read its responses
+         * cannot make the server buffer them indefinitely.
+         */
+        private void flush() throws IOException {
+            response.flip();
+            channel.write(response);
+            response.compact();
+            key.interestOps(response.position() > 0 ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
 
-                    if (inputLine.startsWith("SETUP")) {
-                        final int cseq = drainHeaders(is.readLine());
-                        processSetup(cseq);
-                        continue;
-                    }
+        void close() {
+            key.cancel();
+            closeQuietly(channel);
+            logEvent("client removed");
+        }
 
-                    if (inputLine.startsWith("PLAY")) {
-                        final int cseq = drainHeaders(is.readLine());
-                        processPlay(cseq);
-                        continue;
-                    }
+        /**
+         * Skip the body of the previous request.
+         *
+         * @return {@code true} if the body has been skipped entirely
+         */
+        private boolean skipBody() {
+            final int skip = Math.min(pendingBody, request.remaining());
+            request.position(request.position() + skip);
+            pendingBody -= skip;
+            return pendingBody == 0;
+        }
 
-                    if (inputLine.startsWith("PAUSE")) {
-                        final int cseq = drainHeaders(is.readLine());
-                        processPause(cseq);
-                        continue;
+        /**
+         * Parse and answer the next request if its header block is complete.
+         *
+         * <p>RFC 2326 §6: a request is a request-line followed by header lines and terminated by
+         * an empty line.  Both {@code \r\n} and {@code \n} line endings are accepted, and empty
+         * lines preceding the request-line are ignored.  librtsp sends {@code CSeq: <n>} on every
+         * method; parsing it ensures the response echoes the request's sequence number
+         * regardless of reconnects or TEARDOWN resets.
+         *
+         * <p>Case-insensitive header match per RFC 2326 §4.2.
+         *
+         * @return {@code true} if a request was consumed, {@code false} if more data is needed
+         */
+        private boolean parseRequest() {
+            int method = -1;
+            int cseq = -1;
+            int contentLength = 0;
+            int lineStart = request.position();
+            for (int i = lineStart, limit = request.limit(); i < limit; i++) {
+                if (request.get(i) != '\n') {
+                    continue;
+                }
+                final int lineEnd = i > lineStart && request.get(i - 1) == '\r' ? i - 1 : i;
+                if (lineEnd == lineStart) {
+                    if (method >= 0) {
+                        request.position(i + 1);
+                        pendingBody = contentLength;
+                        respond(method, cseq);
+                        return true;
                     }
-
-                    if (inputLine.startsWith("TEARDOWN")) {
-                        final int cseq = drainHeaders(is.readLine());
-                        processTeardown(cseq);
-                        continue;
+                } else if (method < 0) {
+                    method = parseMethod(lineStart, lineEnd);
+                } else if (startsWithIgnoreCase(lineStart, lineEnd, HEADER_CSEQ)) {
+                    cseq = parseValue(lineStart + HEADER_CSEQ.length, lineEnd);
+                    if (cseq < 0) {
+                        logEvent(Log.WARN, "malformed CSeq header");
                     }
-
-                    /*
-                     * Unknown method: drain remaining headers and reply 501 Not Implemented
-                     * (RFC 2326 §7.1).  Silence would leave the client waiting indefinitely.
-                     */
-                    logEvent(Log.WARN, "unknown RTSP method: " + inputLine);
-                    final int cseq = drainHeaders(is.readLine());
-                    processNotImplemented(cseq);
-
-                } catch (Exception e) {
-                    running = false;
+                } else if (startsWithIgnoreCase(lineStart, lineEnd, HEADER_CONTENT_LENGTH)) {
+                    contentLength = Math.max(0,
+                            parseValue(lineStart + HEADER_CONTENT_LENGTH.length, lineEnd));
                 }
+                lineStart = i + 1;
             }
-
-            try {
-                is.close();
-            } catch (Exception e) {
-                logEvent(Log.WARN, "unable to close input stream: " + e.getMessage(), e);
-            }
-            try {
-                os.close();
-            } catch (Exception e) {
-                logEvent(Log.WARN, "unable to close output stream: " + e.getMessage(), e);
-            }
-            try {
-                socket.close();
-            } catch (Exception e) {
-                logEvent(Log.WARN, "unable to close client socket: " + e.getMessage(), e);
-            }
+            return false;
         }
 
-        private void processOptions(final int cseq) {
-            try {
-                logEvent("processOptions");
-
-                os.println(RTSP_OK);
-                os.println(String.format(Locale.US, RTSP_CSEQ, cseq));
-                os.println(RTSP_PUBLIC);
-                os.println();
-
-            } catch (Exception e) {
-                logEvent(Log.WARN, "unable to process OPTIONS: " + e.getMessage(), e);
+        private int parseMethod(final int start, final int end) {
+            for (int i = 0; i < METHOD_BYTES.length; i++) {
+                if (startsWith(start, end, METHOD_BYTES[i])) {
+                    if (BuildConfig.DEBUG) {
+                        logEvent(ascii(start, end));
+                    }
+                    return i;
+                }
             }
+            logEvent(Log.WARN, "unknown RTSP method: " + ascii(start, end));
+            return METHOD_UNKNOWN;
         }
 
         /**
-         * Build and send the DESCRIBE response with an SDP session description.
-         *
-         * <p><b>Content-Length</b>: measured as the exact UTF-8 byte length of the SDP body
-         * string (LF line endings as produced by {@link PrintWriter#println()}) rather than the
-         * old hardcoded literals 289/290, which were fragile and only happened to be correct for
-         * a specific version of the SDP text.
+         * Parse a non-negative decimal header value, surrounded by optional white space.
          *
-         * <p>See class-level javadoc for the protocol assumptions behind device IP selection,
-         * port values, and sprop-parameter-sets.
+         * @return the parsed value, or {@code -1} if missing or malformed
          */
-        private void processDescribe(final int cseq) {
-            try {
-                logEvent("processDescribe");
-
-                /*
-                 * Device IP — fixed by Parrot firmware network configuration:
-                 *   192.168.42.1  Bebop/Mambo direct Wi-Fi (access-point mode)
-                 *   192.168.43.1  Bebop behind SkyController bridge subnet
-                 */
-                final String deviceIp = skyController ? "192.168.43.1" : "192.168.42.1";
-
-                /*
-                 * arstream2 RTP data port on the device side, injected by arsdk-ng:
-                 *   5004   SkyController path
-                 *   55004  direct Wi-Fi path
-                 */
-                final int videoPort = skyController ? 5004 : 55004;
-
-                /*
-                 * Build the SDP body as a single string.  Each println() appends '\n' on
-                 * Android, so Content-Length is the UTF-8 byte count of this string.
-                 * librtsp's find_double_newline() accepts \n\n as the header terminator.
-                 */
-                final String sdpBody =
-                        "v=0\n"
-                        + "o=- 0 0 IN IP4 127.0.0.1\n"
-                        + "s=media/stream2\n"
-                        + "i=A Seminar on the session description protocol\n"
-                        + "c=IN IP4 " + deviceIp + "\n"
-                        + "t=0 0\n"
-                        + "m=video " + videoPort + " RTP/AVP 96\n"
-                        + "a=rtpmap:96 H264/90000\n"
-                        /*
-                         * sprop-parameter-sets: Bebop 2 H.264 baseline Level 4.0 defaults.
-                         * pdraw uses these for early out-of-band codec pre-configuration;
-                         * arstream2 always also carries SPS/PPS in-band so these are not
-                         * strictly required, but providing them reduces first-frame latency.
-                         * TODO(bench): verify these match actual firmware SPS/PPS — see class
-                         * javadoc.
-                         */
-                        + "a=fmtp:96 packetization-mode=1;profile-level-id=000042;"
-                        + "sprop-parameter-sets=Z01AKZZUAoAtyA==,aO44gA==\n"
-                        + "a=control:stream=0\n";
-
-                final int contentLength =
-                        sdpBody.getBytes(StandardCharsets.UTF_8).length;
-
-                os.println(RTSP_OK);
-                os.println(String.format(Locale.US, RTSP_CSEQ, cseq));
-                os.println(RTSP_TIMESTAMP);
-                os.println("Content-Base: rtsp://" + deviceIp + "/media/stream2/");
-                os.println("Content-Type: application/sdp");
-                os.println("Content-Length: " + contentLength);
-                os.println();
-                os.print(sdpBody);
-                os.flush();
-
-            } catch (Exception e) {
-                logEvent(Log.WARN, "unable to process DESCRIBE: " + e.getMessage(), e);
+        private int parseValue(final int start, final int end) {
+            int i = start;
+            while (i < end && isWhiteSpace(request.get(i))) {
+                i++;
+            }
+            final int digitsStart = i;
+            int value = 0;
+            for (; i < end; i++) {
+                final int digit = request.get(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+                if (value > (Integer.MAX_VALUE - digit) / 10) {
+                    return -1;
+                }
+                value = value * 10 + digit;
             }
+            final int digitsEnd = i;
+            while (i < end && isWhiteSpace(request.get(i))) {
+                i++;
+            }
+            return digitsEnd > digitsStart && i == end ? value : -1;
         }
 
-        private void processSetup(final int cseq) {
-            try {
-                logEvent("processSetup");
-
-                os.println(RTSP_OK);
-                os.println(String.format(Locale.US, RTSP_CSEQ, cseq));
-                os.println(RTSP_TIMESTAMP);
-                os.println(RTSP_SESSION);
-                /*
-                 * Always advertise UDP/NET transport.  This server is only instantiated for
-                 * non-MUX paths — BebopStreamServer.onConnected() skips bridge creation when
-                 * useMux=true (SC2/SC2+).  A Bebop behind SC1 has skyController=true but
-                 * useMux=false, so it reaches this code and still requires NET transport.
-                 */
-                os.println(RTSP_TRANSPORT_NET);
-                os.println();
-
-            } catch (Exception e) {
-                logEvent(Log.WARN, "unable to process SETUP: " + e.getMessage(), e);
+        private boolean startsWith(final int start, final int end, final byte[] prefix) {
+            if (end - start < prefix.length) {
+                return false;
             }
+            for (int i = 0; i < prefix.length; i++) {
+                if (request.get(start + i) != prefix[i]) {
+                    return false;
+                }
+            }
+            return true;
         }
 
-        private void processPlay(final int cseq) {
-            try {
-                logEvent("processPlay");
-
-                os.println(RTSP_OK);
-                os.println(String.format(Locale.US, RTSP_CSEQ, cseq));
-                os.println(RTSP_TIMESTAMP);
-                os.println(RTSP_SESSION);
-                os.println();
-
-            } catch (Exception e) {
-                logEvent(Log.WARN, "unable to process PLAY: " + e.getMessage(), e);
+        private boolean startsWithIgnoreCase(final int start, final int end, final byte[] prefix) {
+            if (end - start < prefix.length) {
+                return false;
             }
+            for (int i = 0; i < prefix.length; i++) {
+                if (toLowerCase(request.get(start + i)) != toLowerCase(prefix[i])) {
+                    return false;
+                }
+            }
+            return true;
         }
 
-        private void processPause(final int cseq) {
-            try {
-                logEvent("processPause");
-
-                os.println(RTSP_OK);
-                os.println(String.format(Locale.US, RTSP_CSEQ, cseq));
-                os.println(RTSP_TIMESTAMP);
-                os.println(RTSP_SESSION);
-                os.println();
-
-            } catch (Exception e) {
-                logEvent(Log.WARN, "unable to process PAUSE: " + e.getMessage(), e);
+        private String ascii(final int start, final int end) {
+            final byte[] bytes = new byte[end - start];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = request.get(start + i);
             }
+            return new String(bytes, StandardCharsets.US_ASCII);
         }
 
-        private void processTeardown(final int cseq) {
-            try {
-                logEvent("processTeardown");
-
-                os.println(RTSP_OK);
-                os.println(String.format(Locale.US, RTSP_CSEQ, cseq));
-                os.println(RTSP_TIMESTAMP);
-                os.println(RTSP_SESSION);
-                os.println();
-
-            } catch (Exception e) {
-                logEvent(Log.WARN, "unable to process TEARDOWN: " + e.getMessage(), e);
+        private void respond(final int method, final int cseq) {
+            switch (method) {
+                case METHOD_OPTIONS:
+                    logEvent("processOptions");
+                    append(STATUS_OK, cseq, OPTIONS_TAIL);
+                    break;
+                case METHOD_DESCRIBE:
+                    logEvent("processDescribe");
+                    append(STATUS_OK, cseq, describeTail);
+                    break;
+                case METHOD_SETUP:
+                    logEvent("processSetup");
+                    append(STATUS_OK, cseq, SETUP_TAIL);
+                    break;
+                case METHOD_PLAY:
+                    logEvent("processPlay");
+                    append(STATUS_OK, cseq, SESSION_TAIL);
+                    break;
+                case METHOD_PAUSE:
+                    logEvent("processPause");
+                    append(STATUS_OK, cseq, SESSION_TAIL);
+                    break;
+                case METHOD_TEARDOWN:
+                    logEvent("processTeardown");
+                    append(STATUS_OK, cseq, SESSION_TAIL);
+                    break;
+                default:
+                    /*
+                     * Unknown method: reply 501 Not Implemented (RFC 2326 §7.1).  Silence would
+                     * leave librtsp's client loop waiting indefinitely for a response.
+                     */
+                    append(STATUS_NOT_IMPLEMENTED, cseq, EMPTY_TAIL);
+                    break;
             }
         }
 
-        /**
-         * Reply 501 Not Implemented for methods this server does not support (RFC 2326 §7.1).
-         * Silence would leave librtsp's client loop waiting indefinitely for a response.
-         */
-        private void processNotImplemented(final int cseq) {
-            try {
-                os.println(RTSP_NOT_IMPLEMENTED);
-                os.println(String.format(Locale.US, RTSP_CSEQ, cseq));
-                os.println();
-            } catch (Exception e) {
-                logEvent(Log.WARN, "unable to send 501 response: " + e.getMessage(), e);
+        private void append(final byte[] status, final int cseq, final byte[] tail) {
+            // "CSeq: " + sign + up to 10 digits + '\n'
+            ensureCapacity(status.length + CSEQ_PREFIX.length + 12 + tail.length);
+            response.put(status).put(CSEQ_PREFIX);
+            long value = cseq;
+            if (value < 0) {
+                response.put((byte) '-');
+                value = -value;
+            }
+            final int digitsStart = response.position();
+            do {
+                response.put((byte) ('0' + value % 10));
+                value /= 10;
+            } while (value > 0);
+            for (int i = digitsStart, j = response.position() - 1; i < j; i++, j--) {
+                final byte digit = response.get(i);
+                response.put(i, response.get(j));
+                response.put(j, digit);
             }
+            response.put((byte) '\n').put(tail);
         }
-    }
 
-    private class CleanupThread extends Thread {
-
-        @Override
-        public void run() {
-
-            boolean running = true;
-
-            while (running) {
-                try {
-                    Thread.sleep(1000);
-                } catch (InterruptedException e) {
-                    running = false;
-                    continue;
-                }
-
-                synchronized (lock) {
-                    for (final Iterator<ClientThread> iterator = clients.iterator();
-                            iterator.hasNext(); ) {
-                        final ClientThread client = iterator.next();
-
-                        if (!client.isAlive()) {
-                            iterator.remove();
-                            logEvent("client removed");
-                        }
-                    }
-                }
+        private void ensureCapacity(final int length) {
+            if (response.remaining() < length) {
+                final ByteBuffer grown = ByteBuffer.allocate(
+                        Math.max(response.capacity() * 2, response.position() + length));
+                response.flip();
+                grown.put(response);
+                response = grown;
             }
+        }
+    }
 
-            synchronized (lock) {
-                for (final Iterator<ClientThread> iterator = clients.iterator();
-                        iterator.hasNext(); ) {
-                    final ClientThread client = iterator.next();
+    private static byte[] ascii(final String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
 
-                    if (client.isAlive()) {
-                        client.interrupt();
+    private static boolean isWhiteSpace(final byte b) {
+        return b == ' ' || b == '\t';
+    }
 
-                        // Close the socket before joining so readLine() unblocks immediately.
-                        try {
-                            client.socket.close();
-                        } catch (Exception e) {
-                            logEvent(Log.WARN,
-                                    "unable to close client socket on cleanup: "
-                                            + e.getMessage(), e);
-                        }
+    private static int toLowerCase(final byte b) {
+        return b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b;
+    }
 
-                        try {
-                            client.join(5000);
-                        } catch (InterruptedException e) {
-                            logEvent(Log.WARN,
-                                    "unable to join client thread: " + e.getMessage(), e);
-                        } finally {
-                            iterator.remove();
-                        }
-                    } else {
-                        iterator.remove();
-                    }
-                }
-            }
+    private static void closeQuietly(final Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            logEvent(Log.WARN, "unable to close " + closeable + ": " + e.getMessage(), e);
         }
     }
 
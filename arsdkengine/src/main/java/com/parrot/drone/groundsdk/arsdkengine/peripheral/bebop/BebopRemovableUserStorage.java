@@ -57,6 +57,7 @@ public class BebopRemovableUserStorage extends DronePeripheralController {
      */
     public BebopRemovableUserStorage(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureCommon.CommonState.UID);
         mRemovableUserStorage = new RemovableUserStorageCore(mComponentStore, (type, name) -> false);
     }
 
@@ -112,6 +112,7 @@ public class BebopStreamServer extends DronePeripheralController {
      */
     public BebopStreamServer(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureArdrone3.MediaStreamingState.UID);
 
         final StreamServerCore.Backend backend = new StreamServerCore.Backend() {
             @Nullable
@@ -140,6 +140,7 @@ public final class DiscoFlightTuning extends DronePeripheralController {
      */
     public DiscoFlightTuning(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureArdrone3.PilotingSettingsState.UID);
         mDeviceDict = offlineSettingsEnabled()
                 ? mDeviceController.getDeviceDict().getDictionary(SETTINGS_KEY) : null;
         mPresetDict = offlineSettingsEnabled()
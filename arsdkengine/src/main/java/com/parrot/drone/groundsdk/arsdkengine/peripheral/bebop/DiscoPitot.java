@@ -56,6 +56,7 @@ public final class DiscoPitot extends DronePeripheralController {
      */
     public DiscoPitot(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureCommon.CalibrationState.UID);
         mPitot = new PitotCore(mComponentStore, mBackend);
     }
 
@@ -94,6 +94,7 @@ public final class BebopAntiFlicker extends DronePeripheralController {
      */
     public BebopAntiFlicker(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureArdrone3.AntiflickeringState.UID);
         mAntiFlicker = new AntiFlickerCore(mComponentStore, mBackend);
         mPresetDict = offlineSettingsEnabled() ? mDeviceController.getPresetDict().getDictionary(SETTINGS_KEY) : null;
         mDeviceDict = offlineSettingsEnabled() ? mDeviceController.getDeviceDict().getDictionary(SETTINGS_KEY) : null;
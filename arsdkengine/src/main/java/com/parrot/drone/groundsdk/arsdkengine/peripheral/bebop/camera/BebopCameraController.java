@@ -132,6 +132,8 @@ public final class BebopCameraController extends DronePeripheralController {
      */
     public BebopCameraController(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureArdrone3.MediaRecordEvent.UID, ArsdkFeatureArdrone3.MediaRecordState.UID,
+                ArsdkFeatureArdrone3.PictureSettingsState.UID);
         mCameraCore = new MainCameraCore(mComponentStore, mBackend);
         mDeviceDict = offlineSettingsEnabled()
                 ? mDeviceController.getDeviceDict().getDictionary(SETTINGS_KEY) : null;
@@ -36,6 +36,7 @@ import com.parrot.drone.groundsdk.arsdkengine.devicecontroller.DeviceController;
 import com.parrot.drone.groundsdk.arsdkengine.http.HttpPudClient;
 import com.parrot.drone.groundsdk.arsdkengine.http.HttpPudInfo;
 import com.parrot.drone.groundsdk.arsdkengine.peripheral.PeripheralController;
+import com.parrot.drone.groundsdk.arsdkengine.peripheral.common.flightdata.PudAdapter;
 import com.parrot.drone.groundsdk.device.peripheral.FlightDataDownloader;
 import com.parrot.drone.groundsdk.internal.device.peripheral.FlightDataDownloaderCore;
 import com.parrot.drone.groundsdk.internal.http.HttpRequest;
@@ -147,6 +147,8 @@ public final class BebopGimbal extends DronePeripheralController {
      */
     public BebopGimbal(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureArdrone3.CameraState.UID, ArsdkFeatureArdrone3.PictureSettingsState.UID,
+                ArsdkFeatureCommon.CameraSettingsState.UID);
         mGimbal = new GimbalCore(mComponentStore, mBackend);
 
         mDeviceDict = offlineSettingsEnabled() ? mDeviceController.getDeviceDict().getDictionary(SETTINGS_KEY) : null;
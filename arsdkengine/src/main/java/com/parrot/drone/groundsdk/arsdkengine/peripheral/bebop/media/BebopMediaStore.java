@@ -32,8 +32,6 @@
 
 package com.parrot.drone.groundsdk.arsdkengine.peripheral.bebop.media;
 
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.os.Handler;
 import android.os.Looper;
 
@@ -79,8 +77,9 @@ public final class BebopMediaStore extends DronePeripheralController {
      */
     public BebopMediaStore(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureCommon.CommonState.UID);
 //        mDroneController = droneController;
-        mMediaStore = new MediaStoreCore(mComponentStore, mBackend);
+        mMediaStore = new MediaStoreCore(mComponentStore, mBackend, mDeviceController.getUid());
     }
 
     @Override
@@ -280,7 +279,7 @@ public final class BebopMediaStore extends DronePeripheralController {
         @Nullable
         @Override
         public MediaRequest fetchThumbnail(@NonNull MediaItemCore media,
-                                           @NonNull MediaRequest.ResultCallback<Bitmap> callback) {
+                                           @NonNull MediaRequest.ResultCallback<byte[]> callback) {
             String url;
             if ((url = MediaItemImpl.unwrap(media).getThumbnailUrl()) == null) {
                 callback.onRequestComplete(MediaRequest.Status.SUCCESS, null);
@@ -292,7 +291,7 @@ public final class BebopMediaStore extends DronePeripheralController {
         @Nullable
         @Override
         public MediaRequest fetchThumbnail(@NonNull MediaResourceCore resource,
-                                           @NonNull MediaRequest.ResultCallback<Bitmap> callback) {
+                                           @NonNull MediaRequest.ResultCallback<byte[]> callback) {
             String url;
             if ((url = MediaResourceImpl.unwrap(resource).getThumbnailUrl()) == null) {
                 callback.onRequestComplete(MediaRequest.Status.SUCCESS, null);
@@ -371,7 +370,7 @@ public final class BebopMediaStore extends DronePeripheralController {
          */
         @NonNull
         private MediaRequest fetchThumbnail(@NonNull String url, @NonNull String itemUid,
-                                            @NonNull MediaRequest.ResultCallback<Bitmap> callback) {
+                                            @NonNull MediaRequest.ResultCallback<byte[]> callback) {
 
 
             final MediaRequest mediaRequest = () -> { /* too bad - can't cancel */ };
@@ -381,14 +380,8 @@ public final class BebopMediaStore extends DronePeripheralController {
                 ftpSession.retrieveFileContents(url, new FtpSession.FtpTransferListener() {
                     @Override
                     public void onTransferCompleted(boolean successful, @Nullable Object data) {
-                        if (successful) {
-                            final byte[] thumb = (byte[]) data;
-                            final Bitmap thumbnail = BitmapFactory.decodeByteArray(thumb, 0, thumb.length);
-                            if (thumbnail == null) {
-                                callback.onRequestComplete(MediaRequest.Status.FAILED, null);
-                            } else {
-                                callback.onRequestComplete(MediaRequest.Status.SUCCESS, thumbnail);
-                            }
+                        if (successful && data != null) {
+                            callback.onRequestComplete(MediaRequest.Status.SUCCESS, (byte[]) data);
                         } else {
                             callback.onRequestComplete(MediaRequest.Status.FAILED, null);
                         }
@@ -69,6 +69,7 @@ public class DebugDevToolbox extends DronePeripheralController {
      */
     public DebugDevToolbox(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureDebug.UID);
         mDevToolbox = new DevToolboxCore(mComponentStore, mBackend);
         mSettings = new SparseArray<>();
     }
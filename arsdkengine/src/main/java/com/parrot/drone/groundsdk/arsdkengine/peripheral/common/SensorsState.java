@@ -68,6 +68,7 @@ public final class SensorsState extends DronePeripheralController {
      */
     public SensorsState(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureCommon.CommonState.UID);
         mDeviceDict = mDeviceController.getDeviceDict().getDictionary(SETTINGS_KEY);
         mSensorsState = new SensorsStateCore(mComponentStore);
 
@@ -0,0 +1,1006 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.arsdkengine.peripheral.common.flightdata;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
+import com.parrot.drone.sdkcore.arsdk.ArsdkFeatureArdrone3;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adapts PUD received from the drone in their JSON/binary format, to the JSON format suitable for upload on server.
+ * <p>
+ * Conversion is performed in a single pass: binary data lines are read one at a time into a reusable buffer and
+ * written straight to the JSON output, so that memory usage does not depend on the PUD size. Only the JSON header is
+ * kept in memory, since it is written after binary data, along with statistics computed from it.
+ */
+public final class PudAdapter {
+
+    /**
+     * Adapts PUD in JSON/binary format to FlightData full JSON format.
+     * <p>
+     * Caller is responsible to close both streams and in particular to flush the output before consumption.
+     *
+     * @param from input stream to read PUD from
+     * @param to   output stream to write FlightData to
+     *
+     * @throws IOException in case adapting failed
+     */
+    public static void adapt(@NonNull InputStream from, @NonNull OutputStream to) throws IOException {
+        new PudAdapter(from, to).adapt();
+    }
+
+    /** Interval between two 'time' infos, over which the rest of binary data is considered invalid and dropped. */
+    @VisibleForTesting
+    static final long MAX_TIME_INTERVAL = TimeUnit.SECONDS.toMillis(10);
+
+    /** Marker value used when some time info is not known yet. */
+    private static final long TIME_UNKNOWN = -1;
+
+    /** Size of the buffer used to read input. */
+    private static final int INPUT_BUFFER_SIZE = 64 * 1024;
+
+    /** Name for the columns description field in both input {@link #mHeader} and output JSON. */
+    private static final String COLUMNS_DESCRIPTION_TAG = "details_headers";
+
+    /** Names of header fields computed from binary data, in the order they are appended to output header. */
+    private static final String[] COMPUTED_HEADER_FIELDS = {
+            "crash", "total_run_time", "run_time", "gps_available", "gps_latitude", "gps_longitude"};
+
+    /** Input stream to read PUD from. */
+    @NonNull
+    private final InputStream mInput;
+
+    /** Writes JSON output. */
+    @NonNull
+    private final JsonWriter mWriter;
+
+    /** PUD JSON header, as read from input, UTF-8 encoded. */
+    @NonNull
+    private final byte[] mHeader;
+
+    /** Columns type descriptors, parsed from {@link #mHeader}. */
+    @NonNull
+    private final List<ColumnDescriptor> mDescriptors;
+
+    /** Receives each binary data line; reused for all lines. */
+    @NonNull
+    private final ByteBuffer mLine;
+
+    /** Device latitude & longitude, as read in the line being parsed. Reused for all lines. */
+    @NonNull
+    private final Location mDeviceLocation;
+
+    /** Controller latitude & longitude, as read in the line being parsed. Reused for all lines. */
+    @NonNull
+    private final Location mControllerLocation;
+
+    /** Latest alert state parsed from input binary data. {@code null} if none. Used to compute {@link #mAlertCount}. */
+    @Nullable
+    private ArsdkFeatureArdrone3.PilotingstateAlertstatechangedState mLatestAlert;
+
+    /** Latest time info parsed from input binary data. */
+    private long mLatestTime;
+
+    /** Time when the drone started flying, parsed from input binary data. {@link #TIME_UNKNOWN} if not known yet. */
+    private long mFlightStartTime;
+
+    /** Total time the drone spent flying. Computed from input binary data based on the drone flying state changes. */
+    private long mFlyingTime;
+
+    /** Counts alerts from input binary data. */
+    private int mAlertCount;
+
+    /** Device GPS availability, parsed from input binary data. */
+    private boolean mGpsAvailable;
+
+    /** First meaningful device location parsed from binary data. */
+    @NonNull
+    private final Location mFirstDeviceLocation;
+
+    /** Latest meaningful controller location parsed from binary data. */
+    @NonNull
+    private final Location mLatestControllerLocation;
+
+    /**
+     * Constructor.
+     *
+     * @param input  input stream to read PUD from
+     * @param output output stream to write FlightData to
+     *
+     * @throws IOException in case parsing input header failed
+     */
+    private PudAdapter(@NonNull InputStream input, @NonNull OutputStream output) throws IOException {
+        mInput = new BufferedInputStream(input, INPUT_BUFFER_SIZE);
+        mWriter = new JsonWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        // same output settings as Gson default when serializing JSON elements
+        mWriter.setLenient(true);
+        mWriter.setHtmlSafe(true);
+        mWriter.setSerializeNulls(false);
+        mDeviceLocation = new Location();
+        mControllerLocation = new Location();
+        mFirstDeviceLocation = new Location();
+        mLatestControllerLocation = new Location();
+        mFlightStartTime = TIME_UNKNOWN;
+
+        ByteArrayOutputStream headerBuffer = new ByteArrayOutputStream();
+        int readByte;
+        while ((readByte = mInput.read()) > 0) { // read until EOF or first null separator marking end of JSON header
+            headerBuffer.write(readByte);
+        }
+        mHeader = headerBuffer.toByteArray();
+
+        mDescriptors = parseColumnDescriptors(mHeader);
+        int lineSize = 0;
+        for (int i = 0, N = mDescriptors.size(); i < N; i++) {
+            lineSize += mDescriptors.get(i).mSize;
+        }
+        mLine = ByteBuffer.allocate(lineSize).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Parses input PUD and adapts it to FlightData output.
+     *
+     * @throws IOException in case parsing failed
+     */
+    private void adapt() throws IOException {
+        // being output JSON object
+        mWriter.beginObject();
+
+        adaptColumnDescriptors();
+
+        adaptBinaryData();
+
+        adaptHeader();
+
+        // end output JSON object
+        mWriter.endObject();
+        mWriter.flush();
+    }
+
+    /**
+     * Writes column names to output.
+     * <p>
+     * Note that descriptor without type are not written to output and the corresponding field in binary data won't be
+     * written to output.
+     *
+     * @throws IOException in case writing failed
+     */
+    private void adaptColumnDescriptors() throws IOException {
+        // begin output descriptor array
+        mWriter.name(COLUMNS_DESCRIPTION_TAG).beginArray();
+
+        for (int i = 0, N = mDescriptors.size(); i < N; i++) {
+            ColumnDescriptor descriptor = mDescriptors.get(i);
+            if (descriptor.mType != null) { // add to final column description only if the type is known
+                mWriter.value(descriptor.mName);
+            }
+        }
+
+        // write speed descriptor name
+        mWriter.value("speed");
+
+        // end output descriptor array
+        mWriter.endArray();
+    }
+
+    /**
+     * Parses input binary data and writes it, properly adapted, to JSON output.
+     * <p>
+     * Parsing stops in case of EOF (in which case, the line being currently parsed is dropped), or in case time parsed
+     * from binary data appears inconsistent.
+     *
+     * @throws IOException in case parsing failed
+     */
+    private void adaptBinaryData() throws IOException {
+        // begin output data lines array
+        mWriter.name("details_data").beginArray();
+
+        // parse all input line by line
+        boolean parseNext;
+        do {
+            parseNext = adaptNextBinaryLine();
+        } while (parseNext);
+
+        // finalize flying time if necessary
+        if (mFlightStartTime != TIME_UNKNOWN) {
+            mFlyingTime += mLatestTime - mFlightStartTime;
+        }
+
+        // end output data array
+        mWriter.endArray();
+    }
+
+    /**
+     * Parses the next binary data line and writes it, properly adapted, to JSON output.
+     * <p>
+     * In case of EOF during line reading, then the line is dropped, and this method returns {@code false} so that
+     * parsing stops.
+     *
+     * @return {@code true} if parsing may proceed with the next line, otherwise {@code false}
+     *
+     * @throws IOException in case parsing failed.
+     */
+    private boolean adaptNextBinaryLine() throws IOException {
+        if (!readLine()) {
+            // could not read line entirely, drop it and stop parsing
+            return false;
+        }
+
+        mDeviceLocation.reset();
+        mControllerLocation.reset();
+
+        // will contain the sum of squared speeds from all axis read in line.
+        double speedSquare = 0;
+
+        // process line fields
+        for (int i = 0, N = mDescriptors.size(); i < N; i++) {
+            ColumnDescriptor descriptor = mDescriptors.get(i);
+            int offset = descriptor.mOffset;
+            switch (descriptor.mRole) {
+                case ColumnDescriptor.ROLE_TIME:
+                    long time = descriptor.parseAsInt(mLine, offset);
+                    if (time < mLatestTime || time > mLatestTime + MAX_TIME_INTERVAL) {
+                        return false; // stop parsing if time is incoherent
+                    }
+                    mLatestTime = time;
+                    break;
+                case ColumnDescriptor.ROLE_SPEED:
+                    speedSquare += Math.pow(descriptor.parseAsNumber(mLine, offset), 2);
+                    break;
+                case ColumnDescriptor.ROLE_GPS_AVAILABLE:
+                    mGpsAvailable |= descriptor.parseAsBoolean(mLine, offset);
+                    break;
+                case ColumnDescriptor.ROLE_DEVICE_LATITUDE:
+                    mDeviceLocation.latitude = descriptor.parseAsDouble(mLine, offset);
+                    break;
+                case ColumnDescriptor.ROLE_DEVICE_LONGITUDE:
+                    mDeviceLocation.longitude = descriptor.parseAsDouble(mLine, offset);
+                    break;
+                case ColumnDescriptor.ROLE_CONTROLLER_LATITUDE:
+                    mControllerLocation.latitude = descriptor.parseAsDouble(mLine, offset);
+                    break;
+                case ColumnDescriptor.ROLE_CONTROLLER_LONGITUDE:
+                    mControllerLocation.longitude = descriptor.parseAsDouble(mLine, offset);
+                    break;
+                case ColumnDescriptor.ROLE_ALERT_STATE:
+                    ArsdkFeatureArdrone3.PilotingstateAlertstatechangedState alert =
+                            ArsdkFeatureArdrone3.PilotingstateAlertstatechangedState.fromValue(
+                                    descriptor.parseAsInt(mLine, offset));
+                    if (alert != null) {
+                        processAlertState(alert);
+                    }
+                    break;
+                case ColumnDescriptor.ROLE_FLYING_STATE:
+                    ArsdkFeatureArdrone3.PilotingstateFlyingstatechangedState state =
+                            ArsdkFeatureArdrone3.PilotingstateFlyingstatechangedState.fromValue(
+                                    descriptor.parseAsInt(mLine, offset));
+                    if (state != null) {
+                        processFlyingState(state);
+                    }
+                    break;
+            }
+        }
+
+        // update known device and controller location
+        if (mControllerLocation.isValid()) {
+            mLatestControllerLocation.set(mControllerLocation);
+        }
+        if (!mFirstDeviceLocation.isValid() && mDeviceLocation.isValid()) {
+            mFirstDeviceLocation.set(mDeviceLocation);
+        }
+
+        // write line data array
+        mWriter.beginArray();
+        for (int i = 0, N = mDescriptors.size(); i < N; i++) {
+            mDescriptors.get(i).writeData(mLine, mWriter);
+        }
+        // write computed speed value
+        mWriter.value(Math.sqrt(speedSquare));
+        mWriter.endArray();
+
+        return true;
+    }
+
+    /**
+     * Reads the next binary data line from input into {@link #mLine}.
+     *
+     * @return {@code true} if the line could be read entirely, {@code false} in case the end of stream is reached
+     *
+     * @throws IOException in case reading failed
+     */
+    private boolean readLine() throws IOException {
+        byte[] line = mLine.array();
+        int offset = 0;
+        while (offset < line.length) {
+            int read = mInput.read(line, offset, line.length - offset);
+            if (read == -1) {
+                return false;
+            }
+            offset += read;
+        }
+        return true;
+    }
+
+    /**
+     * Writes all input header fields to output, along with fields computed from binary data.
+     * <p>
+     * Computed fields override input fields with the same name; the columns description is not copied.
+     *
+     * @throws IOException in case parsing or writing failed
+     */
+    private void adaptHeader() throws IOException {
+        boolean[] written = new boolean[COMPUTED_HEADER_FIELDS.length];
+        try (JsonReader reader = openHeader(mHeader)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                int computed = indexOf(COMPUTED_HEADER_FIELDS, name);
+                if (computed >= 0) {
+                    reader.skipValue();
+                    writeComputedHeaderField(computed);
+                    written[computed] = true;
+                } else if (name.equals(COLUMNS_DESCRIPTION_TAG)) {
+                    reader.skipValue();
+                } else {
+                    mWriter.name(name);
+                    copy(reader, mWriter);
+                }
+            }
+        } catch (MalformedJsonException | IllegalStateException e) {
+            throw new IOException("Malformed JSON header", e);
+        }
+        for (int i = 0; i < COMPUTED_HEADER_FIELDS.length; i++) {
+            if (!written[i]) {
+                writeComputedHeaderField(i);
+            }
+        }
+    }
+
+    /**
+     * Writes a header field computed from binary data to output.
+     *
+     * @param field index of the field in {@link #COMPUTED_HEADER_FIELDS}
+     *
+     * @throws IOException in case writing failed
+     */
+    private void writeComputedHeaderField(int field) throws IOException {
+        Location location = mFirstDeviceLocation.isValid() ? mFirstDeviceLocation : mLatestControllerLocation;
+        mWriter.name(COMPUTED_HEADER_FIELDS[field]);
+        switch (field) {
+            case 0:
+                mWriter.value(mAlertCount);
+                break;
+            case 1:
+                mWriter.value(mLatestTime);
+                break;
+            case 2:
+                mWriter.value(mFlyingTime);
+                break;
+            case 3:
+                mWriter.value(mGpsAvailable);
+                break;
+            case 4:
+                mWriter.value(location.latitude);
+                break;
+            case 5:
+                mWriter.value(location.longitude);
+                break;
+        }
+    }
+
+    /**
+     * Processes an alert state info read from binary data.
+     * <p>
+     * This allows to keep track of the alert count, which is written when the JSON output is finalized.
+     *
+     * @param alert alert state to process
+     */
+    private void processAlertState(@NonNull ArsdkFeatureArdrone3.PilotingstateAlertstatechangedState alert) {
+        if (mLatestAlert != alert) {
+            mLatestAlert = alert;
+            switch (mLatestAlert) {
+                case NONE:
+                case CRITICAL_BATTERY:
+                case LOW_BATTERY:
+                    break;
+                case USER:
+                case CUT_OUT:
+                case TOO_MUCH_ANGLE:
+                    mAlertCount++;
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Processes a flying state info read from binary data.
+     * <p>
+     * This allows to keep track of the drone flying time, which is written when the JSON output is finalized.
+     *
+     * @param state flying state to process
+     */
+    private void processFlyingState(@NonNull ArsdkFeatureArdrone3.PilotingstateFlyingstatechangedState state) {
+        switch (state) {
+            case LANDED:
+                if (mFlightStartTime != TIME_UNKNOWN) {
+                    mFlyingTime += mLatestTime - mFlightStartTime;
+                    mFlightStartTime = TIME_UNKNOWN;
+                }
+                break;
+            case TAKINGOFF:
+            case HOVERING:
+            case FLYING:
+                if (mFlightStartTime == TIME_UNKNOWN) {
+                    mFlightStartTime = mLatestTime;
+                }
+                break;
+            case LANDING:
+            case EMERGENCY:
+            case USERTAKEOFF:
+            case MOTOR_RAMPING:
+            case EMERGENCY_LANDING:
+                break;
+        }
+    }
+
+    /**
+     * Parses and validates column descriptors from header.
+     * <p>
+     * Note that descriptor without type pass validation, but the corresponding field in binary data won't be parsed.
+     *
+     * @param header PUD JSON header
+     *
+     * @return parsed column descriptors, in binary data order
+     *
+     * @throws IOException in case parsing failed
+     */
+    @NonNull
+    private static List<ColumnDescriptor> parseColumnDescriptors(@NonNull byte[] header) throws IOException {
+        List<ColumnDescriptor> descriptors = new ArrayList<>();
+        try (JsonReader reader = openHeader(header)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!reader.nextName().equals(COLUMNS_DESCRIPTION_TAG) || reader.peek() == JsonToken.NULL) {
+                    reader.skipValue();
+                    continue;
+                }
+                descriptors.clear();
+                try {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        descriptors.add(ColumnDescriptor.parse(reader));
+                    }
+                    reader.endArray();
+                } catch (MalformedJsonException | IllegalStateException | NumberFormatException e) {
+                    throw new IOException("Malformed columns description", e);
+                }
+            }
+        } catch (MalformedJsonException | IllegalStateException e) {
+            throw new IOException("Malformed JSON header", e);
+        }
+
+        if (descriptors.isEmpty()) {
+            throw new IOException("Empty columns description");
+        }
+
+        int offset = 0;
+        for (int i = 0, N = descriptors.size(); i < N; i++) {
+            ColumnDescriptor descriptor = descriptors.get(i);
+            if (descriptor == null) {
+                throw new IOException("Null column " + i + " descriptor");
+            }
+            if (descriptor.mSize <= 0) {
+                throw new IOException("Invalid column " + i + " descriptor size");
+            }
+            if (descriptor.mName == null || descriptor.mName.isEmpty()) {
+                throw new IOException("Invalid column " + i + " descriptor name");
+            }
+            descriptor.validate(offset);
+            offset += descriptor.mSize;
+        }
+        return descriptors;
+    }
+
+    /**
+     * Opens a lenient JSON reader on PUD header.
+     *
+     * @param header PUD JSON header
+     *
+     * @return a new JSON reader
+     */
+    @NonNull
+    private static JsonReader openHeader(@NonNull byte[] header) {
+        JsonReader reader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(header),
+                StandardCharsets.UTF_8));
+        reader.setLenient(true);
+        return reader;
+    }
+
+    /**
+     * Copies the next JSON value from a reader to a writer.
+     *
+     * @param reader reader to copy the value from
+     * @param writer writer to copy the value to
+     *
+     * @throws IOException in case copy failed
+     */
+    private static void copy(@NonNull JsonReader reader, @NonNull JsonWriter writer) throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_ARRAY:
+                reader.beginArray();
+                writer.beginArray();
+                while (reader.hasNext()) {
+                    copy(reader, writer);
+                }
+                reader.endArray();
+                writer.endArray();
+                break;
+            case BEGIN_OBJECT:
+                reader.beginObject();
+                writer.beginObject();
+                while (reader.hasNext()) {
+                    writer.name(reader.nextName());
+                    copy(reader, writer);
+                }
+                reader.endObject();
+                writer.endObject();
+                break;
+            case STRING:
+                writer.value(reader.nextString());
+                break;
+            case NUMBER:
+                writer.jsonValue(reader.nextString());
+                break;
+            case BOOLEAN:
+                writer.value(reader.nextBoolean());
+                break;
+            case NULL:
+                reader.nextNull();
+                writer.nullValue();
+                break;
+            default:
+                throw new IOException("Unexpected token " + reader.peek());
+        }
+    }
+
+    /**
+     * Finds a string in an array.
+     *
+     * @param array array to search
+     * @param value string to find
+     *
+     * @return index of the string in the array, {@code -1} if not found
+     */
+    private static int indexOf(@NonNull String[] array, @NonNull String value) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i].equals(value)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Data class representing a Location with a latitude and a longitude.
+     */
+    private static final class Location {
+
+        /** Marker value used when some coordinate is not known. */
+        private static final double COORD_UNKNOWN = 500;
+
+        /** Location latitude. */
+        double latitude;
+
+        /** Location longitude. */
+        double longitude;
+
+        /**
+         * Constructor.
+         */
+        Location() {
+            reset();
+        }
+
+        /**
+         * Resets both coordinates to unknown.
+         */
+        void reset() {
+            latitude = COORD_UNKNOWN;
+            longitude = COORD_UNKNOWN;
+        }
+
+        /**
+         * Copies coordinates from another location.
+         *
+         * @param other location to copy
+         */
+        void set(@NonNull Location other) {
+            latitude = other.latitude;
+            longitude = other.longitude;
+        }
+
+        /**
+         * Tells whether the location data is valid, i.e. that both latitude and longitude have meaningful values
+         *
+         * @return {@code true} if the location is valid, otherwise {@code false}
+         */
+        boolean isValid() {
+            return Double.compare(latitude, COORD_UNKNOWN) != 0 && Double.compare(longitude, COORD_UNKNOWN) != 0;
+        }
+    }
+
+    /**
+     * A column type descriptor, as parsed from JSON {@link #mHeader}.
+     */
+    private static final class ColumnDescriptor {
+
+        /** Known column types. */
+        enum Type {
+
+            /** String column type. */
+            STRING,
+
+            /** Integer column type. */
+            INTEGER,
+
+            /** Boolean column type. */
+            BOOLEAN,
+
+            /** Float column type. */
+            FLOAT,
+
+            /** Double column type. */
+            DOUBLE
+        }
+
+        /** Role of a column whose data is only copied to output. */
+        static final int ROLE_NONE = 0;
+
+        /** Role of the time column. */
+        static final int ROLE_TIME = 1;
+
+        /** Role of speed columns, one per axis. */
+        static final int ROLE_SPEED = 2;
+
+        /** Role of the device GPS availability column. */
+        static final int ROLE_GPS_AVAILABLE = 3;
+
+        /** Role of the device latitude column. */
+        static final int ROLE_DEVICE_LATITUDE = 4;
+
+        /** Role of the device longitude column. */
+        static final int ROLE_DEVICE_LONGITUDE = 5;
+
+        /** Role of the controller latitude column. */
+        static final int ROLE_CONTROLLER_LATITUDE = 6;
+
+        /** Role of the controller longitude column. */
+        static final int ROLE_CONTROLLER_LONGITUDE = 7;
+
+        /** Role of the alert state column. */
+        static final int ROLE_ALERT_STATE = 8;
+
+        /** Role of the flying state column. */
+        static final int ROLE_FLYING_STATE = 9;
+
+        /** Column name. */
+        @Nullable
+        String mName;
+
+        /** Column type, {@code null} if unknown. */
+        @Nullable
+        Type mType;
+
+        /** Column size, in bytes. */
+        int mSize;
+
+        /** Column offset in binary data lines, in bytes. */
+        int mOffset;
+
+        /** Column role in statistics computed from binary data. */
+        int mRole;
+
+        /**
+         * Parses a column descriptor.
+         *
+         * @param reader JSON reader, positioned before the descriptor
+         *
+         * @return parsed column descriptor, {@code null} if the descriptor is a JSON {@code null}
+         *
+         * @throws IOException in case parsing failed
+         */
+        @Nullable
+        static ColumnDescriptor parse(@NonNull JsonReader reader) throws IOException {
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                return null;
+            }
+            ColumnDescriptor descriptor = new ColumnDescriptor();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "name":
+                        descriptor.mName = reader.nextString();
+                        break;
+                    case "type":
+                        descriptor.mType = parseType(reader.nextString());
+                        break;
+                    case "size":
+                        descriptor.mSize = reader.nextInt();
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            return descriptor;
+        }
+
+        /**
+         * Parses a column type.
+         *
+         * @param type type to parse
+         *
+         * @return corresponding column type, {@code null} if unknown
+         */
+        @Nullable
+        private static Type parseType(@NonNull String type) {
+            switch (type) {
+                case "string":
+                    return Type.STRING;
+                case "integer":
+                    return Type.INTEGER;
+                case "boolean":
+                    return Type.BOOLEAN;
+                case "float":
+                    return Type.FLOAT;
+                case "double":
+                    return Type.DOUBLE;
+            }
+            return null;
+        }
+
+        /**
+         * Validates the descriptor, locates the column in binary data lines and resolves its role.
+         *
+         * @param offset column offset in binary data lines, in bytes
+         *
+         * @throws IOException in case column size does not fit column type
+         */
+        void validate(int offset) throws IOException {
+            mOffset = offset;
+            if (mType == Type.INTEGER && mSize != 1 && mSize != 2 && mSize != 4
+                || mType == Type.FLOAT && mSize < 4
+                || mType == Type.DOUBLE && mSize < 8) {
+                throw new IOException("Invalid column [name: " + mName + ", size:" + mSize + ", type: " + mType
+                                      + "] size");
+            }
+            assert mName != null;
+            switch (mName) {
+                case "time":
+                    mRole = ROLE_TIME;
+                    break;
+                case "speed_vx":
+                case "speed_vy":
+                case "speed_vz":
+                    mRole = ROLE_SPEED;
+                    break;
+                case "product_gps_available":
+                    mRole = ROLE_GPS_AVAILABLE;
+                    break;
+                case "product_gps_latitude":
+                    mRole = ROLE_DEVICE_LATITUDE;
+                    break;
+                case "product_gps_longitude":
+                    mRole = ROLE_DEVICE_LONGITUDE;
+                    break;
+                case "controller_gps_latitude":
+                    mRole = ROLE_CONTROLLER_LATITUDE;
+                    break;
+                case "controller_gps_longitude":
+                    mRole = ROLE_CONTROLLER_LONGITUDE;
+                    break;
+                case "alert_state":
+                    mRole = ROLE_ALERT_STATE;
+                    break;
+                case "flying_state":
+                    mRole = ROLE_FLYING_STATE;
+                    break;
+                default:
+                    mRole = ROLE_NONE;
+                    break;
+            }
+        }
+
+        /**
+         * Parses column data as an integer.
+         *
+         * @param line   binary data line
+         * @param offset column offset in line
+         *
+         * @return integer representation of column data
+         *
+         * @throws IOException in case this descriptor type is not {@link Type#INTEGER}
+         */
+        int parseAsInt(@NonNull ByteBuffer line, int offset) throws IOException {
+            checkType(Type.INTEGER);
+            return parseInt(line, offset);
+        }
+
+        /**
+         * Parses column data as a boolean.
+         *
+         * @param line   binary data line
+         * @param offset column offset in line
+         *
+         * @return boolean representation of column data
+         *
+         * @throws IOException in case this descriptor type is not {@link Type#BOOLEAN}
+         */
+        boolean parseAsBoolean(@NonNull ByteBuffer line, int offset) throws IOException {
+            checkType(Type.BOOLEAN);
+            return line.get(offset) != 0;
+        }
+
+        /**
+         * Parses column data as a double.
+         *
+         * @param line   binary data line
+         * @param offset column offset in line
+         *
+         * @return double representation of column data
+         *
+         * @throws IOException in case this descriptor type is not {@link Type#DOUBLE}
+         */
+        double parseAsDouble(@NonNull ByteBuffer line, int offset) throws IOException {
+            checkType(Type.DOUBLE);
+            return line.getDouble(offset);
+        }
+
+        /**
+         * Parses column data as any kind of number.
+         * <p>
+         * This method supports parsing any of {@link Type#INTEGER}, {@link Type#FLOAT} or {@link Type#DOUBLE}.
+         *
+         * @param line   binary data line
+         * @param offset column offset in line
+         *
+         * @return numeric representation of column data
+         *
+         * @throws IOException in case this descriptor type is not a numeric type
+         */
+        double parseAsNumber(@NonNull ByteBuffer line, int offset) throws IOException {
+            if (mType == Type.INTEGER) {
+                return parseInt(line, offset);
+            } else if (mType == Type.FLOAT) {
+                return line.getFloat(offset);
+            } else if (mType == Type.DOUBLE) {
+                return line.getDouble(offset);
+            } else {
+                throw new IOException("Cannot parse field [name: " + mName + ", size:" + mSize + ", type: " + mType
+                                      + "] as number");
+            }
+        }
+
+        /**
+         * Adapts column data to this descriptor format and writes it to JSON output.
+         *
+         * @param line   binary data line
+         * @param writer JSON writer to write adapted data to
+         *
+         * @throws IOException in case writing failed
+         */
+        void writeData(@NonNull ByteBuffer line, @NonNull JsonWriter writer) throws IOException {
+            if (mType != null) { // otherwise field data is not written (column is ignored)
+                switch (mType) {
+                    case STRING:
+                        writer.value(new String(line.array(), mOffset, mSize, StandardCharsets.UTF_8));
+                        break;
+                    case INTEGER:
+                        writer.value(parseInt(line, mOffset));
+                        break;
+                    case BOOLEAN:
+                        writer.value(line.get(mOffset) != 0);
+                        break;
+                    case FLOAT:
+                        // use float string representation, not the one of the float value widened to double
+                        writer.value((Number) line.getFloat(mOffset));
+                        break;
+                    case DOUBLE:
+                        writer.value(line.getDouble(mOffset));
+                        break;
+                }
+            }
+        }
+
+        /**
+         * Parses column data as an integer, according to column size.
+         *
+         * @param line   binary data line
+         * @param offset column offset in line
+         *
+         * @return integer representation of column data
+         */
+        private int parseInt(@NonNull ByteBuffer line, int offset) {
+            switch (mSize) {
+                case 1:
+                    return line.get(offset);
+                case 2:
+                    return line.getShort(offset);
+                default:
+                    return line.getInt(offset);
+            }
+        }
+
+        /**
+         * Checks this descriptor type against a specific type.
+         *
+         * @param type type to check against
+         *
+         * @throws IOException in case this descriptor is not of the specified type
+         */
+        private void checkType(@NonNull Type type) throws IOException {
+            if (mType != type) {
+                throw new IOException("Cannot parse field [name: " + mName + ", size:" + mSize + ", type: " + mType
+                                      + "] as " + type.name());
+            }
+        }
+    }
+}
@@ -60,6 +60,7 @@ final class DroneUpdaterController extends UpdaterController {
                            @NonNull FirmwareDownloader firmwareDownloader,
                            @NonNull FirmwareUpdaterProtocol updater) {
         super(deviceController, firmwareStore, firmwareDownloader, updater);
+        registerCommandFeatures(ArsdkFeatureArdrone3.PilotingState.UID, ArsdkFeatureCommon.CommonState.UID);
     }
 
     @Override
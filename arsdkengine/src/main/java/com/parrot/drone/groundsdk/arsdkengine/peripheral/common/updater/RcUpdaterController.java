@@ -58,6 +58,7 @@ final class RcUpdaterController extends UpdaterController {
                         @NonNull FirmwareDownloader firmwareDownloader,
                         @NonNull FirmwareUpdaterProtocol updater) {
         super(deviceController, firmwareStore, firmwareDownloader, updater);
+        registerCommandFeatures(ArsdkFeatureSkyctrl.SkyControllerState.UID);
     }
 
     @Override
@@ -256,15 +256,15 @@ public abstract class UpdaterController extends PeripheralController<DeviceContr
      * Called when the update process ends.
      * <p>
      * This method first notifies the final status transiently by updating the status and {@link
-     * UpdaterCore#notifyUpdated() notifying} the change, then it signals the end of the update by clearing the update
-     * state and sending a second change notification.
+     * UpdaterCore#notifyUpdatedNow() notifying} the change immediately, then it signals the end of the update by
+     * clearing the update state and sending a second change notification.
      *
      * @param status final update status, either {@link Updater.Update.State#SUCCESS}, {@link
      *               Updater.Update.State#FAILED} or {@link Updater.Update.State#CANCELED}
      */
     private void onUpdateEnd(@NonNull Updater.Update.State status) {
         mUpdater.updateUpdateState(status)
-                .notifyUpdated();
+                .notifyUpdatedNow();
         mUpdater.endUpdate()
                 .notifyUpdated();
         mUpdateQueue.clear();
@@ -67,6 +67,7 @@ public final class MiniatureHeadlights extends DronePeripheralController {
      */
     public MiniatureHeadlights(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureCommon.HeadlightsState.UID);
         mHeadlights = new HeadlightsCore(mComponentStore, mBackend);
     }
 
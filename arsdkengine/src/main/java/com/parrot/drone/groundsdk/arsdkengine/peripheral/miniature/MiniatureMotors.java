@@ -60,6 +60,7 @@ public final class MiniatureMotors extends DronePeripheralController {
      */
     public MiniatureMotors(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureMinidrone.SettingsState.UID);
         mCopterMotors = new CopterMotorsCore(mComponentStore, mBackend);
     }
 
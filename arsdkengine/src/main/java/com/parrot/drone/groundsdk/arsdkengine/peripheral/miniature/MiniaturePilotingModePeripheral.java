@@ -75,6 +75,7 @@ public final class MiniaturePilotingModePeripheral extends DronePeripheralContro
      */
     public MiniaturePilotingModePeripheral(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureMinidrone.PilotingSettingsState.UID);
         mPresetDict = offlineSettingsEnabled()
                 ? mDeviceController.getPresetDict().getDictionary(SETTINGS_KEY) : null;
         mPilotingMode = new MiniaturePilotingModeCore(mComponentStore, mBackend);
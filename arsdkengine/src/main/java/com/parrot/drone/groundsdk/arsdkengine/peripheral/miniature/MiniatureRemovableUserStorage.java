@@ -84,6 +84,7 @@ public class MiniatureRemovableUserStorage extends DronePeripheralController {
      */
     public MiniatureRemovableUserStorage(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureUserStorage.UID);
         mRemovableUserStorage = new RemovableUserStorageCore(mComponentStore, mBackend);
     }
 
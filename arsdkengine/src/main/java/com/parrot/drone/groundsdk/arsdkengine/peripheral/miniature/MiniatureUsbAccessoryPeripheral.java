@@ -64,6 +64,7 @@ public final class MiniatureUsbAccessoryPeripheral extends DronePeripheralContro
      */
     public MiniatureUsbAccessoryPeripheral(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureMinidrone.UsbAccessoryState.UID);
         mAccessory = new MiniatureUsbAccessoryCore(mComponentStore, mBackend);
     }
 
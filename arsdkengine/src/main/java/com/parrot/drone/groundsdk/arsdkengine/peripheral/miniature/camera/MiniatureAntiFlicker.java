@@ -133,6 +133,7 @@ public final class MiniatureAntiFlicker extends DronePeripheralController {
      */
     public MiniatureAntiFlicker(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureCamera.UID);
         mAntiFlicker = new AntiFlickerCore(mComponentStore, mBackend);
         mPresetDict = offlineSettingsEnabled() ? mDeviceController.getPresetDict().getDictionary(SETTINGS_KEY) : null;
         mDeviceDict = offlineSettingsEnabled() ? mDeviceController.getDeviceDict().getDictionary(SETTINGS_KEY) : null;
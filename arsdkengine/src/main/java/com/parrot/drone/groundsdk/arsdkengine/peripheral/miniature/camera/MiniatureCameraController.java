@@ -71,6 +71,8 @@ public final class MiniatureCameraController extends DronePeripheralController {
      */
     public MiniatureCameraController(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureMinidrone.MediaRecordState.UID, ArsdkFeatureMinidrone.MinicamState.UID,
+                ArsdkFeatureMinidrone.VideoSettingsState.UID);
         mCameraCore = new MainCameraCore(mComponentStore, mBackend);
     }
 
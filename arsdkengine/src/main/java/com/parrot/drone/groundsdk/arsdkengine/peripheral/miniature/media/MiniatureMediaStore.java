@@ -32,8 +32,6 @@
 
 package com.parrot.drone.groundsdk.arsdkengine.peripheral.miniature.media;
 
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 
 import com.parrot.drone.groundsdk.arsdkengine.devicecontroller.DroneController;
 import com.parrot.drone.groundsdk.arsdkengine.http.HttpMiniatureMediaClient;
@@ -43,7 +41,6 @@ import com.parrot.drone.groundsdk.internal.device.peripheral.media.MediaRequest;
 import com.parrot.drone.groundsdk.internal.device.peripheral.media.MediaResourceCore;
 import com.parrot.drone.groundsdk.internal.device.peripheral.media.MediaStoreCore;
 import com.parrot.drone.groundsdk.internal.http.HttpRequest;
-import com.parrot.drone.sdkcore.ulog.ULog;
 
 import java.io.File;
 import java.util.List;
@@ -51,7 +48,6 @@ import java.util.List;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import static com.parrot.drone.groundsdk.arsdkengine.Logging.TAG_MEDIA;
 
 /** MediaStore peripheral controller for Miniature family drones. */
 public final class MiniatureMediaStore extends DronePeripheralController {
@@ -75,7 +71,7 @@ public final class MiniatureMediaStore extends DronePeripheralController {
      */
     public MiniatureMediaStore(@NonNull DroneController droneController) {
         super(droneController);
-        mMediaStore = new MediaStoreCore(mComponentStore, mBackend);
+        mMediaStore = new MediaStoreCore(mComponentStore, mBackend, mDeviceController.getUid());
     }
 
     @Override
@@ -237,7 +233,7 @@ public final class MiniatureMediaStore extends DronePeripheralController {
         @Nullable
         @Override
         public MediaRequest fetchThumbnail(@NonNull MediaItemCore media,
-                                           @NonNull MediaRequest.ResultCallback<Bitmap> callback) {
+                                           @NonNull MediaRequest.ResultCallback<byte[]> callback) {
             String url;
             if (mMediaClient == null || (url = MediaItemImpl.unwrap(media).getThumbnailUrl()) == null) {
                 callback.onRequestComplete(MediaRequest.Status.SUCCESS, null);
@@ -249,7 +245,7 @@ public final class MiniatureMediaStore extends DronePeripheralController {
         @Nullable
         @Override
         public MediaRequest fetchThumbnail(@NonNull MediaResourceCore resource,
-                                           @NonNull MediaRequest.ResultCallback<Bitmap> callback) {
+                                           @NonNull MediaRequest.ResultCallback<byte[]> callback) {
             String url;
             if (mMediaClient == null || (url = MediaResourceImpl.unwrap(resource).getThumbnailUrl()) == null) {
                 callback.onRequestComplete(MediaRequest.Status.SUCCESS, null);
@@ -335,18 +331,12 @@ public final class MiniatureMediaStore extends DronePeripheralController {
          */
         @NonNull
         private MediaRequest fetchThumbnail(@NonNull String url, @NonNull String itemUid,
-                                            @NonNull MediaRequest.ResultCallback<Bitmap> callback) {
+                                            @NonNull MediaRequest.ResultCallback<byte[]> callback) {
             assert mMediaClient != null;
-            return mMediaClient.fetch(url, (data) -> {
-                Bitmap thumbnail = BitmapFactory.decodeByteArray(data, 0, data.length);
-                if (thumbnail == null && ULog.w(TAG_MEDIA)) {
-                    ULog.w(TAG_MEDIA, "Failed to decode thumbnail [item:" + itemUid + "]");
-                }
-                return thumbnail;
-            }, (status, code, thumbnail) -> {
+            return mMediaClient.fetch(url, (status, code, data) -> {
                 switch (status) {
                     case SUCCESS:
-                        callback.onRequestComplete(MediaRequest.Status.SUCCESS, thumbnail);
+                        callback.onRequestComplete(MediaRequest.Status.SUCCESS, data);
                         break;
                     case FAILED:
                         callback.onRequestComplete(code < HttpRequest.STATUS_CODE_SERVER_ERROR ?
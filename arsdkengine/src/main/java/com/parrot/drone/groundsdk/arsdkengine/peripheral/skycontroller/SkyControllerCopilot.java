@@ -79,6 +79,7 @@ public class SkyControllerCopilot extends RCPeripheralController {
      */
     public SkyControllerCopilot(@NonNull RCController rcController) {
         super(rcController);
+        registerCommandFeatures(ArsdkFeatureSkyctrl.CoPilotingState.UID);
         mCopilot = new CopilotCore(mComponentStore, mBackend);
         mGlobalDeviceDict = offlineSettingsEnabled() ? mDeviceController.getDeviceDict() : null;
         mPresetDict = offlineSettingsEnabled() ? mDeviceController.getPresetDict().getDictionary(SETTINGS_KEY) : null;
@@ -76,6 +76,7 @@ public class SkyControllerDroneFinder extends PeripheralController<ProxyDeviceCo
      */
     public SkyControllerDroneFinder(@NonNull ProxyDeviceController proxyController) {
         super(proxyController);
+        registerCommandFeatures(ArsdkFeatureDroneManager.UID, ArsdkFeatureSkyctrl.WifiState.UID);
         mProxyController = proxyController;
         mDroneFinder = new DroneFinderCore(mComponentStore, mBackend);
         mDiscoveredDrones = new HashMap<>();
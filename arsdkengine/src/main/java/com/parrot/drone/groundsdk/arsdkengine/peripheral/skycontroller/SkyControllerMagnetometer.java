@@ -58,6 +58,7 @@ public class SkyControllerMagnetometer extends RCPeripheralController {
      */
     public SkyControllerMagnetometer(@NonNull RCController rcController) {
         super(rcController);
+        registerCommandFeatures(ArsdkFeatureSkyctrl.CalibrationState.UID);
         mMagnetometer = new MagnetometerWith1StepCalibrationCore(mComponentStore, mBackend);
     }
 
@@ -51,6 +51,7 @@ public class SkyControllerSystemInfo extends SystemInfoControllerBase {
      */
     public SkyControllerSystemInfo(@NonNull RCController rcController) {
         super(rcController);
+        registerCommandFeatures(ArsdkFeatureSkyctrl.SettingsState.UID);
     }
 
     @Override
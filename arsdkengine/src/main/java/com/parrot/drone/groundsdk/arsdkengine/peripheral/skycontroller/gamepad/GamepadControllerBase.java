@@ -245,6 +245,7 @@ abstract class GamepadControllerBase extends RCPeripheralController {
      */
     GamepadControllerBase(@NonNull RCController deviceController, @NonNull NavigationEventTranslator translator) {
         super(deviceController);
+        registerCommandFeatures(ArsdkFeatureMapper.UID);
         mNavEventTranslator = translator;
         mVirtualGamepad = new VirtualGamepadCore(mComponentStore, mBackend);
     }
@@ -114,6 +114,9 @@ public final class Sc1Gamepad extends GamepadControllerBase {
     @SuppressLint("UseSparseArrays") // SparseArray has no values() method
     public Sc1Gamepad(@NonNull RCController deviceController) {
         super(deviceController, new NoOpTranslator());
+        // ArsdkFeatureMapper.UID is already registered by the base class
+        registerCommandFeatures(ArsdkFeatureSkyctrl.AxisFiltersState.UID, ArsdkFeatureSkyctrl.AxisMappingsState.UID,
+                ArsdkFeatureSkyctrl.ButtonMappingsState.UID, ArsdkFeatureSkyctrl.GamepadInfosState.UID);
         mGamepad = new SkyController1GamepadCore(mComponentStore, mSc1Backend);
         mButtonMappings = new HashMap<>();
         mAxisMappings = new HashMap<>();
@@ -164,7 +167,8 @@ public final class Sc1Gamepad extends GamepadControllerBase {
         } else if (featureId == ArsdkFeatureSkyctrl.AxisFiltersState.UID) {
             ArsdkFeatureSkyctrl.AxisFiltersState.decode(command, mSc1AxisFiltersStateCallbacks);
         }
-        // ArsdkFeatureMapper.UID is intentionally NOT handled — SC1 firmware never sends mapper commands.
+        // ArsdkFeatureMapper.UID, registered by the base class, is intentionally NOT handled — SC1 firmware never
+        // sends mapper commands.
     }
 
     // ---- Abstract method implementations (mapper-path — all no-ops for SC1) ----
@@ -0,0 +1,434 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.arsdkengine.persistence;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of {@link PersistentStore} dictionaries.
+ * <p>
+ * An encoded dictionary starts with a {@link #MAGIC magic} number and a {@link #VERSION format version}, followed by
+ * the root json object. Each json value is encoded as a one-byte type tag followed by its payload:
+ * <ul>
+ * <li>{@code null}, {@code false} and {@code true} have no payload,</li>
+ * <li>integral numbers, including floating point numbers with an integral value, are encoded as zig-zag variable
+ * length integers,</li>
+ * <li>other floating point numbers are encoded as 8-byte IEEE 754 doubles,</li>
+ * <li>strings are encoded as their UTF-8 byte length, as a variable length integer, followed by their UTF-8 bytes,
+ * </li>
+ * <li>arrays are encoded as their element count, as a variable length integer, followed by each element,</li>
+ * <li>objects are encoded as their entry count, as a variable length integer, followed by each entry key and value.
+ * Each distinct key is written as a string only once per dictionary; further occurrences refer to it by index.</li>
+ * </ul>
+ * Decoding produces json objects holding numbers as {@code Integer}, {@code Long} or {@code Double} directly, without
+ * any textual parsing. Decoded numbers have the same type and value as when the dictionary is written as json text and
+ * parsed back.
+ */
+final class BinaryFormat {
+
+    /** Magic number at the start of each encoded dictionary ("GSPS"). */
+    private static final int MAGIC = 0x47535053;
+
+    /** Current format version. Encoded dictionaries of any other version are rejected. */
+    static final int VERSION = 1;
+
+    /** Type tag of {@code null} values. */
+    private static final int TAG_NULL = 0;
+
+    /** Type tag of {@code false} values. */
+    private static final int TAG_FALSE = 1;
+
+    /** Type tag of {@code true} values. */
+    private static final int TAG_TRUE = 2;
+
+    /** Type tag of integral number values. */
+    private static final int TAG_INTEGER = 3;
+
+    /** Type tag of floating point number values. */
+    private static final int TAG_DOUBLE = 4;
+
+    /** Type tag of string values. */
+    private static final int TAG_STRING = 5;
+
+    /** Type tag of array values. */
+    private static final int TAG_ARRAY = 6;
+
+    /** Type tag of object values. */
+    private static final int TAG_OBJECT = 7;
+
+    /**
+     * Encodes a dictionary.
+     *
+     * @param json dictionary content to encode
+     *
+     * @return encoded dictionary
+     *
+     * @throws IllegalArgumentException in case the dictionary contains values that cannot be represented in json
+     */
+    @NonNull
+    static byte[] encode(@NonNull JSONObject json) {
+        Encoder encoder = new Encoder();
+        encoder.writeInt(MAGIC);
+        encoder.write(VERSION);
+        encoder.writeValue(json);
+        return encoder.toByteArray();
+    }
+
+    /**
+     * Decodes a dictionary.
+     *
+     * @param data encoded dictionary
+     *
+     * @return decoded dictionary content
+     *
+     * @throws IOException in case the data is not a dictionary encoded in the current format version
+     */
+    @NonNull
+    static JSONObject decode(@NonNull byte[] data) throws IOException {
+        ByteBuffer src = ByteBuffer.wrap(data);
+        try {
+            if (src.getInt() != MAGIC) {
+                throw new IOException("Not a binary dictionary");
+            }
+            int version = src.get() & 0xFF;
+            if (version != VERSION) {
+                throw new IOException("Unsupported binary dictionary version: " + version);
+            }
+            if ((src.get() & 0xFF) != TAG_OBJECT) {
+                throw new IOException("Binary dictionary root is not an object");
+            }
+            JSONObject json = new Decoder(src).readObject();
+            if (src.hasRemaining()) {
+                throw new IOException("Trailing data after binary dictionary");
+            }
+            return json;
+        } catch (BufferUnderflowException | JSONException e) {
+            throw new IOException("Malformed binary dictionary", e);
+        }
+    }
+
+    /** Encodes json values to a growing byte array. */
+    private static final class Encoder extends ByteArrayOutputStream {
+
+        /** Index of each key written so far. */
+        @NonNull
+        private final Map<String, Integer> mKeys;
+
+        /**
+         * Constructor.
+         */
+        Encoder() {
+            mKeys = new HashMap<>();
+        }
+
+        /**
+         * Writes a json value, with its type tag.
+         *
+         * @param value value to write
+         */
+        void writeValue(@Nullable Object value) {
+            if (value == null || value == JSONObject.NULL) {
+                write(TAG_NULL);
+            } else if (value instanceof Boolean) {
+                write((Boolean) value ? TAG_TRUE : TAG_FALSE);
+            } else if (value instanceof Integer || value instanceof Long || value instanceof Short
+                       || value instanceof Byte) {
+                writeInteger(((Number) value).longValue());
+            } else if (value instanceof Number) {
+                // decode to the same value a json text round trip gives: the number as printed, and integral
+                // values as integers
+                double number = value instanceof Double ? (Double) value : Double.parseDouble(value.toString());
+                long integral = (long) number;
+                if (number == integral) {
+                    writeInteger(integral);
+                } else {
+                    write(TAG_DOUBLE);
+                    long bits = Double.doubleToRawLongBits(number);
+                    writeInt((int) (bits >>> 32));
+                    writeInt((int) bits);
+                }
+            } else if (value instanceof JSONObject) {
+                write(TAG_OBJECT);
+                writeObject((JSONObject) value);
+            } else if (value instanceof JSONArray) {
+                JSONArray array = (JSONArray) value;
+                write(TAG_ARRAY);
+                writeVarLong(array.length());
+                for (int i = 0, N = array.length(); i < N; i++) {
+                    writeValue(array.opt(i));
+                }
+            } else if (value instanceof CharSequence || value instanceof Enum) {
+                write(TAG_STRING);
+                writeString(value.toString());
+            } else {
+                throw new IllegalArgumentException("Unsupported json value: " + value);
+            }
+        }
+
+        /**
+         * Writes an integral number value, with its type tag.
+         *
+         * @param number number to write
+         */
+        void writeInteger(long number) {
+            write(TAG_INTEGER);
+            writeVarLong((number << 1) ^ (number >> 63));
+        }
+
+        /**
+         * Writes a json object content, without type tag.
+         *
+         * @param json json object to write
+         */
+        void writeObject(@NonNull JSONObject json) {
+            writeVarLong(json.length());
+            for (Iterator<String> iter = json.keys(); iter.hasNext(); ) {
+                String key = iter.next();
+                Integer index = mKeys.get(key);
+                if (index == null) {
+                    // 0 introduces a new key, written in full
+                    mKeys.put(key, mKeys.size());
+                    writeVarLong(0);
+                    writeString(key);
+                } else {
+                    writeVarLong(index + 1);
+                }
+                writeValue(json.opt(key));
+            }
+        }
+
+        /**
+         * Writes a string as its UTF-8 byte length followed by its UTF-8 bytes.
+         *
+         * @param string string to write
+         */
+        void writeString(@NonNull String string) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+
+        /**
+         * Writes a 4-byte big endian integer.
+         *
+         * @param value integer to write
+         */
+        void writeInt(int value) {
+            write(value >>> 24);
+            write(value >>> 16);
+            write(value >>> 8);
+            write(value);
+        }
+
+        /**
+         * Writes an unsigned variable length integer, 7 bits per byte, least significant bits first.
+         *
+         * @param value integer to write, considered unsigned
+         */
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+    }
+
+    /** Decodes json values from a byte buffer. */
+    private static final class Decoder {
+
+        /** Buffer to decode from. */
+        @NonNull
+        private final ByteBuffer mSrc;
+
+        /** Keys read so far, by index. */
+        @NonNull
+        private final List<String> mKeys;
+
+        /**
+         * Constructor.
+         *
+         * @param src buffer to decode from
+         */
+        Decoder(@NonNull ByteBuffer src) {
+            mSrc = src;
+            mKeys = new ArrayList<>();
+        }
+
+        /**
+         * Reads a json value, with its type tag.
+         *
+         * @return read value
+         *
+         * @throws IOException   in case the value is malformed
+         * @throws JSONException in case the value cannot be represented in json
+         */
+        @NonNull
+        Object readValue() throws IOException, JSONException {
+            int tag = mSrc.get() & 0xFF;
+            switch (tag) {
+                case TAG_NULL:
+                    return JSONObject.NULL;
+                case TAG_FALSE:
+                    return Boolean.FALSE;
+                case TAG_TRUE:
+                    return Boolean.TRUE;
+                case TAG_INTEGER:
+                    long zigzag = readVarLong();
+                    long number = (zigzag >>> 1) ^ -(zigzag & 1);
+                    if (number == (int) number) {
+                        return (int) number;
+                    }
+                    return number;
+                case TAG_DOUBLE:
+                    return mSrc.getDouble();
+                case TAG_STRING:
+                    return readString();
+                case TAG_ARRAY:
+                    int length = readLength();
+                    JSONArray array = new JSONArray();
+                    for (int i = 0; i < length; i++) {
+                        array.put(readValue());
+                    }
+                    return array;
+                case TAG_OBJECT:
+                    return readObject();
+                default:
+                    throw new IOException("Unknown value tag: " + tag);
+            }
+        }
+
+        /**
+         * Reads a json object content, without type tag.
+         *
+         * @return read json object
+         *
+         * @throws IOException   in case the object is malformed
+         * @throws JSONException in case the object cannot be represented in json
+         */
+        @NonNull
+        JSONObject readObject() throws IOException, JSONException {
+            int length = readLength();
+            JSONObject json = new JSONObject();
+            for (int i = 0; i < length; i++) {
+                int ref = readLength();
+                String key;
+                if (ref == 0) {
+                    key = readString();
+                    mKeys.add(key);
+                } else if (ref <= mKeys.size()) {
+                    key = mKeys.get(ref - 1);
+                } else {
+                    throw new IOException("Unknown key reference: " + ref);
+                }
+                json.put(key, readValue());
+            }
+            return json;
+        }
+
+        /**
+         * Reads a string written as its UTF-8 byte length followed by its UTF-8 bytes.
+         *
+         * @return read string
+         *
+         * @throws IOException in case the string is malformed
+         */
+        @NonNull
+        String readString() throws IOException {
+            int length = readLength();
+            if (length > mSrc.remaining()) {
+                throw new IOException("String length exceeds available data: " + length);
+            }
+            String string = new String(mSrc.array(), mSrc.arrayOffset() + mSrc.position(), length,
+                    StandardCharsets.UTF_8);
+            mSrc.position(mSrc.position() + length);
+            return string;
+        }
+
+        /**
+         * Reads a variable length integer representing a length or count.
+         *
+         * @return read length
+         *
+         * @throws IOException in case the length is negative or does not fit in an integer
+         */
+        int readLength() throws IOException {
+            long length = readVarLong();
+            if (length < 0 || length > Integer.MAX_VALUE) {
+                throw new IOException("Invalid length: " + length);
+            }
+            return (int) length;
+        }
+
+        /**
+         * Reads an unsigned variable length integer, 7 bits per byte, least significant bits first.
+         *
+         * @return read integer, considered unsigned
+         *
+         * @throws IOException in case the integer is longer than 64 bits
+         */
+        long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = mSrc.get() & 0xFF;
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed variable length integer");
+        }
+    }
+
+    /**
+     * Private constructor for static utility class.
+     */
+    private BinaryFormat() {
+    }
+}
@@ -34,26 +34,51 @@ package com.parrot.drone.groundsdk.arsdkengine.persistence;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.net.Uri;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
 import com.parrot.drone.groundsdk.device.DeviceModel;
+import com.parrot.drone.groundsdk.internal.io.Files;
+import com.parrot.drone.groundsdk.internal.tasks.Executor;
+import com.parrot.drone.groundsdk.internal.tasks.Task;
+import com.parrot.drone.sdkcore.ulog.ULog;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintWriter;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import static com.parrot.drone.groundsdk.arsdkengine.Logging.TAG_STORAGE;
 
 /**
- * A persistent store backed by a shared preferences file storing json data.
+ * A persistent store storing json data.
+ * <p>
+ * Each device and preset root dictionary is stored in a distinct file, loaded lazily upon first access. Committed
+ * dictionaries are kept in memory and written behind in background, after {@link #FLUSH_DELAY} without further
+ * commits, or as soon as {@link #flush()} is called.
+ * <p>
+ * Dictionaries are stored using {@link BinaryFormat}. Store content is migrated from the legacy shared preferences
+ * file on first access.
+ * <p>
+ * This class must be used from the main thread only.
  */
 public class PersistentStore {
 
@@ -375,30 +400,62 @@ public class PersistentStore {
         }
     }
 
-    /** Shared preferences file name. */
+    /** Legacy shared preferences file name. Also used as the name of the store directory. */
     private static final String STORE_NAME = "arsdkenginestore";
 
-    /** Shared preferences key for version (int). */
-    private static final String KEY_VERSION = "version";
-
     /** shared preferences key prefix for each device (content: json as String). */
     private static final String KEY_DEVICE_PREFIX = "device-";
 
     /** Shared preferences key prefix for each preset (content: json as String). */
     private static final String KEY_PRESET_PREFIX = "preset-";
 
+    /** Extension of each dictionary file in the store directory. */
+    private static final String FILE_EXTENSION = ".bin";
+
+    /** Extension of temporary files, where dictionaries are written before replacing their file. */
+    private static final String TMP_FILE_EXTENSION = ".tmp";
+
+    /** Delay without further commits after which committed dictionaries are written to files, in milliseconds. */
+    private static final long FLUSH_DELAY = TimeUnit.SECONDS.toMillis(1);
+
     /** Application context. */
     @NonNull
     final Context mContext;
 
-    /** Shared preferences backing the preference store. */
+    /** Directory containing dictionary files. */
     @NonNull
-    private final SharedPreferences mPrefs;
+    private final File mDir;
 
     /** Dictionary observers, by root dictionary. */
     @NonNull
     private final Map<RootDictionary, Dictionary.Observer> mObservers;
 
+    /** Keys of all stored dictionaries. {@code null} until loaded upon first access. */
+    @Nullable
+    private Set<String> mKeys;
+
+    /**
+     * Encoded content of loaded dictionaries, by key. A {@code null} content means that the dictionary has been
+     * removed or could not be read.
+     */
+    @NonNull
+    private final Map<String, byte[]> mContents;
+
+    /** Keys of dictionaries which have been committed but not written to their files yet. */
+    @NonNull
+    private final Set<String> mDirtyKeys;
+
+    /** Background task writing dictionaries to their files, {@code null} when no write is in progress. */
+    @Nullable
+    private Task<Void> mWriteTask;
+
+    /** Legacy shared preferences to clear once migrated content is written, {@code null} if none. */
+    @Nullable
+    private SharedPreferences mLegacyPrefs;
+
+    /** Writes committed dictionaries, scheduled after each commit. */
+    private final Runnable mFlushRunnable = this::flush;
+
     /**
      * Constructor.
      *
@@ -406,13 +463,10 @@ public class PersistentStore {
      */
     public PersistentStore(@NonNull Context context) {
         mContext = context;
-        mPrefs = context.getSharedPreferences(STORE_NAME, Context.MODE_PRIVATE);
+        mDir = new File(context.getFilesDir(), STORE_NAME);
         mObservers = new HashMap<>();
-        int version = mPrefs.getInt(KEY_VERSION, 0);
-        if (version == 0) {
-            version = 1;
-            mPrefs.edit().putInt(KEY_VERSION, version).apply();
-        }
+        mContents = new HashMap<>();
+        mDirtyKeys = new HashSet<>();
     }
 
     /**
@@ -423,7 +477,7 @@ public class PersistentStore {
     @NonNull
     public final Set<String> getDevicesUid() {
         Set<String> uids = new HashSet<>();
-        for (String key : mPrefs.getAll().keySet()) {
+        for (String key : keys()) {
             if (key.startsWith(KEY_DEVICE_PREFIX)) {
                 uids.add(keyToDeviceUid(key));
             }
@@ -506,13 +560,15 @@ public class PersistentStore {
      */
     @Nullable
     JSONObject loadContent(@NonNull String key) {
-        String content = mPrefs.getString(key, null);
+        byte[] content = readContent(key);
         JSONObject json = null;
         if (content != null) {
             try {
-                json = new JSONObject(content);
-            } catch (JSONException e) {
-                // ignore
+                json = BinaryFormat.decode(content);
+            } catch (IOException e) {
+                if (ULog.w(TAG_STORAGE)) {
+                    ULog.w(TAG_STORAGE, "Could not decode persistent store entry: " + key, e);
+                }
             }
         }
         return json;
@@ -520,18 +576,211 @@ public class PersistentStore {
 
     /**
      * Stores the given JSON content at the given key in the persistent store.
+     * <p>
+     * Content is written to its file in background, after some delay.
      *
      * @param key     the key where to store the content
      * @param content JSON content to store
      */
     void storeContent(@NonNull String key, @Nullable JSONObject content) {
-        SharedPreferences.Editor editor = mPrefs.edit();
+        Set<String> keys = keys();
         if (content == null) {
-            editor.remove(key);
+            keys.remove(key);
+            mContents.put(key, null);
         } else {
-            editor.putString(key, content.toString());
+            keys.add(key);
+            mContents.put(key, BinaryFormat.encode(content));
+        }
+        mDirtyKeys.add(key);
+        Executor.unschedule(mFlushRunnable);
+        Executor.schedule(mFlushRunnable, FLUSH_DELAY);
+    }
+
+    /**
+     * Writes all committed dictionaries to their files now.
+     * <p>
+     * Files are written in background. In case a write is already in progress, committed dictionaries are written
+     * as soon as it completes.
+     */
+    public final void flush() {
+        Executor.unschedule(mFlushRunnable);
+        if (mDirtyKeys.isEmpty() || mWriteTask != null) {
+            return;
+        }
+        Map<String, byte[]> contents = new HashMap<>();
+        for (String key : mDirtyKeys) {
+            contents.put(key, mContents.get(key));
+        }
+        mDirtyKeys.clear();
+        mWriteTask = Executor.runInBackground((Callable<Void>) () -> {
+            writeContents(contents);
+            return null;
+        }, Executor.Lane.PERSISTENCE).whenComplete((result, error, canceled) -> {
+            mWriteTask = null;
+            if (error != null || canceled) {
+                if (ULog.e(TAG_STORAGE)) {
+                    ULog.e(TAG_STORAGE, "Failed to write persistent store", error);
+                }
+                // retry later; contents committed in the meantime supersede the ones that failed to be written
+                mDirtyKeys.addAll(contents.keySet());
+                Executor.schedule(mFlushRunnable, FLUSH_DELAY);
+            } else {
+                if (mLegacyPrefs != null) {
+                    mLegacyPrefs.edit().clear().apply();
+                    mLegacyPrefs = null;
+                }
+                flush();
+            }
+        });
+    }
+
+    /**
+     * Gives the keys of all stored dictionaries.
+     * <p>
+     * Lists the store directory upon first call and migrates legacy shared preferences content, if any.
+     *
+     * @return a mutable set of all stored keys
+     */
+    @NonNull
+    private Set<String> keys() {
+        if (mKeys == null) {
+            mKeys = new HashSet<>();
+            String[] names = mDir.list();
+            if (names != null) for (String name : names) {
+                if (name.endsWith(FILE_EXTENSION)) {
+                    mKeys.add(Uri.decode(name.substring(0, name.length() - FILE_EXTENSION.length())));
+                }
+            }
+            boolean migrated = false;
+            SharedPreferences prefs = mContext.getSharedPreferences(STORE_NAME, Context.MODE_PRIVATE);
+            for (Map.Entry<String, ?> entry : prefs.getAll().entrySet()) {
+                String key = entry.getKey();
+                Object content = entry.getValue();
+                if (key.startsWith(KEY_DEVICE_PREFIX) || key.startsWith(KEY_PRESET_PREFIX)) {
+                    mLegacyPrefs = prefs;
+                    if (content instanceof String && !mKeys.contains(key)) {
+                        migrated |= migrate(key, (String) content);
+                    }
+                }
+            }
+            if (migrated) {
+                flush();
+            } else if (mLegacyPrefs != null) {
+                // nothing left to migrate
+                mLegacyPrefs.edit().clear().apply();
+                mLegacyPrefs = null;
+            }
         }
-        editor.apply();
+        return mKeys;
+    }
+
+    /**
+     * Migrates legacy shared preferences json content to the given key.
+     * <p>
+     * Migrated content is written in the current format by the next flush.
+     *
+     * @param key     key of the migrated content
+     * @param content legacy json content
+     *
+     * @return {@code true} if the content was migrated, otherwise {@code false}
+     */
+    private boolean migrate(@NonNull String key, @NonNull String content) {
+        try {
+            mContents.put(key, BinaryFormat.encode(new JSONObject(content)));
+            mKeys.add(key);
+            mDirtyKeys.add(key);
+            return true;
+        } catch (JSONException | IllegalArgumentException e) {
+            if (ULog.w(TAG_STORAGE)) {
+                ULog.w(TAG_STORAGE, "Could not migrate persistent store entry: " + key, e);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the encoded content stored at the given key.
+     * <p>
+     * Content is read from its file upon first access, then kept in memory.
+     *
+     * @param key the key to the content to read
+     *
+     * @return the encoded content, or {@code null} if nothing is stored for that key or it could not be read
+     */
+    @Nullable
+    private byte[] readContent(@NonNull String key) {
+        if (!keys().contains(key)) {
+            return null;
+        }
+        if (!mContents.containsKey(key)) {
+            mContents.put(key, readFile(fileOf(key)));
+        }
+        return mContents.get(key);
+    }
+
+    /**
+     * Reads a whole file.
+     *
+     * @param file file to read
+     *
+     * @return file content, or {@code null} if it could not be read
+     */
+    @Nullable
+    private static byte[] readFile(@NonNull File file) {
+        try (InputStream src = new FileInputStream(file)) {
+            byte[] data = new byte[(int) file.length()];
+            int length = 0, read;
+            while (length < data.length && (read = src.read(data, length, data.length - length)) > 0) {
+                length += read;
+            }
+            return length == data.length ? data : Arrays.copyOf(data, length);
+        } catch (IOException e) {
+            if (ULog.w(TAG_STORAGE)) {
+                ULog.w(TAG_STORAGE, "Could not read persistent store file: " + file, e);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Writes the given contents to their files.
+     * <p>
+     * Called from a background thread.
+     *
+     * @param contents contents to write, by key; a {@code null} content removes the corresponding file
+     *
+     * @throws IOException          in case writing failed
+     * @throws InterruptedException if the current thread is interrupted while this method executes
+     */
+    private void writeContents(@NonNull Map<String, byte[]> contents) throws IOException, InterruptedException {
+        Files.makeDirectories(mDir);
+        for (Map.Entry<String, byte[]> entry : contents.entrySet()) {
+            File file = fileOf(entry.getKey());
+            byte[] content = entry.getValue();
+            if (content == null) {
+                if (file.exists() && !file.delete()) {
+                    throw new IOException("Could not delete " + file);
+                }
+            } else {
+                File tmpFile = new File(file.getPath() + TMP_FILE_EXTENSION);
+                Files.writeFile(new ByteArrayInputStream(content), tmpFile);
+                if (!tmpFile.renameTo(file)) {
+                    throw new IOException("Could not rename " + tmpFile + " to " + file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gives the file where the content of the given key is stored.
+     *
+     * @param key dictionary key
+     *
+     * @return dictionary file
+     */
+    @NonNull
+    private File fileOf(@NonNull String key) {
+        return new File(mDir, Uri.encode(key) + FILE_EXTENSION);
     }
 
     /**
@@ -655,7 +904,7 @@ public class PersistentStore {
             writer.write("\t--fake: dumps drones as fake drones\n");
         } else if (args.contains("--persistent-store") || args.contains("--all")) {
             writer.write("Persistent store:\n");
-            writer.write("\t" + mPrefs.getAll() + "\n");
+            writer.write("\t" + content() + "\n");
         }
     }
 
@@ -670,6 +919,10 @@ public class PersistentStore {
     @VisibleForTesting(otherwise = VisibleForTesting.NONE)
     @NonNull
     Map<String, ?> content() {
-        return mPrefs.getAll();
+        Map<String, String> content = new TreeMap<>();
+        for (String key : keys()) {
+            content.put(key, String.valueOf(loadContent(key)));
+        }
+        return content;
     }
 }
@@ -84,6 +84,7 @@ public class AnafiAnimationPilotingItf extends PilotingItfController {
      */
     public AnafiAnimationPilotingItf(@NonNull DroneController droneController) {
         super(droneController);
+        registerCommandFeatures(ArsdkFeatureAnimation.UID);
         mAnimationItf = new AnimationItfCore(mComponentStore, mBackend);
     }
 
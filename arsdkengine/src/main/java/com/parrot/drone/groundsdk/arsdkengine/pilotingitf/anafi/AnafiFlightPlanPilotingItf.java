@@ -116,6 +116,8 @@ public class AnafiFlightPlanPilotingItf extends ActivablePilotingItfController {
      */
     public AnafiFlightPlanPilotingItf(@NonNull PilotingItfActivationController activationController) {
         super(activationController, false);
+        registerCommandFeatures(ArsdkFeatureCommon.FlightPlanSettingsState.UID, ArsdkFeatureCommon.FlightPlanState.UID,
+                ArsdkFeatureCommon.MavlinkState.UID);
         mPresetDict = offlineSettingsEnabled() ? mDeviceController.getPresetDict().getDictionary(SETTINGS_KEY) : null;
         mDeviceDict = offlineSettingsEnabled() ? mDeviceController.getDeviceDict().getDictionary(SETTINGS_KEY) : null;
         mPilotingItf = new FlightPlanPilotingItfCore(mComponentStore, new Backend());
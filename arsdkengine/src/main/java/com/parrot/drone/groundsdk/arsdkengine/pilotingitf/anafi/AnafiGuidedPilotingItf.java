@@ -87,6 +87,7 @@ public class AnafiGuidedPilotingItf extends ActivablePilotingItfController {
      */
     public AnafiGuidedPilotingItf(@NonNull PilotingItfActivationController activationController) {
         super(activationController, false);
+        registerCommandFeatures(ArsdkFeatureArdrone3.PilotingEvent.UID, ArsdkFeatureArdrone3.PilotingState.UID);
         mPilotingItf = new GuidedPilotingItfCore(mComponentStore, new Backend());
     }
 
@@ -153,6 +153,8 @@ public class AnafiManualPilotingItf extends ActivablePilotingItfController {
     }
     public AnafiManualPilotingItf(@NonNull PilotingItfActivationController activationController, @NonNull boolean withHoverLock) {
         super(activationController, true);
+        registerCommandFeatures(ArsdkFeatureArdrone3.PilotingSettingsState.UID, ArsdkFeatureArdrone3.PilotingState.UID,
+                ArsdkFeatureArdrone3.SpeedSettingsState.UID);
         mPresetDict = offlineSettingsEnabled() ? mDeviceController.getPresetDict().getDictionary(SETTINGS_KEY) : null;
         mDeviceDict = offlineSettingsEnabled() ? mDeviceController.getDeviceDict().getDictionary(SETTINGS_KEY) : null;
         mPilotingItf = new ManualFlightPilotingItfCore(mComponentStore, new Backend());
@@ -86,6 +86,7 @@ public class AnafiPointOfInterestPilotingItf extends ActivablePilotingItfControl
      */
     public AnafiPointOfInterestPilotingItf(@NonNull PilotingItfActivationController activationController) {
         super(activationController, true);
+        registerCommandFeatures(ArsdkFeatureArdrone3.PilotingState.UID);
         mPilotingItf = new PointOfInterestPilotingItfCore(mComponentStore, new Backend());
     }
 
@@ -121,6 +121,8 @@ public class AnafiReturnHomePilotingItf extends ActivablePilotingItfController {
      */
     public AnafiReturnHomePilotingItf(@NonNull PilotingItfActivationController activationController) {
         super(activationController, false);
+        registerCommandFeatures(ArsdkFeatureArdrone3.GPSSettingsState.UID, ArsdkFeatureArdrone3.GPSState.UID,
+                ArsdkFeatureArdrone3.PilotingState.UID, ArsdkFeatureRth.UID);
         mDeviceDict = offlineSettingsEnabled() ? mDeviceController.getDeviceDict().getDictionary(SETTINGS_KEY) : null;
         mPresetDict = offlineSettingsEnabled() ? mDeviceController.getPresetDict().getDictionary(SETTINGS_KEY) : null;
         mPilotingItf = new ReturnHomePilotingItfCore(mComponentStore, new Backend());
@@ -93,6 +93,7 @@ abstract class AnafiTrackingPilotingItfBase extends ActivablePilotingItfControll
     AnafiTrackingPilotingItfBase(@NonNull PilotingItfActivationController activationController,
                                  @NonNull EnumSet<ArsdkFeatureFollowMe.Mode> supportedModes) {
         super(activationController, true);
+        registerCommandFeatures(ArsdkFeatureArdrone3.PilotingState.UID, ArsdkFeatureFollowMe.UID);
         mSupportedModes = supportedModes;
         mAvailableModes = EnumSet.noneOf(ArsdkFeatureFollowMe.Mode.class);
         mAvailabilityIssues = new EnumMap<>(ArsdkFeatureFollowMe.Mode.class);
@@ -115,6 +115,8 @@ public class BebopFlightPlanPilotingItf extends ActivablePilotingItfController {
      */
     public BebopFlightPlanPilotingItf(@NonNull PilotingItfActivationController activationController) {
         super(activationController, false);
+        registerCommandFeatures(ArsdkFeatureCommon.FlightPlanSettingsState.UID, ArsdkFeatureCommon.FlightPlanState.UID,
+                ArsdkFeatureCommon.MavlinkState.UID);
         mPresetDict = offlineSettingsEnabled() ? mDeviceController.getPresetDict().getDictionary(SETTINGS_KEY) : null;
         mDeviceDict = offlineSettingsEnabled() ? mDeviceController.getDeviceDict().getDictionary(SETTINGS_KEY) : null;
         mPilotingItf = new FlightPlanPilotingItfCore(mComponentStore, new Backend());
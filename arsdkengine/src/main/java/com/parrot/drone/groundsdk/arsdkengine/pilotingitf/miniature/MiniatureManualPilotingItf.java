@@ -148,6 +148,8 @@ public class MiniatureManualPilotingItf extends ActivablePilotingItfController {
     }
     public MiniatureManualPilotingItf(@NonNull PilotingItfActivationController activationController, @NonNull boolean withHoverLock) {
         super(activationController, true);
+        registerCommandFeatures(ArsdkFeatureMinidrone.PilotingSettingsState.UID,
+                ArsdkFeatureMinidrone.PilotingState.UID, ArsdkFeatureMinidrone.SpeedSettingsState.UID);
         mPresetDict = offlineSettingsEnabled() ? mDeviceController.getPresetDict().getDictionary(SETTINGS_KEY) : null;
         mDeviceDict = offlineSettingsEnabled() ? mDeviceController.getDeviceDict().getDictionary(SETTINGS_KEY) : null;
         mPilotingItf = new ManualFlightPilotingItfCore(mComponentStore, new Backend());
@@ -0,0 +1,123 @@
+/*
+ *     Copyright (C) 2020 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.internal.component;
+
+import com.parrot.drone.groundsdk.device.peripheral.BatteryGaugeUpdater;
+import com.parrot.drone.groundsdk.device.peripheral.Peripheral;
+import com.parrot.drone.groundsdk.internal.MockComponentStore;
+import com.parrot.drone.groundsdk.internal.device.peripheral.BatteryGaugeUpdaterCore;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+public class ComponentStoreTest {
+
+    private MockComponentStore<Peripheral> mStore;
+
+    private BatteryGaugeUpdaterCore mUpdaterImpl;
+
+    private List<BatteryGaugeUpdater.State> mNotifiedStates;
+
+    @Before
+    public void setup() {
+        mStore = new MockComponentStore<>();
+        mUpdaterImpl = new BatteryGaugeUpdaterCore(mStore, new BatteryGaugeUpdaterCore.Backend() {
+
+            @Override
+            public void prepareUpdate() {
+            }
+
+            @Override
+            public void update() {
+            }
+        });
+        mNotifiedStates = new ArrayList<>();
+        mUpdaterImpl.publish();
+        mStore.registerObserver(BatteryGaugeUpdater.class, () -> {
+            BatteryGaugeUpdater updater = mStore.get(BatteryGaugeUpdater.class);
+            assert updater != null;
+            mNotifiedStates.add(updater.state());
+        });
+    }
+
+    @Test
+    public void testTransactionCollapsesUpdates() {
+        mStore.beginTransaction();
+        mUpdaterImpl.updateState(BatteryGaugeUpdater.State.PREPARING_UPDATE).notifyUpdated();
+        mUpdaterImpl.updateState(BatteryGaugeUpdater.State.READY_TO_UPDATE).notifyUpdated();
+        assertThat(mNotifiedStates, empty());
+
+        mStore.endTransaction();
+        assertThat(mNotifiedStates, contains(BatteryGaugeUpdater.State.READY_TO_UPDATE));
+        assertThat(mStore.getCollapsedNotificationCount(), is(1L));
+    }
+
+    @Test
+    public void testNestedTransactions() {
+        mStore.beginTransaction();
+        mStore.beginTransaction();
+        mUpdaterImpl.updateState(BatteryGaugeUpdater.State.PREPARING_UPDATE).notifyUpdated();
+
+        mStore.endTransaction();
+        assertThat(mNotifiedStates, empty());
+
+        mStore.endTransaction();
+        assertThat(mNotifiedStates, contains(BatteryGaugeUpdater.State.PREPARING_UPDATE));
+    }
+
+    @Test
+    public void testImmediateUpdateInTransaction() {
+        mStore.beginTransaction();
+        // transient state, reset right after being notified
+        mUpdaterImpl.updateState(BatteryGaugeUpdater.State.ERROR).notifyUpdatedNow();
+        mUpdaterImpl.updateState(BatteryGaugeUpdater.State.READY_TO_PREPARE).notifyUpdated();
+        assertThat(mNotifiedStates, contains(BatteryGaugeUpdater.State.ERROR));
+
+        mStore.endTransaction();
+        assertThat(mNotifiedStates, contains(BatteryGaugeUpdater.State.ERROR,
+                BatteryGaugeUpdater.State.READY_TO_PREPARE));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUnbalancedTransaction() {
+        mStore.endTransaction();
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.internal.device.peripheral.media;
+
+import com.parrot.drone.groundsdk.device.peripheral.Peripheral;
+import com.parrot.drone.groundsdk.device.peripheral.media.MediaItem;
+import com.parrot.drone.groundsdk.device.peripheral.media.MediaTaskStatus;
+import com.parrot.drone.groundsdk.internal.GroundSdkConfig;
+import com.parrot.drone.groundsdk.internal.MockComponentStore;
+import com.parrot.drone.groundsdk.internal.tasks.TestExecutor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class MediaDownloaderCoreTest {
+
+    private MediaStoreCore.Backend mMockBackend;
+
+    private MediaResourceCore mResource;
+
+    private MediaStoreCore mStore;
+
+    private MediaDestinationCore mDest;
+
+    private MediaDownloaderCore.Observer mMockObserver;
+
+    @Before
+    public void setup() {
+        TestExecutor.setup();
+        GroundSdkConfig.loadDefaults();
+        mMockBackend = mock(MediaStoreCore.Backend.class);
+        mMockObserver = mock(MediaDownloaderCore.Observer.class);
+        mResource = mock(MediaResourceCore.class);
+        doReturn(mock(MediaItemCore.class)).when(mResource).getMedia();
+        doReturn(1000L).when(mResource).getSize();
+        mStore = new MediaStoreCore(new MockComponentStore<Peripheral>(), mMockBackend);
+        mDest = new MediaDestinationCore.Path(new File(System.getProperty("java.io.tmpdir")));
+    }
+
+    @After
+    public void teardown() {
+        TestExecutor.teardown();
+    }
+
+    @Test
+    public void testSynchronousFailureIsRetried() {
+        doAnswer(invocation -> {
+            MediaRequest.ProgressResultCallback<File> callback = invocation.getArgument(2);
+            callback.onRequestComplete(MediaRequest.Status.FAILED, null);
+            return null;
+        }).when(mMockBackend).download(eq(mResource), anyString(), any());
+
+        MediaDownloaderCore downloader = new MediaDownloaderCore(
+                Collections.<MediaItem.Resource>singletonList(mResource), mDest, mStore, mMockObserver);
+        downloader.execute();
+
+        verify(mMockBackend, times(1)).download(eq(mResource), anyString(), any());
+        assertThat(downloader.getStatus(), is(MediaTaskStatus.RUNNING));
+
+        // retries are scheduled after 2, 4 then 6 seconds
+        TestExecutor.mockTimePasses(2, TimeUnit.SECONDS);
+        verify(mMockBackend, times(2)).download(eq(mResource), anyString(), any());
+        TestExecutor.mockTimePasses(4, TimeUnit.SECONDS);
+        verify(mMockBackend, times(3)).download(eq(mResource), anyString(), any());
+        assertThat(downloader.getStatus(), is(MediaTaskStatus.RUNNING));
+
+        // last attempt fails: the resource is skipped and the task completes
+        TestExecutor.mockTimePasses(6, TimeUnit.SECONDS);
+        verify(mMockBackend, times(4)).download(eq(mResource), anyString(), any());
+        assertThat(downloader.getStatus(), is(MediaTaskStatus.COMPLETE));
+    }
+
+    @Test
+    public void testSynchronousSuccessCompletes() {
+        File file = new File(System.getProperty("java.io.tmpdir"), "media.jpg");
+        MediaRequest mockRequest = mock(MediaRequest.class);
+        doAnswer(invocation -> {
+            MediaRequest.ProgressResultCallback<File> callback = invocation.getArgument(2);
+            callback.onRequestComplete(MediaRequest.Status.SUCCESS, file);
+            return mockRequest;
+        }).when(mMockBackend).download(eq(mResource), anyString(), any());
+
+        MediaDownloaderCore downloader = new MediaDownloaderCore(
+                Collections.<MediaItem.Resource>singletonList(mResource), mDest, mStore, mMockObserver);
+        downloader.execute();
+
+        assertThat(downloader.getStatus(), is(MediaTaskStatus.COMPLETE));
+        assertThat(downloader.getTotalProgress(), is(100));
+
+        // the completed request must not be canceled along with the task
+        downloader.cancel();
+        verify(mockRequest, times(0)).cancel();
+    }
+}
@@ -173,6 +173,20 @@ public interface MediaStore extends Peripheral {
     @NonNull
     Ref<Bitmap> fetchThumbnailOf(@NonNull MediaItem.Resource resource, @NonNull Ref.Observer<Bitmap> observer);
 
+    /**
+     * Prefetches media thumbnails.
+     * <p>
+     * Allows the application to warm GroundSdk thumbnail cache with media that are likely to be displayed soon, for
+     * instance the next few items in a scrolling gallery. Prefetched thumbnails are downloaded in the background, in
+     * the given order, once all thumbnails requested through {@link #fetchThumbnailOf} have been obtained. Subsequent
+     * requests for those thumbnails may then be served directly from the cache.
+     * <p>
+     * Each call replaces the thumbnails that remain to be prefetched from a previous call.
+     *
+     * @param medias media items whose thumbnails must be prefetched
+     */
+    void prefetchThumbnailsOf(@NonNull List<MediaItem> medias);
+
     /**
      * Downloads media resources from the device's internal storage.
      * <p>
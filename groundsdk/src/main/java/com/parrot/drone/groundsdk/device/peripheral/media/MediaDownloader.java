@@ -111,6 +111,17 @@ public interface MediaDownloader {
     @IntRange(from = 0, to = 100)
     int getCurrentFileProgress();
 
+    /**
+     * Retrieves the current throughput of the current file download.
+     * <p>
+     * When the file is downloaded over several concurrent connections, this is the sum of the throughput of each
+     * connection.
+     *
+     * @return current file download throughput, in bytes per second, {@code 0} if not known yet
+     */
+    @IntRange(from = 0)
+    long getCurrentFileThroughput();
+
     /**
      * Retrieves the downloaded file.
      * <p>
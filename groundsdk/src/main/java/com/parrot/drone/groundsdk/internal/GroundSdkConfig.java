@@ -50,6 +50,7 @@ import com.parrot.drone.groundsdk.facility.FlightDataManager;
 import com.parrot.drone.groundsdk.facility.FlightLogReporter;
 import com.parrot.drone.groundsdk.facility.GutmaLogManager;
 import com.parrot.drone.groundsdk.internal.device.DeviceModels;
+import com.parrot.drone.groundsdk.internal.tasks.Executor;
 import com.parrot.drone.groundsdk.internal.utility.BlackBoxStorage;
 import com.parrot.drone.groundsdk.internal.utility.CrashReportStorage;
 import com.parrot.drone.groundsdk.internal.utility.FirmwareDownloader;
@@ -191,6 +192,9 @@ public final class GroundSdkConfig {
     /** {@code true} if video decoding is enabled. */
     private boolean mVideoDecodingEnabled;
 
+    /** {@code true} if received device commands are delivered in batches. */
+    private boolean mCommandBatchingEnabled;
+
     /** {@code true} if auto-connection should start immediately when the first session is opened. */
     private boolean mAutoConnectionAtStartup;
 
@@ -247,6 +251,33 @@ public final class GroundSdkConfig {
     @IntRange(from = 0)
     private final long mThumbnailCacheSize;
 
+    /** Media thumbnail max disk cache size, in bytes. {@code 0} when the disk cache is disabled. */
+    @IntRange(from = 0)
+    private final long mThumbnailDiskCacheSize;
+
+    /** Maximum amount of concurrent media thumbnail fetches. */
+    @IntRange(from = 1)
+    private final int mThumbnailFetchWindow;
+
+    /** Maximum amount of concurrent media resource downloads. */
+    @IntRange(from = 1)
+    private final int mMediaDownloadConcurrency;
+
+    /** {@code true} to download media resources smallest first, {@code false} to keep the requested order. */
+    private final boolean mMediaDownloadSmallestFirst;
+
+    /** Maximum rate at which transfer progress is notified, in notifications per second; 0 when unbounded. */
+    @IntRange(from = 0)
+    private final int mTransferProgressMaxRate;
+
+    /** Maximum amount of background threads; 0 to size the pool according to the device available processors. */
+    @IntRange(from = 0)
+    private final int mBackgroundThreadCount;
+
+    /** Maximum amount of concurrent background tasks in each executor lane, by lane ordinal. */
+    @NonNull
+    private final int[] mBackgroundLaneConcurrency;
+
     /** True if the config has been locked and cannot be change anymore. */
     private boolean mLocked;
 
@@ -320,6 +351,7 @@ public final class GroundSdkConfig {
         mCrashReportEnabled = resources.getBoolean(R.bool.gsdk_crash_report_enabled);
         mFlightLogEnabled = resources.getBoolean(R.bool.gsdk_flight_log_enabled);
         mVideoDecodingEnabled = resources.getBoolean(R.bool.gsdk_video_decoding_enabled);
+        mCommandBatchingEnabled = resources.getBoolean(R.bool.gsdk_command_batching_enabled);
         mFirmwareEnabled = resources.getBoolean(R.bool.gsdk_firmware_enabled);
         mAlternateFirmwareServer = resources.getString(R.string.gsdk_firmware_server);
         mBlackBoxEnabled = resources.getBoolean(R.bool.gsdk_blackbox_enabled);
@@ -375,6 +407,46 @@ public final class GroundSdkConfig {
         if (mThumbnailCacheSize < 0) {
             throw new ConfigurationError("gsdk_media_thumbnail_cache_size must be positive");
         }
+
+        mThumbnailDiskCacheSize = resources.getInteger(R.integer.gsdk_media_thumbnail_disk_cache_size);
+        if (mThumbnailDiskCacheSize < 0) {
+            throw new ConfigurationError("gsdk_media_thumbnail_disk_cache_size must be positive");
+        }
+
+        mThumbnailFetchWindow = resources.getInteger(R.integer.gsdk_media_thumbnail_fetch_window);
+        if (mThumbnailFetchWindow < 1) {
+            throw new ConfigurationError("gsdk_media_thumbnail_fetch_window must be at least 1");
+        }
+
+        mMediaDownloadConcurrency = resources.getInteger(R.integer.gsdk_media_download_concurrency);
+        if (mMediaDownloadConcurrency < 1) {
+            throw new ConfigurationError("gsdk_media_download_concurrency must be at least 1");
+        }
+        mMediaDownloadSmallestFirst = resources.getBoolean(R.bool.gsdk_media_download_smallest_first);
+
+        mTransferProgressMaxRate = resources.getInteger(R.integer.gsdk_transfer_progress_max_rate);
+        if (mTransferProgressMaxRate < 0) {
+            throw new ConfigurationError("gsdk_transfer_progress_max_rate must be positive or 0");
+        }
+
+        mBackgroundThreadCount = resources.getInteger(R.integer.gsdk_background_thread_count);
+        if (mBackgroundThreadCount < 0) {
+            throw new ConfigurationError("gsdk_background_thread_count must be positive or 0");
+        }
+        mBackgroundLaneConcurrency = new int[Executor.Lane.values().length];
+        mBackgroundLaneConcurrency[Executor.Lane.INTERACTIVE.ordinal()] = resources.getInteger(
+                R.integer.gsdk_background_interactive_concurrency);
+        mBackgroundLaneConcurrency[Executor.Lane.PERSISTENCE.ordinal()] = resources.getInteger(
+                R.integer.gsdk_background_persistence_concurrency);
+        mBackgroundLaneConcurrency[Executor.Lane.TRANSFER.ordinal()] = resources.getInteger(
+                R.integer.gsdk_background_transfer_concurrency);
+        mBackgroundLaneConcurrency[Executor.Lane.HOUSEKEEPING.ordinal()] = resources.getInteger(
+                R.integer.gsdk_background_housekeeping_concurrency);
+        for (int concurrency : mBackgroundLaneConcurrency) {
+            if (concurrency < 1) {
+                throw new ConfigurationError("gsdk_background_*_concurrency must be at least 1");
+            }
+        }
     }
 
     /**
@@ -390,6 +462,7 @@ public final class GroundSdkConfig {
         mCrashReportEnabled = false;
         mFlightLogEnabled = false;
         mVideoDecodingEnabled = true;
+        mCommandBatchingEnabled = false;
         mFirmwareEnabled = false;
         mAlternateFirmwareServer = "";
         mBlackBoxEnabled = false;
@@ -411,6 +484,13 @@ public final class GroundSdkConfig {
         mFlightLogQuota = 0;
         mGutmaLogQuota = 0;
         mThumbnailCacheSize = 0;
+        mThumbnailDiskCacheSize = 0;
+        mThumbnailFetchWindow = 1;
+        mMediaDownloadConcurrency = 1;
+        mMediaDownloadSmallestFirst = false;
+        mTransferProgressMaxRate = 0;
+        mBackgroundThreadCount = 0;
+        mBackgroundLaneConcurrency = new int[] {1, 1, 1, 1};
     }
 
     /**
@@ -622,6 +702,15 @@ public final class GroundSdkConfig {
         return mVideoDecodingEnabled;
     }
 
+    /**
+     * Tells whether received device commands are delivered in batches.
+     *
+     * @return {@code true} if command batching is enabled, {@code false} otherwise
+     */
+    public boolean isCommandBatchingEnabled() {
+        return mCommandBatchingEnabled;
+    }
+
     /**
      * Tells whether auto-connection should start automatically when first session is opened.
      *
@@ -789,6 +878,78 @@ public final class GroundSdkConfig {
         return mThumbnailCacheSize;
     }
 
+    /**
+     * Gives media thumbnails disk cache maximum allowed size, in bytes.
+     *
+     * @return thumbnail disk cache size, {@code 0} if the disk cache is disabled
+     */
+    @IntRange(from = 0)
+    public long getThumbnailDiskCacheSize() {
+        return mThumbnailDiskCacheSize;
+    }
+
+    /**
+     * Gives the maximum amount of media thumbnails that may be fetched concurrently from a device.
+     *
+     * @return thumbnail fetch window
+     */
+    @IntRange(from = 1)
+    public int getThumbnailFetchWindow() {
+        return mThumbnailFetchWindow;
+    }
+
+    /**
+     * Gives the maximum amount of media resources that may be downloaded concurrently from a device.
+     *
+     * @return media download concurrency
+     */
+    @IntRange(from = 1)
+    public int getMediaDownloadConcurrency() {
+        return mMediaDownloadConcurrency;
+    }
+
+    /**
+     * Gives the maximum amount of background threads.
+     *
+     * @return background thread count, 0 if the background thread pool should be sized according to the device
+     *         available processors
+     */
+    @IntRange(from = 0)
+    public int getBackgroundThreadCount() {
+        return mBackgroundThreadCount;
+    }
+
+    /**
+     * Gives the maximum amount of background tasks that may run concurrently in each executor lane.
+     *
+     * @return background lane concurrency, indexed by {@link Executor.Lane#ordinal() lane ordinal}
+     */
+    @NonNull
+    public int[] getBackgroundLaneConcurrency() {
+        return mBackgroundLaneConcurrency.clone();
+    }
+
+    /**
+     * Tells whether media resources are downloaded smallest first.
+     *
+     * @return {@code true} if media resources are downloaded smallest first, {@code false} if they are downloaded in
+     *         the order requested by the application
+     */
+    public boolean isMediaDownloadSmallestFirst() {
+        return mMediaDownloadSmallestFirst;
+    }
+
+    /**
+     * Gives the maximum rate at which the progress of HTTP and FTP transfers is notified.
+     *
+     * @return maximum transfer progress notification rate, in notifications per second; 0 when each progress change
+     *         is notified
+     */
+    @IntRange(from = 0)
+    public int getTransferProgressMaxRate() {
+        return mTransferProgressMaxRate;
+    }
+
     /**
      * Sets the application key.
      *
@@ -968,6 +1129,18 @@ public final class GroundSdkConfig {
         mVideoDecodingEnabled = enable;
     }
 
+    /**
+     * Enables batched delivery of received device commands.
+     * <p>
+     * If enabled, commands received from a device are delivered in batches, once per main loop turn.
+     *
+     * @param enable {@code true} to enable command batching, {@code false} to disable it.
+     */
+    public void enableCommandBatching(boolean enable) {
+        checkLocked();
+        mCommandBatchingEnabled = enable;
+    }
+
     /**
      * Configures whether auto-connection should be started automatically when the first session starts.
      *
@@ -149,6 +149,8 @@ public class GroundSdkCore {
     protected GroundSdkCore(@NonNull Application application) {
         mContext = application;
         GroundSdkConfig.lock(mContext);
+        GroundSdkConfig config = GroundSdkConfig.get();
+        Executor.configureBackground(config.getBackgroundThreadCount(), config.getBackgroundLaneConcurrency());
         mSessionManager = new SessionManager(application, mSessionManagerListener);
         mDroneStore = new DeviceStoreCore.Drone();
         mRemoteControlStore = new DeviceStoreCore.RemoteControl();
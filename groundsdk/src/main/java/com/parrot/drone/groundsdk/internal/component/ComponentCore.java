@@ -110,13 +110,38 @@ public abstract class ComponentCore {
 
     /**
      * Notifies changes made by previously called setters.
+     * <p>
+     * In case a notification transaction is open on the store, observers are notified when it ends.
+     *
+     * @see ComponentStore#beginTransaction()
      */
-    @SuppressWarnings("unchecked") // constructor ensures that descriptor and store have same TYPE
     public final void notifyUpdated() {
+        notifyUpdated(false);
+    }
+
+    /**
+     * Notifies changes made by previously called setters immediately, even if a notification transaction is open on
+     * the store.
+     * <p>
+     * This must be used to notify transient states, that are reset right after being notified; otherwise, inside a
+     * transaction, observers would only be notified of the reset state.
+     */
+    public final void notifyUpdatedNow() {
+        notifyUpdated(true);
+    }
+
+    /**
+     * Notifies changes made by previously called setters.
+     *
+     * @param immediate {@code true} to notify observers immediately, {@code false} to defer the notification to the end
+     *                  of the store notification transaction, if any
+     */
+    @SuppressWarnings("unchecked") // constructor ensures that descriptor and store have same TYPE
+    private void notifyUpdated(boolean immediate) {
         if (mChanged) {
             mChanged = false;
             onUpdate();
-            mComponentStore.notifyUpdated((ComponentDescriptor) mDesc);
+            mComponentStore.notifyUpdated((ComponentDescriptor) mDesc, immediate);
         }
     }
 
@@ -38,12 +38,19 @@ import androidx.annotation.VisibleForTesting;
 
 import com.parrot.drone.groundsdk.internal.session.Session;
 
+import java.io.PrintWriter;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Store of components.
+ * <p>
+ * Component update notifications may be grouped using {@link #beginTransaction()} and {@link #endTransaction()}: while
+ * a transaction is open, updated components are notified to their observers only once, when the outermost transaction
+ * ends.
  *
  * @param <TYPE> component type (Instrument, PilotingItf or Peripheral)
  */
@@ -68,12 +75,78 @@ public class ComponentStore<TYPE> {
     @NonNull
     private final HashMap<Class<? extends TYPE>, List<Observer>> mComponentObservers;
 
+    /** Descriptors of components updated during the current transaction, in update order. */
+    @NonNull
+    private final ArrayList<ComponentDescriptor<TYPE, ?>> mPendingUpdates;
+
+    /** Descriptors of components updated during the current transaction, for fast lookup. */
+    @NonNull
+    private final HashSet<ComponentDescriptor<TYPE, ?>> mPendingDescriptors;
+
+    /** Current transaction nesting depth, {@code 0} when no transaction is open. */
+    private int mTransactionDepth;
+
+    /** Count of component update notifications dispatched to observers. */
+    private long mNotificationCount;
+
+    /** Count of component update notifications collapsed into a pending notification during a transaction. */
+    private long mCollapsedNotificationCount;
+
     /**
      * Constructor.
      */
     public ComponentStore() {
         mComponents = new HashMap<>();
         mComponentObservers = new HashMap<>();
+        mPendingUpdates = new ArrayList<>();
+        mPendingDescriptors = new HashSet<>();
+    }
+
+    /**
+     * Opens a notification transaction.
+     * <p>
+     * Until the matching call to {@link #endTransaction()}, component updates are not notified immediately; instead,
+     * each updated component is notified once when the outermost transaction ends. <br>
+     * Transactions may be nested; each call to this method <strong>MUST</strong> be balanced by a call to
+     * {@link #endTransaction()}.
+     * <p>
+     * Components addition and removal are always notified immediately, as well as updates notified using
+     * {@link ComponentCore#notifyUpdatedNow()}.
+     */
+    public void beginTransaction() {
+        mTransactionDepth++;
+    }
+
+    /**
+     * Closes a notification transaction.
+     * <p>
+     * When the outermost transaction is closed, observers of all components updated during the transaction get
+     * notified, in the order the components were first updated.
+     *
+     * @throws IllegalStateException in case no transaction is open
+     */
+    public void endTransaction() {
+        if (mTransactionDepth == 0) {
+            throw new IllegalStateException("No open transaction");
+        }
+        if (--mTransactionDepth == 0) {
+            mPendingDescriptors.clear();
+            // observers reacting to a notification may update other components; since the transaction is closed,
+            // those updates are notified immediately and do not alter the pending list
+            for (int i = 0; i < mPendingUpdates.size(); i++) {
+                notifyUpdated(mPendingUpdates.get(i));
+            }
+            mPendingUpdates.clear();
+        }
+    }
+
+    /**
+     * Gets the count of component update notifications that were collapsed by transactions.
+     *
+     * @return count of collapsed notifications
+     */
+    public long getCollapsedNotificationCount() {
+        return mCollapsedNotificationCount;
     }
 
     /**
@@ -129,7 +202,27 @@ public class ComponentStore<TYPE> {
      * @param descriptor descriptor or the component to notify changes
      */
     void notifyUpdated(@NonNull ComponentDescriptor<TYPE, ?> descriptor) {
-        if (mComponents.containsKey(descriptor.getApiClass())) {
+        notifyUpdated(descriptor, false);
+    }
+
+    /**
+     * Notify all observers that an existing component has been updated.
+     * <p>
+     * This method notify all direct observers, and all observers of the parents components.
+     *
+     * @param descriptor descriptor or the component to notify changes
+     * @param immediate  {@code true} to notify observers immediately even if a transaction is open, {@code false} to
+     *                   defer the notification to the end of the open transaction, if any
+     */
+    void notifyUpdated(@NonNull ComponentDescriptor<TYPE, ?> descriptor, boolean immediate) {
+        if (mTransactionDepth > 0 && !immediate) {
+            if (mPendingDescriptors.add(descriptor)) {
+                mPendingUpdates.add(descriptor);
+            } else {
+                mCollapsedNotificationCount++;
+            }
+        } else if (mComponents.containsKey(descriptor.getApiClass())) {
+            mNotificationCount++;
             notifyChanged(descriptor);
         }
     }
@@ -189,6 +282,8 @@ public class ComponentStore<TYPE> {
      * Destroy the store.
      */
     public void destroy() {
+        mPendingUpdates.clear();
+        mPendingDescriptors.clear();
         mComponents.clear();
         for (List<Observer> observers : mComponentObservers.values()) {
             for (Observer observer : observers) {
@@ -198,6 +293,19 @@ public class ComponentStore<TYPE> {
         mComponentObservers.clear();
     }
 
+    /**
+     * Debug dump.
+     *
+     * @param writer writer to dump to
+     * @param name   name of the store
+     * @param prefix prefix string (usually indent) to prepend to each written dump line
+     */
+    public void dump(@NonNull PrintWriter writer, @NonNull String name, @NonNull String prefix) {
+        writer.write(prefix + name + ": " + mComponents.size() + " components [notifications: " + mNotificationCount
+                     + ", collapsed: " + mCollapsedNotificationCount + ", transaction depth: " + mTransactionDepth
+                     + "]\n");
+    }
+
     /**
      * Checks if at least one observer is registered for a component and its parents.
      *
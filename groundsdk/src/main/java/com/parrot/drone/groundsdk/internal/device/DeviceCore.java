@@ -222,6 +222,31 @@ public class DeviceCore {
         return mPeripherals;
     }
 
+    /**
+     * Opens a notification transaction on all component stores of the device.
+     * <p>
+     * Until the matching call to {@link #endComponentTransaction()}, each updated component of the device is notified
+     * only once, when the transaction ends.
+     *
+     * @see ComponentStore#beginTransaction()
+     */
+    @CallSuper
+    public void beginComponentTransaction() {
+        mInstruments.beginTransaction();
+        mPeripherals.beginTransaction();
+    }
+
+    /**
+     * Closes a notification transaction on all component stores of the device.
+     *
+     * @see ComponentStore#endTransaction()
+     */
+    @CallSuper
+    public void endComponentTransaction() {
+        mInstruments.endTransaction();
+        mPeripherals.endTransaction();
+    }
+
     /**
      * Forgets the device.
      * <p>
@@ -374,5 +399,18 @@ public class DeviceCore {
         writer.write(prefix + "\tModel: " + mModel + "\n");
         writer.write(prefix + "\tName: " + mName.get() + "\n");
         mState.get().dump(writer, prefix + "\t");
+        dumpComponentStores(writer, prefix + "\t");
+    }
+
+    /**
+     * Debug dump of the device component stores.
+     *
+     * @param writer writer to dump to
+     * @param prefix prefix string (usually indent) to prepend to each written dump line
+     */
+    @CallSuper
+    void dumpComponentStores(@NonNull PrintWriter writer, @NonNull String prefix) {
+        mInstruments.dump(writer, "Instruments", prefix);
+        mPeripherals.dump(writer, "Peripherals", prefix);
     }
 }
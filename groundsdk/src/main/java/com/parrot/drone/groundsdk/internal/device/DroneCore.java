@@ -38,6 +38,8 @@ import com.parrot.drone.groundsdk.device.Drone;
 import com.parrot.drone.groundsdk.device.pilotingitf.PilotingItf;
 import com.parrot.drone.groundsdk.internal.component.ComponentStore;
 
+import java.io.PrintWriter;
+
 /**
  * Data class internally representing a drone.
  * <p>
@@ -82,9 +84,27 @@ public class DroneCore extends DeviceCore {
         return mPilotingItfs;
     }
 
+    @Override
+    public void beginComponentTransaction() {
+        super.beginComponentTransaction();
+        mPilotingItfs.beginTransaction();
+    }
+
+    @Override
+    public void endComponentTransaction() {
+        super.endComponentTransaction();
+        mPilotingItfs.endTransaction();
+    }
+
     @Override
     void destroy() {
         super.destroy();
         mPilotingItfs.destroy();
     }
+
+    @Override
+    void dumpComponentStores(@NonNull PrintWriter writer, @NonNull String prefix) {
+        super.dumpComponentStores(writer, prefix);
+        mPilotingItfs.dump(writer, "Piloting interfaces", prefix);
+    }
 }
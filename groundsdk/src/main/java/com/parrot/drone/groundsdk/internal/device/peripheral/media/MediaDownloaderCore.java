@@ -39,19 +39,36 @@ import androidx.annotation.Nullable;
 import com.parrot.drone.groundsdk.device.peripheral.media.MediaDownloader;
 import com.parrot.drone.groundsdk.device.peripheral.media.MediaItem;
 import com.parrot.drone.groundsdk.device.peripheral.media.MediaTaskStatus;
+import com.parrot.drone.groundsdk.internal.GroundSdkConfig;
+import com.parrot.drone.groundsdk.internal.tasks.Executor;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Implementation of the MediaDownloader task.
+ * <p>
+ * Up to {@link GroundSdkConfig#getMediaDownloadConcurrency()} resources are downloaded concurrently. The earliest
+ * started download that is still running is reported as the current media, resource and file progress.
  */
 class MediaDownloaderCore implements MediaDownloader {
 
+    /** Maximum amount of attempts to download a resource before giving up and proceeding to the next one. */
+    private static final int MAX_DOWNLOAD_ATTEMPTS = 4;
+
+    /**
+     * Delay before retrying a failed resource download, in milliseconds. Multiplied by the amount of failed attempts
+     * so far.
+     */
+    private static final long RETRY_DELAY = TimeUnit.SECONDS.toMillis(2);
+
     /**
      * Allows to observe the downloader task changes.
      */
@@ -69,9 +86,17 @@ class MediaDownloaderCore implements MediaDownloader {
     @NonNull
     private final MediaStoreCore mStore;
 
-    /** Rest of entries to be downloaded. Also contains the current entry being downloaded. */
+    /** Entries that remain to be downloaded, in download order. */
+    @NonNull
+    private final List<DownloadEntry> mPendingEntries;
+
+    /** Entries being currently downloaded, in start order. */
     @NonNull
-    private final Queue<DownloadEntry> mPendingEntries;
+    private final List<DownloadEntry> mActiveEntries;
+
+    /** Media for which at least one resource download has been started. */
+    @NonNull
+    private final Set<MediaItemCore> mStartedMedia;
 
     /** Observer notified when the status or progress changes. */
     @NonNull
@@ -81,6 +106,9 @@ class MediaDownloaderCore implements MediaDownloader {
     @NonNull
     private final MediaDestinationCore mDest;
 
+    /** Maximum amount of entries downloaded concurrently. */
+    private final int mConcurrency;
+
     /** Total amount of media containing resources that the task will download. */
     private final int mMediaCount;
 
@@ -100,6 +128,9 @@ class MediaDownloaderCore implements MediaDownloader {
     /** Completion percentage for the resource file being currently downloaded. */
     private int mCurrentFileProgress;
 
+    /** Throughput of the resource file being currently downloaded, in bytes per second. */
+    private long mCurrentFileThroughput;
+
     /** Completion percentage for the whole task. */
     private int mCurrentOverallProgress;
 
@@ -121,10 +152,6 @@ class MediaDownloaderCore implements MediaDownloader {
     @Nullable
     private MediaItem.Resource mCurrentResource;
 
-    /** Current download request being processed. */
-    @Nullable
-    private MediaRequest mCurrentRequest;
-
     /** Has pending changes waiting for {@link #notifyUpdated()} call. */
     private boolean mChanged;
 
@@ -142,17 +169,25 @@ class MediaDownloaderCore implements MediaDownloader {
         mStore = store;
         mObserver = observer;
         mPendingEntries = new LinkedList<>();
+        mActiveEntries = new ArrayList<>();
+        mStartedMedia = new HashSet<>();
+
+        GroundSdkConfig config = GroundSdkConfig.get();
+        mConcurrency = config.getMediaDownloadConcurrency();
 
         Map<MediaItemCore, Set<MediaResourceCore>> resourcesByMedia = MediaResourceCore.unwrapAsMap(resources);
 
         long totalSize = 0;
-        for (Map.Entry<MediaItemCore, Set<MediaResourceCore>> entry : resourcesByMedia.entrySet()) {
-            int index = 0;
-            for (MediaResourceCore resource : entry.getValue()) {
-                mPendingEntries.add(new DownloadEntry(resource, index++ == 0));
+        for (Set<MediaResourceCore> mediaResources : resourcesByMedia.values()) {
+            for (MediaResourceCore resource : mediaResources) {
+                mPendingEntries.add(new DownloadEntry(resource));
                 totalSize += resource.getSize();
             }
         }
+        if (config.isMediaDownloadSmallestFirst()) {
+            // stable sort: resources of equal size keep the requested order
+            mPendingEntries.sort((lhs, rhs) -> Long.compare(lhs.mResource.getSize(), rhs.mResource.getSize()));
+        }
 
         mMediaCount = resourcesByMedia.size();
         mResourceCount = mPendingEntries.size();
@@ -196,6 +231,11 @@ class MediaDownloaderCore implements MediaDownloader {
         return mCurrentFileProgress;
     }
 
+    @Override
+    public long getCurrentFileThroughput() {
+        return mCurrentFileThroughput;
+    }
+
     @Override
     public File getDownloadedFile() {
         return mDownloadedFile;
@@ -217,123 +257,235 @@ class MediaDownloaderCore implements MediaDownloader {
      * Executes the download task.
      */
     void execute() {
-        downloadNextEntry();
+        startEntries();
+        notifyUpdated();
     }
 
     /**
      * Cancels the whole download operation.
      */
     void cancel() {
-        if (mCurrentRequest != null) {
-            mCurrentRequest.cancel();
-            mCurrentRequest = null;
-        }
         mPendingEntries.clear();
+        cancelActiveEntries();
     }
 
     /**
      * A download entry to be processed.
      * <p>
-     * Contains the media item to operate on, the resource to be downloaded for that item, and whether the entry
-     * corresponds to the last resource to be downloaded for the media item.
+     * Contains the resource to be downloaded and the state of its download. Also receives its download request
+     * callbacks.
      */
-    private static final class DownloadEntry {
-
-        /** {@code true} when the entry contains the first resource to be downloaded for the corresponding media. */
-        final boolean mFirstInMedia;
+    private final class DownloadEntry implements MediaRequest.ProgressResultCallback<File> {
 
         /** The resource to be downloaded. */
         @NonNull
         final MediaResourceCore mResource;
 
+        /** Retries downloading the resource, scheduled after a failed attempt. */
+        final Runnable mRetry = this::download;
+
+        /** Current download request, {@code null} when not downloading. */
+        @Nullable
+        MediaRequest mRequest;
+
+        /**
+         * {@code true} while a download attempt is running, from before the backend is called until the backend
+         * reports its completion or the download is canceled. Backend callbacks are ignored otherwise.
+         */
+        boolean mRunning;
+
+        /** Completion percentage for the resource download. */
+        int mProgress;
+
+        /** Throughput of the resource download, in bytes per second. */
+        long mThroughput;
+
+        /** Amount of failed attempts to download the resource. */
+        int mFailedAttempts;
+
         /**
          * Constructor.
          *
-         * @param resource     resource to be downloaded
-         * @param firstInMedia whether the entry contains the first resource to be downloaded for the media
+         * @param resource resource to be downloaded
          */
-        DownloadEntry(@NonNull MediaResourceCore resource, boolean firstInMedia) {
+        DownloadEntry(@NonNull MediaResourceCore resource) {
             mResource = resource;
-            mFirstInMedia = firstInMedia;
         }
-    }
 
-    /**
-     * Processes the next entry in the pending download list.
-     */
-    private void downloadNextEntry() {
-        DownloadEntry entry = mPendingEntries.peek(); // only peek to release the media once the request completes
-        if (entry == null) {
-            updateStatus(MediaTaskStatus.COMPLETE);
-            updateCurrentMedia(null);
-            updateCurrentResource(null);
-        } else {
+        /**
+         * Starts downloading the resource.
+         * <p>
+         * After a failed attempt, the backend resumes the download from where that attempt stopped, when possible.
+         * <p>
+         * The backend may complete the request synchronously, before returning it.
+         */
+        void download() {
             String path = mDest.ensurePath();
             if (path == null) {
-                mPendingEntries.clear();
-                updateStatus(MediaTaskStatus.ERROR);
+                abort();
             } else {
-                mCurrentFileProgress = 0;
-                mResourceIndex++;
-                if (entry.mFirstInMedia) {
-                    mMediaIndex++;
+                mRunning = true;
+                MediaRequest request = mStore.mBackend.download(mResource, path, this);
+                // otherwise the request already completed synchronously
+                mRequest = mRunning ? request : null;
+            }
+        }
+
+        /**
+         * Cancels the resource download, including any scheduled retry.
+         */
+        void cancel() {
+            mRunning = false;
+            Executor.unschedule(mRetry);
+            if (mRequest != null) {
+                MediaRequest request = mRequest;
+                mRequest = null;
+                request.cancel();
+            }
+        }
+
+        @Override
+        public void onRequestProgress(@IntRange(from = 0, to = 100) int progress) {
+            if (mRunning) { // otherwise the download is canceled
+                mProgress = progress;
+                updateProgress();
+                notifyUpdated();
+            }
+        }
+
+        @Override
+        public void onRequestThroughput(@NonNull long[] throughputs) {
+            if (mRunning) { // otherwise the download is canceled
+                long throughput = 0;
+                for (long connectionThroughput : throughputs) {
+                    throughput += connectionThroughput;
                 }
-                updateStatus(MediaTaskStatus.RUNNING);
-                updateCurrentMedia(entry.mResource.getMedia());
-                updateCurrentResource(entry.mResource);
-                mChanged = true;
-                mCurrentRequest = mStore.mBackend.download(entry.mResource, path, mRequestCallback);
+                mThroughput = throughput;
+                updateProgress();
+                notifyUpdated();
+            }
+        }
+
+        @Override
+        public void onRequestComplete(@NonNull MediaRequest.Status status, @Nullable File result) {
+            if (!mRunning) { // download canceled
+                return;
+            }
+            mRunning = false;
+            mRequest = null;
+            if (status == MediaRequest.Status.CANCELED || status == MediaRequest.Status.ABORTED) {
+                abort();
+            } else if (status == MediaRequest.Status.FAILED && ++mFailedAttempts < MAX_DOWNLOAD_ATTEMPTS) {
+                Executor.schedule(mRetry, RETRY_DELAY * mFailedAttempts);
+            } else {
+                if (result != null) {
+                    // let the next downloads proceed while the platform is notified of the new file
+                    Executor.runInBackground(() -> {
+                        mDest.notifyFileAdded(result);
+                        return null;
+                    }, Executor.Lane.PERSISTENCE);
+                }
+                mActiveEntries.remove(this);
+                mCurrentDownloadedSize += mResource.getSize();
+                if (status == MediaRequest.Status.SUCCESS) {
+                    mCurrentFileProgress = 100;
+                    mCurrentOverallProgress = computeOverallProgress();
+                    updateDownloadedFile(result);
+                    updateStatus(MediaTaskStatus.FILE_PROCESSED);
+                    mChanged = true;
+                    notifyUpdated();
+                }
+                startEntries();
+                notifyUpdated();
+            }
+        }
+    }
+
+    /**
+     * Starts downloading pending entries until the maximum amount of concurrent downloads is reached.
+     * <p>
+     * Completes the task when no entry remains to be downloaded.
+     */
+    private void startEntries() {
+        while (mActiveEntries.size() < mConcurrency && !mPendingEntries.isEmpty()) {
+            DownloadEntry entry = mPendingEntries.remove(0);
+            mActiveEntries.add(entry);
+            mResourceIndex++;
+            if (mStartedMedia.add(entry.mResource.getMedia())) {
+                mMediaIndex++;
+            }
+            mChanged = true;
+            entry.download();
+            if (mStatus == MediaTaskStatus.ERROR) {
+                return;
             }
         }
+        if (mActiveEntries.isEmpty()) {
+            updateStatus(MediaTaskStatus.COMPLETE);
+        } else {
+            updateStatus(MediaTaskStatus.RUNNING);
+        }
         updateDownloadedFile(null);
+        updateProgress();
+    }
+
+    /**
+     * Aborts the whole task, after an entry failed to be downloaded.
+     */
+    private void abort() {
+        mPendingEntries.clear();
+        cancelActiveEntries();
+        updateCurrentMedia(null);
+        updateCurrentResource(null);
+        updateStatus(MediaTaskStatus.ERROR);
         notifyUpdated();
     }
 
-    /** Called back upon current request progress and completion. */
-    private final MediaRequest.ProgressResultCallback<File> mRequestCallback =
-            new MediaRequest.ProgressResultCallback<File>() {
-
-                @Override
-                public void onRequestProgress(@IntRange(from = 0, to = 100) int progress) {
-                    if (mCurrentRequest != null) { // otherwise the task is canceled or not running yet
-                        DownloadEntry entry = mPendingEntries.peek();
-                        assert entry != null;
-                        mCurrentFileProgress = progress;
-                        mCurrentOverallProgress = (int) ((mCurrentDownloadedSize * 100
-                                                          + entry.mResource.getSize() * progress) / mTotalSize);
-                        mChanged = true;
-                        notifyUpdated();
-                    }
-                }
+    /**
+     * Cancels all entries being currently downloaded.
+     */
+    private void cancelActiveEntries() {
+        for (int i = 0, N = mActiveEntries.size(); i < N; i++) {
+            mActiveEntries.get(i).cancel();
+        }
+        mActiveEntries.clear();
+    }
 
-                @Override
-                public void onRequestComplete(@NonNull MediaRequest.Status status, @Nullable File result) {
-                    mCurrentRequest = null;
-                    if (status == MediaRequest.Status.CANCELED || status == MediaRequest.Status.ABORTED) {
-                        mPendingEntries.clear();
-                        updateCurrentMedia(null);
-                        updateCurrentResource(null);
-                        updateStatus(MediaTaskStatus.ERROR);
-                        notifyUpdated();
-                    } else {
-                        if (result != null) {
-                            mDest.notifyFileAdded(result);
-                        }
-                        DownloadEntry entry = mPendingEntries.remove();
-                        mCurrentDownloadedSize += entry.mResource.getSize();
-                        mCurrentFileProgress = 100;
-                        mCurrentOverallProgress = (int) ((mCurrentDownloadedSize * 100) / mTotalSize);
-                        if (status == MediaRequest.Status.SUCCESS) {
-                            updateDownloadedFile(result);
-                            updateStatus(MediaTaskStatus.FILE_PROCESSED);
-                            notifyUpdated();
-                        }
-                        mChanged = true;
-                        downloadNextEntry();
-                    }
+    /**
+     * Updates current media, resource, file progress and overall progress from the entries being downloaded.
+     */
+    private void updateProgress() {
+        DownloadEntry current = mActiveEntries.isEmpty() ? null : mActiveEntries.get(0);
+        updateCurrentMedia(current == null ? null : current.mResource.getMedia());
+        updateCurrentResource(current == null ? null : current.mResource);
+        int fileProgress = current == null ? mCurrentFileProgress : current.mProgress;
+        long throughput = current == null ? 0 : current.mThroughput;
+        int overallProgress = computeOverallProgress();
+        if (mCurrentFileProgress != fileProgress || mCurrentFileThroughput != throughput
+            || mCurrentOverallProgress != overallProgress) {
+            mCurrentFileProgress = fileProgress;
+            mCurrentFileThroughput = throughput;
+            mCurrentOverallProgress = overallProgress;
+            mChanged = true;
+        }
+    }
 
-                }
-            };
+    /**
+     * Computes the completion percentage for the whole task.
+     *
+     * @return overall progress percentage
+     */
+    private int computeOverallProgress() {
+        if (mTotalSize == 0) {
+            return mActiveEntries.isEmpty() && mPendingEntries.isEmpty() ? 100 : 0;
+        }
+        long progress = mCurrentDownloadedSize * 100;
+        for (int i = 0, N = mActiveEntries.size(); i < N; i++) {
+            DownloadEntry entry = mActiveEntries.get(i);
+            progress += entry.mResource.getSize() * entry.mProgress;
+        }
+        return (int) (progress / mTotalSize);
+    }
 
     /**
      * Updates the current status.
@@ -54,6 +54,12 @@ final class MediaListRef extends Session.RefBase<List<MediaItem>> {
     @Nullable
     private MediaRequest mRequest;
 
+    /**
+     * {@code true} once a complete media list has been received. Partial lists are only forwarded before that, so
+     * that a refreshed list never appears truncated while it is being received.
+     */
+    private boolean mListComplete;
+
     /**
      * Constructor.
      *
@@ -87,11 +93,25 @@ final class MediaListRef extends Session.RefBase<List<MediaItem>> {
         if (mRequest != null) {
             mRequest.cancel();
         }
-        mRequest = mStore.mBackend.browse((status, list) -> {
-            if (status != MediaRequest.Status.CANCELED) {
-                update(list == null ? Collections.emptyList() : Collections.unmodifiableList(list));
-            }
-        });
+        mRequest = mStore.mBackend.browseProgressively(
+                new MediaRequest.PartialResultCallback<List<? extends MediaItemCore>>() {
+
+                    @Override
+                    public void onRequestPartialResult(@NonNull List<? extends MediaItemCore> list) {
+                        if (!mListComplete) {
+                            update(Collections.unmodifiableList(list));
+                        }
+                    }
+
+                    @Override
+                    public void onRequestComplete(@NonNull MediaRequest.Status status,
+                                                  @Nullable List<? extends MediaItemCore> list) {
+                        if (status != MediaRequest.Status.CANCELED) {
+                            mListComplete = true;
+                            update(list == null ? Collections.emptyList() : Collections.unmodifiableList(list));
+                        }
+                    }
+                });
     }
 
     /** Notified when the media store changes, triggers a new list request. */
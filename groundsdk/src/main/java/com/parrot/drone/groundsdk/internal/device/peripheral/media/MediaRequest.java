@@ -88,6 +88,20 @@ public interface MediaRequest {
         void onRequestComplete(@NonNull Status status, @Nullable T result);
     }
 
+    /**
+     * Allows to be notified of partial results before request completion, and of request completion with an optional
+     * result.
+     */
+    interface PartialResultCallback<T> extends ResultCallback<T> {
+
+        /**
+         * Called back when a partial result is available, before the request completes.
+         *
+         * @param result partial request result
+         */
+        void onRequestPartialResult(@NonNull T result);
+    }
+
     /**
      * Allows to be notified regularly of request progress.
      */
@@ -99,6 +113,18 @@ public interface MediaRequest {
          * @param progress current request progress
          */
         void onRequestProgress(@IntRange(from = 0, to = 100) int progress);
+
+        /**
+         * Called back periodically with the measured transfer throughput of the request.
+         * <p>
+         * Requests that transfer data over several concurrent connections report the throughput of each connection.
+         * <p>
+         * Default implementation does nothing.
+         *
+         * @param throughputs throughput of each connection, in bytes per second
+         */
+        default void onRequestThroughput(@NonNull long[] throughputs) {
+        }
     }
 
     /**
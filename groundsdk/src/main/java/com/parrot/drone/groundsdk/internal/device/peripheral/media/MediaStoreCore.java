@@ -77,6 +77,24 @@ public final class MediaStoreCore extends ComponentCore {
         @Nullable
         MediaRequest browse(@NonNull MediaRequest.ResultCallback<List<? extends MediaItemCore>> callback);
 
+        /**
+         * Requests a list of the available media in the store, notifying partial lists while the full list is being
+         * retrieved.
+         * <p>
+         * Each partial list contains all the media received so far. Other than that, this method behaves as
+         * {@link #browse(MediaRequest.ResultCallback)}. <br>
+         * Default implementation does not notify any partial list.
+         *
+         * @param callback callback notified of partial lists and when the full list is available.
+         *
+         * @return a request that can be canceled, or {@code null} if the request was processed directly
+         */
+        @Nullable
+        default MediaRequest browseProgressively(
+                @NonNull MediaRequest.PartialResultCallback<List<? extends MediaItemCore>> callback) {
+            return browse(callback);
+        }
+
         /**
          * Requests download of a media resource.
          * <p>
@@ -84,6 +102,8 @@ public final class MediaStoreCore extends ComponentCore {
          * In case the callback is invoked directly by this method, then this method returns {@code null}. Otherwise
          * this method returns a {@code MediaRequest} object, which can be used to cancel the request, and means that
          * the callback will be invoked at a later time.
+         * <p>
+         * Backends may resume a previously failed or canceled download of the same resource to the same directory.
          *
          * @param resource media resource to download
          * @param destDir  directory where the resource will be downloaded
@@ -188,11 +208,40 @@ public final class MediaStoreCore extends ComponentCore {
      * @param backend         backend used to forward actions to the engine
      */
     public MediaStoreCore(@NonNull ComponentStore<Peripheral> peripheralStore, @NonNull Backend backend) {
+        this(peripheralStore, backend, null, "");
+    }
+
+    /**
+     * Constructor.
+     * <p>
+     * Thumbnails fetched through this store are also cached on disk, if the disk cache is enabled by configuration.
+     *
+     * @param peripheralStore store where this peripheral belongs
+     * @param backend         backend used to forward actions to the engine
+     * @param deviceUid       uid of the device providing the media, used to key thumbnails in the disk cache
+     */
+    public MediaStoreCore(@NonNull ComponentStore<Peripheral> peripheralStore, @NonNull Backend backend,
+                          @NonNull String deviceUid) {
+        this(peripheralStore, backend, MediaThumbnailDiskCache.get(), deviceUid);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param peripheralStore store where this peripheral belongs
+     * @param backend         backend used to forward actions to the engine
+     * @param diskCache       disk cache where thumbnails are also cached, {@code null} to disable disk caching
+     * @param deviceUid       uid of the device providing the media, used to key thumbnails in the disk cache
+     */
+    private MediaStoreCore(@NonNull ComponentStore<Peripheral> peripheralStore, @NonNull Backend backend,
+                           @Nullable MediaThumbnailDiskCache diskCache, @NonNull String deviceUid) {
         super(DESC, peripheralStore);
         mBackend = backend;
         mObservers = new CopyOnWriteArrayList<>();
         mIndexingState = MediaStore.IndexingState.UNAVAILABLE;
-        mMediaThumbnailCache = new MediaThumbnailCache(mBackend, GroundSdkConfig.get().getThumbnailCacheSize());
+        GroundSdkConfig config = GroundSdkConfig.get();
+        mMediaThumbnailCache = new MediaThumbnailCache(mBackend, config.getThumbnailCacheSize(),
+                config.getThumbnailFetchWindow(), diskCache, deviceUid);
     }
 
     @Override
@@ -45,6 +45,7 @@ import com.parrot.drone.groundsdk.device.peripheral.media.MediaItem;
 import com.parrot.drone.groundsdk.device.peripheral.media.MediaStoreWiper;
 import com.parrot.drone.groundsdk.internal.session.Session;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
@@ -118,6 +119,15 @@ class MediaStoreProxy implements MediaStore {
                 ThumbnailProvider.wrap(MediaResourceCore.unwrap(resource)));
     }
 
+    @Override
+    public void prefetchThumbnailsOf(@NonNull List<MediaItem> medias) {
+        List<ThumbnailProvider> providers = new ArrayList<>(medias.size());
+        for (int i = 0, N = medias.size(); i < N; i++) {
+            providers.add(ThumbnailProvider.wrap(MediaItemCore.unwrap(medias.get(i))));
+        }
+        mStore.mMediaThumbnailCache.prefetch(providers);
+    }
+
     @NonNull
     @Override
     public Ref<MediaDeleter> delete(@NonNull Collection<MediaItem.Resource> resources,
@@ -37,6 +37,12 @@ import android.graphics.Bitmap;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.parrot.drone.groundsdk.internal.tasks.Executor;
+import com.parrot.drone.groundsdk.internal.tasks.Task;
+import com.parrot.drone.sdkcore.ulog.ULog;
+
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
@@ -44,8 +50,18 @@ import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.CopyOnWriteArrayList;
 
+import static com.parrot.drone.groundsdk.internal.Logging.TAG_INTERNAL;
+
 /**
  * An LRU cache of media thumbnails.
+ * <p>
+ * Thumbnail bitmaps are kept in memory, up to a configured amount of bytes. When a disk cache is provided, it acts
+ * as a second tier: it is consulted before fetching a thumbnail from the backend, and the compressed data of
+ * thumbnails fetched from the backend is stored to it as is.
+ * <p>
+ * Up to a configured amount of thumbnails are fetched concurrently. Most recently requested thumbnails are fetched
+ * first, and fetches that nobody is interested in anymore are canceled, so that thumbnails currently displayed by
+ * the application are obtained as soon as possible.
  */
 final class MediaThumbnailCache {
 
@@ -86,17 +102,17 @@ final class MediaThumbnailCache {
          * this method returns a {@code MediaRequest} object, which can be used to cancel the request, and means that
          * the callback will be invoked at a later time.
          * <p>
-         * Note that even in case of {@link MediaRequest.Status#SUCCESS}, the provided bitmap may be {@code null},
+         * Note that even in case of {@link MediaRequest.Status#SUCCESS}, the provided data may be {@code null},
          * which means that it is known that this media does not provide a thumbnail.
          *
          * @param media    media providing the thumbnail
-         * @param callback callback notified of request result
+         * @param callback callback notified of request result, with the thumbnail compressed image data
          *
          * @return a request that can be canceled, or {@code null} if the request was processed directly
          */
         @Nullable
         MediaRequest fetchThumbnail(@NonNull MediaItemCore media,
-                                    @NonNull MediaRequest.ResultCallback<Bitmap> callback);
+                                    @NonNull MediaRequest.ResultCallback<byte[]> callback);
 
         /**
          * Requests a media resource thumbnail
@@ -106,17 +122,17 @@ final class MediaThumbnailCache {
          * this method returns a {@code MediaRequest} object, which can be used to cancel the request, and means that
          * the callback will be invoked at a later time.
          * <p>
-         * Note that even in case of {@link MediaRequest.Status#SUCCESS}, the provided bitmap may be {@code null},
+         * Note that even in case of {@link MediaRequest.Status#SUCCESS}, the provided data may be {@code null},
          * which means that it is known that this media does not provide a thumbnail.
          *
          * @param resource resource providing the thumbnail
-         * @param callback callback notified of request result
+         * @param callback callback notified of request result, with the thumbnail compressed image data
          *
          * @return a request that can be canceled, or {@code null} if the request was processed directly
          */
         @Nullable
         MediaRequest fetchThumbnail(@NonNull MediaResourceCore resource,
-                                    @NonNull MediaRequest.ResultCallback<Bitmap> callback);
+                                    @NonNull MediaRequest.ResultCallback<byte[]> callback);
     }
 
     /** Cache entries, by corresponding media item. */
@@ -127,9 +143,27 @@ final class MediaThumbnailCache {
     @NonNull
     private final Backend mBackend;
 
-    /** Rest of media requests to be processed. Does not contain the item being currently processed. */
+    /** Disk cache tier, {@code null} if disabled. */
+    @Nullable
+    private final MediaThumbnailDiskCache mDiskCache;
+
+    /** Uid of the device providing thumbnails, used to key thumbnails in the disk cache. */
+    @NonNull
+    private final String mDeviceUid;
+
+    /**
+     * Rest of media requests to be processed, most recently requested first. Does not contain items being currently
+     * processed.
+     */
+    @NonNull
+    private final Deque<ThumbnailProvider> mPendingRequests;
+
+    /**
+     * Prefetch requests, processed only once there are no more pending requests. Does not contain items being
+     * currently processed.
+     */
     @NonNull
-    private final Queue<ThumbnailProvider> mPendingRequests;
+    private final Queue<ThumbnailProvider> mPrefetchRequests;
 
     /**
      * Maximum size of the cache, in bytes. If the cache grows above this limit, eldest cache entries that contains
@@ -140,21 +174,33 @@ final class MediaThumbnailCache {
     /** Current size of the cache. This is the sum of the size of the bitmap in each completed cache entry. */
     private long mCacheSize;
 
-    /** Current thumbnail request being processed. */
-    @Nullable
-    private MediaRequest mCurrentRequest;
+    /** Maximum amount of thumbnail requests processed concurrently. */
+    private final int mFetchWindow;
+
+    /** Thumbnail requests being currently processed, by media or resource providing the thumbnail. */
+    @NonNull
+    private final LinkedHashMap<ThumbnailProvider, Fetch> mInFlight;
 
     /**
      * Constructor.
      *
-     * @param backend   backend allowing to fetch thumbnails
-     * @param cacheSize maximum cache size, in bytes
+     * @param backend     backend allowing to fetch thumbnails
+     * @param cacheSize   maximum cache size, in bytes
+     * @param fetchWindow maximum amount of thumbnails fetched concurrently
+     * @param diskCache   disk cache tier, {@code null} to disable disk caching
+     * @param deviceUid   uid of the device providing thumbnails
      */
-    MediaThumbnailCache(@NonNull Backend backend, long cacheSize) {
+    MediaThumbnailCache(@NonNull Backend backend, long cacheSize, int fetchWindow,
+                        @Nullable MediaThumbnailDiskCache diskCache, @NonNull String deviceUid) {
         mBackend = backend;
         mCache = new LinkedHashMap<>(); // with insertion order
         mCacheMaxSize = cacheSize;
+        mFetchWindow = Math.max(1, fetchWindow);
+        mDiskCache = diskCache;
+        mDeviceUid = deviceUid;
         mPendingRequests = new LinkedList<>();
+        mPrefetchRequests = new LinkedList<>();
+        mInFlight = new LinkedHashMap<>();
     }
 
     /**
@@ -162,15 +208,17 @@ final class MediaThumbnailCache {
      */
     void clear() {
         mPendingRequests.clear();
+        mPrefetchRequests.clear();
         // complete pending entries to signal listeners that they won't get any thumbnail
         for (Entry entry : mCache.values()) {
             entry.complete(null);
         }
         mCache.clear();
         mCacheSize = 0;
-        if (mCurrentRequest != null) {
-            mCurrentRequest.cancel();
-            mCurrentRequest = null;
+        List<Fetch> fetches = new ArrayList<>(mInFlight.values());
+        mInFlight.clear();
+        for (int i = 0, N = fetches.size(); i < N; i++) {
+            fetches.get(i).cancel();
         }
     }
 
@@ -199,6 +247,35 @@ final class MediaThumbnailCache {
         return entry.addRequest(callback);
     }
 
+    /**
+     * Prefetches thumbnails into the cache.
+     * <p>
+     * Thumbnails that are not cached yet are fetched once all regular thumbnail requests have been processed, in the
+     * given order. Each call replaces the thumbnails that remain to be prefetched from a previous call.
+     *
+     * @param providers media or resources providing the thumbnails to prefetch
+     */
+    void prefetch(@NonNull List<ThumbnailProvider> providers) {
+        for (ThumbnailProvider stale : mPrefetchRequests) {
+            // nobody requested those thumbnails in the meantime, otherwise they would have been dequeued
+            mCache.remove(stale);
+        }
+        mPrefetchRequests.clear();
+        for (int i = 0, N = providers.size(); i < N; i++) {
+            ThumbnailProvider provider = providers.get(i);
+            Entry entry = mCache.remove(provider);
+            if (entry == null) {
+                entry = new Entry(provider);
+            }
+            mCache.put(provider, entry); // make it a recently accessed cache entry
+            if (entry.mCallbacks != null && entry.mCallbacks.isEmpty() && !mInFlight.containsKey(provider)
+                && !mPrefetchRequests.contains(provider)) {
+                mPrefetchRequests.add(provider);
+            }
+        }
+        processNextRequests();
+    }
+
     /**
      * An entry in the cache.
      * <p>
@@ -286,14 +363,20 @@ final class MediaThumbnailCache {
             if (mCallbacks == null) {
                 callback.onThumbnailAvailable(mThumbnail);
             } else {
-                if (mCallbacks.isEmpty() & mCallbacks.add(callback)) {
-                    mPendingRequests.add(mProvider);
-                    processNextRequest();
+                if (mCallbacks.isEmpty() & mCallbacks.add(callback) && !mInFlight.containsKey(mProvider)) {
+                    mPrefetchRequests.remove(mProvider);
+                    mPendingRequests.addFirst(mProvider);
+                    processNextRequests();
                 }
                 request = () -> {
-                    if (mCallbacks != null && mCallbacks.remove(callback) && mCallbacks.isEmpty()) {
-                        // nobody is interested anymore: remove pending request
-                        mPendingRequests.remove(mProvider);
+                    if (mCallbacks != null && mCallbacks.remove(callback) && mCallbacks.isEmpty()
+                        && !mPendingRequests.remove(mProvider)) {
+                        // nobody is interested anymore and request is not pending: cancel ongoing request, if any
+                        Fetch fetch = mInFlight.remove(mProvider);
+                        if (fetch != null) {
+                            fetch.cancel();
+                            processNextRequests();
+                        }
                     }
                 };
             }
@@ -303,25 +386,145 @@ final class MediaThumbnailCache {
     }
 
     /**
-     * Processes the next pending request, if there isn't a request being process currently.
+     * An ongoing thumbnail request.
+     * <p>
+     * Thumbnail request completion callbacks check that their own {@code Fetch} is still registered in
+     * {@link #mInFlight}, and otherwise ignore the result, since the request was canceled in the meantime.
      */
-    private void processNextRequest() {
-        if (mCurrentRequest == null && !mPendingRequests.isEmpty()) {
-            ThumbnailProvider next = mPendingRequests.remove();
-            mCurrentRequest = next.fetch(mBackend, (status, thumbnail) -> {
-                mCurrentRequest = null;
-                Entry entry = mCache.get(next);
-                if (entry != null) {
-                    entry.complete(thumbnail);
-                    if (status == MediaRequest.Status.SUCCESS) {
-                        updateCache(entry);
-                    } else {
-                        mCache.remove(next);
-                    }
+    private static final class Fetch {
+
+        /** Underlying request, {@code null} if the request completed synchronously. */
+        @Nullable
+        MediaRequest mRequest;
+
+        /**
+         * Cancels the underlying request.
+         */
+        void cancel() {
+            if (mRequest != null) {
+                mRequest.cancel();
+                mRequest = null;
+            }
+        }
+    }
+
+    /**
+     * Processes next pending requests, up to the configured amount of concurrent requests.
+     * <p>
+     * Regular requests, most recently requested first, are processed before prefetch requests. When fetching more
+     * than one thumbnail concurrently, one slot is kept available for regular requests.
+     */
+    private void processNextRequests() {
+        while (mInFlight.size() < mFetchWindow) {
+            ThumbnailProvider next = mPendingRequests.pollFirst();
+            if (next == null && mInFlight.size() < Math.max(1, mFetchWindow - 1)) {
+                next = mPrefetchRequests.poll();
+            }
+            if (next == null) {
+                return;
+            }
+            Fetch fetch = new Fetch();
+            mInFlight.put(next, fetch);
+            if (mDiskCache == null) {
+                fetchFromBackend(next, fetch);
+            } else {
+                fetchFromDisk(mDiskCache, next, fetch);
+            }
+        }
+    }
+
+    /**
+     * Loads a thumbnail from the disk cache, falling back to the backend in case it is not found there.
+     *
+     * @param diskCache disk cache to load the thumbnail from
+     * @param provider  media or resource providing the thumbnail
+     * @param fetch     ongoing request for the thumbnail
+     */
+    private void fetchFromDisk(@NonNull MediaThumbnailDiskCache diskCache, @NonNull ThumbnailProvider provider,
+                               @NonNull Fetch fetch) {
+        Task<Bitmap> task = diskCache.load(MediaThumbnailDiskCache.keyOf(mDeviceUid, provider));
+        fetch.mRequest = task::cancel;
+        task.whenComplete((thumbnail, error, canceled) -> {
+            if (mInFlight.get(provider) != fetch) {
+                return; // request was canceled meanwhile
+            }
+            if (thumbnail == null) {
+                fetchFromBackend(provider, fetch);
+            } else {
+                onRequestComplete(provider, MediaRequest.Status.SUCCESS, thumbnail);
+            }
+        });
+    }
+
+    /**
+     * Fetches a thumbnail from the backend, then decodes it.
+     *
+     * @param provider media or resource providing the thumbnail
+     * @param fetch    ongoing request for the thumbnail
+     */
+    private void fetchFromBackend(@NonNull ThumbnailProvider provider, @NonNull Fetch fetch) {
+        MediaRequest request = provider.fetch(mBackend, (status, data) -> {
+            if (mInFlight.get(provider) != fetch) {
+                return; // request was canceled meanwhile
+            }
+            if (status == MediaRequest.Status.SUCCESS && data != null) {
+                decode(provider, fetch, data);
+            } else {
+                onRequestComplete(provider, status, null);
+            }
+        });
+        if (mInFlight.get(provider) == fetch) { // otherwise, request already completed synchronously
+            fetch.mRequest = request;
+        }
+    }
+
+    /**
+     * Decodes a thumbnail fetched from the backend, storing its compressed data to the disk cache, if any, once
+     * successfully decoded.
+     *
+     * @param provider media or resource providing the thumbnail
+     * @param fetch    ongoing request for the thumbnail
+     * @param data     thumbnail compressed image data
+     */
+    private void decode(@NonNull ThumbnailProvider provider, @NonNull Fetch fetch, @NonNull byte[] data) {
+        Task<Bitmap> task = Executor.runInBackground(() -> ThumbnailDecoder.decode(data));
+        fetch.mRequest = task::cancel;
+        task.whenComplete((thumbnail, error, canceled) -> {
+            if (mInFlight.get(provider) != fetch) {
+                return; // request was canceled meanwhile
+            }
+            if (thumbnail == null) {
+                if (ULog.w(TAG_INTERNAL)) {
+                    ULog.w(TAG_INTERNAL, "Failed to decode thumbnail [provider: " + provider.getUid() + "]");
                 }
-                processNextRequest();
-            });
+            } else if (mDiskCache != null) {
+                mDiskCache.store(MediaThumbnailDiskCache.keyOf(mDeviceUid, provider), data);
+            }
+            // undecodable data is handled as if the provider had no thumbnail
+            onRequestComplete(provider, MediaRequest.Status.SUCCESS, thumbnail);
+        });
+    }
+
+    /**
+     * Completes the cache entry of a processed thumbnail request and processes next pending requests.
+     *
+     * @param provider  media or resource providing the thumbnail
+     * @param status    request completion status
+     * @param thumbnail fetched thumbnail, {@code null} if none
+     */
+    private void onRequestComplete(@NonNull ThumbnailProvider provider, @NonNull MediaRequest.Status status,
+                                   @Nullable Bitmap thumbnail) {
+        mInFlight.remove(provider);
+        Entry entry = mCache.get(provider);
+        if (entry != null) {
+            entry.complete(thumbnail);
+            if (status == MediaRequest.Status.SUCCESS) {
+                updateCache(entry);
+            } else {
+                mCache.remove(provider);
+            }
         }
+        processNextRequests();
     }
 
     /**
@@ -340,6 +543,9 @@ final class MediaThumbnailCache {
             Entry entry = iter.next();
             if (entry.isPrunable()) {
                 //release any bitmap and media. No callback will be called since the entry is prunable
+                if (entry.mCallbacks != null) {
+                    mPrefetchRequests.remove(entry.mProvider);
+                }
                 entry.complete(null);
                 iter.remove();
                 mCacheSize -= entry.size();
@@ -0,0 +1,358 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.internal.device.peripheral.media;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.parrot.drone.groundsdk.internal.ApplicationStorageProvider;
+import com.parrot.drone.groundsdk.internal.GroundSdkConfig;
+import com.parrot.drone.groundsdk.internal.tasks.Executor;
+import com.parrot.drone.groundsdk.internal.tasks.Task;
+import com.parrot.drone.sdkcore.ulog.ULog;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.parrot.drone.groundsdk.internal.Logging.TAG_INTERNAL;
+
+/**
+ * A size-bounded, LRU, on-disk cache of media thumbnails.
+ * <p>
+ * Thumbnails are stored as the compressed image data fetched from the device, one file per thumbnail, in a private
+ * application directory; they are decoded when loaded. They are keyed by device uid and media or resource uid, so
+ * that a single cache instance can be shared among all devices. When the total size of stored files exceeds the
+ * configured limit, least recently used thumbnails are deleted.
+ * <p>
+ * All disk accesses are performed on background threads; load and store requests must be issued from the main
+ * thread.
+ */
+final class MediaThumbnailDiskCache {
+
+    /** Name of the cache directory, inside the application private file cache. */
+    private static final String CACHE_DIR = "thumbnails";
+
+    /** Extension of temporary files, written before being atomically renamed to their final name. */
+    private static final String TMP_EXT = ".tmp";
+
+    /** Shared instance, {@code null} until first requested. */
+    @Nullable
+    private static MediaThumbnailDiskCache sInstance;
+
+    /**
+     * Gets the shared disk cache instance.
+     *
+     * @return the shared disk cache, or {@code null} if the disk cache is disabled by configuration
+     */
+    @Nullable
+    static MediaThumbnailDiskCache get() {
+        synchronized (MediaThumbnailDiskCache.class) {
+            if (sInstance == null) {
+                long maxSize = GroundSdkConfig.get().getThumbnailDiskCacheSize();
+                if (maxSize > 0) {
+                    sInstance = new MediaThumbnailDiskCache(new File(
+                            ApplicationStorageProvider.getInstance().getInternalAppFileCache(), CACHE_DIR), maxSize);
+                }
+            }
+            return sInstance;
+        }
+    }
+
+    /** Directory where thumbnails are stored. */
+    @NonNull
+    private final File mDir;
+
+    /** Maximum total size of stored thumbnails, in bytes. */
+    private final long mMaxSize;
+
+    /**
+     * Stored thumbnail sizes, by file name, in access order (least recently used first). Loaded from disk on first
+     * access. Guarded by {@code this}.
+     */
+    @NonNull
+    private final LinkedHashMap<String, Long> mIndex;
+
+    /** Current total size of stored thumbnails, in bytes. Guarded by {@code this}. */
+    private long mSize;
+
+    /** {@code true} once {@link #mIndex} has been loaded from disk. Guarded by {@code this}. */
+    private boolean mIndexLoaded;
+
+    /**
+     * Constructor.
+     *
+     * @param dir     directory where thumbnails are stored
+     * @param maxSize maximum total size of stored thumbnails, in bytes
+     */
+    MediaThumbnailDiskCache(@NonNull File dir, long maxSize) {
+        mDir = dir;
+        mMaxSize = maxSize;
+        mIndex = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Computes the key identifying a thumbnail in the cache.
+     *
+     * @param deviceUid uid of the device providing the thumbnail
+     * @param provider  media or resource providing the thumbnail
+     *
+     * @return thumbnail cache key
+     */
+    @NonNull
+    static String keyOf(@NonNull String deviceUid, @NonNull ThumbnailProvider provider) {
+        String key = deviceUid + '/' + provider.getUid();
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder builder = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-1 is mandatory on all platforms; fall back to a less collision-proof key nonetheless
+            return Integer.toHexString(key.hashCode()) + '-' + Integer.toHexString(key.length());
+        }
+    }
+
+    /**
+     * Loads a thumbnail from the cache.
+     * <p>
+     * Must be called from main thread.
+     *
+     * @param key thumbnail key, as obtained from {@link #keyOf}
+     *
+     * @return a task that completes with the decoded thumbnail, or {@code null} if it is not in the cache
+     */
+    @NonNull
+    Task<Bitmap> load(@NonNull String key) {
+        return Executor.runInBackground(() -> read(key));
+    }
+
+    /**
+     * Stores a thumbnail in the cache.
+     * <p>
+     * Writing is performed on a background thread; storing is best effort and failures are only logged. Must be
+     * called from main thread.
+     *
+     * @param key  thumbnail key, as obtained from {@link #keyOf}
+     * @param data thumbnail compressed image data, as fetched from the device. <strong>MUST NOT</strong> be modified
+     *             afterwards
+     */
+    void store(@NonNull String key, @NonNull byte[] data) {
+        Executor.runInBackground(() -> {
+            write(key, data);
+            return null;
+        }, Executor.Lane.PERSISTENCE);
+    }
+
+    /**
+     * Reads and decodes a thumbnail file.
+     *
+     * @param key thumbnail key
+     *
+     * @return the decoded thumbnail, or {@code null} if it is not in the cache or could not be decoded
+     */
+    @WorkerThread
+    @Nullable
+    private Bitmap read(@NonNull String key) {
+        synchronized (this) {
+            loadIndex();
+            if (mIndex.get(key) == null) { // get() also marks the entry as most recently used
+                return null;
+            }
+        }
+        File file = new File(mDir, key);
+        byte[] data = readFile(file);
+        Bitmap thumbnail = data == null ? null : ThumbnailDecoder.decode(data);
+        if (thumbnail == null) {
+            // either evicted meanwhile or corrupted: forget it
+            synchronized (this) {
+                Long size = mIndex.remove(key);
+                if (size != null) {
+                    mSize -= size;
+                    deleteFile(file);
+                }
+            }
+        } else if (!file.setLastModified(System.currentTimeMillis()) && ULog.d(TAG_INTERNAL)) {
+            // last modification time persists LRU order across restarts; failure only degrades eviction order
+            ULog.d(TAG_INTERNAL, "Could not touch cached thumbnail: " + file);
+        }
+        return thumbnail;
+    }
+
+    /**
+     * Reads a whole thumbnail file.
+     *
+     * @param file file to read
+     *
+     * @return file content, or {@code null} if it could not be read
+     */
+    @WorkerThread
+    @Nullable
+    private static byte[] readFile(@NonNull File file) {
+        try (InputStream src = new FileInputStream(file)) {
+            byte[] data = new byte[(int) file.length()];
+            int length = 0, read;
+            while (length < data.length && (read = src.read(data, length, data.length - length)) > 0) {
+                length += read;
+            }
+            return length == data.length ? data : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes a thumbnail file, then evicts least recently used thumbnails if needed.
+     *
+     * @param key  thumbnail key
+     * @param data thumbnail compressed image data
+     *
+     * @throws IOException in case writing failed
+     */
+    @WorkerThread
+    private void write(@NonNull String key, @NonNull byte[] data) throws IOException {
+        synchronized (this) {
+            loadIndex();
+            if (mIndex.containsKey(key)) {
+                return;
+            }
+        }
+        if (!mDir.isDirectory() && !mDir.mkdirs()) {
+            throw new IOException("Could not create thumbnail cache directory: " + mDir);
+        }
+        File tmpFile = new File(mDir, key + TMP_EXT);
+        try (OutputStream out = new FileOutputStream(tmpFile)) {
+            out.write(data);
+        } catch (IOException e) {
+            deleteFile(tmpFile);
+            if (ULog.w(TAG_INTERNAL)) {
+                ULog.w(TAG_INTERNAL, "Could not store thumbnail in disk cache", e);
+            }
+            throw e;
+        }
+        File file = new File(mDir, key);
+        long size = tmpFile.length();
+        synchronized (this) {
+            if (!tmpFile.renameTo(file)) {
+                deleteFile(tmpFile);
+                throw new IOException("Could not rename " + tmpFile + " to " + file);
+            }
+            Long previous = mIndex.put(key, size);
+            mSize += size - (previous == null ? 0 : previous);
+            trim();
+        }
+    }
+
+    /**
+     * Loads the index of stored thumbnails from disk, if not done already.
+     * <p>
+     * Files are indexed in last modification order, which approximates their last access order. Leftover temporary
+     * files are deleted.
+     * <p>
+     * Must be called with {@code this} lock held.
+     */
+    @WorkerThread
+    private void loadIndex() {
+        if (mIndexLoaded) {
+            return;
+        }
+        mIndexLoaded = true;
+        File[] files = mDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        long[] lastModified = new long[files.length];
+        for (int i = 0; i < files.length; i++) {
+            lastModified[i] = files[i].lastModified();
+        }
+        Integer[] order = new Integer[files.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (lhs, rhs) -> Long.compare(lastModified[lhs], lastModified[rhs]));
+        for (Integer i : order) {
+            File file = files[i];
+            if (file.getName().endsWith(TMP_EXT)) {
+                deleteFile(file);
+            } else if (file.isFile()) {
+                long size = file.length();
+                mIndex.put(file.getName(), size);
+                mSize += size;
+            }
+        }
+        trim();
+    }
+
+    /**
+     * Deletes least recently used thumbnails until the total size of stored thumbnails gets below the limit.
+     * <p>
+     * Must be called with {@code this} lock held.
+     */
+    @WorkerThread
+    private void trim() {
+        Iterator<Map.Entry<String, Long>> iter = mIndex.entrySet().iterator();
+        while (mSize > mMaxSize && iter.hasNext()) {
+            Map.Entry<String, Long> entry = iter.next();
+            iter.remove();
+            mSize -= entry.getValue();
+            deleteFile(new File(mDir, entry.getKey()));
+        }
+    }
+
+    /**
+     * Deletes a file, logging failure.
+     *
+     * @param file file to delete
+     */
+    @WorkerThread
+    private static void deleteFile(@NonNull File file) {
+        if (!file.delete() && file.exists() && ULog.w(TAG_INTERNAL)) {
+            ULog.w(TAG_INTERNAL, "Could not delete cached thumbnail: " + file);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.internal.device.peripheral.media;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+/**
+ * Decodes thumbnails from compressed image data.
+ * <p>
+ * Images larger than {@link #MAX_DIMENSION} are subsampled while decoding, so that oversized thumbnails do not waste
+ * memory cache space. Decoding is expected to happen on a background thread; each thread reuses its own decoding
+ * scratch buffer.
+ */
+public final class ThumbnailDecoder {
+
+    /** Maximum dimension, in pixels, that a decoded thumbnail should not exceed by a factor of two or more. */
+    static final int MAX_DIMENSION = 512;
+
+    /** Size of the temporary storage used by the decoder, in bytes. */
+    private static final int TEMP_STORAGE_SIZE = 16 * 1024;
+
+    /** Per-thread decoding temporary storage. */
+    private static final ThreadLocal<byte[]> TEMP_STORAGE = new ThreadLocal<byte[]>() {
+
+        @Override
+        protected byte[] initialValue() {
+            return new byte[TEMP_STORAGE_SIZE];
+        }
+    };
+
+    /**
+     * Decodes a thumbnail.
+     *
+     * @param data compressed image data
+     *
+     * @return the decoded thumbnail, or {@code null} if the data could not be decoded
+     */
+    @WorkerThread
+    @Nullable
+    public static Bitmap decode(@NonNull byte[] data) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inTempStorage = TEMP_STORAGE.get();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+        options.inSampleSize = sampleSizeOf(options.outWidth, options.outHeight);
+        options.inJustDecodeBounds = false;
+        return BitmapFactory.decodeByteArray(data, 0, data.length, options);
+    }
+
+    /**
+     * Computes the subsampling factor to apply to an image.
+     *
+     * @param width  image width, in pixels
+     * @param height image height, in pixels
+     *
+     * @return the largest power of two that keeps the subsampled image largest dimension above or equal to
+     *         {@link #MAX_DIMENSION}, {@code 1} if the image is not larger than that
+     */
+    static int sampleSizeOf(int width, int height) {
+        int sampleSize = 1;
+        int dimension = Math.max(width, height);
+        while (dimension / (sampleSize * 2) >= MAX_DIMENSION) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    /**
+     * Private constructor for static utility class.
+     */
+    private ThumbnailDecoder() {
+    }
+}
@@ -32,8 +32,6 @@
 
 package com.parrot.drone.groundsdk.internal.device.peripheral.media;
 
-import android.graphics.Bitmap;
-
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
@@ -58,9 +56,15 @@ abstract class ThumbnailProvider {
             @Nullable
             @Override
             MediaRequest fetch(@NonNull MediaThumbnailCache.Backend backend,
-                               @NonNull MediaRequest.ResultCallback<Bitmap> callback) {
+                               @NonNull MediaRequest.ResultCallback<byte[]> callback) {
                 return backend.fetchThumbnail(media, callback);
             }
+
+            @NonNull
+            @Override
+            String getUid() {
+                return "media:" + media.getUid();
+            }
         };
     }
 
@@ -78,9 +82,15 @@ abstract class ThumbnailProvider {
             @Nullable
             @Override
             MediaRequest fetch(@NonNull MediaThumbnailCache.Backend backend,
-                               @NonNull MediaRequest.ResultCallback<Bitmap> callback) {
+                               @NonNull MediaRequest.ResultCallback<byte[]> callback) {
                 return backend.fetchThumbnail(resource, callback);
             }
+
+            @NonNull
+            @Override
+            String getUid() {
+                return "resource:" + resource.getUid();
+            }
         };
     }
 
@@ -92,7 +102,7 @@ abstract class ThumbnailProvider {
      * this method returns a {@code MediaRequest} object, which can be used to cancel the request, and means that the
      * callback will be invoked at a later time.
      * <p>
-     * Note that even in case of {@link MediaRequest.Status#SUCCESS}, the provided bitmap may be {@code null}, which
+     * Note that even in case of {@link MediaRequest.Status#SUCCESS}, the provided data may be {@code null}, which
      * means that it is known that this media does not provide a thumbnail.
      *
      * @param backend  backend allowing to fetch thumbnails
@@ -102,7 +112,15 @@ abstract class ThumbnailProvider {
      */
     @Nullable
     abstract MediaRequest fetch(@NonNull MediaThumbnailCache.Backend backend,
-                                @NonNull MediaRequest.ResultCallback<Bitmap> callback);
+                                @NonNull MediaRequest.ResultCallback<byte[]> callback);
+
+    /**
+     * Gets an identifier for this provider, unique among all media and resources from the same device.
+     *
+     * @return provider uid
+     */
+    @NonNull
+    abstract String getUid();
 
     /** Wrapped item, used for object identity. */
     @NonNull
@@ -35,78 +35,46 @@ package com.parrot.drone.groundsdk.internal.engine.blackbox;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import com.parrot.drone.groundsdk.internal.io.Files;
 import com.parrot.drone.groundsdk.internal.tasks.Job;
-import com.parrot.drone.groundsdk.internal.utility.BlackBoxStorage;
 import com.parrot.drone.sdkcore.ulog.ULog;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.Collections;
-import java.util.UUID;
-import java.util.zip.GZIPOutputStream;
 
 import static com.parrot.drone.groundsdk.internal.Logging.TAG_BLACKBOX;
-import static com.parrot.drone.groundsdk.internal.engine.blackbox.BlackBoxEngine.TMP_REPORT_EXT;
 
 /**
- * Background job that archives in memory black box data to a black box file on local storage.
+ * Background job that archives a closed black box journal to a black box file on local storage.
  */
 class ArchiveJob extends Job<File> {
 
     /** Black box report engine to call back when the job completes. */
     private final BlackBoxEngine mEngine;
 
-    /** Black box data to archive. */
+    /** Black box journal directory to archive. */
     @NonNull
-    private final BlackBoxStorage.BlackBox mBlackBox;
+    private final File mJournal;
 
     /**
      * Constructor.
      *
-     * @param engine   black box engine
-     * @param blackBox in-memory black box to archive
+     * @param engine  black box engine
+     * @param journal black box journal directory to archive
      */
-    ArchiveJob(@NonNull BlackBoxEngine engine, @NonNull BlackBoxStorage.BlackBox blackBox) {
+    ArchiveJob(@NonNull BlackBoxEngine engine, @NonNull File journal) {
         mEngine = engine;
-        mBlackBox = blackBox;
+        mJournal = journal;
     }
 
     @Nullable
     @Override
     protected File doInBackground() throws IOException, InterruptedException {
-        File workDir = mEngine.getWorkDirectory();
+        File blackBoxFile = BlackBoxJournal.archive(mJournal);
 
-        Files.makeDirectories(workDir);
+        mEngine.copyToPublicFolder(blackBoxFile);
 
-        File tmpFile = File.createTempFile(".blackbox", TMP_REPORT_EXT, workDir);
-        try {
-            GZIPOutputStream dstStream = new GZIPOutputStream(new FileOutputStream(tmpFile));
-            //noinspection TryFinallyCanBeTryWithResources
-            try {
-                mBlackBox.writeTo(dstStream);
-            } finally {
-                dstStream.close();
-            }
-
-            File blackBoxFile;
-            do {
-                blackBoxFile = new File(workDir, UUID.randomUUID().toString());
-            } while (blackBoxFile.exists()); //  can still be racy, but very much unlikely
-
-            if (!tmpFile.renameTo(blackBoxFile)) {
-                throw new IOException("Could not rename black box report " + tmpFile + " to " + blackBoxFile);
-            }
-
-            mEngine.copyToPublicFolder(blackBoxFile);
-
-            return blackBoxFile;
-        } finally {
-            if (tmpFile.exists() && !tmpFile.delete() && ULog.w(TAG_BLACKBOX)) {
-                ULog.w(TAG_BLACKBOX, "Could not delete temporary black box report " + tmpFile);
-            }
-        }
+        return blackBoxFile;
     }
 
     @Override
@@ -54,6 +54,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.Queue;
 import java.util.UUID;
 
@@ -83,14 +84,17 @@ public class BlackBoxEngine extends EngineBase {
      * Root directory where blackbox files are stored on the user device's local file system.
      * <p>
      * This directory may contain <ul>
-     * <li>the current {@link #mWorkDir}, which may itself contain temporary blackbox files (being currently
-     * archived to persistent storage) and finalized blackbox files (that are ready to be uploaded),</li>
+     * <li>the current {@link #mWorkDir}, which may itself contain black box journals (being currently recorded),
+     * temporary blackbox files (being currently archived to persistent storage) and finalized blackbox files (that are
+     * ready to be uploaded),</li>
      * <li> previous work directories, that may themselves contain finalized blackbox files, or temporary ones that
-     * failed to be finalized. </li>
+     * failed to be finalized, or journals that could not be archived, for instance because the application was
+     * terminated while recording. </li>
      * </ul>
-     * When the engine starts, all finalized blackbox files from all work directories are listed and queued for upload;
-     * temporary blackbox files in previous work directories (other than {@code mWorkDir}) are deleted. Temporary
-     * blackbox files in {@code mWorkDir} are left untouched.
+     * When the engine starts, journals in previous work directories (other than {@code mWorkDir}) are archived, then
+     * all finalized blackbox files from all work directories are listed and queued for upload; temporary blackbox files
+     * in previous work directories are deleted. Journals and temporary blackbox files in {@code mWorkDir} are left
+     * untouched.
      */
     @NonNull
     private final File mEngineDir;
@@ -185,12 +189,25 @@ public class BlackBoxEngine extends EngineBase {
     }
 
     /**
-     * Archives the given black box data to a local black box report file.
+     * Opens a new black box journal in the current work directory.
      *
-     * @param data black box data to archive
+     * @param capacities capacity of bounded array members, by member name
+     *
+     * @return a new journal
+     */
+    @NonNull
+    BlackBoxStorage.Journal openJournal(@NonNull Map<String, Integer> capacities) {
+        return new BlackBoxJournal(this, new File(getWorkDirectory(), UUID.randomUUID() + BlackBoxJournal.JOURNAL_EXT),
+                capacities);
+    }
+
+    /**
+     * Archives the given black box journal to a local black box report file.
+     *
+     * @param journal black box journal directory to archive
      */
-    void archiveBlackBox(@NonNull BlackBoxStorage.BlackBox data) {
-        mTasks.add(launchArchiveJob(data));
+    void archiveJournal(@NonNull File journal) {
+        mTasks.add(launchArchiveJob(journal));
     }
 
     /**
@@ -310,13 +327,13 @@ public class BlackBoxEngine extends EngineBase {
      * <p>
      * Only used by tests to mock the archive task.
      *
-     * @param data black box data to archive
+     * @param journal black box journal directory to archive
      *
      * @return the running upload background task
      */
     @VisibleForTesting
-    Task<File> launchArchiveJob(@NonNull BlackBoxStorage.BlackBox data) {
-        return new ArchiveJob(this, data).launch();
+    Task<File> launchArchiveJob(@NonNull File journal) {
+        return new ArchiveJob(this, journal).launch();
     }
 
     /**
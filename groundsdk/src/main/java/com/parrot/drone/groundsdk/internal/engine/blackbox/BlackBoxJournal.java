@@ -0,0 +1,527 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.internal.engine.blackbox;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.parrot.drone.groundsdk.internal.io.Files;
+import com.parrot.drone.groundsdk.internal.tasks.Executor;
+import com.parrot.drone.groundsdk.internal.tasks.Task;
+import com.parrot.drone.groundsdk.internal.utility.BlackBoxStorage;
+import com.parrot.drone.sdkcore.ulog.ULog;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.parrot.drone.groundsdk.internal.Logging.TAG_BLACKBOX;
+import static com.parrot.drone.groundsdk.internal.engine.blackbox.BlackBoxEngine.TMP_REPORT_EXT;
+
+/**
+ * Implementation of a black box journal.
+ * <p>
+ * A journal is stored as a directory, in the engine work directory, which contains: <ul>
+ * <li>a JSON descriptor file, which records the capacity of bounded array members,</li>
+ * <li>one gzip-compressed file per appended segment, named after the segment index.</li>
+ * </ul>
+ * Each file is first written to a temporary file, then renamed, so that the journal directory only ever contains
+ * complete files and can be archived at any time, including after the application was terminated abruptly.
+ * <p>
+ * Segments are written one at a time, in append order, on a background thread.
+ */
+final class BlackBoxJournal implements BlackBoxStorage.Journal {
+
+    /** Extension of journal directories. */
+    static final String JOURNAL_EXT = ".journal";
+
+    /** Name of the journal descriptor file. */
+    private static final String DESCRIPTOR_FILE = "descriptor";
+
+    /** Extension of journal segment files. */
+    private static final String SEGMENT_EXT = ".segment";
+
+    /** Black box engine. */
+    @NonNull
+    private final BlackBoxEngine mEngine;
+
+    /** Journal directory. */
+    @NonNull
+    private final File mDir;
+
+    /** Capacity of bounded array members, by member name. */
+    @NonNull
+    private final Map<String, Integer> mCapacities;
+
+    /** Segments appended to the journal, not written yet, in append order. */
+    @NonNull
+    private final Queue<byte[]> mPendingSegments;
+
+    /** Index of the next segment to be written. */
+    private int mSegmentIndex;
+
+    /** {@code true} once the journal directory and descriptor have been successfully written. */
+    private boolean mDescriptorWritten;
+
+    /** Currently running segment write task, {@code null} if none. */
+    @Nullable
+    private Task<Void> mWriteTask;
+
+    /** {@code true} when the journal is closed. */
+    private boolean mClosed;
+
+    /**
+     * Constructor.
+     *
+     * @param engine     black box engine
+     * @param dir        journal directory
+     * @param capacities capacity of bounded array members, by member name
+     */
+    BlackBoxJournal(@NonNull BlackBoxEngine engine, @NonNull File dir, @NonNull Map<String, Integer> capacities) {
+        mEngine = engine;
+        mDir = dir;
+        mCapacities = new HashMap<>(capacities);
+        mPendingSegments = new LinkedList<>();
+    }
+
+    @Override
+    public void append(@NonNull byte[] segment) {
+        if (mClosed) {
+            ULog.w(TAG_BLACKBOX, "Segment appended to closed journal: " + mDir);
+            return;
+        }
+        mPendingSegments.add(segment);
+        writeNextSegment();
+    }
+
+    @Override
+    public void close() {
+        if (!mClosed) {
+            mClosed = true;
+            writeNextSegment();
+        }
+    }
+
+    /**
+     * Writes the next pending segment in background, unless a segment is currently being written.
+     * <p>
+     * Once the journal is closed and all segments are written, requests the engine to archive the journal.
+     */
+    private void writeNextSegment() {
+        if (mWriteTask != null) {
+            return;
+        }
+        byte[] segment = mPendingSegments.poll();
+        if (segment == null) {
+            if (mClosed && mDescriptorWritten) {
+                mEngine.archiveJournal(mDir);
+            } else if (mClosed) {
+                ULog.w(TAG_BLACKBOX, "Nothing written to journal " + mDir + ", not archived");
+            }
+            return;
+        }
+        int index = mSegmentIndex++;
+        // the directory and descriptor are written along with the first segment, and again with the next one
+        // until this succeeds
+        boolean writeDescriptor = !mDescriptorWritten;
+        mWriteTask = Executor.runInBackground((Callable<Void>) () -> {
+            if (writeDescriptor) {
+                Files.makeDirectories(mDir);
+                writeDescriptor(mDir, mCapacities);
+            }
+            writeSegment(mDir, index, segment);
+            return null;
+        }, Executor.Lane.PERSISTENCE).whenComplete((result, error, canceled) -> {
+            mWriteTask = null;
+            if (error != null) {
+                ULog.e(TAG_BLACKBOX, "Failed to write segment " + index + " of journal " + mDir, error);
+            } else if (writeDescriptor) {
+                mDescriptorWritten = true;
+            }
+            writeNextSegment();
+        });
+    }
+
+    /**
+     * Archives a journal to a black box report file.
+     * <p>
+     * The report is created in the same directory as the journal, which is deleted once archived.
+     * <p>
+     * This method must be called from a background thread.
+     *
+     * @param journal journal directory to archive
+     *
+     * @return archived black box report file
+     *
+     * @throws IOException in case the journal could not be archived
+     */
+    @NonNull
+    static File archive(@NonNull File journal) throws IOException {
+        File dir = journal.getParentFile();
+        assert dir != null;
+        File tmpFile = File.createTempFile(".blackbox", TMP_REPORT_EXT, dir);
+        try {
+            try (OutputStream dstStream = new GZIPOutputStream(new FileOutputStream(tmpFile))) {
+                merge(journal, dstStream);
+            }
+
+            File blackBoxFile;
+            do {
+                blackBoxFile = new File(dir, UUID.randomUUID().toString());
+            } while (blackBoxFile.exists()); //  can still be racy, but very much unlikely
+
+            if (!tmpFile.renameTo(blackBoxFile)) {
+                throw new IOException("Could not rename black box report " + tmpFile + " to " + blackBoxFile);
+            }
+
+            if (!Files.deleteDirectoryTree(journal) && ULog.w(TAG_BLACKBOX)) {
+                ULog.w(TAG_BLACKBOX, "Could not delete archived journal " + journal);
+            }
+
+            return blackBoxFile;
+        } finally {
+            if (tmpFile.exists() && !tmpFile.delete() && ULog.w(TAG_BLACKBOX)) {
+                ULog.w(TAG_BLACKBOX, "Could not delete temporary black box report " + tmpFile);
+            }
+        }
+    }
+
+    /**
+     * Merges all segments of a journal as a JSON black box report.
+     * <p>
+     * Segments are read twice: a first pass locates each member across segments, a second pass streams selected
+     * members to the report. No segment is ever fully loaded in memory.
+     *
+     * @param journal journal directory
+     * @param stream  stream where to write the report
+     *
+     * @throws IOException in case merging failed
+     */
+    private static void merge(@NonNull File journal, @NonNull OutputStream stream) throws IOException {
+        File[] segments = journal.listFiles(file -> file.getName().endsWith(SEGMENT_EXT));
+        if (segments == null || segments.length == 0) {
+            throw new IOException("Empty journal " + journal);
+        }
+        Arrays.sort(segments);
+        Map<String, Integer> capacities = readDescriptor(journal);
+
+        // locate members
+        Map<String, Member> members = new LinkedHashMap<>();
+        for (int i = 0, N = segments.length; i < N; i++) {
+            try (JsonReader reader = openSegment(segments[i])) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    Member member = members.get(name);
+                    if (member == null) {
+                        member = new Member(reader.peek() == JsonToken.BEGIN_ARRAY, N);
+                        members.put(name, member);
+                    }
+                    if (member.mCounts != null && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                        int count = 0;
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            reader.skipValue();
+                            count++;
+                        }
+                        reader.endArray();
+                        member.mCounts[i] = count;
+                        member.mTotal += count;
+                    } else {
+                        member.mLatest = i;
+                        reader.skipValue();
+                    }
+                }
+            }
+        }
+
+        // stream members
+        JsonWriter writer = new JsonWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+        writer.beginObject();
+        for (Map.Entry<String, Member> entry : members.entrySet()) {
+            String name = entry.getKey();
+            Member member = entry.getValue();
+            if (member.mCounts == null) {
+                writer.name(name);
+                try (JsonReader reader = openSegment(segments[member.mLatest])) {
+                    seek(reader, name);
+                    copy(reader, writer);
+                }
+            } else {
+                writer.name(name);
+                Integer capacity = capacities.get(name);
+                int skip = capacity == null ? 0 : Math.max(0, member.mTotal - capacity);
+                writer.beginArray();
+                for (int i = 0, N = segments.length; i < N; i++) {
+                    int count = member.mCounts[i];
+                    if (count <= skip) {
+                        skip -= count;
+                        continue;
+                    }
+                    try (JsonReader reader = openSegment(segments[i])) {
+                        seek(reader, name);
+                        reader.beginArray();
+                        for (; skip > 0; skip--) {
+                            reader.skipValue();
+                        }
+                        while (reader.hasNext()) {
+                            copy(reader, writer);
+                        }
+                    }
+                }
+                writer.endArray();
+            }
+        }
+        writer.endObject();
+        writer.flush();
+    }
+
+    /**
+     * Location of a JSON member across journal segments.
+     */
+    private static final class Member {
+
+        /** Element count in each segment, for array members; {@code null} for other members. */
+        @Nullable
+        final int[] mCounts;
+
+        /** Total element count across all segments, for array members. */
+        int mTotal;
+
+        /** Index of the latest segment that defines the member, {@code -1} if none. */
+        int mLatest;
+
+        /**
+         * Constructor.
+         *
+         * @param array        {@code true} for an array member
+         * @param segmentCount total amount of segments in the journal
+         */
+        Member(boolean array, int segmentCount) {
+            mCounts = array ? new int[segmentCount] : null;
+            mLatest = -1;
+        }
+    }
+
+    /**
+     * Advances a segment reader to the value of the given member.
+     *
+     * @param reader segment reader, positioned before the segment object
+     * @param name   name of the member to seek
+     *
+     * @throws IOException in case the member could not be found
+     */
+    private static void seek(@NonNull JsonReader reader, @NonNull String name) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals(name)) {
+                return;
+            }
+            reader.skipValue();
+        }
+        throw new IOException("Missing member " + name);
+    }
+
+    /**
+     * Copies the next JSON value from a reader to a writer.
+     *
+     * @param reader reader to copy the value from
+     * @param writer writer to copy the value to
+     *
+     * @throws IOException in case copy failed
+     */
+    private static void copy(@NonNull JsonReader reader, @NonNull JsonWriter writer) throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_ARRAY:
+                reader.beginArray();
+                writer.beginArray();
+                while (reader.hasNext()) {
+                    copy(reader, writer);
+                }
+                reader.endArray();
+                writer.endArray();
+                break;
+            case BEGIN_OBJECT:
+                reader.beginObject();
+                writer.beginObject();
+                while (reader.hasNext()) {
+                    writer.name(reader.nextName());
+                    copy(reader, writer);
+                }
+                reader.endObject();
+                writer.endObject();
+                break;
+            case STRING:
+                writer.value(reader.nextString());
+                break;
+            case NUMBER:
+                writer.jsonValue(reader.nextString());
+                break;
+            case BOOLEAN:
+                writer.value(reader.nextBoolean());
+                break;
+            case NULL:
+                reader.nextNull();
+                writer.nullValue();
+                break;
+            default:
+                throw new IOException("Unexpected token " + reader.peek());
+        }
+    }
+
+    /**
+     * Opens a reader on a segment file.
+     *
+     * @param segment segment file
+     *
+     * @return a new reader on segment content
+     *
+     * @throws IOException in case the segment could not be opened
+     */
+    @NonNull
+    private static JsonReader openSegment(@NonNull File segment) throws IOException {
+        return new JsonReader(new InputStreamReader(new GZIPInputStream(new BufferedInputStream(
+                new FileInputStream(segment))), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes a segment to a journal.
+     *
+     * @param journal journal directory
+     * @param index   segment index
+     * @param segment segment content
+     *
+     * @throws IOException in case writing failed
+     */
+    private static void writeSegment(@NonNull File journal, int index, @NonNull byte[] segment) throws IOException {
+        writeFile(new File(journal, String.format(Locale.ROOT, "%08d", index) + SEGMENT_EXT), segment, true);
+    }
+
+    /**
+     * Writes a journal descriptor.
+     *
+     * @param journal    journal directory
+     * @param capacities capacity of bounded array members, by member name
+     *
+     * @throws IOException in case writing failed
+     */
+    private static void writeDescriptor(@NonNull File journal, @NonNull Map<String, Integer> capacities)
+            throws IOException {
+        ByteArrayOutputStream descriptor = new ByteArrayOutputStream();
+        try (JsonWriter writer = new JsonWriter(new OutputStreamWriter(descriptor, StandardCharsets.UTF_8))) {
+            writer.beginObject();
+            for (Map.Entry<String, Integer> entry : capacities.entrySet()) {
+                writer.name(entry.getKey()).value(entry.getValue());
+            }
+            writer.endObject();
+        }
+        writeFile(new File(journal, DESCRIPTOR_FILE), descriptor.toByteArray(), false);
+    }
+
+    /**
+     * Reads a journal descriptor.
+     * <p>
+     * A missing descriptor is considered empty.
+     *
+     * @param journal journal directory
+     *
+     * @return capacity of bounded array members, by member name
+     *
+     * @throws IOException in case reading failed
+     */
+    @NonNull
+    private static Map<String, Integer> readDescriptor(@NonNull File journal) throws IOException {
+        Map<String, Integer> capacities = new HashMap<>();
+        File file = new File(journal, DESCRIPTOR_FILE);
+        if (file.exists()) {
+            try (JsonReader reader = new JsonReader(new InputStreamReader(new FileInputStream(file),
+                    StandardCharsets.UTF_8))) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    capacities.put(reader.nextName(), reader.nextInt());
+                }
+                reader.endObject();
+            }
+        }
+        return capacities;
+    }
+
+    /**
+     * Atomically writes a journal file.
+     * <p>
+     * Content is written to a temporary file first, which is then renamed to the destination file.
+     *
+     * @param file     destination file
+     * @param content  content to write
+     * @param compress {@code true} to gzip-compress content
+     *
+     * @throws IOException in case writing failed
+     */
+    private static void writeFile(@NonNull File file, @NonNull byte[] content, boolean compress) throws IOException {
+        File tmpFile = new File(file.getPath() + TMP_REPORT_EXT);
+        try {
+            try (OutputStream stream = compress ? new GZIPOutputStream(new FileOutputStream(tmpFile))
+                    : new FileOutputStream(tmpFile)) {
+                stream.write(content);
+            }
+            if (!tmpFile.renameTo(file)) {
+                throw new IOException("Could not rename " + tmpFile + " to " + file);
+            }
+        } finally {
+            if (tmpFile.exists() && !tmpFile.delete() && ULog.w(TAG_BLACKBOX)) {
+                ULog.w(TAG_BLACKBOX, "Could not delete temporary journal file " + tmpFile);
+            }
+        }
+    }
+}
@@ -36,6 +36,8 @@ import androidx.annotation.NonNull;
 
 import com.parrot.drone.groundsdk.internal.utility.BlackBoxStorage;
 
+import java.util.Map;
+
 /**
  * Implementation class for the {@code BlackBoxStorage} utility.
  */
@@ -54,8 +56,9 @@ class BlackBoxStorageCore implements BlackBoxStorage {
         mEngine = engine;
     }
 
+    @NonNull
     @Override
-    public void notifyBlackBoxReady(@NonNull BlackBox blackBox) {
-        mEngine.archiveBlackBox(blackBox);
+    public Journal openJournal(@NonNull Map<String, Integer> capacities) {
+        return mEngine.openJournal(capacities);
     }
 }
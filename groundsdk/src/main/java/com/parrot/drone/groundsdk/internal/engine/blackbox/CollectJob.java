@@ -52,12 +52,14 @@ import java.util.LinkedList;
 
 import static com.parrot.drone.groundsdk.internal.Logging.TAG_BLACKBOX;
 import static com.parrot.drone.groundsdk.internal.engine.blackbox.BlackBoxEngine.TMP_REPORT_EXT;
+import static com.parrot.drone.groundsdk.internal.engine.blackbox.BlackBoxJournal.JOURNAL_EXT;
 
 /**
  * Background job that browse the black box repository on the user device's local file system to compute the list of
  * blackbox files to be uploaded to the server.
  * <p>
- * This job also deletes any not completely archived blackbox files from the file system.
+ * This job also archives black box journals that could not be archived before the application was terminated, and
+ * deletes any not completely archived blackbox files from the file system.
  */
 final class CollectJob extends Job<Collection<File>> {
 
@@ -86,7 +88,7 @@ final class CollectJob extends Job<Collection<File>> {
 
     @Override
     @NonNull
-    protected Collection<File> doInBackground() throws IOException {
+    protected Collection<File> doInBackground() throws IOException, InterruptedException {
         File engineDir = mEngine.getEngineDirectory();
 
         Files.makeDirectories(engineDir);
@@ -98,6 +100,15 @@ final class CollectJob extends Job<Collection<File>> {
         // sort files to collect vs. to prune
         for (File dir : engineDir.listFiles(file -> !file.equals(mEngine.getWorkDirectory()))) {
             toPrune.add(dir); // removed from prune list if we find collectible blackboxes inside
+            // archive unfinished journals first; those that fail to be archived get pruned
+            File[] journals = dir.listFiles(file -> file.isDirectory() && file.getName().endsWith(JOURNAL_EXT));
+            if (journals != null) for (File journal : journals) {
+                try {
+                    mEngine.copyToPublicFolder(BlackBoxJournal.archive(journal));
+                } catch (IOException e) {
+                    ULog.w(TAG_BLACKBOX, "Could not recover black box journal: " + journal, e);
+                }
+            }
             File[] files = dir.listFiles();
             if (files != null) for (File file : files) {
                 if (file.isFile()
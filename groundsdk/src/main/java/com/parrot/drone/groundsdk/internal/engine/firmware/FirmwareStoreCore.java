@@ -187,7 +187,7 @@ public class FirmwareStoreCore implements FirmwareStore {
             // TODO maybe check if file already exists (we have length & md5 to check properly).
             Files.writeFile(stream, dest);
             return dest;
-        }).whenComplete((result, error, canceled) -> {
+        }, Executor.Lane.HOUSEKEEPING).whenComplete((result, error, canceled) -> {
             if (error == null && !canceled) {
                 if (entry.setUri(dest.toURI())) {
                     storeChanged();
@@ -2,6 +2,7 @@ package com.parrot.drone.groundsdk.internal.ftp;
 
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 
 import com.parrot.drone.groundsdk.internal.Cancelable;
@@ -9,6 +10,7 @@ import com.parrot.drone.groundsdk.internal.ftp.apachecommons.CopyStreamAdapter;
 import com.parrot.drone.groundsdk.internal.ftp.apachecommons.FTPClient;
 import com.parrot.drone.groundsdk.internal.ftp.apachecommons.FTPFile;
 import com.parrot.drone.groundsdk.internal.ftp.apachecommons.FTPReply;
+import com.parrot.drone.groundsdk.internal.http.ProgressReporter;
 import com.parrot.drone.sdkcore.arsdk.device.ArsdkTcpProxy;
 
 import java.io.ByteArrayOutputStream;
@@ -18,8 +20,17 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.net.SocketFactory;
 
@@ -53,6 +64,46 @@ public class FtpSession {
     private final CreateProxyListener createProxyListener;
     private final RemoveProxyListener removeProxyListener;
 
+    /** Maximum amount of concurrent file transfers. */
+    private static final int MAX_TRANSFERS = 2;
+
+    /**
+     * Maximum amount of concurrent operations, hence of open control connections and of transfer buffers. One
+     * connection is kept for short operations, so that they do not wait for file transfers.
+     */
+    private static final int MAX_CONNECTIONS = MAX_TRANSFERS + 1;
+
+    /** Idle time after which a pooled control connection is probed with a NOOP, before being reused or kept open. */
+    private static final long KEEPALIVE_INTERVAL = TimeUnit.SECONDS.toMillis(15);
+
+    /** Idle time after which a pooled control connection is closed. */
+    private static final long IDLE_TIMEOUT = TimeUnit.SECONDS.toMillis(60);
+
+    /** Size of the buffers used to copy file data. */
+    private static final int TRANSFER_BUFFER_SIZE = 256 * 1024;
+
+    /** Runs file transfers; bounded to {@link #MAX_TRANSFERS} threads, further transfers are queued. */
+    private final ScheduledThreadPoolExecutor transferExecutor;
+
+    /**
+     * Runs short operations, such as listing, small file contents retrieval and deletion, as well as idle connections
+     * maintenance; bounded to a single thread, further operations are queued.
+     */
+    private final ScheduledThreadPoolExecutor commandExecutor;
+
+    /** Logged-in control connections, available for reuse; most recently used first. */
+    private final Deque<PooledClient> idleClients;
+
+    /** Transfer buffers, available for reuse. */
+    private final Deque<byte[]> transferBuffers;
+
+    /** Scheduled idle connections maintenance, {@code null} if none. */
+    @Nullable
+    private ScheduledFuture<?> maintenance;
+
+    /** {@code true} once the session is closed. */
+    private boolean closed;
+
     public FtpSession(@NonNull final String address,
                       final int port,
                       @Nullable final SocketFactory socketFactory) { this(address, port, socketFactory, null, null); }
@@ -68,6 +119,42 @@ public class FtpSession {
 
         this.createProxyListener = createProxyListener;
         this.removeProxyListener = removeProxyListener;
+
+        this.transferExecutor = createExecutor(MAX_TRANSFERS);
+        this.commandExecutor = createExecutor(MAX_CONNECTIONS - MAX_TRANSFERS);
+        this.idleClients = new ArrayDeque<>();
+        this.transferBuffers = new ArrayDeque<>();
+    }
+
+    /**
+     * Closes the session.
+     * <p>
+     * Pooled control connections are closed; operations already queued still complete, on fresh connections that are
+     * closed right after. No operation can be started afterwards.
+     */
+    public void close() {
+        final List<PooledClient> clients;
+        synchronized (this) {
+            closed = true;
+            clients = new ArrayList<>(idleClients);
+            idleClients.clear();
+            transferBuffers.clear();
+            if (maintenance != null) {
+                maintenance.cancel(false);
+                maintenance = null;
+            }
+        }
+        try {
+            commandExecutor.execute(() -> {
+                for (PooledClient client : clients) {
+                    disconnect(client.client);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // already closed
+        }
+        transferExecutor.shutdown();
+        commandExecutor.shutdown();
     }
 
 
@@ -88,79 +175,48 @@ public class FtpSession {
         }
     }
     public void storeFile(@NonNull final InputStream is, @NonNull final String remoteFile, @Nullable final FtpTransferListener listener) {
-        final Thread storeFileThread = new Thread() {
-            @Override
-            public void run() {
-                final FTPClient client = FtpSession.this.createFtpClient();
-
+        execute(transferExecutor, "STORE file", client -> {
+            try {
+                if (!client.storeFile(remoteFile, is)) {
+                    throw new Exception("store failed for " + remoteFile);
+                }
+            } finally {
                 try {
-                    FtpSession.this.connect(client);
-
-                    if (!client.storeFile(remoteFile, is)) {
-                        throw new Exception("store failed for " + remoteFile);
-                    }
-
-                    if (listener != null) {
-                        new Handler(Looper.getMainLooper()).post(() -> listener.onTransferCompleted(true, remoteFile));
-                    }
-
-                } catch (Exception ex) {
-                    Log.w(CLASS_NAME, "Unable to FTP STORE file: " + ex.getMessage(), ex);
-                    if (listener != null) {
-                        new Handler(Looper.getMainLooper()).post(() -> listener.onTransferCompleted(false, null));
-                    }
-
-                } finally {
-                    try {
-                        is.close();
-                    } catch (IOException e) {
-                        // do nothing
-                    }
-
-                    if (client.isConnected()) {
-                        try {
-                            client.disconnect();
-                        } catch (IOException e) {
-                            // do nothing
-                        }
-                    }
+                    is.close();
+                } catch (IOException e) {
+                    // do nothing
                 }
             }
-        };
 
-        storeFileThread.start();
+            if (listener != null) {
+                new Handler(Looper.getMainLooper()).post(() -> listener.onTransferCompleted(true, remoteFile));
+            }
+        }, () -> {
+            // connection may have failed before the store attempt
+            try {
+                is.close();
+            } catch (IOException e) {
+                // do nothing
+            }
+            if (listener != null) {
+                new Handler(Looper.getMainLooper()).post(() -> listener.onTransferCompleted(false, null));
+            }
+        });
     }
 
     public void getFileList(@Nullable final FtpListingListener listener) {
-        new Thread(() -> {
-            final FTPClient client = createFtpClient();
+        execute(commandExecutor, "LIST files", client -> {
             final SortedMap<String, FTPFile> remoteFiles = new TreeMap<>();
+            listFiles(client, remoteFiles);
 
-            try {
-                connect(client);
-                listFiles(client, remoteFiles);
-
-                if (listener != null) {
-                    new Handler(Looper.getMainLooper()).post(() -> listener.onListingCompleted(true, remoteFiles));
-                }
-
-            } catch (Exception ex) {
-                Log.w(CLASS_NAME, "Unable to FTP LIST files: " + ex.getMessage(), ex);
-                if (listener != null) {
-                    new Handler(Looper.getMainLooper()).post(() -> listener.onListingCompleted(false, null));
-                }
-
-            } finally {
-                if (client.isConnected()) {
-                    try {
-                        client.disconnect();
-                    } catch (IOException e) {
-                        // do nothing
-                    }
-                }
+            if (listener != null) {
+                new Handler(Looper.getMainLooper()).post(() -> listener.onListingCompleted(true, remoteFiles));
             }
-
-        }).start();
+        }, () -> {
+            if (listener != null) {
+                new Handler(Looper.getMainLooper()).post(() -> listener.onListingCompleted(false, null));
+            }
+        });
     }
     private void listFiles(@NonNull FTPClient client, @NonNull final SortedMap<String, FTPFile> remoteFiles) throws IOException { listFiles(client, remoteFiles, null); }
     private void listFiles(@NonNull FTPClient client, @NonNull final SortedMap<String, FTPFile> remoteFiles, @Nullable String path) throws IOException {
@@ -183,195 +239,364 @@ public class FtpSession {
     }
 
     public void retrieveFile(@NonNull final String remoteFile, @NonNull final String localFile, final boolean deleteRemote, @Nullable final FtpTransferListener listener) {
-        new Thread(() -> {
-            final FTPClient client = createFtpClient();
-            FileOutputStream fos = null;
-
-            try {
-                // not sure if this is necessary
-                client.setBufferSize(1048576);
+        execute(transferExecutor, "RETRIEVE file", client -> {
+            if (listener != null) {
+                final FTPFile[] files = client.listFiles(remoteFile);
 
-                connect(client);
-
-                if (listener != null) {
-                    final FTPFile[] files = client.listFiles(remoteFile);
+                if (files == null || files.length == 0) {
+                    throw new Exception("remote file not found: " + remoteFile);
+                }
 
-                    if (files == null || files.length == 0) {
-                        throw new Exception("remote file not found: " + remoteFile);
+                final long fileSize = files[0].getSize();
+                // coalesce per-chunk progress into throttled reports, instead of posting each chunk
+                final ProgressReporter reporter = ProgressReporter.create(
+                        (percent, bytesPerSecond, remainingTime) -> listener.onTransferProgress(percent));
+                final CopyStreamAdapter streamListener = new CopyStreamAdapter() {
+                    @Override
+                    public void bytesTransferred(long totalBytesTransferred, int bytesTransferred, long streamSize) {
+                        reporter.onTransferred(totalBytesTransferred, fileSize);
                     }
+                };
 
-                    final CopyStreamAdapter streamListener = new CopyStreamAdapter() {
-                        @Override
-                        public void bytesTransferred(long totalBytesTransferred, int bytesTransferred, long streamSize) {
-                            int percent = (int) (totalBytesTransferred * 100 / files[0].getSize());
-                            new Handler(Looper.getMainLooper()).post(() -> listener.onTransferProgress(percent));
-                        }
-                    };
-
-                    client.setCopyStreamListener(streamListener);
-                }
+                client.setCopyStreamListener(streamListener);
+            }
 
-                fos = new FileOutputStream(new File(localFile));
-                
+            try (FileOutputStream fos = new FileOutputStream(new File(localFile))) {
                 if (!client.retrieveFile(remoteFile, fos)) {
                     throw new Exception("retrieve failed for " + remoteFile);
                 }
 
                 fos.flush();
+            }
 
-                if (deleteRemote) {
-                    if (!client.deleteFile(remoteFile)) {
+            if (deleteRemote) {
+                if (!client.deleteFile(remoteFile)) {
                     throw new Exception("delete failed for " + remoteFile);
-                    }
-                }
-
-                if (listener != null) {
-                    new Handler(Looper.getMainLooper()).post(() -> listener.onTransferCompleted(true, localFile));
-                }
-
-            } catch (Exception ex) {
-                Log.w(CLASS_NAME, "Unable to FTP RETRIEVE file: " + ex.getMessage(), ex);
-                if (listener != null) {
-                    new Handler(Looper.getMainLooper()).post(() -> listener.onTransferCompleted(false, null));
-                }
-                
-            } finally {
-                if (fos != null) {
-                    try {
-                        fos.close();
-                    } catch (IOException e) {
-                        // do nothing
-                    }
-                }
-                
-                if (client.isConnected()) {
-                    try {
-                        client.disconnect();
-                    } catch (IOException e) {
-                        // do nothing
-                    }
                 }
             }
 
-        }).start();
+            if (listener != null) {
+                new Handler(Looper.getMainLooper()).post(() -> listener.onTransferCompleted(true, localFile));
+            }
+        }, () -> {
+            if (listener != null) {
+                new Handler(Looper.getMainLooper()).post(() -> listener.onTransferCompleted(false, null));
+            }
+        });
     }
 
     public void retrieveFileContents(@NonNull final String remoteFile, @NonNull final FtpTransferListener listener) {
-        new Thread(() -> {
-            final FTPClient client = createFtpClient();
-            ByteArrayOutputStream baos = null;
+        execute(commandExecutor, "RETRIEVE file contents", client -> {
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
 
-            try {
-                // not sure if this is necessary
-                client.setBufferSize(1048576);
+            if (!client.retrieveFile(remoteFile, baos)) {
+                throw new Exception("retrieve failed for " + remoteFile);
+            }
 
-                connect(client);
-                baos = new ByteArrayOutputStream();
+            final byte[] contents = baos.toByteArray();
+            new Handler(Looper.getMainLooper()).post(() -> listener.onTransferCompleted(true, contents));
+        }, () -> new Handler(Looper.getMainLooper()).post(() -> listener.onTransferCompleted(false, null)));
+    }
 
-                if (!client.retrieveFile(remoteFile, baos)) {
-                    throw new Exception("retrieve failed for " + remoteFile);
-                }
+    public void deleteFile(@NonNull final String remoteFile, @Nullable final FtpTransferListener listener) {
+        execute(commandExecutor, "DELETE files", client -> {
+            if (listener != null) {
+                final boolean result = client.deleteFile(remoteFile);
+                new Handler(Looper.getMainLooper()).post(() -> listener.onTransferCompleted(result, remoteFile));
+            }
+        }, () -> {
+            if (listener != null) {
+                new Handler(Looper.getMainLooper()).post(() -> listener.onTransferCompleted(false, null));
+            }
+        });
+    }
 
-                final byte[] contents = baos.toByteArray();
-                new Handler(Looper.getMainLooper()).post(() -> listener.onTransferCompleted(true, contents));
+    public void fullWipe(@Nullable final FtpTransferListener listener) {
+        execute(commandExecutor, "LIST files", client -> {
+            final SortedMap<String, FTPFile> remoteFiles = new TreeMap<>();
+            listFiles(client, remoteFiles);
 
-            } catch (Exception ex) {
-                Log.w(CLASS_NAME, "Unable to FTP RETRIEVE file contents: " + ex.getMessage(), ex);
+            for (String remoteFile : remoteFiles.keySet()) {
+                if (!client.deleteFile(remoteFile) && listener != null) {
+                    new Handler(Looper.getMainLooper()).post(() -> listener.onTransferCompleted(false, remoteFiles));
+                    return;
+                }
+            }
+
+            if (listener != null) {
+                new Handler(Looper.getMainLooper()).post(() -> listener.onTransferCompleted(true, remoteFiles));
+            }
+        }, () -> {
+            if (listener != null) {
                 new Handler(Looper.getMainLooper()).post(() -> listener.onTransferCompleted(false, null));
+            }
+        });
+    }
 
-            } finally {
-                if (baos != null) {
-                    try {
-                        baos.close();
-                    } catch (IOException e) {
-                        // do nothing
-                    }
-                }
+    /** An operation to run on a logged-in control connection. */
+    private interface Operation {
+
+        /**
+         * Runs the operation.
+         *
+         * @param client logged-in FTP client to run the operation with
+         *
+         * @throws Exception in case the operation failed
+         */
+        void run(@NonNull FTPClient client) throws Exception;
+    }
 
-                if (client.isConnected()) {
-                    try {
-                        client.disconnect();
-                    } catch (IOException e) {
-                        // do nothing
+    /**
+     * Runs an operation in background, on a pooled control connection.
+     * <p>
+     * The connection is given back to the pool once the operation completes, unless the operation failed with an I/O
+     * error, in which case the connection state is unknown and the connection is closed.
+     *
+     * @param executor  executor to run the operation on
+     * @param name      operation name, for logging
+     * @param operation operation to run
+     * @param onFailure called in background in case the operation failed
+     */
+    private void execute(@NonNull final ScheduledThreadPoolExecutor executor, @NonNull final String name,
+                         @NonNull final Operation operation, @NonNull final Runnable onFailure) {
+        try {
+            executor.execute(() -> {
+                PooledClient client = null;
+                boolean reusable = false;
+                final byte[] buffer = acquireTransferBuffer();
+                try {
+                    client = acquireClient();
+                    client.client.setTransferBuffer(buffer);
+                    operation.run(client.client);
+                    reusable = true;
+                } catch (Exception ex) {
+                    Log.w(CLASS_NAME, "Unable to FTP " + name + ": " + ex.getMessage(), ex);
+                    reusable = !(ex instanceof IOException);
+                    onFailure.run();
+                } finally {
+                    if (client != null) {
+                        client.client.setTransferBuffer(null);
+                        client.client.setCopyStreamListener(null);
+                        releaseClient(client, reusable);
                     }
+                    releaseTransferBuffer(buffer);
                 }
-            }
-        }).start();
+            });
+        } catch (RejectedExecutionException ex) {
+            Log.w(CLASS_NAME, "Unable to FTP " + name + ": session closed");
+            onFailure.run();
+        }
     }
 
-    public void deleteFile(@NonNull final String remoteFile, @Nullable final FtpTransferListener listener) {
-        new Thread(() -> {
-            final FTPClient client = createFtpClient();
-//            final SortedMap<String, FTPFile> remoteFiles = new TreeMap<>();
+    /** A pooled control connection. */
+    private static final class PooledClient {
 
-            try {
-                connect(client);
+        /** Logged-in FTP client. */
+        @NonNull
+        final FTPClient client;
 
-                if (listener != null) {
-                    final boolean result = client.deleteFile(remoteFile);
-                    new Handler(Looper.getMainLooper()).post(() -> listener.onTransferCompleted(result, remoteFile));
-                }
+        /** Time when the connection was last used by an operation, in milliseconds since boot. */
+        long lastUse;
 
-            } catch (Exception ex) {
-                Log.w(CLASS_NAME, "Unable to FTP DELETE files: " + ex.getMessage(), ex);
-                if (listener != null) {
-                    new Handler(Looper.getMainLooper()).post(() -> listener.onTransferCompleted(false, null));
-                }
+        /** Time when the connection last exchanged a command with the server, in milliseconds since boot. */
+        long lastActivity;
 
-            } finally {
-                if (client.isConnected()) {
-                    try {
-                        client.disconnect();
-                    } catch (IOException e) {
-                        // do nothing
-                    }
+        /**
+         * Constructor.
+         *
+         * @param client logged-in FTP client
+         */
+        PooledClient(@NonNull FTPClient client) {
+            this.client = client;
+            this.lastUse = SystemClock.elapsedRealtime();
+            this.lastActivity = lastUse;
+        }
+    }
+
+    /**
+     * Obtains a logged-in control connection.
+     * <p>
+     * Reuses a pooled connection if one is still alive, otherwise opens a new one.
+     *
+     * @return a logged-in control connection
+     *
+     * @throws Exception in case a new connection could not be opened
+     */
+    @NonNull
+    private PooledClient acquireClient() throws Exception {
+        while (true) {
+            final PooledClient pooled;
+            synchronized (this) {
+                pooled = idleClients.pollFirst();
+            }
+            if (pooled == null) {
+                break;
+            } else if (isAlive(pooled)) {
+                return pooled;
+            }
+            disconnect(pooled.client);
+        }
+        final FTPClient client = createFtpClient();
+        try {
+            connect(client);
+        } catch (Exception ex) {
+            disconnect(client);
+            throw ex;
+        }
+        return new PooledClient(client);
+    }
+
+    /**
+     * Gives a control connection back to the pool.
+     *
+     * @param client   control connection to release
+     * @param reusable {@code false} to close the connection instead of pooling it
+     */
+    private void releaseClient(@NonNull final PooledClient client, final boolean reusable) {
+        if (reusable && client.client.isConnected()) {
+            client.lastUse = SystemClock.elapsedRealtime();
+            client.lastActivity = client.lastUse;
+            synchronized (this) {
+                if (!closed) {
+                    idleClients.addFirst(client);
+                    scheduleMaintenance();
+                    return;
                 }
             }
+        }
+        disconnect(client.client);
+    }
 
-        }).start();
+    /**
+     * Tells whether a pooled control connection is still alive.
+     * <p>
+     * Connections unused for more than {@link #IDLE_TIMEOUT} are considered dead. Connections that did not exchange any
+     * command for more than {@link #KEEPALIVE_INTERVAL} are probed with a NOOP.
+     *
+     * @param client control connection to check
+     *
+     * @return {@code true} if the connection can be used, otherwise {@code false}
+     */
+    private static boolean isAlive(@NonNull final PooledClient client) {
+        if (!client.client.isConnected()) {
+            return false;
+        }
+        final long now = SystemClock.elapsedRealtime();
+        if (now - client.lastUse >= IDLE_TIMEOUT) {
+            return false;
+        } else if (now - client.lastActivity < KEEPALIVE_INTERVAL) {
+            return true;
+        }
+        try {
+            if (client.client.sendNoOp()) {
+                client.lastActivity = SystemClock.elapsedRealtime();
+                return true;
+            }
+        } catch (IOException e) {
+            // connection is dead
+        }
+        return false;
     }
 
-    public void fullWipe(@Nullable final FtpTransferListener listener) {
-        new Thread(() -> {
-            final FTPClient client = createFtpClient();
-            final SortedMap<String, FTPFile> remoteFiles = new TreeMap<>();
+    /**
+     * Schedules maintenance of idle control connections, unless already scheduled.
+     * <p>
+     * Must be called with the session lock held.
+     */
+    private void scheduleMaintenance() {
+        if (maintenance == null && !idleClients.isEmpty()) {
+            maintenance = commandExecutor.schedule(this::maintainIdleClients, KEEPALIVE_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+    }
 
-            try {
-                connect(client);
-                listFiles(client, remoteFiles);
-
-//                long count = 0;
-
-                for (String remoteFile : remoteFiles.keySet()) {
-                    if (!client.deleteFile(remoteFile) && listener != null) {
-                        new Handler(Looper.getMainLooper()).post(() -> listener.onTransferCompleted(false, remoteFiles));
-                        return;
-//                    } else if (listener != null) {
-//                        final int percent = Math.round(++count / remoteFiles.size() * 100);
-//                        new Handler(Looper.getMainLooper()).post(() -> listener.onTransferProgress(percent));
+    /**
+     * Keeps idle control connections alive with NOOP commands, and closes those that are idle for too long or dead.
+     */
+    private void maintainIdleClients() {
+        final List<PooledClient> due = new ArrayList<>();
+        synchronized (this) {
+            maintenance = null;
+            final long now = SystemClock.elapsedRealtime();
+            for (Iterator<PooledClient> it = idleClients.iterator(); it.hasNext(); ) {
+                final PooledClient client = it.next();
+                if (now - client.lastActivity >= KEEPALIVE_INTERVAL) {
+                    it.remove();
+                    due.add(client);
+                }
+            }
+        }
+        for (PooledClient client : due) {
+            // sends a NOOP, unless the connection is unused for too long
+            if (isAlive(client)) {
+                synchronized (this) {
+                    if (!closed) {
+                        idleClients.addLast(client);
+                        continue;
                     }
                 }
+            }
+            disconnect(client.client);
+        }
+        synchronized (this) {
+            scheduleMaintenance();
+        }
+    }
 
-                if (listener != null) {
-                    new Handler(Looper.getMainLooper()).post(() -> listener.onTransferCompleted(true, remoteFiles));
-                }
+    /**
+     * Obtains a transfer buffer, reusing a pooled one if available.
+     *
+     * @return a transfer buffer
+     */
+    @NonNull
+    private byte[] acquireTransferBuffer() {
+        synchronized (this) {
+            final byte[] buffer = transferBuffers.poll();
+            if (buffer != null) {
+                return buffer;
+            }
+        }
+        return new byte[TRANSFER_BUFFER_SIZE];
+    }
 
-            } catch (Exception ex) {
-                Log.w(CLASS_NAME, "Unable to FTP LIST files: " + ex.getMessage(), ex);
-                if (listener != null) {
-                    new Handler(Looper.getMainLooper()).post(() -> listener.onTransferCompleted(false, null));
-                }
+    /**
+     * Gives a transfer buffer back to the pool.
+     *
+     * @param buffer transfer buffer to release
+     */
+    private synchronized void releaseTransferBuffer(@NonNull final byte[] buffer) {
+        if (!closed && transferBuffers.size() < MAX_CONNECTIONS) {
+            transferBuffers.push(buffer);
+        }
+    }
 
-            } finally {
-                if (client.isConnected()) {
-                    try {
-                        client.disconnect();
-                    } catch (IOException e) {
-                        // do nothing
-                    }
-                }
+    /**
+     * Creates an executor for operations of this session.
+     *
+     * @param threadCount maximum amount of operations running concurrently on the executor
+     *
+     * @return a new executor
+     */
+    @NonNull
+    private ScheduledThreadPoolExecutor createExecutor(final int threadCount) {
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(threadCount, runnable -> {
+            Thread thread = new Thread(runnable, "FtpSession " + address + ":" + port);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setKeepAliveTime(IDLE_TIMEOUT, TimeUnit.MILLISECONDS);
+        executor.allowCoreThreadTimeOut(true);
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        return executor;
+    }
+
+    private static void disconnect(@NonNull final FTPClient client) {
+        if (client.isConnected()) {
+            try {
+                client.disconnect();
+            } catch (IOException e) {
+                // do nothing
             }
-        }).start();
+        }
     }
 
     private FTPClient createFtpClient() {
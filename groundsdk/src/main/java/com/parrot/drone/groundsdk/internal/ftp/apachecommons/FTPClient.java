@@ -383,6 +383,7 @@ public class FTPClient extends FTP
     private long __restartOffset;
     private FTPFileEntryParserFactory __parserFactory;
     private int __bufferSize; // buffersize for buffered data streams
+    private byte[] __transferBuffer; // caller-provided buffer for file transfers, null to allocate one per transfer
     private int __sendDataSocketBufferSize;
     private int __receiveDataSocketBufferSize;
     private boolean __listHiddenFiles;
@@ -693,7 +694,7 @@ public class FTPClient extends FTP
         // Treat everything else as binary for now
         try
         {
-            Util.copyStream(local, output, getBufferSize(),
+            Util.copyStream(local, output, __getTransferBuffer(),
                     CopyStreamEvent.UNKNOWN_STREAM_SIZE, __mergeListeners(csl),
                     false);
             output.close(); // ensure the file is fully written
@@ -1941,7 +1942,7 @@ public class FTPClient extends FTP
         // Treat everything else as binary for now
         try
         {
-            Util.copyStream(input, local, getBufferSize(),
+            Util.copyStream(input, local, __getTransferBuffer(),
                     CopyStreamEvent.UNKNOWN_STREAM_SIZE, __mergeListeners(csl),
                     false);
 
@@ -3694,6 +3695,25 @@ public class FTPClient extends FTP
         return __bufferSize;
     }
 
+    /**
+     * Set the buffer used to copy file data during subsequent file transfers.
+     * <p>
+     * This allows callers to reuse a buffer across transfers, instead of allocating a new one for each transfer.
+     *
+     * @param buffer The buffer to use, {@code null} to allocate a new buffer, sized after the internal buffer size,
+     *               for each transfer.
+     */
+    public void setTransferBuffer(byte[] buffer) {
+        __transferBuffer = buffer;
+    }
+
+    private byte[] __getTransferBuffer() {
+        if (__transferBuffer != null) {
+            return __transferBuffer;
+        }
+        return new byte[__bufferSize > 0 ? __bufferSize : Util.DEFAULT_COPY_BUFFER_SIZE];
+    }
+
     /**
      * Sets the value to be used for the data socket SO_SNDBUF option.
      * If the value is positive, the option will be set when the data socket has been created.
@@ -92,10 +92,36 @@ public final class Util
                                         CopyStreamListener listener,
                                         boolean flush)
             throws CopyStreamException
+    {
+        return copyStream(source, dest, new byte[bufferSize > 0 ? bufferSize : DEFAULT_COPY_BUFFER_SIZE],
+                streamSize, listener, flush);
+    }
+
+    /***
+     * Same as {@link #copyStream(InputStream, OutputStream, int, long, CopyStreamListener, boolean)}, but copies
+     * through a caller-provided buffer, which allows callers to reuse the same buffer across copies.
+     *
+     * @param source  The source InputStream.
+     * @param dest    The destination OutputStream.
+     * @param buffer  The buffer to copy through; must not be empty.
+     * @param streamSize  The number of bytes in the stream being copied.
+     *          Should be set to CopyStreamEvent.UNKNOWN_STREAM_SIZE if unknown.
+     * @param listener  The CopyStreamListener to notify of progress.  If
+     *      this parameter is null, notification is not attempted.
+     * @param flush Whether to flush the output stream after every
+     *        write.
+     * @return number of bytes read/written
+     * @throws CopyStreamException  If an error occurs while reading from the
+     *            source or writing to the destination.
+     ***/
+    public static final long copyStream(InputStream source, OutputStream dest,
+                                        byte[] buffer, long streamSize,
+                                        CopyStreamListener listener,
+                                        boolean flush)
+            throws CopyStreamException
     {
         int numBytes;
         long total = 0;
-        byte[] buffer = new byte[bufferSize > 0 ? bufferSize : DEFAULT_COPY_BUFFER_SIZE];
 
         try
         {
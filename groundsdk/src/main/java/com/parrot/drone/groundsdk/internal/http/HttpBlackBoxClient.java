@@ -152,7 +152,7 @@ public class HttpBlackBoxClient extends HttpClient {
                 ULog.e(TAG_HTTP, "Failed to delete blackbox [file:" + blackbox + "]");
             }
             return null;
-        }).whenComplete((result, error, canceled) -> {
+        }, Executor.Lane.TRANSFER).whenComplete((result, error, canceled) -> {
             if (error != null) {
                 if (ULog.e(TAG_HTTP)) {
                     ULog.e(TAG_HTTP, "Failed to upload blackbox [file:" + blackbox + "]", error);
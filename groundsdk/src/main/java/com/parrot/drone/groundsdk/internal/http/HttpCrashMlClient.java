@@ -148,7 +148,7 @@ public class HttpCrashMlClient extends HttpClient {
                 throw new HttpException(response.message(), response.code());
             }
             return null;
-        }).whenComplete((result, error, canceled) -> {
+        }, Executor.Lane.TRANSFER).whenComplete((result, error, canceled) -> {
             if (error != null) {
                 if (ULog.e(TAG_HTTP)) {
                     ULog.e(TAG_HTTP, "Upload report failed [report:" + report + "]", error);
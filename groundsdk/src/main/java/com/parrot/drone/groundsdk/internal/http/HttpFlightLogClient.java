@@ -153,7 +153,7 @@ public class HttpFlightLogClient extends HttpClient {
                 ULog.e(TAG_HTTP, "Delete record failed [record:" + record + "]");
             }
             return null;
-        }).whenComplete((result, error, canceled) -> {
+        }, Executor.Lane.TRANSFER).whenComplete((result, error, canceled) -> {
             if (error != null) {
                 if (ULog.e(TAG_HTTP)) {
                     ULog.e(TAG_HTTP, "Upload record failed [record:" + record + "]", error);
@@ -115,6 +115,30 @@ public interface HttpRequest extends Cancelable {
          * @param progress current request progress
          */
         void onRequestProgress(@IntRange(from = 0, to = 100) int progress);
+
+        /**
+         * Called back periodically with the measured transfer throughput of the request.
+         * <p>
+         * Requests that transfer data over several concurrent connections report the throughput of each connection.
+         * <p>
+         * Default implementation does nothing.
+         *
+         * @param throughputs throughput of each connection, in bytes per second
+         */
+        default void onRequestThroughput(@NonNull long[] throughputs) {
+        }
+
+        /**
+         * Called back periodically with the overall transfer rate of the request and its estimated remaining time.
+         * <p>
+         * Default implementation does nothing.
+         *
+         * @param bytesPerSecond overall transfer rate, in bytes per second
+         * @param remainingTime  estimated remaining time, in milliseconds; {@link ProgressReporter#UNKNOWN} if it
+         *                       cannot be estimated
+         */
+        default void onRequestTransferRate(long bytesPerSecond, long remainingTime) {
+        }
     }
 
     /**
@@ -165,8 +165,7 @@ public class HttpUpdateClient extends HttpClient {
             }
 
             assert body != null;
-            body = ProgressCaptor.captureOf(body,
-                    percent -> Executor.postOnMainThread(() -> callback.onRequestProgress(percent)));
+            body = ProgressCaptor.captureOf(body, ProgressReporter.of(callback));
             try {
                 Files.writeFile(body.byteStream(), dest, CHUNK_SIZE);
                 long received = dest.length();
@@ -186,7 +185,7 @@ public class HttpUpdateClient extends HttpClient {
             } finally {
                 body.close();
             }
-        }).whenComplete((result, error, canceled) -> {
+        }, Executor.Lane.TRANSFER).whenComplete((result, error, canceled) -> {
             if (error != null) {
                 if (ULog.e(TAG_HTTP)) {
                     ULog.e(TAG_HTTP, "Download request failed [url:" + url + ", dest: " + dest + "]", error);
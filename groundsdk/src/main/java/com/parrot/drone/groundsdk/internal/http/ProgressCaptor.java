@@ -64,6 +64,17 @@ public final class ProgressCaptor {
          * @param percent progress
          */
         void onProgress(@IntRange(from = 0, to = 100) int percent);
+
+        /**
+         * Called each time data flows through the captured body.
+         * <p>
+         * Default implementation does nothing.
+         *
+         * @param transferred amount of bytes transferred so far
+         * @param total       total amount of bytes to transfer; negative if unknown
+         */
+        default void onTransferred(long transferred, long total) {
+        }
     }
 
     /**
@@ -129,6 +140,7 @@ public final class ProgressCaptor {
                         public void write(@NonNull Buffer source, long byteCount) throws IOException {
                             super.write(source, byteCount);
                             mCurrentLength += byteCount;
+                            mListener.onTransferred(mCurrentLength, contentLength);
                             int progress = Math.round(mCurrentLength * 100f / contentLength);
                             if (progress > mLastProgress) {
                                 mLastProgress = progress;
@@ -197,6 +209,7 @@ public final class ProgressCaptor {
                         long readLength = super.read(sink, byteCount);
                         if (readLength > 0) {
                             mCurrentLength += readLength;
+                            mListener.onTransferred(mCurrentLength, contentLength);
                             int progress = Math.round(mCurrentLength * 100f / contentLength);
                             if (progress > mLastProgress) {
                                 mLastProgress = progress;
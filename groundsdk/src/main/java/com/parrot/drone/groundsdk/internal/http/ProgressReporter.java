@@ -0,0 +1,238 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.internal.http;
+
+import androidx.annotation.IntRange;
+import androidx.annotation.NonNull;
+
+import com.parrot.drone.groundsdk.internal.GroundSdkConfig;
+import com.parrot.drone.groundsdk.internal.tasks.Executor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reports the progress of a data transfer performed on a background thread to a listener on the main thread.
+ * <p>
+ * The transferring thread notifies the amount of bytes transferred so far as often as it wants; the reporter
+ * coalesces those notifications so that the listener is called back at most {@link
+ * GroundSdkConfig#getTransferProgressMaxRate() max rate} times per second, along with the measured transfer rate and
+ * the estimated remaining time. Transfer completion is always reported. When the main thread lags, pending updates are
+ * merged into a single one carrying the latest values.
+ * <p>
+ * A reporter is meant to be fed by a single transferring thread. It does not allocate any memory once created.
+ */
+public final class ProgressReporter implements ProgressCaptor.Listener {
+
+    /**
+     * Interface of listener receiving progress reports on the main thread.
+     */
+    public interface Listener {
+
+        /**
+         * Called back when the transfer progresses.
+         *
+         * @param percent        transfer completion percentage
+         * @param bytesPerSecond measured transfer rate, in bytes per second; {@code 0} until measured
+         * @param remainingTime  estimated remaining transfer time, in milliseconds; {@link #UNKNOWN} if it cannot be
+         *                       estimated yet
+         */
+        void onProgress(@IntRange(from = 0, to = 100) int percent, long bytesPerSecond, long remainingTime);
+    }
+
+    /** Value reported as remaining time when it cannot be estimated. */
+    public static final long UNKNOWN = -1;
+
+    /** Weight of the latest rate sample in the smoothed transfer rate. */
+    private static final double RATE_SMOOTHING = 0.3;
+
+    /**
+     * Creates a new progress reporter.
+     *
+     * @param listener listener notified of progress on the main thread
+     *
+     * @return a new progress reporter
+     */
+    @NonNull
+    public static ProgressReporter create(@NonNull Listener listener) {
+        return new ProgressReporter(listener, GroundSdkConfig.get().getTransferProgressMaxRate());
+    }
+
+    /**
+     * Creates a new progress reporter that notifies an HTTP request progress callback.
+     * <p>
+     * The callback is notified through {@link HttpRequest.ProgressCallback#onRequestProgress} each time the
+     * completion percentage changes, and through {@link HttpRequest.ProgressCallback#onRequestTransferRate} for each
+     * report.
+     *
+     * @param callback callback notified of progress on the main thread
+     *
+     * @return a new progress reporter
+     */
+    @NonNull
+    public static ProgressReporter of(@NonNull HttpRequest.ProgressCallback callback) {
+        return create(new Listener() {
+
+            /** Latest percentage notified to the callback; {@code -1} before the first notification. */
+            private int mNotifiedPercent = -1;
+
+            @Override
+            public void onProgress(int percent, long bytesPerSecond, long remainingTime) {
+                if (percent != mNotifiedPercent) {
+                    mNotifiedPercent = percent;
+                    callback.onRequestProgress(percent);
+                }
+                callback.onRequestTransferRate(bytesPerSecond, remainingTime);
+            }
+        });
+    }
+
+    /** Listener notified of progress. */
+    @NonNull
+    private final Listener mListener;
+
+    /** Minimum interval between two reports, in nanoseconds; {@code 0} to report each percentage change. */
+    private final long mMinInterval;
+
+    /** {@code true} when a report is posted on the main thread and not delivered yet. */
+    @NonNull
+    private final AtomicBoolean mReportPending;
+
+    /** Delivers the latest report to the listener, on the main thread. */
+    @NonNull
+    private final Runnable mDeliverReport = this::deliverReport;
+
+    /** Time of the latest report, in nanoseconds. */
+    private long mLastReportTime;
+
+    /** Amount of bytes transferred at the time of the latest report. */
+    private long mLastReportBytes;
+
+    /** Percentage of the latest report; {@code -1} before the first report. */
+    private int mLastPercent;
+
+    /** Smoothed transfer rate, in bytes per second. */
+    private double mRate;
+
+    /** Completion percentage to deliver. Guarded by {@code this}. */
+    private int mReportPercent;
+
+    /** Transfer rate to deliver, in bytes per second. Guarded by {@code this}. */
+    private long mReportRate;
+
+    /** Remaining time to deliver, in milliseconds. Guarded by {@code this}. */
+    private long mReportRemainingTime;
+
+    /**
+     * Constructor.
+     *
+     * @param listener listener notified of progress
+     * @param maxRate  maximum amount of reports per second; {@code 0} to report each percentage change
+     */
+    private ProgressReporter(@NonNull Listener listener, @IntRange(from = 0) int maxRate) {
+        mListener = listener;
+        mMinInterval = maxRate == 0 ? 0 : TimeUnit.SECONDS.toNanos(1) / maxRate;
+        mReportPending = new AtomicBoolean();
+        mLastPercent = -1;
+        mReportRemainingTime = UNKNOWN;
+    }
+
+    /**
+     * Notifies the amount of data transferred so far.
+     * <p>
+     * Must be called from the transferring thread, which must not be the main thread.
+     *
+     * @param transferred amount of bytes transferred so far
+     * @param total       total amount of bytes to transfer; negative if unknown
+     */
+    @Override
+    public void onTransferred(long transferred, long total) {
+        long now = System.nanoTime();
+        boolean done = total >= 0 && transferred >= total;
+        int percent = total > 0 ? (int) (Math.min(transferred, total) * 100 / total) : done ? 100 : 0;
+        if (mLastPercent == -1) {
+            // first notification only provides the reference sample to measure the rate from
+            mLastReportTime = now;
+            mLastReportBytes = transferred;
+        } else if (!done && (mMinInterval == 0 ? percent == mLastPercent : now - mLastReportTime < mMinInterval)) {
+            return;
+        } else {
+            long elapsed = now - mLastReportTime;
+            if (elapsed > 0) {
+                double rate = (transferred - mLastReportBytes) * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+                mRate = mRate == 0 ? rate : mRate + RATE_SMOOTHING * (rate - mRate);
+            }
+            mLastReportTime = now;
+            mLastReportBytes = transferred;
+        }
+        mLastPercent = percent;
+
+        long rate = Math.round(mRate);
+        long remainingTime = done ? 0 : total < 0 || rate == 0 ? UNKNOWN
+                : TimeUnit.SECONDS.toMillis(total - transferred) / rate;
+        synchronized (this) {
+            mReportPercent = percent;
+            mReportRate = rate;
+            mReportRemainingTime = remainingTime;
+        }
+        if (mReportPending.compareAndSet(false, true)) {
+            Executor.postOnMainThread(mDeliverReport);
+        }
+    }
+
+    /**
+     * Does nothing; completion percentage is computed from the amount of transferred bytes.
+     *
+     * @param percent progress
+     */
+    @Override
+    public void onProgress(@IntRange(from = 0, to = 100) int percent) {
+    }
+
+    /**
+     * Delivers the latest report to the listener.
+     * <p>
+     * Called on the main thread.
+     */
+    private void deliverReport() {
+        mReportPending.set(false);
+        int percent;
+        long rate, remainingTime;
+        synchronized (this) {
+            percent = mReportPercent;
+            rate = mReportRate;
+            remainingTime = mReportRemainingTime;
+        }
+        mListener.onProgress(percent, rate, remainingTime);
+    }
+}
@@ -39,10 +39,15 @@ import androidx.annotation.NonNull;
 import com.parrot.drone.sdkcore.ulog.ULog;
 
 import java.io.PrintWriter;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.parrot.drone.groundsdk.internal.Logging.TAG_EXECUTOR;
@@ -57,12 +62,14 @@ interface BackgroundThreadScheduler {
     /**
      * Submits a callable for execution on a background thread.
      *
-     * @param job callable to execute
-     * @param <T> type of result returned by the callable
+     * @param job    callable to execute
+     * @param lane   lane to execute the callable in
+     * @param origin class to account the callable execution metrics to
+     * @param <T>    type of result returned by the callable
      *
      * @return a background task that can be observed for completion and canceled.
      */
-    <T> Task<T> submit(@NonNull Callable<T> job);
+    <T> Task<T> submit(@NonNull Callable<T> job, @NonNull Executor.Lane lane, @NonNull Class<?> origin);
 
     /**
      * Cancels all submitted and all executing tasks.
@@ -71,9 +78,40 @@ interface BackgroundThreadScheduler {
 
     /**
      * Default {@code BackgroundThreadScheduler} implementation.
+     * <p>
+     * Submitted jobs are queued in their lane, then dispatched to a bounded pool of background threads, by lane
+     * priority, as long as neither the pool nor the lane concurrency limit is reached. The {@link
+     * Executor.Lane#INTERACTIVE interactive} and {@link Executor.Lane#PERSISTENCE persistence} lanes each reserve one
+     * thread of the pool that jobs from lower priority lanes never occupy, so that short interactive jobs and state
+     * writes can always start, even when long transfers or housekeeping jobs are in progress.
+     * <p>
+     * Queue wait and run times are recorded per job class and reported in the debug dump.
      */
     final class Default implements BackgroundThreadScheduler {
 
+        /** Default maximum amount of concurrent tasks in each lane, by lane ordinal. */
+        static final int[] DEFAULT_LANE_CONCURRENCY = {4, 2, 4, 1};
+
+        /**
+         * Minimum amount of threads of pools sized according to available processors. Leaves two threads to transfer
+         * and housekeeping jobs besides the reserved threads.
+         */
+        private static final int MIN_AUTO_THREAD_COUNT = 4;
+
+        /** Time after which idle background threads are terminated, in seconds. */
+        private static final long KEEP_ALIVE = 30;
+
+        /** Android thread priority of jobs, by lane ordinal. */
+        private static final int[] LANE_THREAD_PRIORITY = {
+                Process.THREAD_PRIORITY_BACKGROUND,
+                Process.THREAD_PRIORITY_BACKGROUND,
+                Process.THREAD_PRIORITY_BACKGROUND,
+                Process.THREAD_PRIORITY_BACKGROUND + Process.THREAD_PRIORITY_LESS_FAVORABLE
+        };
+
+        /** Whether the lane reserves a thread that lower priority lanes may not occupy, by lane ordinal. */
+        private static final boolean[] LANE_RESERVES_THREAD = {true, true, false, false};
+
         /** Generates pool's thread identifiers. */
         private final AtomicInteger mThreadNumSequence;
 
@@ -81,19 +119,48 @@ interface BackgroundThreadScheduler {
         @NonNull
         private final TaskGroup mSubmittedTasks;
 
-        /** Background executor service processing all jobs. */
+        /** Lanes, by lane ordinal. Also used as a lock to protect dispatch state. */
         @NonNull
-        private final ExecutorService mExecutorService;
+        private final LaneQueue[] mLanes;
+
+        /** Maximum amount of jobs running concurrently in the pool. */
+        private final int mThreadCount;
+
+        /** Amount of jobs currently running. */
+        private int mRunningCount;
+
+        /** {@code true} once the scheduler is shut down. */
+        private boolean mShutdown;
+
+        /** Queue wait and run time statistics, by job class. */
+        @NonNull
+        private final Map<Class<?>, DispatchStats> mDispatchStats;
+
+        /** Background thread pool processing dispatched jobs. */
+        @NonNull
+        private final ThreadPoolExecutor mThreadPool;
 
         /**
          * Constructor.
+         *
+         * @param threadCount     maximum amount of background threads, {@code 0} to size the pool according to the
+         *                        device available processors
+         * @param laneConcurrency maximum amount of concurrent tasks in each lane, by lane ordinal
          */
-        Default() {
-            ULog.d(TAG_EXECUTOR, "Starting background thread scheduler");
+        Default(int threadCount, @NonNull int[] laneConcurrency) {
+            mThreadCount = threadCount > 0 ? threadCount
+                    : Math.max(MIN_AUTO_THREAD_COUNT, Runtime.getRuntime().availableProcessors());
+            ULog.d(TAG_EXECUTOR, "Starting background thread scheduler [threads: " + mThreadCount + "]");
             mThreadNumSequence = new AtomicInteger();
             mSubmittedTasks = new TaskGroup();
-            mExecutorService = Executors.newCachedThreadPool(runnable ->
-                    new Thread("bg-" + mThreadNumSequence.incrementAndGet()) {
+            Executor.Lane[] lanes = Executor.Lane.values();
+            mLanes = new LaneQueue[lanes.length];
+            for (int i = 0; i < lanes.length; i++) {
+                mLanes[i] = new LaneQueue(lanes[i], Math.max(1, laneConcurrency[i]));
+            }
+            mDispatchStats = new HashMap<>();
+            mThreadPool = new ThreadPoolExecutor(mThreadCount, mThreadCount, KEEP_ALIVE, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), runnable -> new Thread("bg-" + mThreadNumSequence.incrementAndGet()) {
 
                         @Override
                         public void run() {
@@ -101,25 +168,135 @@ interface BackgroundThreadScheduler {
                             runnable.run();
                         }
                     });
+            mThreadPool.allowCoreThreadTimeOut(true);
         }
 
         @Override
-        public <T> Task<T> submit(@NonNull Callable<T> job) {
+        public <T> Task<T> submit(@NonNull Callable<T> job, @NonNull Executor.Lane lane, @NonNull Class<?> origin) {
             if (ULog.d(TAG_EXECUTOR)) {
-                ULog.d(TAG_EXECUTOR, "[" + Thread.currentThread().getName() + "] Submitting in background: " + job);
+                ULog.d(TAG_EXECUTOR, "[" + Thread.currentThread().getName() + "] Submitting in background [lane: "
+                                     + lane + "]: " + job);
             }
-            Task<T> task = Task.execute(job, mExecutorService);
+            LaneQueue laneQueue = mLanes[lane.ordinal()];
+            Task<T> task = Task.execute(job, runnable -> enqueue(laneQueue, new PendingJob(runnable, origin)));
             mSubmittedTasks.add(task);
             return task;
         }
 
         @Override
         public void shutdown() {
-            mExecutorService.shutdown();
+            synchronized (mLanes) {
+                mShutdown = true;
+                for (LaneQueue lane : mLanes) {
+                    lane.mPending.clear();
+                }
+            }
+            mThreadPool.shutdown();
             mSubmittedTasks.cancelAll();
             ULog.d(TAG_EXECUTOR, "Stopped background thread scheduler");
         }
 
+        /**
+         * Queues a job in a lane, then dispatches pending jobs if possible.
+         *
+         * @param lane lane to queue the job in
+         * @param job  job to queue
+         */
+        private void enqueue(@NonNull LaneQueue lane, @NonNull PendingJob job) {
+            synchronized (mLanes) {
+                if (mShutdown) {
+                    return;
+                }
+                lane.mPending.add(job);
+                dispatch();
+            }
+        }
+
+        /**
+         * Dispatches as many pending jobs as allowed to the thread pool.
+         * <p>
+         * Must be called with the {@link #mLanes} lock held.
+         */
+        private void dispatch() {
+            boolean dispatched = true;
+            while (dispatched && mRunningCount < mThreadCount) {
+                dispatched = false;
+                for (int i = 0; i < mLanes.length && !dispatched; i++) {
+                    LaneQueue lane = mLanes[i];
+                    if (!lane.mPending.isEmpty() && lane.mRunningCount < lane.mConcurrency && hasThreadFor(i)) {
+                        PendingJob job = lane.mPending.remove();
+                        lane.mRunningCount++;
+                        mRunningCount++;
+                        mThreadPool.execute(() -> run(lane, job));
+                        dispatched = true;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Tells whether a job from the given lane may occupy a thread without taking one reserved for a higher priority
+         * lane.
+         * <p>
+         * For each lane, jobs from this lane and all lower priority lanes may occupy at most the pool threads minus one
+         * thread for each higher priority lane that reserves one, and at least one thread. A job may only be dispatched
+         * if that limit still holds for its own lane and all higher priority lanes once it runs.
+         * <p>
+         * Must be called with the {@link #mLanes} lock held.
+         *
+         * @param laneIndex ordinal of the lane to check
+         *
+         * @return {@code true} if a job from the lane may be dispatched, otherwise {@code false}
+         */
+        private boolean hasThreadFor(int laneIndex) {
+            int running = 0;
+            for (int i = mLanes.length - 1; i > laneIndex; i--) {
+                running += mLanes[i].mRunningCount;
+            }
+            int reserved = 0;
+            for (int i = 0; i < laneIndex; i++) {
+                if (LANE_RESERVES_THREAD[i]) {
+                    reserved++;
+                }
+            }
+            for (int i = laneIndex; i >= 0; i--) {
+                running += mLanes[i].mRunningCount;
+                if (running >= Math.max(1, mThreadCount - reserved)) {
+                    return false;
+                }
+                if (i > 0 && LANE_RESERVES_THREAD[i - 1]) {
+                    reserved--;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Runs a dispatched job on a background thread.
+         *
+         * @param lane lane of the job
+         * @param job  job to run
+         */
+        private void run(@NonNull LaneQueue lane, @NonNull PendingJob job) {
+            long waitTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - job.mSubmitTime);
+            Process.setThreadPriority(LANE_THREAD_PRIORITY[lane.mLane.ordinal()]);
+            long startTime = System.nanoTime();
+            try {
+                job.mRunnable.run();
+            } finally {
+                long runTime = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime);
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                DispatchStats.record(mDispatchStats, job.mOrigin, waitTime, runTime);
+                synchronized (mLanes) {
+                    lane.mRunningCount--;
+                    mRunningCount--;
+                    if (!mShutdown) {
+                        dispatch();
+                    }
+                }
+            }
+        }
+
         /**
          * Debug dump.
          *
@@ -127,12 +304,77 @@ interface BackgroundThreadScheduler {
          */
         void dump(@NonNull PrintWriter writer) {
             writer.write("Background scheduler: \n");
-            writer.write("\t" + mExecutorService + "\n");
+            writer.write("\t" + mThreadPool + "\n");
+            synchronized (mLanes) {
+                writer.write("\tRunning jobs: " + mRunningCount + "/" + mThreadCount + "\n");
+                for (LaneQueue lane : mLanes) {
+                    writer.write("\t\t" + lane.mLane + ": running " + lane.mRunningCount + "/" + lane.mConcurrency
+                                 + ", queued " + lane.mPending.size() + "\n");
+                }
+            }
             Set<Task<?>> pendingTasks = mSubmittedTasks.listAll();
             writer.write("\t Pending tasks: " + pendingTasks.size() + "\n");
             for (Task<?> task : pendingTasks) {
                 writer.write("\t\t" + task + "\n");
             }
+            DispatchStats.dump(writer, mDispatchStats);
+        }
+
+        /** A lane queue and its dispatch state. */
+        private static final class LaneQueue {
+
+            /** Lane. */
+            @NonNull
+            final Executor.Lane mLane;
+
+            /** Maximum amount of jobs from this lane that may run concurrently. */
+            final int mConcurrency;
+
+            /** Jobs queued in this lane, in submission order. */
+            @NonNull
+            final Queue<PendingJob> mPending;
+
+            /** Amount of jobs from this lane currently running. */
+            int mRunningCount;
+
+            /**
+             * Constructor.
+             *
+             * @param lane        lane
+             * @param concurrency maximum amount of jobs from this lane that may run concurrently
+             */
+            LaneQueue(@NonNull Executor.Lane lane, int concurrency) {
+                mLane = lane;
+                mConcurrency = concurrency;
+                mPending = new ArrayDeque<>();
+            }
+        }
+
+        /** A job waiting for dispatch. */
+        private static final class PendingJob {
+
+            /** Runnable executing the job. */
+            @NonNull
+            final Runnable mRunnable;
+
+            /** Class to account the job execution metrics to. */
+            @NonNull
+            final Class<?> mOrigin;
+
+            /** Time when the job was queued, in nanoseconds, from {@link System#nanoTime()}. */
+            final long mSubmitTime;
+
+            /**
+             * Constructor.
+             *
+             * @param runnable runnable executing the job
+             * @param origin   class to account the job execution metrics to
+             */
+            PendingJob(@NonNull Runnable runnable, @NonNull Class<?> origin) {
+                mRunnable = runnable;
+                mOrigin = origin;
+                mSubmitTime = System.nanoTime();
+            }
         }
     }
 }
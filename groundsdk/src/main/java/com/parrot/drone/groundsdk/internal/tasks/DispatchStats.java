@@ -0,0 +1,196 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.groundsdk.internal.tasks;
+
+import androidx.annotation.NonNull;
+
+import java.io.PrintWriter;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dispatch statistics of a class of runnables or background jobs.
+ * <p>
+ * Latency is the time elapsed between the moment a runnable should have started and the moment it actually started.
+ * <p>
+ * Latency and run time are both recorded in histograms with exponential buckets: the first bucket counts values under
+ * one millisecond, then each bucket counts values under twice the upper bound of the previous one; the last bucket
+ * counts all greater values.
+ */
+final class DispatchStats {
+
+    /**
+     * Records a dispatched runnable in a collection of statistics.
+     * <p>
+     * This method synchronizes on the given collection.
+     *
+     * @param allStats      statistics, by runnable class
+     * @param runnableClass class of the dispatched runnable
+     * @param latency       dispatch latency, in milliseconds
+     * @param runTime       run time, in microseconds
+     */
+    static void record(@NonNull Map<Class<?>, DispatchStats> allStats, @NonNull Class<?> runnableClass, long latency,
+                       long runTime) {
+        synchronized (allStats) {
+            DispatchStats stats = allStats.get(runnableClass);
+            if (stats == null) {
+                stats = new DispatchStats();
+                allStats.put(runnableClass, stats);
+            }
+            stats.record(latency, runTime);
+        }
+    }
+
+    /**
+     * Dumps a collection of statistics, most time consuming runnable classes first.
+     * <p>
+     * This method synchronizes on the given collection.
+     *
+     * @param writer   writer to dump to
+     * @param allStats statistics to dump, by runnable class
+     */
+    static void dump(@NonNull PrintWriter writer, @NonNull Map<Class<?>, DispatchStats> allStats) {
+        List<Map.Entry<Class<?>, DispatchStats>> entries;
+        synchronized (allStats) {
+            entries = new ArrayList<>(allStats.size());
+            for (Map.Entry<Class<?>, DispatchStats> entry : allStats.entrySet()) {
+                entries.add(new AbstractMap.SimpleEntry<>(entry.getKey(), new DispatchStats(entry.getValue())));
+            }
+        }
+        Collections.sort(entries, (lhs, rhs) -> Long.compare(rhs.getValue().mTotalRunTime,
+                lhs.getValue().mTotalRunTime));
+        writer.write("\tDispatch stats [latency and run time buckets (ms): " + bucketLabels() + "]:\n");
+        for (Map.Entry<Class<?>, DispatchStats> entry : entries) {
+            writer.write("\t\t" + entry.getKey().getName() + ": " + entry.getValue() + "\n");
+        }
+    }
+
+    /** Number of buckets in each histogram. */
+    private static final int BUCKET_COUNT = 12;
+
+    /** Dispatch latency histogram, in milliseconds. */
+    @NonNull
+    private final long[] mLatencies;
+
+    /** Run time histogram, in microseconds, with buckets starting at one millisecond. */
+    @NonNull
+    private final long[] mRunTimes;
+
+    /** Total number of dispatched runnables. */
+    private long mCount;
+
+    /** Maximal dispatch latency, in milliseconds. */
+    private long mMaxLatency;
+
+    /** Maximal run time, in microseconds. */
+    private long mMaxRunTime;
+
+    /** Total run time, in microseconds. */
+    private long mTotalRunTime;
+
+    /**
+     * Constructor.
+     */
+    private DispatchStats() {
+        mLatencies = new long[BUCKET_COUNT];
+        mRunTimes = new long[BUCKET_COUNT];
+    }
+
+    /**
+     * Copy constructor.
+     *
+     * @param other stats to copy
+     */
+    private DispatchStats(@NonNull DispatchStats other) {
+        mLatencies = other.mLatencies.clone();
+        mRunTimes = other.mRunTimes.clone();
+        mCount = other.mCount;
+        mMaxLatency = other.mMaxLatency;
+        mMaxRunTime = other.mMaxRunTime;
+        mTotalRunTime = other.mTotalRunTime;
+    }
+
+    /**
+     * Records a dispatched runnable.
+     *
+     * @param latency dispatch latency, in milliseconds
+     * @param runTime run time, in microseconds
+     */
+    private void record(long latency, long runTime) {
+        mCount++;
+        mLatencies[bucket(latency)]++;
+        mRunTimes[bucket(runTime / 1000)]++;
+        mMaxLatency = Math.max(mMaxLatency, latency);
+        mMaxRunTime = Math.max(mMaxRunTime, runTime);
+        mTotalRunTime += runTime;
+    }
+
+    /**
+     * Computes the histogram bucket of a duration.
+     *
+     * @param millis duration, in milliseconds
+     *
+     * @return bucket index
+     */
+    private static int bucket(long millis) {
+        if (millis <= 0) {
+            return 0;
+        }
+        return Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(millis));
+    }
+
+    /**
+     * Describes histogram bucket bounds.
+     *
+     * @return bucket labels, in milliseconds
+     */
+    @NonNull
+    private static String bucketLabels() {
+        StringBuilder labels = new StringBuilder();
+        for (int i = 0; i < BUCKET_COUNT - 1; i++) {
+            labels.append('<').append(1L << i).append(' ');
+        }
+        return labels.append(">=").append(1L << (BUCKET_COUNT - 2)).toString();
+    }
+
+    @Override
+    public String toString() {
+        return "count: " + mCount + ", latency: " + Arrays.toString(mLatencies) + " max " + mMaxLatency
+               + "ms, run time: " + Arrays.toString(mRunTimes) + " max " + mMaxRunTime / 1000.0 + "ms total "
+               + mTotalRunTime / 1000 + "ms";
+    }
+}
@@ -32,6 +32,7 @@
 
 package com.parrot.drone.groundsdk.internal.tasks;
 
+import androidx.annotation.IntRange;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
@@ -49,6 +50,46 @@ import java.util.concurrent.Callable;
  */
 public final class Executor {
 
+    /**
+     * Background execution lanes.
+     * <p>
+     * Background tasks are queued in the lane they are submitted to, and dispatched to a bounded pool of background
+     * threads. Each lane has its own concurrency limit; when a background thread becomes available, pending tasks
+     * are dispatched by lane, in the order lanes are declared.
+     */
+    public enum Lane {
+
+        /** Short tasks whose result is awaited by the user, such as media thumbnails or browsing. */
+        INTERACTIVE,
+
+        /**
+         * Short writes of application state that should not wait for long running tasks, such as persistent store
+         * flushes, black box journal segments or media file notifications.
+         */
+        PERSISTENCE,
+
+        /** Long running network transfers, such as media, logs or firmware downloads and uploads. */
+        TRANSFER,
+
+        /** Deferrable maintenance tasks, such as file collection, archiving or conversion. */
+        HOUSEKEEPING
+    }
+
+    /**
+     * Runs a callable on a background thread, in the {@link Lane#INTERACTIVE interactive} lane.
+     * <p>
+     * Please refer to {@link #runInBackground(Callable, Lane)} for further details.
+     *
+     * @param job callable to run
+     * @param <T> type of result returned by the callable
+     *
+     * @return a task that can be observed for completion and canceled.
+     */
+    @NonNull
+    public static <T> Task<T> runInBackground(@NonNull Callable<T> job) {
+        return runInBackground(job, Lane.INTERACTIVE);
+    }
+
     /**
      * Runs a callable on a background thread.
      * <p>
@@ -63,14 +104,51 @@ public final class Executor {
      * <p>
      * Please refer to {@code Task} class for guidance concerning cancellation and observation of a background task.
      *
-     * @param job callable to run
-     * @param <T> type of result returned by the callable
+     * @param job  callable to run
+     * @param lane lane to run the callable in
+     * @param <T>  type of result returned by the callable
      *
      * @return a task that can be observed for completion and canceled.
      */
     @NonNull
-    public static <T> Task<T> runInBackground(@NonNull Callable<T> job) {
-        return getBackgroundThreadScheduler().submit(job);
+    public static <T> Task<T> runInBackground(@NonNull Callable<T> job, @NonNull Lane lane) {
+        return runInBackground(job, lane, job.getClass());
+    }
+
+    /**
+     * Runs a callable on a background thread, accounting its execution metrics to the given class.
+     *
+     * @param job    callable to run
+     * @param lane   lane to run the callable in
+     * @param origin class to account the callable execution metrics to
+     * @param <T>    type of result returned by the callable
+     *
+     * @return a task that can be observed for completion and canceled.
+     */
+    @NonNull
+    static <T> Task<T> runInBackground(@NonNull Callable<T> job, @NonNull Lane lane, @NonNull Class<?> origin) {
+        return getBackgroundThreadScheduler().submit(job, lane, origin);
+    }
+
+    /**
+     * Configures the background thread pool.
+     * <p>
+     * Configuration only applies to background thread pools created after this method is called, so it should be
+     * called before any background task is submitted.
+     *
+     * @param threadCount     maximum amount of background threads, {@code 0} to size the pool according to the
+     *                        device available processors
+     * @param laneConcurrency maximum amount of tasks that may run concurrently in each lane, indexed by
+     *                        {@link Lane#ordinal() lane ordinal}
+     */
+    public static void configureBackground(@IntRange(from = 0) int threadCount, @NonNull int[] laneConcurrency) {
+        if (laneConcurrency.length != Lane.values().length) {
+            throw new IllegalArgumentException("Invalid lane concurrency count: " + laneConcurrency.length);
+        }
+        synchronized (Executor.class) {
+            sBackgroundThreadCount = threadCount;
+            sLaneConcurrency = laneConcurrency.clone();
+        }
     }
 
     /**
@@ -139,6 +217,14 @@ public final class Executor {
         }
     }
 
+    /** Maximum amount of background threads, {@code 0} to size the pool according to available processors. */
+    @IntRange(from = 0)
+    private static int sBackgroundThreadCount;
+
+    /** Maximum amount of concurrent tasks in each lane, by lane ordinal. */
+    @NonNull
+    private static int[] sLaneConcurrency = BackgroundThreadScheduler.Default.DEFAULT_LANE_CONCURRENCY;
+
     /** Background executor singleton instance. */
     private static BackgroundThreadScheduler sBackgroundThreadScheduler;
 
@@ -148,8 +234,8 @@ public final class Executor {
     /**
      * Retrieves background thread scheduler singleton.
      * <p>
-     * A default background scheduler instance, backed by a cached thread pool background executor service is created
-     * in case no instance exists yet.
+     * A default background scheduler instance, backed by a bounded pool of background threads configured through
+     * {@link #configureBackground}, is created in case no instance exists yet.
      *
      * @return the background executor service singleton
      */
@@ -158,7 +244,8 @@ public final class Executor {
         if (sBackgroundThreadScheduler == null) {
             synchronized (Executor.class) {
                 if (sBackgroundThreadScheduler == null) {
-                    sBackgroundThreadScheduler = new BackgroundThreadScheduler.Default();
+                    sBackgroundThreadScheduler = new BackgroundThreadScheduler.Default(sBackgroundThreadCount,
+                            sLaneConcurrency);
                 }
             }
         }
@@ -68,11 +68,23 @@ public abstract class Job<T> {
     @NonNull
     public final Task<T> launch() {
         if (mTask == null) {
-            mTask = Executor.runInBackground(mBackgroundBlock).whenComplete(mCompletionListener);
+            mTask = Executor.runInBackground(mBackgroundBlock, getLane(), getClass()).whenComplete(mCompletionListener);
         }
         return mTask;
     }
 
+    /**
+     * Gives the lane the job runs in.
+     * <p>
+     * Subclasses may override this method. Default implementation returns {@link Executor.Lane#HOUSEKEEPING}.
+     *
+     * @return job lane
+     */
+    @NonNull
+    protected Executor.Lane getLane() {
+        return Executor.Lane.HOUSEKEEPING;
+    }
+
     /**
      * Called on a background thread to actually perform the background task.
      * <p>
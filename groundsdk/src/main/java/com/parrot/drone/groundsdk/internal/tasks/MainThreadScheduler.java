@@ -35,14 +35,17 @@ package com.parrot.drone.groundsdk.internal.tasks;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.Message;
+import android.os.SystemClock;
 
 import androidx.annotation.NonNull;
 
 import com.parrot.drone.sdkcore.ulog.ULog;
 
 import java.io.PrintWriter;
-import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static com.parrot.drone.groundsdk.internal.Logging.TAG_EXECUTOR;
 
@@ -106,12 +109,23 @@ interface MainThreadScheduler {
 
     /**
      * Default {@code MainThreadScheduler} implementation.
+     * <p>
+     * Pending runnables are tracked in an identity map that counts, for each runnable, how many times it is currently
+     * posted, so that posting, dispatching and canceling runnables all have constant-time bookkeeping cost.
+     * <p>
+     * Also collects, for each class of dispatched runnables, histograms of dispatch latency (time between the moment
+     * the runnable should have run and the moment it actually runs) and of run time, which are reported in the debug
+     * dump.
      */
     final class Default implements MainThreadScheduler {
 
-        /** All submitted runnables that have not been processed yet. */
+        /** Submitted runnables that have not been processed yet, along with their respective pending post count. */
         @NonNull
-        private final List<Runnable> mSubmittedRunnables;
+        private final Map<Runnable, PendingCount> mSubmittedRunnables;
+
+        /** Dispatch statistics, by runnable class. */
+        @NonNull
+        private final Map<Class<?>, DispatchStats> mDispatchStats;
 
         /** Handler on android's main looper thread. */
         @NonNull
@@ -122,7 +136,8 @@ interface MainThreadScheduler {
          */
         Default() {
             ULog.d(TAG_EXECUTOR, "Starting main thread scheduler");
-            mSubmittedRunnables = new CopyOnWriteArrayList<>();
+            mSubmittedRunnables = new IdentityHashMap<>();
+            mDispatchStats = new HashMap<>();
             mMainHandler = new Handler(Looper.getMainLooper()) {
 
                 @Override
@@ -132,13 +147,20 @@ interface MainThreadScheduler {
                         ULog.d(TAG_EXECUTOR, "[main] About to process: " + runnable);
                     }
 
+                    long latency = SystemClock.uptimeMillis() - msg.getWhen();
+                    long startTime = System.nanoTime();
+
                     super.dispatchMessage(msg);
 
+                    long runTime = System.nanoTime() - startTime;
+
                     if (ULog.d(TAG_EXECUTOR)) {
                         ULog.d(TAG_EXECUTOR, "[main] Done processing: " + runnable);
                     }
 
-                    mSubmittedRunnables.remove(msg.getCallback());
+                    if (runnable != null) {
+                        onDispatched(runnable, latency, TimeUnit.NANOSECONDS.toMicros(runTime));
+                    }
                 }
             };
         }
@@ -154,7 +176,7 @@ interface MainThreadScheduler {
                     case DENY:
                         throw new IllegalStateException("Already on main thread");
                     case POST:
-                        mSubmittedRunnables.add(runnable);
+                        addSubmitted(runnable);
                         mMainHandler.post(runnable);
                         break;
                     case RUN:
@@ -162,7 +184,7 @@ interface MainThreadScheduler {
                         break;
                 }
             } else {
-                mSubmittedRunnables.add(runnable);
+                addSubmitted(runnable);
                 mMainHandler.post(runnable);
             }
         }
@@ -177,7 +199,7 @@ interface MainThreadScheduler {
             // timeout-like runnables from the main thread, to the main thread.
             // Any other use is forbidden until proved worthwhile
             assertMainThread();
-            mSubmittedRunnables.add(runnable);
+            addSubmitted(runnable);
             mMainHandler.postDelayed(runnable, delayMillis);
         }
 
@@ -185,8 +207,13 @@ interface MainThreadScheduler {
         public void cancel(@NonNull Runnable runnable) {
 
             assertMainThread();
+            // removes all pending posts of the runnable
             mMainHandler.removeCallbacks(runnable);
-            if (mSubmittedRunnables.remove(runnable) && ULog.d(TAG_EXECUTOR)) {
+            boolean removed;
+            synchronized (mSubmittedRunnables) {
+                removed = mSubmittedRunnables.remove(runnable) != null;
+            }
+            if (removed && ULog.d(TAG_EXECUTOR)) {
                 ULog.d(TAG_EXECUTOR, "[main] Unscheduled from main: " + runnable);
             }
         }
@@ -195,7 +222,9 @@ interface MainThreadScheduler {
         public void shutdown() {
             assertMainThread();
             mMainHandler.removeCallbacksAndMessages(null);
-            mSubmittedRunnables.clear();
+            synchronized (mSubmittedRunnables) {
+                mSubmittedRunnables.clear();
+            }
             ULog.d(TAG_EXECUTOR, "Stopped main thread scheduler");
         }
 
@@ -206,6 +235,39 @@ interface MainThreadScheduler {
             }
         }
 
+        /**
+         * Records a runnable as submitted for processing.
+         *
+         * @param runnable submitted runnable
+         */
+        private void addSubmitted(@NonNull Runnable runnable) {
+            synchronized (mSubmittedRunnables) {
+                PendingCount pending = mSubmittedRunnables.get(runnable);
+                if (pending == null) {
+                    mSubmittedRunnables.put(runnable, new PendingCount());
+                } else {
+                    pending.mCount++;
+                }
+            }
+        }
+
+        /**
+         * Called on main thread after a runnable has been processed.
+         *
+         * @param runnable processed runnable
+         * @param latency  dispatch latency, in milliseconds
+         * @param runTime  run time, in microseconds
+         */
+        private void onDispatched(@NonNull Runnable runnable, long latency, long runTime) {
+            synchronized (mSubmittedRunnables) {
+                PendingCount pending = mSubmittedRunnables.get(runnable);
+                if (pending != null && --pending.mCount == 0) {
+                    mSubmittedRunnables.remove(runnable);
+                }
+            }
+            DispatchStats.record(mDispatchStats, runnable.getClass(), latency, runTime);
+        }
+
         /**
          * Debug dump.
          *
@@ -213,10 +275,25 @@ interface MainThreadScheduler {
          */
         void dump(@NonNull PrintWriter writer) {
             writer.write("Main scheduler: \n");
-            writer.write("\tPending runnables:" + mSubmittedRunnables.size() + "\n");
-            for (Runnable runnable : mSubmittedRunnables) {
-                writer.write("\t\t" + runnable + "\n");
+            synchronized (mSubmittedRunnables) {
+                int pendingCount = 0;
+                for (PendingCount pending : mSubmittedRunnables.values()) {
+                    pendingCount += pending.mCount;
+                }
+                writer.write("\tPending runnables:" + pendingCount + "\n");
+                for (Map.Entry<Runnable, PendingCount> entry : mSubmittedRunnables.entrySet()) {
+                    int count = entry.getValue().mCount;
+                    writer.write("\t\t" + entry.getKey() + (count > 1 ? " (x" + count + ")" : "") + "\n");
+                }
             }
+            DispatchStats.dump(writer, mDispatchStats);
+        }
+
+        /** Count of pending posts of a runnable. */
+        private static final class PendingCount {
+
+            /** Number of times the runnable is currently posted. */
+            int mCount = 1;
         }
     }
 }
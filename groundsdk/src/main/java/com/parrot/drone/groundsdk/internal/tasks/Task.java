@@ -43,7 +43,6 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.FutureTask;
 
 import static com.parrot.drone.groundsdk.internal.Logging.TAG_EXECUTOR;
@@ -107,13 +106,13 @@ public class Task<T> {
      * This method <strong>MUST</strong> be called from <strong>MAIN</strong> thread.
      *
      * @param job      callable to run
-     * @param executor executor service that will process the job
+     * @param executor executor that will process the job
      * @param <T>      type of result the callable returns
      *
      * @return a new {@code Task} instance that can be used to cancel the background callable and be notified when it
      *         completes
      */
-    static <T> Task<T> execute(@NonNull Callable<T> job, @NonNull ExecutorService executor) {
+    static <T> Task<T> execute(@NonNull Callable<T> job, @NonNull java.util.concurrent.Executor executor) {
         return new Task<>(job, executor);
     }
 
@@ -147,10 +146,10 @@ public class Task<T> {
      * <p>
      * This method <strong>MUST</strong> be called from <strong>MAIN</strong> thread.
      *
-     * @param job             callable block to run as a background task
-     * @param executorService executor service that will process the job
+     * @param job      callable block to run as a background task
+     * @param executor executor that will process the job
      */
-    private Task(@NonNull Callable<T> job, @NonNull ExecutorService executorService) {
+    private Task(@NonNull Callable<T> job, @NonNull java.util.concurrent.Executor executor) {
         Executor.requireMainThread();
         mName = job.toString();
         mFutureTask = new FutureTask<T>(job) {
@@ -206,7 +205,7 @@ public class Task<T> {
                 }
             }
         };
-        executorService.submit(mFutureTask);
+        executor.execute(mFutureTask);
     }
 
     /**
@@ -37,13 +37,12 @@ import androidx.annotation.NonNull;
 import com.parrot.drone.groundsdk.internal.GroundSdkConfig;
 import com.parrot.drone.groundsdk.internal.engine.EngineBase;
 
-import java.io.IOException;
-import java.io.OutputStream;
+import java.util.Map;
 
 /**
  * Utility interface allowing to access black box engine internal storage.
  * <p>
- * This mainly allows black box recorders to forward recorded black box data to be archived in storage.
+ * This mainly allows black box recorders to journal recorded black box data to storage, to be archived.
  * <p>
  * This utility may be unavailable if black box support is disabled in GroundSdk configuration. It may be obtained
  * after engine startup using:
@@ -55,26 +54,44 @@ import java.io.OutputStream;
 public interface BlackBoxStorage extends Utility {
 
     /**
-     * Collected black box report data.
+     * A black box journal, where recorded black box data is progressively appended during recording.
+     * <p>
+     * The journal is made of segments. Each segment is a JSON object, whose members are merged when the journal is
+     * archived into a black box report: array members are concatenated across segments, in append order, while any
+     * other member is taken from the latest segment that defines it. Array members may be bounded, in which case only
+     * the most recent elements are kept in the final report.
+     * <p>
+     * Appended segments are persisted on local storage as soon as possible, so that the journal can still be archived
+     * at next engine startup in case the application is terminated before the journal could be closed.
+     * <p>
+     * All methods must be called from main thread.
      */
-    interface BlackBox {
+    interface Journal {
 
         /**
-         * Writes JSON serialized black box report directly to the given output stream.
-         * <p>
-         * This method should be called from a background thread.
-         *
-         * @param stream stream to write to
+         * Appends a segment to the journal.
          *
-         * @throws IOException in case writing report data failed for any reason
+         * @param segment UTF-8 encoded JSON object to append
          */
-        void writeTo(@NonNull OutputStream stream) throws IOException;
+        void append(@NonNull byte[] segment);
+
+        /**
+         * Closes the journal.
+         * <p>
+         * Once all appended segments have been persisted, the journal is archived to a black box report file. No
+         * segment can be appended to the journal after this method is called.
+         */
+        void close();
     }
 
     /**
-     * Notifies the black box engine that black box data as been collected and that a new report may be archived.
+     * Opens a new black box journal.
+     *
+     * @param capacities maximum amount of elements to keep in the final report, by array member name; array members
+     *                   which are not present in this map are unbounded
      *
-     * @param blackBox collected black box data
+     * @return a new, open journal
      */
-    void notifyBlackBoxReady(@NonNull BlackBox blackBox);
+    @NonNull
+    Journal openJournal(@NonNull Map<String, Integer> capacities);
 }
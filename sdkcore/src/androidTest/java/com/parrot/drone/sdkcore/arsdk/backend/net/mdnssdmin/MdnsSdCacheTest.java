@@ -0,0 +1,133 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.sdkcore.arsdk.backend.net.mdnssdmin;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+public class MdnsSdCacheTest {
+
+    private static final String DRONE_SERVICE = "_arsdk-0914._udp.local.";
+
+    private static final String[] SERVICES = {"_arsdk-090c._udp.local.", DRONE_SERVICE};
+
+    private MdnsSdCache mCache;
+
+    @Before
+    public void setUp() {
+        mCache = new MdnsSdCache();
+    }
+
+    @Test
+    public void testExpiry() {
+        assertThat(mCache.put("drone", DRONE_SERVICE, 10, 0), is(true));
+        assertThat(mCache.put("drone", DRONE_SERVICE, 10, 1000), is(false));
+        assertThat(mCache.expire(10999), is(0));
+        assertThat(mCache.isEmpty(), is(false));
+        assertThat(mCache.expire(11000), is(1));
+        assertThat(mCache.isEmpty(), is(true));
+    }
+
+    @Test
+    public void testKnownAnswers() {
+        mCache.put("drone", DRONE_SERVICE, 10, 0);
+        List<MdnsSdCache.Entry> answers = new ArrayList<>();
+        mCache.collectKnownAnswers(4000, answers);
+        assertThat(answers.size(), is(1));
+        assertThat(answers.get(0).getRemainingTtl(4000), is(6L));
+        // less than half of the ttl remaining: the responder must answer again
+        answers.clear();
+        mCache.collectKnownAnswers(5000, answers);
+        assertThat(answers, empty());
+    }
+
+    @Test
+    public void testRefreshSchedule() {
+        mCache.put("drone", DRONE_SERVICE, 10, 0);
+        assertThat(mCache.getNextRefreshTime(), is(8000L));
+        mCache.onQuerySent(8000);
+        assertThat(mCache.getNextRefreshTime(), is(8500L));
+        mCache.onQuerySent(9600);
+        assertThat(mCache.getNextRefreshTime(), is(Long.MAX_VALUE));
+        // refreshed by a new response
+        mCache.put("drone", DRONE_SERVICE, 10, 9700);
+        assertThat(mCache.getNextRefreshTime(), is(17700L));
+    }
+
+    @Test
+    public void testQueryKnownAnswers() {
+        MdnsSdOutgoingQuery query = new MdnsSdOutgoingQuery(SERVICES);
+        assertThat(ByteBuffer.wrap(query.encode(Collections.emptyList(), 0)).getShort(6), is((short) 0));
+
+        mCache.put("drone", DRONE_SERVICE, 120, 0);
+        List<MdnsSdCache.Entry> answers = new ArrayList<>();
+        mCache.collectKnownAnswers(1000, answers);
+        ByteBuffer data = ByteBuffer.wrap(query.encode(answers, 1000));
+        // 2 questions, 1 answer
+        assertThat(data.getShort(4), is((short) 2));
+        assertThat(data.getShort(6), is((short) 1));
+        // skip questions
+        data.position(12);
+        int secondQuestion = 0;
+        for (int i = 0; i < SERVICES.length; i++) {
+            if (i == 1) {
+                secondQuestion = data.position();
+            }
+            for (int len = data.get(); len != 0; len = data.get()) {
+                data.position(data.position() + len);
+            }
+            data.position(data.position() + 4);
+        }
+        // answer: PTR record pointing to the drone service question
+        assertThat(data.getShort() & 0xFFFF, is(0xC000 | secondQuestion));
+        assertThat(data.getShort(), is((short) 12));
+        assertThat(data.getShort(), is((short) 1));
+        assertThat(data.getInt(), is(119));
+        assertThat(data.getShort(), is((short) 8));
+        byte[] label = new byte[data.get()];
+        data.get(label);
+        assertThat(new String(label, StandardCharsets.UTF_8), is("drone"));
+        assertThat(data.getShort() & 0xFFFF, is(0xC000 | secondQuestion));
+        assertThat(data.hasRemaining(), is(false));
+    }
+}
@@ -0,0 +1,362 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.sdkcore.arsdk.backend.net.mdnssdmin;
+
+import android.os.Debug;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Replays a fixture of mixed mdns traffic, as captured in a busy venue, through the response decoder.
+ */
+public class MdnsSdResponseDecoderBenchmark {
+
+    private static final String TAG = "MdnsSdDecoderBenchmark";
+
+    private static final String DRONE_SERVICE = "_arsdk-0914._udp.local.";
+
+    private static final String[] SERVICES = {"_arsdk-090c._udp.local.", DRONE_SERVICE};
+
+    private static final int REPLAY_COUNT = 5000;
+
+    private static final int TYPE_A = 1;
+
+    private static final int TYPE_PTR = 12;
+
+    private static final int TYPE_TXT = 16;
+
+    private static final int TYPE_AAAA = 28;
+
+    private static final int TYPE_SRV = 33;
+
+    /** Time to live of announced PTR records, as recommended by RFC 6762. */
+    private static final int PTR_TTL = 4500;
+
+    /** Captured packets, in reception order. */
+    private List<byte[]> mCapture;
+
+    /** Amount of drone packets in the capture. */
+    private int mDronePacketCount;
+
+    /** Amount of malformed packets answering the drone service in the capture. */
+    private int mMalformedPacketCount;
+
+    private byte[] mBuffer;
+
+    private MdnsSdResponseDecoder mDecoder;
+
+    private final List<String> mFound = new ArrayList<>();
+
+    private final MdnsSdResponseDecoder.Callback mCallback =
+            (name, serviceType, ipAddress, port, txtRecord, ttl, ptrTtl) -> mFound.add(name + "|" + serviceType + "|"
+                    + ipAddress + "|" + port + "|" + txtRecord[0] + "|" + ttl + "|" + ptrTtl);
+
+    @Before
+    public void setUp() {
+        mCapture = new ArrayList<>();
+        mDronePacketCount = 0;
+        for (int i = 0; i < 20; i++) {
+            mCapture.add(query("_googlecast._tcp.local."));
+            mCapture.add(announcement("Living Room TV", "_googlecast._tcp.local.", "Chromecast-" + i, 8009,
+                    new String[] {"id=" + i, "md=Chromecast", "fn=Living Room TV"}, 120, true));
+            mCapture.add(announcement("HP LaserJet " + i, "_ipp._tcp.local.", "printer-" + i, 631,
+                    new String[] {"txtvers=1", "qtotal=1", "rp=ipp/print", "ty=HP LaserJet"}, 4500, false));
+            mCapture.add(announcement("Speaker " + i, "_airplay._tcp.local.", "speaker-" + i, 7000,
+                    new String[] {"features=0x445F8A00", "model=AudioAccessory"}, 4500, true));
+            if (i % 5 == 0) {
+                mCapture.add(announcement("ANAFI-" + i, DRONE_SERVICE, "anafi-" + i, 44444,
+                        new String[] {"{\"device_id\":\"PI04" + i + "\"}"}, i == 15 ? 0 : 10, false));
+                mDronePacketCount++;
+            }
+        }
+        // malicious packet, with names looping over their own labels
+        mCapture.add(cyclicAnnouncement());
+        mMalformedPacketCount = 1;
+        mBuffer = new byte[1500];
+        mDecoder = new MdnsSdResponseDecoder(SERVICES, mBuffer);
+        mFound.clear();
+    }
+
+    @Test
+    public void testDecoding() {
+        replay(1);
+        assertThat(mFound.size(), is(mDronePacketCount));
+        assertThat(mFound.get(0), is("ANAFI-0|" + DRONE_SERVICE + "|192.168.42.1|44444|{\"device_id\":\"PI040\"}|10|4500"));
+        assertThat(mFound.get(3), is("ANAFI-15|" + DRONE_SERVICE + "|192.168.42.1|44444|{\"device_id\":\"PI0415\"}|0|0"));
+    }
+
+    @Test
+    public void testRejectsForeignTrafficWithoutAllocating() {
+        List<byte[]> foreign = new ArrayList<>();
+        for (byte[] packet : mCapture) {
+            System.arraycopy(packet, 0, mBuffer, 0, packet.length);
+            if (!mDecoder.decode(packet.length, mCallback)) {
+                foreign.add(packet);
+            }
+        }
+        assertThat(foreign.size(), is(mCapture.size() - mDronePacketCount - mMalformedPacketCount));
+
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        try {
+            for (int i = 0, N = foreign.size(); i < N; i++) {
+                byte[] packet = foreign.get(i);
+                System.arraycopy(packet, 0, mBuffer, 0, packet.length);
+                mDecoder.decode(packet.length, mCallback);
+            }
+        } finally {
+            Debug.stopAllocCounting();
+        }
+        assertThat(Debug.getThreadAllocCount(), is(0));
+    }
+
+    @Test(timeout = 1000)
+    public void testRejectsCyclicNames() {
+        byte[] packet = cyclicAnnouncement();
+        System.arraycopy(packet, 0, mBuffer, 0, packet.length);
+        mDecoder.decode(packet.length, mCallback);
+        assertThat(mFound.size(), is(0));
+    }
+
+    @Test
+    public void testFoundNames() {
+        // second pass goes through the decoded names cache
+        replay(2);
+        String[] names = new String[mFound.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = mFound.get(i).substring(0, mFound.get(i).indexOf('|'));
+        }
+        assertThat(names, arrayContaining("ANAFI-0", "ANAFI-5", "ANAFI-10", "ANAFI-15"));
+    }
+
+    @Test
+    public void benchmarkReplay() {
+        // warm up
+        replay(100);
+
+        Runtime runtime = Runtime.getRuntime();
+        runtime.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        long start = System.nanoTime();
+        replay(REPLAY_COUNT);
+        long time = System.nanoTime() - start;
+        long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+
+        int packets = REPLAY_COUNT * mCapture.size();
+        Log.i(TAG, "Decoded " + packets + " packets (" + mDronePacketCount * REPLAY_COUNT + " from drones) in "
+                   + time / 1000000 + "ms (" + time / packets + "ns per packet), heap growth: "
+                   + (heapAfter - heapBefore) / 1024 + "KB");
+    }
+
+    /**
+     * Replays the capture, copying each packet in the receive buffer like the receiver thread does.
+     *
+     * @param count number of times to replay the capture
+     */
+    private void replay(int count) {
+        for (int i = 0; i < count; i++) {
+            mFound.clear();
+            for (int j = 0, N = mCapture.size(); j < N; j++) {
+                byte[] packet = mCapture.get(j);
+                System.arraycopy(packet, 0, mBuffer, 0, packet.length);
+                mDecoder.decode(packet.length, mCallback);
+            }
+        }
+    }
+
+    /**
+     * Builds a query message for a service.
+     *
+     * @param service service to query
+     *
+     * @return query message
+     */
+    @NonNull
+    private static byte[] query(@NonNull String service) {
+        PacketWriter writer = new PacketWriter(1, 0);
+        writer.name(service).u16(TYPE_PTR).u16(1);
+        return writer.toByteArray();
+    }
+
+    /**
+     * Builds a service announcement message, with name compression, the way mdns responders do.
+     *
+     * @param instance  service instance name
+     * @param service   service type
+     * @param host      host name
+     * @param port      service port
+     * @param texts     TXT record strings
+     * @param ttl       records time to live; PTR records live at least {@link #PTR_TTL}
+     * @param withIpv6  {@code true} to also announce an IPv6 address
+     *
+     * @return announcement message
+     */
+    @NonNull
+    private static byte[] announcement(@NonNull String instance, @NonNull String service, @NonNull String host,
+                                       int port, @NonNull String[] texts, int ttl, boolean withIpv6) {
+        PacketWriter writer = new PacketWriter(0, withIpv6 ? 5 : 4);
+        String instanceName = instance + "." + service;
+        String hostName = host + ".local.";
+
+        writer.name(service).u16(TYPE_PTR).u16(1).u32(ttl == 0 ? 0 : Math.max(ttl, PTR_TTL));
+        int ptrLength = writer.beginData();
+        writer.name(instanceName).endData(ptrLength);
+
+        writer.name(instanceName).u16(TYPE_SRV).u16(0x8001).u32(ttl);
+        int srvLength = writer.beginData();
+        writer.u16(0).u16(0).u16(port).name(hostName).endData(srvLength);
+
+        writer.name(instanceName).u16(TYPE_TXT).u16(0x8001).u32(ttl);
+        int txtLength = writer.beginData();
+        for (String text : texts) {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            writer.u8(bytes.length).bytes(bytes);
+        }
+        writer.endData(txtLength);
+
+        writer.name(hostName).u16(TYPE_A).u16(0x8001).u32(ttl).u16(4).u8(192).u8(168).u8(42).u8(1);
+        if (withIpv6) {
+            writer.name(hostName).u16(TYPE_AAAA).u16(0x8001).u32(ttl).u16(16).bytes(new byte[16]);
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * Builds a drone service announcement whose instance name is a label followed by a compression pointer to that
+     * same label.
+     *
+     * @return announcement message
+     */
+    @NonNull
+    private static byte[] cyclicAnnouncement() {
+        PacketWriter writer = new PacketWriter(0, 2);
+        byte[] label = "loop".getBytes(StandardCharsets.UTF_8);
+
+        writer.name(DRONE_SERVICE).u16(TYPE_PTR).u16(1).u32(10);
+        int ptrLength = writer.beginData();
+        int ptrLoop = writer.size();
+        writer.u8(label.length).bytes(label).u16(0xC000 | ptrLoop).endData(ptrLength);
+
+        int srvLoop = writer.size();
+        writer.u8(label.length).bytes(label).u16(0xC000 | srvLoop).u16(TYPE_SRV).u16(0x8001).u32(10);
+        int srvLength = writer.beginData();
+        writer.u16(0).u16(0).u16(44444).name("loop.local.").endData(srvLength);
+        return writer.toByteArray();
+    }
+
+    /**
+     * Writes dns messages, compressing names by referencing previously written suffixes.
+     */
+    private static final class PacketWriter {
+
+        private final ByteArrayOutputStream mOutput = new ByteArrayOutputStream();
+
+        private final Map<String, Integer> mSuffixes = new HashMap<>();
+
+        PacketWriter(int questions, int answers) {
+            u16(0).u16(questions == 0 ? 0x8400 : 0).u16(questions).u16(answers).u16(0).u16(0);
+        }
+
+        PacketWriter u8(int value) {
+            mOutput.write(value);
+            return this;
+        }
+
+        PacketWriter u16(int value) {
+            return u8(value >> 8).u8(value);
+        }
+
+        PacketWriter u32(long value) {
+            return u16((int) (value >> 16)).u16((int) value);
+        }
+
+        PacketWriter bytes(byte[] bytes) {
+            mOutput.write(bytes, 0, bytes.length);
+            return this;
+        }
+
+        PacketWriter name(@NonNull String name) {
+            String suffix = name;
+            while (!suffix.isEmpty()) {
+                Integer offset = mSuffixes.get(suffix.toLowerCase());
+                if (offset != null) {
+                    return u16(0xC000 | offset);
+                }
+                mSuffixes.put(suffix.toLowerCase(), mOutput.size());
+                int dot = suffix.indexOf('.');
+                byte[] label = suffix.substring(0, dot).getBytes(StandardCharsets.UTF_8);
+                u8(label.length).bytes(label);
+                suffix = suffix.substring(dot + 1);
+            }
+            return u8(0);
+        }
+
+        int beginData() {
+            u16(0);
+            return mOutput.size();
+        }
+
+        PacketWriter endData(int start) {
+            byte[] data = mOutput.toByteArray();
+            int length = data.length - start;
+            data[start - 2] = (byte) (length >> 8);
+            data[start - 1] = (byte) length;
+            mOutput.reset();
+            mOutput.write(data, 0, data.length);
+            return this;
+        }
+
+        int size() {
+            return mOutput.size();
+        }
+
+        byte[] toByteArray() {
+            return mOutput.toByteArray();
+        }
+    }
+}
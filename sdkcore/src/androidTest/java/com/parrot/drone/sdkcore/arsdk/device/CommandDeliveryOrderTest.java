@@ -0,0 +1,199 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.sdkcore.arsdk.device;
+
+import androidx.annotation.NonNull;
+
+import com.parrot.drone.sdkcore.arsdk.Backend;
+import com.parrot.drone.sdkcore.arsdk.command.ArsdkCommand;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+
+public class CommandDeliveryOrderTest {
+
+    private ArsdkDevice mDevice;
+
+    private Queue<Runnable> mMainQueue;
+
+    private Map<ArsdkCommand, String> mCommandNames;
+
+    private List<String> mDelivered;
+
+    @Before
+    public void setUp() {
+        mDevice = new ArsdkDevice((short) 1, "uid", ArsdkDevice.TYPE_UNKNOWN, "name", Backend.TYPE_NET);
+        mMainQueue = new ArrayDeque<>();
+        mDevice.mMainDispatcher = mMainQueue::add;
+        mCommandNames = new IdentityHashMap<>();
+        mDelivered = new ArrayList<>();
+        mDevice.mListener = new ArsdkDevice.Listener() {
+
+            @Override
+            public void onConnecting() {
+            }
+
+            @Override
+            public void onConnected() {
+            }
+
+            @Override
+            public void onDisconnected(boolean removing) {
+            }
+
+            @Override
+            public void onConnectionCanceled(int reason, boolean removing) {
+            }
+
+            @Override
+            public void onLinkDown() {
+            }
+
+            @Override
+            public void onCommandReceived(@NonNull ArsdkCommand command) {
+                mDelivered.add(mCommandNames.get(command));
+            }
+
+            @Override
+            public void onCommandsReceived(@NonNull ArsdkCommandBatch batch) {
+                mDelivered.add("batch:" + batch.size());
+                ArsdkDevice.Listener.super.onCommandsReceived(batch);
+            }
+        };
+    }
+
+    @Test
+    public void testUnbatchedOrder() {
+        receive("c1");
+        post("e1");
+        receive("c2");
+
+        runMain();
+        assertThat(mDelivered, contains("c1", "e1", "c2"));
+    }
+
+    @Test
+    public void testBatchedOrder() {
+        mDevice.setCommandBatchingEnabled(true);
+
+        receive("c1");
+        receive("c2");
+        post("e1");
+        receive("c3");
+        post("e2");
+        post("e3");
+        receive("c4");
+        receive("c5");
+
+        runMain();
+        assertThat(mDelivered, contains("batch:2", "c1", "c2", "e1", "batch:1", "c3", "e2", "e3", "batch:2", "c4",
+                "c5"));
+    }
+
+    @Test
+    public void testBatchedOrderWhileDelivering() {
+        mDevice.setCommandBatchingEnabled(true);
+
+        receive("c1");
+        post("e1");
+        // deliver the first batch only
+        runNextMain();
+        receive("c2");
+        post("e2");
+        receive("c3");
+
+        runMain();
+        assertThat(mDelivered, contains("batch:1", "c1", "e1", "batch:1", "c2", "e2", "batch:1", "c3"));
+    }
+
+    @Test
+    public void testBatchingToggled() {
+        mDevice.setCommandBatchingEnabled(true);
+        receive("c1");
+
+        mDevice.setCommandBatchingEnabled(false);
+        receive("c2");
+
+        mDevice.setCommandBatchingEnabled(true);
+        receive("c3");
+
+        runMain();
+        assertThat(mDelivered, contains("batch:1", "c1", "c2", "batch:1", "c3"));
+    }
+
+    /**
+     * Simulates reception of a command on the pomp thread.
+     *
+     * @param name name to record when the command is delivered
+     */
+    private void receive(@NonNull String name) {
+        ArsdkCommand command = ArsdkCommand.Pool.DEFAULT.obtain();
+        mCommandNames.put(command, name);
+        mDevice.receiveCommand(command);
+    }
+
+    /**
+     * Simulates a device event posted on the main thread from the pomp thread.
+     *
+     * @param name name to record when the event is delivered
+     */
+    private void post(@NonNull String name) {
+        mDevice.postToMain(() -> mDelivered.add(name));
+    }
+
+    /**
+     * Runs the oldest runnable posted on the main thread.
+     */
+    private void runNextMain() {
+        mMainQueue.remove().run();
+    }
+
+    /**
+     * Runs all runnables posted on the main thread, in order.
+     */
+    private void runMain() {
+        while (!mMainQueue.isEmpty()) {
+            runNextMain();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+
+package com.parrot.drone.sdkcore.arsdk.device;
+
+import android.os.Debug;
+
+import com.parrot.drone.sdkcore.arsdk.Backend;
+import com.parrot.drone.sdkcore.arsdk.command.ArsdkCommand;
+import com.parrot.drone.sdkcore.arsdk.command.ArsdkNoAckCmdEncoder;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.emptyArray;
+import static org.hamcrest.Matchers.is;
+
+public class NoAckCmdEncoderRegistryTest {
+
+    private NoAckCmdEncoderRegistry mRegistry;
+
+    private ArsdkDevice mDevice;
+
+    private CountingSender mSender;
+
+    private CountingEncoder mEncoder1;
+
+    private CountingEncoder mEncoder2;
+
+    private CountingEncoder mEncoder3;
+
+    @Before
+    public void setUp() {
+        mRegistry = new NoAckCmdEncoderRegistry();
+        mDevice = new ArsdkDevice((short) 1, "uid", ArsdkDevice.TYPE_UNKNOWN, "name", Backend.TYPE_NET);
+        mSender = new CountingSender();
+        mDevice.mNoAckCmdSender = mSender;
+        mEncoder1 = new CountingEncoder(false);
+        mEncoder2 = new CountingEncoder(true);
+        mEncoder3 = new CountingEncoder(false);
+    }
+
+    @Test
+    public void testRegistration() {
+        assertThat(mRegistry.isEmpty(), is(true));
+        assertThat(mRegistry.snapshot(), emptyArray());
+
+        assertThat(mRegistry.add(mEncoder1), is(true));
+        assertThat(mRegistry.add(mEncoder2), is(true));
+        assertThat(mRegistry.add(mEncoder3), is(true));
+        assertThat(mRegistry.add(mEncoder2), is(false));
+        assertThat(mRegistry.size(), is(3));
+        assertThat(mRegistry.snapshot(), arrayContaining(mEncoder1, mEncoder2, mEncoder3));
+
+        ArsdkNoAckCmdEncoder[] snapshot = mRegistry.snapshot();
+
+        assertThat(mRegistry.remove(mEncoder2), is(true));
+        assertThat(mRegistry.remove(mEncoder2), is(false));
+        assertThat(mRegistry.snapshot(), arrayContaining(mEncoder1, mEncoder3));
+
+        // previously obtained snapshot is not affected
+        assertThat(snapshot, arrayContaining(mEncoder1, mEncoder2, mEncoder3));
+
+        mRegistry.clear();
+        assertThat(mRegistry.isEmpty(), is(true));
+        assertThat(mRegistry.snapshot(), emptyArray());
+    }
+
+    @Test
+    public void testTickSendsEncodedCommands() {
+        mDevice.onNoAckCmdTimerTick();
+        assertThat(mSender.mSendCnt, is(0));
+
+        mDevice.registerNoAckCommandEncoder(mEncoder1);
+        mDevice.registerNoAckCommandEncoder(mEncoder2);
+        mDevice.registerNoAckCommandEncoder(mEncoder3);
+
+        mDevice.onNoAckCmdTimerTick();
+        assertThat(mEncoder1.mEncodeCnt, is(1));
+        assertThat(mEncoder2.mEncodeCnt, is(1));
+        assertThat(mEncoder3.mEncodeCnt, is(1));
+        // only the command actually encoded is sent
+        assertThat(mSender.mSendCnt, is(1));
+
+        mDevice.unregisterNoAckCommandEncoder(mEncoder2);
+
+        mDevice.onNoAckCmdTimerTick();
+        assertThat(mEncoder1.mEncodeCnt, is(2));
+        assertThat(mEncoder2.mEncodeCnt, is(1));
+        assertThat(mEncoder3.mEncodeCnt, is(2));
+        assertThat(mSender.mSendCnt, is(1));
+    }
+
+    @SuppressWarnings("deprecation")
+    @Test
+    public void testTickDoesNotAllocate() {
+        mDevice.registerNoAckCommandEncoder(mEncoder1);
+        mDevice.registerNoAckCommandEncoder(mEncoder2);
+        mDevice.registerNoAckCommandEncoder(mEncoder3);
+
+        // warm up
+        tick(100);
+
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        try {
+            tick(1000);
+        } finally {
+            Debug.stopAllocCounting();
+        }
+
+        assertThat(Debug.getThreadAllocCount(), is(0));
+        assertThat(mEncoder1.mEncodeCnt, is(1100));
+        assertThat(mEncoder2.mEncodeCnt, is(1100));
+        assertThat(mEncoder3.mEncodeCnt, is(1100));
+        assertThat(mSender.mSendCnt, is(1100));
+    }
+
+    /**
+     * Runs the device non-acknowledged command loop.
+     *
+     * @param count number of loop ticks to run
+     */
+    private void tick(int count) {
+        for (int i = 0; i < count; i++) {
+            mDevice.onNoAckCmdTimerTick();
+        }
+    }
+
+    private static final class CountingEncoder implements ArsdkNoAckCmdEncoder {
+
+        private final boolean mEncodes;
+
+        int mEncodeCnt;
+
+        CountingEncoder(boolean encodes) {
+            mEncodes = encodes;
+        }
+
+        @Override
+        public ArsdkCommand encodeNoAckCmd() {
+            mEncodeCnt++;
+            return mEncodes ? ArsdkCommand.Pool.DEFAULT.obtain() : null;
+        }
+    }
+
+    private static final class CountingSender implements ArsdkDevice.NoAckCmdSender {
+
+        int mSendCnt;
+
+        @Override
+        public void send(ArsdkCommand command) {
+            mSendCnt++;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.sdkcore.pomp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class RunnableRingTest {
+
+    private static final int PRODUCER_COUNT = 4;
+
+    private static final int RUNNABLES_PER_PRODUCER = 100000;
+
+    /** One out of {@code WITHDRAW_PERIOD} runnables is withdrawn right after being offered. */
+    private static final int WITHDRAW_PERIOD = 7;
+
+    @Test
+    public void testCapacity() {
+        assertThat(new RunnableRing(1).capacity(), is(1));
+        assertThat(new RunnableRing(5).capacity(), is(8));
+        assertThat(new RunnableRing(64).capacity(), is(64));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        new RunnableRing(0);
+    }
+
+    @Test
+    public void testOfferPoll() {
+        RunnableRing ring = new RunnableRing(4);
+        Runnable[] runnables = new Runnable[5];
+        for (int i = 0; i < runnables.length; i++) {
+            runnables[i] = () -> {};
+        }
+
+        assertThat(ring.isEmpty(), is(true));
+        assertThat(ring.poll(), nullValue());
+
+        assertThat(ring.offer(runnables[0]), is(1));
+        assertThat(ring.offer(runnables[1]), is(2));
+        assertThat(ring.offer(runnables[2]), is(3));
+        assertThat(ring.offer(runnables[3]), is(4));
+        // full
+        assertThat(ring.offer(runnables[4]), is(0));
+        assertThat(ring.isEmpty(), is(false));
+
+        assertThat(ring.poll(), sameInstance(runnables[0]));
+        // one slot freed
+        assertThat(ring.offer(runnables[4]), is(4));
+
+        assertThat(ring.poll(), sameInstance(runnables[1]));
+        assertThat(ring.poll(), sameInstance(runnables[2]));
+        assertThat(ring.poll(), sameInstance(runnables[3]));
+        assertThat(ring.poll(), sameInstance(runnables[4]));
+        assertThat(ring.poll(), nullValue());
+        assertThat(ring.isEmpty(), is(true));
+    }
+
+    @Test
+    public void testWithdraw() {
+        RunnableRing ring = new RunnableRing(4);
+        Runnable runnable1 = () -> {};
+        Runnable runnable2 = () -> {};
+        Runnable runnable3 = () -> {};
+
+        ring.offer(runnable1);
+        ring.offer(runnable2);
+        ring.offer(runnable3);
+
+        assertThat(ring.withdraw(runnable2), is(true));
+        assertThat(ring.withdraw(runnable2), is(false));
+
+        assertThat(ring.poll(), sameInstance(runnable1));
+        assertThat(ring.withdraw(runnable1), is(false));
+        // withdrawn slot is skipped
+        assertThat(ring.poll(), sameInstance(runnable3));
+        assertThat(ring.poll(), nullValue());
+        assertThat(ring.isEmpty(), is(true));
+
+        // withdrawn slot is released for further offers
+        assertThat(ring.withdraw(runnable3), is(false));
+        for (int i = 0; i < ring.capacity(); i++) {
+            assertThat(ring.offer(runnable1), is(i + 1));
+        }
+        assertThat(ring.offer(runnable1), is(0));
+    }
+
+    @Test(timeout = 20000)
+    public void testConcurrentProducers() throws InterruptedException {
+        RunnableRing ring = new RunnableRing(64);
+        AtomicIntegerArray runCounts = new AtomicIntegerArray(PRODUCER_COUNT * RUNNABLES_PER_PRODUCER);
+        AtomicIntegerArray withdrawn = new AtomicIntegerArray(PRODUCER_COUNT * RUNNABLES_PER_PRODUCER);
+        int[] lastRun = new int[PRODUCER_COUNT];
+        List<String> errors = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch producersDone = new CountDownLatch(PRODUCER_COUNT);
+
+        for (int producer = 0; producer < PRODUCER_COUNT; producer++) {
+            int producerId = producer;
+            lastRun[producerId] = -1;
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (int seq = 0; seq < RUNNABLES_PER_PRODUCER; seq++) {
+                        int id = producerId * RUNNABLES_PER_PRODUCER + seq;
+                        int runSeq = seq;
+                        Runnable runnable = () -> {
+                            runCounts.incrementAndGet(id);
+                            // runnables offered by a given producer are polled in offer order
+                            if (runSeq <= lastRun[producerId]) {
+                                errors.add("Producer " + producerId + ": " + runSeq + " ran after "
+                                           + lastRun[producerId]);
+                            }
+                            lastRun[producerId] = runSeq;
+                        };
+                        while (ring.offer(runnable) == 0) {
+                            Thread.yield();
+                        }
+                        if (seq % WITHDRAW_PERIOD == 0 && ring.withdraw(runnable)) {
+                            withdrawn.set(id, 1);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    producersDone.countDown();
+                }
+            }).start();
+        }
+
+        AtomicBoolean consumerDone = new AtomicBoolean();
+        Thread consumer = new Thread(() -> {
+            while (true) {
+                boolean done = producersDone.getCount() == 0;
+                Runnable runnable;
+                while ((runnable = ring.poll()) != null) {
+                    runnable.run();
+                }
+                if (done && ring.isEmpty()) {
+                    consumerDone.set(true);
+                    return;
+                }
+                Thread.yield();
+            }
+        });
+        consumer.start();
+
+        start.countDown();
+        consumer.join();
+
+        assertThat(consumerDone.get(), is(true));
+        assertThat(errors.toString(), errors.isEmpty(), is(true));
+        for (int id = 0; id < runCounts.length(); id++) {
+            // each runnable runs exactly once, unless it was withdrawn, in which case it never runs
+            assertThat("Runnable " + id, runCounts.get(id), is(1 - withdrawn.get(id)));
+        }
+    }
+}
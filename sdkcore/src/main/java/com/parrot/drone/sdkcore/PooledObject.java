@@ -11,8 +11,20 @@ import com.parrot.drone.groundsdk.sdkcore.BuildConfig;
 import com.parrot.drone.sdkcore.ulog.ULog;
 import com.parrot.drone.sdkcore.ulog.ULogTag;
 
+import java.io.PrintWriter;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Base class for objects that are allocated from a pool.
+ * <p>
+ * Pooled objects <strong>MUST</strong> be explicitly {@link #release() released} once not used anymore. An object
+ * that is never released is detected once garbage collected, using a phantom reference: its {@link Cleanup cleanup},
+ * if any, is run, a warning is logged and the leak shows up in the pool's {@link Pool#dump reclaimed} count.
  */
 public abstract class PooledObject {
 
@@ -21,6 +33,18 @@ public abstract class PooledObject {
 
     /**
      * Base class of the pool.
+     * <p>
+     * Each thread using the pool has its own small cache of entries, which is accessed without locking. Only when this
+     * cache is empty (on obtain) or full (on release) does the thread access the shared pool, under lock, to move a
+     * batch of entries at once. This keeps lock contention low when entries are obtained on one thread and released on
+     * another, which is the common case for commands and runnables exchanged between the main and pomp threads.
+     * <p>
+     * Thread caches are only weakly referenced by the pool: once a thread terminates, its cache and the entries it
+     * holds are garbage collected, and its statistics are accumulated in the pool's totals.
+     * <p>
+     * Each entry is tracked by a phantom reference for its whole life. Entries that were never released are detected
+     * once their reference gets enqueued, which is checked when entries move between a thread cache and the shared
+     * pool, and upon dump.
      *
      * @param <T> pooled objects type
      */
@@ -29,35 +53,92 @@ public abstract class PooledObject {
         /** Default pool max size. */
         public static final int DEFAULT_POOL_MAX_SIZE = 50;
 
+        /** Maximum count of entries cached by each thread. */
+        private static final int THREAD_CACHE_SIZE = 8;
+
+        /** Count of entries moved at once between a thread cache and the shared pool. */
+        private static final int THREAD_CACHE_BATCH = THREAD_CACHE_SIZE / 2;
+
         /** Pool name, used only for debug logs. */
+        @NonNull
         private final String mName;
 
-        /** Poll maximum size. */
+        /** Shared pool maximum size. */
         private final int mMaxSize;
 
-        /** Poll current size. */
+        /** Shared pool current size. Guarded by this. */
         private int mSize;
 
+        /** Shared pool head. Guarded by this. */
+        @Nullable
+        private PooledObject mHead;
+
+        /** Count of entries released while the shared pool was full, and thus dropped. Guarded by this. */
+        private int mOverflowCnt;
+
+        /** Accumulated statistics of the thread caches that have been garbage collected. Guarded by this. */
+        @NonNull
+        private final ThreadStats mRetiredStats;
+
+        /** Count of entries that were never released, reclaimed when garbage collected. */
+        @NonNull
+        private final AtomicInteger mReclaimedCnt;
+
         /** Number of allocated objects. */
-        private int mAllocatedCnt;
+        @NonNull
+        private final AtomicInteger mAllocatedCnt;
 
-        /** Pool head. */
-        private PooledObject mHead;
+        /** Per-thread entry caches. */
+        @NonNull
+        private final ThreadLocal<ThreadCache> mThreadCache;
+
+        /** References to live thread caches, for statistics. */
+        @NonNull
+        private final CopyOnWriteArrayList<ThreadCacheRef> mThreadCaches;
+
+        /** Queue where references to garbage collected thread caches are enqueued. */
+        @NonNull
+        private final ReferenceQueue<ThreadCache> mCollectedCaches;
+
+        /** Leak trackers of all entries that have not been garbage collected yet. Guarded by itself. */
+        @NonNull
+        private final HashSet<LeakTracker> mTrackers;
+
+        /** Queue where leak trackers of garbage collected entries are enqueued. */
+        @NonNull
+        private final ReferenceQueue<PooledObject> mCollectedEntries;
 
         /**
          * Constructor.
          *
          * @param name        pool name, only used for debug
          * @param initialSize pool initial size
-         * @param maxSize     pool maximum size. When the pool has its maximum size, released objects are not returned
-         *                    to the pool
+         * @param maxSize     shared pool maximum size. When the shared pool has its maximum size, released objects are
+         *                    not returned to the pool. Each thread using the pool may additionally cache a few entries
          */
         protected Pool(@NonNull String name, int initialSize, int maxSize) {
             mName = name;
             mMaxSize = maxSize;
+            mAllocatedCnt = new AtomicInteger();
+            mReclaimedCnt = new AtomicInteger();
+            mRetiredStats = new ThreadStats("retired threads");
+            mThreadCaches = new CopyOnWriteArrayList<>();
+            mCollectedCaches = new ReferenceQueue<>();
+            mTrackers = new HashSet<>();
+            mCollectedEntries = new ReferenceQueue<>();
+            mThreadCache = new ThreadLocal<ThreadCache>() {
+
+                @Override
+                protected ThreadCache initialValue() {
+                    retireCollectedCaches();
+                    ThreadCache cache = new ThreadCache(Thread.currentThread().getName());
+                    mThreadCaches.add(new ThreadCacheRef(cache, mCollectedCaches));
+                    return cache;
+                }
+            };
             for (int i = 0; i < initialSize; i++) {
                 returnNewEntry();
-                mAllocatedCnt++;
+                mAllocatedCnt.incrementAndGet();
             }
         }
 
@@ -67,49 +148,201 @@ public abstract class PooledObject {
          * @return entry
          */
         @NonNull
-        public final synchronized T obtainEntry() {
-            PooledObject entry;
-            if (mHead != null) {
-                entry = mHead;
-                mHead = entry.mNext;
-                entry.mNext = null;
-                mSize--;
+        public final T obtainEntry() {
+            ThreadCache cache = mThreadCache.get();
+            PooledObject entry = cache.pop();
+            if (entry != null) {
+                cache.mStats.mLocalHits++;
             } else {
-                entry = createEntry();
-                mAllocatedCnt++;
-                if (mAllocatedCnt > mMaxSize) {
-                    ULog.w(TAG, "Pool '" + mName + "' allocating more than maximum (" + mMaxSize + ") items");
+                reclaimLeakedEntries();
+                if (refill(cache)) {
+                    entry = cache.pop();
+                    assert entry != null;
+                    cache.mStats.mSharedHits++;
+                } else {
+                    entry = createEntry();
+                    cache.mStats.mMisses++;
+                    if (mAllocatedCnt.incrementAndGet() > mMaxSize && ULog.w(TAG)) {
+                        ULog.w(TAG, "Pool '" + mName + "' allocating more than maximum (" + mMaxSize + ") items");
+                    }
                 }
             }
             entry.mPool = this;
+            entry.mTracker.mOutstanding = true;
             @SuppressWarnings("unchecked")
             T result = (T) entry;
             return result;
         }
 
+        /**
+         * Debug dump.
+         *
+         * @param writer writer to dump to
+         * @param prefix prefix string (usually indent) to prepend to each written dump line
+         */
+        public final void dump(@NonNull PrintWriter writer, @NonNull String prefix) {
+            retireCollectedCaches();
+            reclaimLeakedEntries();
+            int size, overflows;
+            long obtained, released;
+            synchronized (this) {
+                size = mSize;
+                overflows = mOverflowCnt;
+                obtained = mRetiredStats.getObtainedCount();
+                released = mRetiredStats.mReleases;
+            }
+            int reclaimed = mReclaimedCnt.get();
+            for (ThreadCacheRef ref : mThreadCaches) {
+                obtained += ref.mStats.getObtainedCount();
+                released += ref.mStats.mReleases;
+            }
+            writer.write(prefix + "Pool '" + mName + "': allocated: " + mAllocatedCnt.get() + ", shared: " + size
+                         + "/" + mMaxSize + ", overflows: " + overflows + ", reclaimed: " + reclaimed
+                         + ", outstanding: " + (obtained - released - reclaimed) + "\n");
+            for (ThreadCacheRef ref : mThreadCaches) {
+                ref.mStats.dump(writer, prefix + "\t");
+            }
+            synchronized (this) {
+                if (mRetiredStats.getObtainedCount() > 0 || mRetiredStats.mReleases > 0) {
+                    mRetiredStats.dump(writer, prefix + "\t");
+                }
+            }
+        }
+
         /**
          * Returns an entry to the pool.
          *
          * @param entry entry to return
          */
-        private synchronized void returnEntry(@NonNull PooledObject entry) {
-            if (mSize < mMaxSize) {
-                entry.mNext = mHead;
-                mHead = entry;
-                mSize++;
-            }
+        private void returnEntry(@NonNull PooledObject entry) {
             entry.mPool = null;
+            entry.mTracker.mOutstanding = false;
+            ThreadCache cache = mThreadCache.get();
+            cache.mStats.mReleases++;
+            if (cache.mCount == THREAD_CACHE_SIZE) {
+                reclaimLeakedEntries();
+                spill(cache);
+            }
+            cache.push(entry);
+        }
+
+        /**
+         * Moves a batch of entries from the shared pool to a thread cache.
+         *
+         * @param cache thread cache to refill, must be empty
+         *
+         * @return {@code true} if at least one entry was moved, otherwise {@code false}
+         */
+        private synchronized boolean refill(@NonNull ThreadCache cache) {
+            for (int i = 0; i < THREAD_CACHE_BATCH && mHead != null; i++) {
+                PooledObject entry = mHead;
+                mHead = entry.mNext;
+                mSize--;
+                cache.push(entry);
+            }
+            return cache.mCount > 0;
+        }
+
+        /**
+         * Moves a batch of entries from a thread cache to the shared pool.
+         * <p>
+         * Entries that do not fit in the shared pool are dropped.
+         *
+         * @param cache thread cache to spill, must be full
+         */
+        private synchronized void spill(@NonNull ThreadCache cache) {
+            for (int i = 0; i < THREAD_CACHE_BATCH; i++) {
+                PooledObject entry = cache.pop();
+                assert entry != null;
+                if (mSize < mMaxSize) {
+                    entry.mNext = mHead;
+                    mHead = entry;
+                    mSize++;
+                } else {
+                    mOverflowCnt++;
+                    mAllocatedCnt.decrementAndGet();
+                }
+            }
         }
 
         /**
          * Creates an entry and directly return it to the pool if space is available.
+         *
+         * @return {@code true} if an entry was created, otherwise {@code false}
          */
-        private synchronized void returnNewEntry() {
+        private synchronized boolean returnNewEntry() {
             if (mSize < mMaxSize) {
                 T entry = createEntry();
+                entry.mPool = null;
                 entry.mNext = mHead;
                 mHead = entry;
                 mSize++;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Starts tracking a new entry, so that it can be reclaimed in case it is garbage collected without having been
+         * released.
+         *
+         * @param entry   entry to track
+         * @param cleanup cleanup to run if the entry is garbage collected without having been released, may be
+         *                {@code null}
+         *
+         * @return the entry leak tracker
+         */
+        @NonNull
+        private LeakTracker track(@NonNull PooledObject entry, @Nullable Cleanup cleanup) {
+            LeakTracker tracker = new LeakTracker(entry, mCollectedEntries, cleanup);
+            synchronized (mTrackers) {
+                mTrackers.add(tracker);
+            }
+            return tracker;
+        }
+
+        /**
+         * Forgets about garbage collected entries, and reclaims those that were never released.
+         * <p>
+         * Leaked entries get their cleanup run, and are replaced by new entries in the shared pool if space is
+         * available.
+         */
+        private void reclaimLeakedEntries() {
+            LeakTracker tracker;
+            while ((tracker = (LeakTracker) mCollectedEntries.poll()) != null) {
+                synchronized (mTrackers) {
+                    mTrackers.remove(tracker);
+                }
+                if (tracker.mOutstanding) {
+                    if (ULog.w(TAG)) {
+                        ULog.w(TAG, "Pool '" + mName + "' entry never returned");
+                    }
+                    // This may happen for pooled runnables that are out of the pool when the handler thread that
+                    // should process them exits before they get a chance to run. Free the entry resources anyway.
+                    if (tracker.mCleanup != null) {
+                        tracker.mCleanup.clean();
+                    }
+                    mReclaimedCnt.incrementAndGet();
+                    if (!returnNewEntry()) {
+                        mAllocatedCnt.decrementAndGet();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Accumulates statistics of garbage collected thread caches in the pool totals, and forgets about them.
+         * <p>
+         * Entries that were cached by those threads are gone along with their cache.
+         */
+        private void retireCollectedCaches() {
+            ThreadCacheRef ref;
+            while ((ref = (ThreadCacheRef) mCollectedCaches.poll()) != null) {
+                mThreadCaches.remove(ref);
+                mAllocatedCnt.addAndGet(-ref.mStats.mCached);
+                synchronized (this) {
+                    mRetiredStats.add(ref.mStats);
+                }
             }
         }
 
@@ -122,32 +355,238 @@ public abstract class PooledObject {
         protected abstract T createEntry();
     }
 
+    /**
+     * Cleanup of the resources held by an entry.
+     * <p>
+     * Run when the entry is garbage collected without having been released, in place of {@link #doRelease()}.
+     * Implementations <strong>MUST NOT</strong> reference the entry, otherwise it is never garbage collected.
+     */
+    protected interface Cleanup {
+
+        /**
+         * Frees the entry resources.
+         * <p>
+         * Called from any thread.
+         */
+        void clean();
+    }
+
+    /**
+     * Phantom reference to an entry, which keeps track of whether the entry is currently obtained from the pool.
+     */
+    private static final class LeakTracker extends PhantomReference<PooledObject> {
+
+        /** Cleanup of the referenced entry resources, {@code null} if none. */
+        @Nullable
+        final Cleanup mCleanup;
+
+        /** {@code true} while the referenced entry is obtained from the pool and not released yet. */
+        volatile boolean mOutstanding;
+
+        /**
+         * Constructor.
+         *
+         * @param entry   entry to track
+         * @param queue   queue where to enqueue this reference once the entry is garbage collected
+         * @param cleanup cleanup of the entry resources, {@code null} if none
+         */
+        LeakTracker(@NonNull PooledObject entry, @NonNull ReferenceQueue<PooledObject> queue,
+                    @Nullable Cleanup cleanup) {
+            super(entry, queue);
+            mCleanup = cleanup;
+        }
+    }
+
+    /**
+     * A thread's private cache of pool entries.
+     * <p>
+     * Entries are only accessed by the owning thread.
+     */
+    private static final class ThreadCache {
+
+        /** Statistics of the owning thread. */
+        @NonNull
+        final ThreadStats mStats;
+
+        /** Cached entries. */
+        @NonNull
+        private final PooledObject[] mEntries;
+
+        /** Count of cached entries. */
+        int mCount;
+
+        /**
+         * Constructor.
+         *
+         * @param threadName name of the owning thread
+         */
+        ThreadCache(@NonNull String threadName) {
+            mStats = new ThreadStats(threadName);
+            mEntries = new PooledObject[Pool.THREAD_CACHE_SIZE];
+        }
+
+        /**
+         * Pushes an entry in the cache, which must not be full.
+         *
+         * @param entry entry to push
+         */
+        void push(@NonNull PooledObject entry) {
+            entry.mNext = null;
+            mEntries[mCount++] = entry;
+            mStats.mCached = mCount;
+        }
+
+        /**
+         * Pops an entry from the cache.
+         *
+         * @return the most recently pushed entry, or {@code null} if the cache is empty
+         */
+        @Nullable
+        PooledObject pop() {
+            if (mCount == 0) {
+                return null;
+            }
+            PooledObject entry = mEntries[--mCount];
+            mEntries[mCount] = null;
+            mStats.mCached = mCount;
+            entry.mNext = null;
+            return entry;
+        }
+    }
+
+    /**
+     * Weak reference to a thread cache, which keeps the cache statistics reachable after the cache is collected.
+     */
+    private static final class ThreadCacheRef extends WeakReference<ThreadCache> {
+
+        /** Statistics of the referenced cache. */
+        @NonNull
+        final ThreadStats mStats;
+
+        /**
+         * Constructor.
+         *
+         * @param cache thread cache to reference
+         * @param queue queue where to enqueue this reference once the cache is garbage collected
+         */
+        ThreadCacheRef(@NonNull ThreadCache cache, @NonNull ReferenceQueue<ThreadCache> queue) {
+            super(cache, queue);
+            mStats = cache.mStats;
+        }
+    }
+
+    /**
+     * Statistics of a thread cache.
+     * <p>
+     * Counters are only modified by the owning thread; they may be read from any thread.
+     */
+    private static final class ThreadStats {
+
+        /** Name of the owning thread, for debug. */
+        @NonNull
+        final String mThreadName;
+
+        /** Count of cached entries. */
+        int mCached;
+
+        /** Count of entries obtained from the thread cache. */
+        long mLocalHits;
+
+        /** Count of entries obtained from the shared pool. */
+        long mSharedHits;
+
+        /** Count of entries that had to be allocated. */
+        long mMisses;
+
+        /** Count of entries released by the owning thread. */
+        long mReleases;
+
+        /**
+         * Constructor.
+         *
+         * @param threadName name of the owning thread
+         */
+        ThreadStats(@NonNull String threadName) {
+            mThreadName = threadName;
+        }
+
+        /**
+         * Gives the count of entries obtained by the owning thread.
+         *
+         * @return obtained entries count
+         */
+        long getObtainedCount() {
+            return mLocalHits + mSharedHits + mMisses;
+        }
+
+        /**
+         * Accumulates statistics of another thread.
+         *
+         * @param other statistics to add
+         */
+        void add(@NonNull ThreadStats other) {
+            mLocalHits += other.mLocalHits;
+            mSharedHits += other.mSharedHits;
+            mMisses += other.mMisses;
+            mReleases += other.mReleases;
+        }
+
+        /**
+         * Debug dump.
+         *
+         * @param writer writer to dump to
+         * @param prefix prefix string to prepend to the dumped line
+         */
+        void dump(@NonNull PrintWriter writer, @NonNull String prefix) {
+            writer.write(prefix + mThreadName + ": cached: " + mCached + ", local hits: " + mLocalHits
+                         + ", shared hits: " + mSharedHits + ", misses: " + mMisses + ", releases: " + mReleases
+                         + "\n");
+        }
+    }
+
     /** Pool owning this entry. Null if entry is in the pool */
     @SuppressWarnings("WeakerAccess")
     @Nullable
     Pool<?> mPool;
 
-    /** Next entry when the entry is in the pool. */
+    /** Next entry when the entry is in the shared pool. */
     @SuppressWarnings("WeakerAccess")
     @Nullable
     PooledObject mNext;
 
+    /** Tracks whether this entry is garbage collected without having been released. */
+    @NonNull
+    final LeakTracker mTracker;
+
     /**
      * Constructor.
      *
      * @param pool pool owning the entry
      */
     protected PooledObject(@NonNull Pool pool) {
+        this(pool, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param pool    pool owning the entry
+     * @param cleanup cleanup of the entry resources, run if the entry is garbage collected without having been
+     *                released
+     */
+    protected PooledObject(@NonNull Pool pool, @Nullable Cleanup cleanup) {
         mPool = pool;
+        mTracker = pool.track(this, cleanup);
     }
 
     /**
      * Releases the entry.
      */
     public final void release() {
-        if (mPool != null) {
+        Pool<?> pool = mPool;
+        if (pool != null) {
             doRelease();
-            mPool.returnEntry(this);
+            pool.returnEntry(this);
         } else if (BuildConfig.DEBUG) {
             throw new IllegalStateException("Pooled object already released: " + this);
         } else {
@@ -155,23 +594,6 @@ public abstract class PooledObject {
         }
     }
 
-    @Override
-    protected void finalize() throws Throwable {
-        if (mPool != null) {
-            if (ULog.w(TAG)) {
-                ULog.w(TAG, "Pooled object never returned: " + this);
-            }
-            // Object was never returned to the pool. This may happen for pooled runnables that are out of the pool
-            // when the handler thread that should process them exits before they get a chance to run.
-            // Release it anyway.
-            doRelease();
-            // Then mock as if it returned to the pool gracefully.
-            mPool.returnNewEntry();
-            mPool = null;
-        }
-        super.finalize();
-    }
-
     /**
      * Called when the entry is released.
      * <p>
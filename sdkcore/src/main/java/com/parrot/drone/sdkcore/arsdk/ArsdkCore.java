@@ -321,6 +321,12 @@ public class ArsdkCore {
         } else if (args.contains("--arsdkctl") || args.contains("--all")) {
             writer.write("Arsdkctl:\n");
             writer.write("\tState: " + (mPompLoop == null ? "STOPPED" : "STARTED") + "\n");
+            if (mPompLoop != null) {
+                writer.write("\tPomp loop:\n");
+                mPompLoop.dump(writer, "\t\t");
+            }
+            writer.write("\tCommand pool:\n");
+            ArsdkCommand.Pool.DEFAULT.dump(writer, "\t\t");
             for (ArsdkBackendController controller : mBackendControllers) {
                 controller.dump(writer, args, "\t");
             }
@@ -0,0 +1,257 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.sdkcore.arsdk.backend.net.mdnssdmin;
+
+import androidx.annotation.NonNull;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory cache of discovered service instances, honouring their time to live.
+ * <p>
+ * The cache provides known answers to include in outgoing queries (RFC 6762 §7.1) and schedules cache maintenance
+ * queries, sent at 80%, 85%, 90% and 95% of each record time to live (RFC 6762 §5.2), so that records are refreshed
+ * before they expire.
+ * <p>
+ * This class is thread-safe.
+ */
+final class MdnsSdCache {
+
+    /**
+     * A cached service instance.
+     */
+    static final class Entry {
+
+        /** Unqualified service name. */
+        @NonNull
+        final String mName;
+
+        /** Service type. */
+        @NonNull
+        final String mServiceType;
+
+        /** Record time to live, in seconds. */
+        final long mTtl;
+
+        /** Time when the record was received, in milliseconds. */
+        final long mReceivedTime;
+
+        /** Number of maintenance queries sent for this record so far. */
+        private int mRefreshCount;
+
+        /**
+         * Constructor.
+         *
+         * @param name         unqualified service name
+         * @param serviceType  service type
+         * @param ttl          record time to live, in seconds
+         * @param receivedTime time when the record was received, in milliseconds
+         */
+        Entry(@NonNull String name, @NonNull String serviceType, long ttl, long receivedTime) {
+            mName = name;
+            mServiceType = serviceType;
+            mTtl = ttl;
+            mReceivedTime = receivedTime;
+        }
+
+        /**
+         * Gives the remaining time to live of the record.
+         *
+         * @param now current time, in milliseconds
+         *
+         * @return remaining time to live, in seconds
+         */
+        long getRemainingTtl(long now) {
+            return Math.max(0, mTtl - (now - mReceivedTime) / 1000);
+        }
+
+        /**
+         * Gives the time when the next maintenance query for this record is due.
+         *
+         * @return next maintenance query time, in milliseconds, {@code Long.MAX_VALUE} if none
+         */
+        private long getRefreshTime() {
+            if (mRefreshCount >= MAX_REFRESH_QUERIES) {
+                return Long.MAX_VALUE;
+            }
+            return mReceivedTime + mTtl * (REFRESH_START_PERCENT + REFRESH_STEP_PERCENT * mRefreshCount) * 10;
+        }
+
+        /**
+         * Gives the time when the record expires.
+         *
+         * @return expiry time, in milliseconds
+         */
+        private long getExpiryTime() {
+            return mReceivedTime + mTtl * 1000;
+        }
+    }
+
+    /** Percentage of the time to live after which the first maintenance query is sent. */
+    private static final int REFRESH_START_PERCENT = 80;
+
+    /** Percentage of the time to live between successive maintenance queries. */
+    private static final int REFRESH_STEP_PERCENT = 5;
+
+    /** Maximum number of maintenance queries sent for a record. */
+    private static final int MAX_REFRESH_QUERIES = 4;
+
+    /** Cached entries, by service type and name. */
+    @NonNull
+    private final Map<String, Entry> mEntries;
+
+    /**
+     * Constructor.
+     */
+    MdnsSdCache() {
+        mEntries = new LinkedHashMap<>();
+    }
+
+    /**
+     * Caches a received service instance record.
+     *
+     * @param name        unqualified service name
+     * @param serviceType service type
+     * @param ttl         record time to live, in seconds; must be positive
+     * @param now         current time, in milliseconds
+     *
+     * @return {@code true} if the service instance was not cached yet, otherwise {@code false}
+     */
+    synchronized boolean put(@NonNull String name, @NonNull String serviceType, long ttl, long now) {
+        return mEntries.put(key(name, serviceType), new Entry(name, serviceType, ttl, now)) == null;
+    }
+
+    /**
+     * Removes a service instance from the cache.
+     *
+     * @param name        unqualified service name
+     * @param serviceType service type
+     */
+    synchronized void remove(@NonNull String name, @NonNull String serviceType) {
+        mEntries.remove(key(name, serviceType));
+    }
+
+    /**
+     * Clears the cache.
+     */
+    synchronized void clear() {
+        mEntries.clear();
+    }
+
+    /**
+     * Tells whether the cache is empty.
+     *
+     * @return {@code true} if the cache is empty, otherwise {@code false}
+     */
+    synchronized boolean isEmpty() {
+        return mEntries.isEmpty();
+    }
+
+    /**
+     * Removes expired records.
+     *
+     * @param now current time, in milliseconds
+     *
+     * @return number of removed records
+     */
+    synchronized int expire(long now) {
+        int count = 0;
+        for (Iterator<Entry> iterator = mEntries.values().iterator(); iterator.hasNext(); ) {
+            if (iterator.next().getExpiryTime() <= now) {
+                iterator.remove();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Collects known answers to include in a query.
+     * <p>
+     * Only records whose remaining time to live is more than half their original time to live are included, so
+     * that responders refresh records before they expire (RFC 6762 §7.1).
+     *
+     * @param now          current time, in milliseconds
+     * @param knownAnswers list to add known answers to
+     */
+    synchronized void collectKnownAnswers(long now, @NonNull List<Entry> knownAnswers) {
+        for (Entry entry : mEntries.values()) {
+            if (entry.getRemainingTtl(now) * 2 > entry.mTtl) {
+                knownAnswers.add(entry);
+            }
+        }
+    }
+
+    /**
+     * Notifies that a query has been sent, accounting it as a maintenance query for all records whose maintenance
+     * query was due.
+     *
+     * @param now current time, in milliseconds
+     */
+    synchronized void onQuerySent(long now) {
+        for (Entry entry : mEntries.values()) {
+            while (entry.getRefreshTime() <= now) {
+                entry.mRefreshCount++;
+            }
+        }
+    }
+
+    /**
+     * Gives the time when the next maintenance query is due.
+     *
+     * @return next maintenance query time, in milliseconds, {@code Long.MAX_VALUE} if none
+     */
+    synchronized long getNextRefreshTime() {
+        long time = Long.MAX_VALUE;
+        for (Entry entry : mEntries.values()) {
+            time = Math.min(time, entry.getRefreshTime());
+        }
+        return time;
+    }
+
+    /**
+     * Computes the cache key of a service instance.
+     *
+     * @param name        unqualified service name
+     * @param serviceType service type
+     *
+     * @return cache key
+     */
+    @NonNull
+    private static String key(@NonNull String name, @NonNull String serviceType) {
+        return name + "." + serviceType;
+    }
+}
@@ -36,6 +36,7 @@ import android.net.Network;
 import android.os.Handler;
 import android.os.HandlerThread;
 import android.os.Message;
+import android.os.SystemClock;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -49,14 +50,21 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.MulticastSocket;
 import java.net.NetworkInterface;
+import java.util.ArrayList;
+import java.util.List;
 
 import static com.parrot.drone.sdkcore.arsdk.Logging.TAG_MDNS;
 
 /**
  * A minimal implementation of Mdns service discovery.
  * <p>
- * This implementation doesn't handle caching and time to live. It's specially customised to discover one single device
- * on the network. It heavily send queries to ensure the first device is discovered quickly.
+ * This implementation is specially customised to discover devices on the network quickly while keeping the channel
+ * quiet afterwards: it heavily sends queries at startup until a first device is found, then backs off exponentially.
+ * Discovered services are cached according to their time to live; cached services are sent as known answers in
+ * queries so that devices don't answer again (RFC 6762 §7.1), and maintenance queries are sent before they expire.
+ * <p>
+ * Expired services are only dropped from the cache: services are reported removed to the listener only when the device
+ * announces it (goodbye packet).
  */
 public final class MdnsSdMin {
 
@@ -145,12 +153,43 @@ public final class MdnsSdMin {
     @Nullable
     private Handler mQueryHandler;
 
-    /** Interval between queries. */
+    /** Cache of discovered services. */
+    @NonNull
+    private final MdnsSdCache mCache;
+
+    /** {@code true} while sending startup queries at a fast pace, until a service is discovered. */
+    private volatile boolean mColdStart;
+
+    /** Time when discovery was started, in milliseconds. */
+    private volatile long mStartTime;
+
+    /** Number of queries sent since discovery was started. */
+    private volatile int mQueryCount;
+
+    /** Number of known answers sent since discovery was started. */
+    private volatile int mKnownAnswerCount;
+
+    /** Number of service responses received since discovery was started. */
+    private volatile int mResponseCount;
+
+    /** Delay between discovery start and first service discovery, in milliseconds, {@code -1} if none yet. */
+    private volatile long mFirstDiscoveryLatency;
+
+    /** Interval between queries at startup. */
     private static final int QUERY_INTERVAL_MS = 250;
 
-    /** Duration to send queries for at startup. */
+    /** Duration to send queries for at startup, at {@link #QUERY_INTERVAL_MS} interval. */
     private static final int QUERY_DURATION_MS = 5 * 1000;
 
+    /** Initial interval between queries once startup queries are over. */
+    private static final int MIN_BACKOFF_INTERVAL_MS = 1000;
+
+    /** Maximum interval between queries once startup queries are over. */
+    private static final int MAX_BACKOFF_INTERVAL_MS = 60 * 1000;
+
+    /** Query handler message: send a query. */
+    private static final int MSG_QUERY = 0;
+
     /** mdns multicast group address. */
     private static final String MDNS_MULTICAST_ADDR = "224.0.0.251";
 
@@ -170,6 +209,7 @@ public final class MdnsSdMin {
         mNetConfig = netConfig;
         // create the mQuery
         mQuery = new MdnsSdOutgoingQuery(services);
+        mCache = new MdnsSdCache();
     }
 
     /**
@@ -189,6 +229,14 @@ public final class MdnsSdMin {
                         new InetSocketAddress(InetAddress.getByName(MDNS_MULTICAST_ADDR), MDNS_MULTICAST_PORT),
                         mNetConfig.mNetInterface);
                 mSocket.setTimeToLive(255);
+                // reset discovery state
+                mCache.clear();
+                mColdStart = true;
+                mStartTime = SystemClock.elapsedRealtime();
+                mQueryCount = 0;
+                mKnownAnswerCount = 0;
+                mResponseCount = 0;
+                mFirstDiscoveryLatency = -1;
                 // start the receiver thread
                 mReceiveThread = new ReceiverThread(mSocket);
                 mReceiveThread.start();
@@ -209,6 +257,11 @@ public final class MdnsSdMin {
             ULog.d(TAG_MDNS, "Stopping MdnsSd");
         }
         if (mSocket != null) {
+            if (ULog.i(TAG_MDNS)) {
+                ULog.i(TAG_MDNS, "MdnsSd stats: " + mQueryCount + " queries sent with " + mKnownAnswerCount
+                                 + " known answers, " + mResponseCount + " responses received, first discovery "
+                                 + (mFirstDiscoveryLatency < 0 ? "none" : "after " + mFirstDiscoveryLatency + "ms"));
+            }
             mSocket.close();
             mSocket = null;
             mReceiveThread = null;
@@ -220,32 +273,15 @@ public final class MdnsSdMin {
     }
 
     /**
-     * Cancel sending queries previously queued by {@link #sendQueries}.
+     * Cancel sending startup queries.
+     * <p>
+     * Queries are then sent with an exponential backoff, as when a service is discovered.
      */
     public void cancelSendQueries() {
         if (ULog.d(TAG_MDNS)) {
             ULog.d(TAG_MDNS, "Cancel sending queries");
         }
-        if (mQueryHandler != null) {
-            mQueryHandler.removeMessages(0);
-        }
-    }
-
-    /**
-     * Send queries to discover mServices.
-     * <p>
-     * This methods send a lot of queries at regular interval. Pending queries can be cancelled by calling {@link
-     * #cancelSendQueries}
-     */
-    private void sendQueries() {
-        if (ULog.d(TAG_MDNS)) {
-            ULog.d(TAG_MDNS, "Sending queries");
-        }
-        if (mQueryHandler != null) {
-            for (int t = 0; t < QUERY_DURATION_MS; t += QUERY_INTERVAL_MS) {
-                mQueryHandler.sendMessageDelayed(mQueryHandler.obtainMessage(0), t);
-            }
-        }
+        mColdStart = false;
     }
 
     /**
@@ -270,12 +306,14 @@ public final class MdnsSdMin {
         @Override
         public void run() {
             byte[] buffer = new byte[1500];
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            MdnsSdResponseDecoder decoder = new MdnsSdResponseDecoder(mServices, buffer);
+            MdnsSdResponseDecoder.Callback callback = this::handleService;
             while (!mSocket.isClosed()) {
                 try {
-                    DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+                    packet.setLength(buffer.length);
                     mSocket.receive(packet);
-                    MdnsSdIncomingResponse r = new MdnsSdIncomingResponse(packet.getData());
-                    handleResponse(r);
+                    decoder.decode(packet.getLength(), callback);
                 } catch (Throwable e) {
                     // Catch all exceptions, to protect against bad dns packets
                     ULog.w(TAG_MDNS, "Ignoring received packet due to " + e.getMessage());
@@ -284,41 +322,39 @@ public final class MdnsSdMin {
         }
 
         /**
-         * Handled a mdns response .
+         * Handles a service found in a mdns response.
          *
-         * @param response the response message
+         * @param name        unqualified service name
+         * @param serviceType service type
+         * @param ipAddress   service ip address
+         * @param port        service port
+         * @param txtRecords  service additional data
+         * @param ttl         service time to live
+         * @param ptrTtl      time to live of the PTR record pointing to the service
          */
-        private void handleResponse(@NonNull MdnsSdIncomingResponse response) {
-            // iterate expected PTRs
-            for (String question : mServices) {
-                String ptr = response.getPtr(question);
-                if (ptr != null) {
-                    // found a ptr, the corresponding service
-                    MdnsSrvData srv = response.getService(ptr);
-                    if (srv != null) {
-                        String address = response.getAddress(srv.getTarget());
-                        String[] txtRecords = response.getTexts(ptr);
-                        if ((address != null) && (txtRecords != null)) {
-                            // ptr is the full qualified name. extract device and service name
-                            int pos = -1;
-                            if (ptr.endsWith(question)) {
-                                pos = ptr.length() - question.length();
-                            }
-                            String name = ptr.substring(0, pos > 0 ? pos - 1 : ptr.length());
-                            if (srv.getTtl() > 0) {
-                                if (ULog.i(TAG_MDNS)) {
-                                    ULog.i(TAG_MDNS, "New service " + name);
-                                }
-                                mListener.onServiceAdded(name, question, address, srv.getPort(), txtRecords);
-                            } else {
-                                if (ULog.d(TAG_MDNS)) {
-                                    ULog.d(TAG_MDNS, "Service removed " + name);
-                                }
-                                mListener.onServiceRemoved(name, question);
-                            }
-                        }
+        private void handleService(@NonNull String name, @NonNull String serviceType, @NonNull String ipAddress,
+                                   int port, @NonNull String[] txtRecords, long ttl, long ptrTtl) {
+            if (ttl > 0) {
+                long now = SystemClock.elapsedRealtime();
+                mResponseCount++;
+                // the PTR record is what queries carry as known answer, cache it with its own time to live
+                if (mCache.put(name, serviceType, ptrTtl > 0 ? ptrTtl : ttl, now)) {
+                    long latency = now - mStartTime;
+                    if (mFirstDiscoveryLatency < 0) {
+                        mFirstDiscoveryLatency = latency;
+                    }
+                    if (ULog.i(TAG_MDNS)) {
+                        ULog.i(TAG_MDNS, "New service " + name + " discovered after " + latency + "ms and "
+                                         + mQueryCount + " queries");
                     }
                 }
+                mListener.onServiceAdded(name, serviceType, ipAddress, port, txtRecords);
+            } else {
+                if (ULog.d(TAG_MDNS)) {
+                    ULog.d(TAG_MDNS, "Service removed " + name);
+                }
+                mCache.remove(name, serviceType);
+                mListener.onServiceRemoved(name, serviceType);
             }
         }
     }
@@ -332,6 +368,13 @@ public final class MdnsSdMin {
         @NonNull
         private final DatagramSocket mSocket;
 
+        /** Known answers to send in next query, reused between queries. */
+        @NonNull
+        private final List<MdnsSdCache.Entry> mKnownAnswers;
+
+        /** Current interval between queries once startup queries are over, {@code 0} if not started yet. */
+        private long mBackoffInterval;
+
         /**
          * Constructor.
          *
@@ -340,6 +383,7 @@ public final class MdnsSdMin {
         QueryThread(@NonNull DatagramSocket socket) {
             super("MdnsSd-mQuery");
             mSocket = socket;
+            mKnownAnswers = new ArrayList<>();
         }
 
         @Override
@@ -352,19 +396,74 @@ public final class MdnsSdMin {
 
                     @Override
                     public void handleMessage(Message msg) {
-                        try {
-                            byte[] buf = mQuery.encode();
-                            DatagramPacket packet = new DatagramPacket(buf, buf.length,
-                                    InetAddress.getByName(MDNS_MULTICAST_ADDR), MDNS_MULTICAST_PORT);
-                            mSocket.send(packet);
-                        } catch (IOException e) {
-                            ULog.e(TAG_MDNS, "unable to start mQuery", e);
-                        }
+                        long now = SystemClock.elapsedRealtime();
+                        sendQuery(now);
+                        sendEmptyMessageDelayed(MSG_QUERY, computeNextQueryDelay(now));
                     }
                 };
                 // do the first mQuery
-                sendQueries();
+                if (ULog.d(TAG_MDNS)) {
+                    ULog.d(TAG_MDNS, "Sending queries");
+                }
+                mQueryHandler.sendEmptyMessage(MSG_QUERY);
+            }
+        }
+
+        /**
+         * Sends a query, including known answers from the cache.
+         *
+         * @param now current time, in milliseconds
+         */
+        private void sendQuery(long now) {
+            int expired = mCache.expire(now);
+            if (expired > 0) {
+                if (ULog.d(TAG_MDNS)) {
+                    ULog.d(TAG_MDNS, expired + " cached service(s) expired");
+                }
+                // look for vanished services again at a faster pace
+                mBackoffInterval = 0;
+            }
+            mKnownAnswers.clear();
+            mCache.collectKnownAnswers(now, mKnownAnswers);
+            try {
+                byte[] buf = mQuery.encode(mKnownAnswers, now);
+                DatagramPacket packet = new DatagramPacket(buf, buf.length,
+                        InetAddress.getByName(MDNS_MULTICAST_ADDR), MDNS_MULTICAST_PORT);
+                mSocket.send(packet);
+                mCache.onQuerySent(now);
+                mQueryCount++;
+                mKnownAnswerCount += mKnownAnswers.size();
+            } catch (IOException e) {
+                ULog.e(TAG_MDNS, "unable to start mQuery", e);
+            }
+        }
+
+        /**
+         * Computes the delay before the next query.
+         * <p>
+         * Queries are sent every {@link #QUERY_INTERVAL_MS} at startup until a service is discovered, for at most
+         * {@link #QUERY_DURATION_MS}. Then the interval doubles after each query, from {@link
+         * #MIN_BACKOFF_INTERVAL_MS} up to {@link #MAX_BACKOFF_INTERVAL_MS}. Queries are sent earlier when cached
+         * services need to be refreshed.
+         *
+         * @param now current time, in milliseconds
+         *
+         * @return delay before the next query, in milliseconds
+         */
+        private long computeNextQueryDelay(long now) {
+            long delay;
+            if (mColdStart && mCache.isEmpty() && now - mStartTime < QUERY_DURATION_MS) {
+                delay = QUERY_INTERVAL_MS;
+            } else {
+                mBackoffInterval = mBackoffInterval == 0 ? MIN_BACKOFF_INTERVAL_MS
+                        : Math.min(mBackoffInterval * 2, MAX_BACKOFF_INTERVAL_MS);
+                delay = mBackoffInterval;
+            }
+            long refreshTime = mCache.getNextRefreshTime();
+            if (refreshTime != Long.MAX_VALUE) {
+                delay = Math.max(0, Math.min(delay, refreshTime - now));
             }
+            return delay;
         }
     }
 }
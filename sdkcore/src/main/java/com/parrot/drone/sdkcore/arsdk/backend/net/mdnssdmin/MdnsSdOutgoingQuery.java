@@ -33,20 +33,43 @@
 package com.parrot.drone.sdkcore.arsdk.backend.net.mdnssdmin;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 /**
  * A MDNS-SD service Query
  * <p>
- * Build a PTR query for a list of service name.
+ * Build a PTR query for a list of service name, optionally carrying known answers (RFC 6762 §7.1) so that responders
+ * do not answer with records the querier already knows.
  */
 final class MdnsSdOutgoingQuery {
 
+    /** DNS PTR record type. */
+    private static final int TYPE_PTR = 12;
+
+    /** DNS IN record class. */
+    private static final int CLASS_IN = 1;
+
+    /** Size of the DNS header. */
+    private static final int HEADER_SIZE = 12;
+
+    /** Maximum size of an encoded query; known answers that do not fit are left out. */
+    private static final int MAX_QUERY_SIZE = 1460;
+
+    /** Maximum length of a DNS label. */
+    private static final int MAX_LABEL_LENGTH = 63;
+
     /** Array of service name mQuestions. */
     @NonNull
     private final String[] mQuestions;
 
+    /** Offset of each question name in encoded queries, used as compression pointer target by known answers. */
+    @NonNull
+    private final int[] mQuestionOffsets;
+
     /**
      * Constructor.
      *
@@ -54,39 +77,106 @@ final class MdnsSdOutgoingQuery {
      */
     MdnsSdOutgoingQuery(@NonNull String[] questions) {
         mQuestions = questions;
+        mQuestionOffsets = new int[questions.length];
     }
 
     /**
      * Encode the query.
      *
+     * @param knownAnswers known service instances to include as PTR answers
+     * @param now          current time, in milliseconds, used to compute known answers remaining time to live
+     *
      * @return query data ready to be send as UDP payload
      */
-    byte[] encode() {
+    byte[] encode(@NonNull List<MdnsSdCache.Entry> knownAnswers, long now) {
+        ByteArrayOutputStream answers = new ByteArrayOutputStream();
+        int answerCount = 0;
         ByteArrayOutputStream os = new ByteArrayOutputStream();
-        // header
+        // mQuestions
+        for (int i = 0; i < mQuestions.length; i++) {
+            mQuestionOffsets[i] = HEADER_SIZE + os.size();
+            // name
+            writeName(os, mQuestions[i]);
+            // type PTR
+            writeU16(os, TYPE_PTR);
+            // class IN
+            writeU16(os, CLASS_IN);
+        }
+        // known answers
+        for (MdnsSdCache.Entry entry : knownAnswers) {
+            int question = indexOf(entry.mServiceType);
+            byte[] instance = encodeLabel(entry.mName);
+            if (question >= 0 && instance != null
+                && HEADER_SIZE + os.size() + answers.size() + instance.length + 14 <= MAX_QUERY_SIZE) {
+                // name: pointer to the question name
+                writeU16(answers, 0xC000 | mQuestionOffsets[question]);
+                writeU16(answers, TYPE_PTR);
+                writeU16(answers, CLASS_IN);
+                // ttl
+                long ttl = entry.getRemainingTtl(now);
+                writeU16(answers, (int) (ttl >> 16));
+                writeU16(answers, (int) ttl);
+                // rdata: instance label followed by a pointer to the question name
+                writeU16(answers, instance.length + 2);
+                answers.write(instance, 0, instance.length);
+                writeU16(answers, 0xC000 | mQuestionOffsets[question]);
+                answerCount++;
+            }
+        }
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream(HEADER_SIZE + os.size() + answers.size());
         // uid: always 0 in mdns
-        writeU16(os, 0);
+        writeU16(header, 0);
         // OP code. R code, flags : 0 for a query
-        writeU16(os, 0);
+        writeU16(header, 0);
         // Questions
-        writeU16(os, mQuestions.length);
+        writeU16(header, mQuestions.length);
         // Answer RRs
-        writeU16(os, 0);
+        writeU16(header, answerCount);
         // Authority RRs
-        writeU16(os, 0);
+        writeU16(header, 0);
         // Additional RRs
-        writeU16(os, 0);
+        writeU16(header, 0);
+        byte[] questions = os.toByteArray();
+        header.write(questions, 0, questions.length);
+        byte[] answerData = answers.toByteArray();
+        header.write(answerData, 0, answerData.length);
+        return header.toByteArray();
+    }
 
-        // mQuestions
-        for (String question : mQuestions) {
-            // name
-            writeName(os, question);
-            // type PTR
-            writeU16(os, 12);
-            // class IN
-            writeU16(os, 1);
+    /**
+     * Gives the index of a question.
+     *
+     * @param serviceType service type queried by the question
+     *
+     * @return index of the question, {@code -1} if not found
+     */
+    private int indexOf(@NonNull String serviceType) {
+        for (int i = 0; i < mQuestions.length; i++) {
+            if (mQuestions[i].equals(serviceType)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Encodes a single DNS label, prefixed by its length.
+     *
+     * @param label the label to encode
+     *
+     * @return encoded label, or {@code null} if the label cannot be encoded
+     */
+    @Nullable
+    private static byte[] encodeLabel(@NonNull String label) {
+        byte[] data = label.getBytes(StandardCharsets.UTF_8);
+        if (data.length == 0 || data.length > MAX_LABEL_LENGTH) {
+            return null;
         }
-        return os.toByteArray();
+        byte[] encoded = new byte[data.length + 1];
+        encoded[0] = (byte) data.length;
+        System.arraycopy(data, 0, encoded, 1, data.length);
+        return encoded;
     }
 
     /**
@@ -0,0 +1,619 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.sdkcore.arsdk.backend.net.mdnssdmin;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodes mdns response messages, looking for some services.
+ * <p>
+ * The decoder works in place on the buffer packets are received in, and is meant to be reused for all received
+ * packets. A first pass indexes handled resource records and checks whether the message answers any of the searched
+ * services; messages that do not, such as those from other devices on the network, are rejected without allocating
+ * any object. Only the services found in matching messages are decoded and reported.
+ * <p>
+ * This class is not thread-safe.
+ */
+final class MdnsSdResponseDecoder {
+
+    /**
+     * Callback notified of services found in decoded messages.
+     */
+    interface Callback {
+
+        /**
+         * Notifies that a service has been found.
+         *
+         * @param name        unqualified service name
+         * @param serviceType service type
+         * @param ipAddress   service ip address
+         * @param port        service port
+         * @param txtRecord   service additional data
+         * @param ttl         service time to live, 0 when the service is about to be removed
+         * @param ptrTtl      time to live of the PTR record pointing to the service instance, usually much longer than
+         *                    the service time to live
+         */
+        void onService(@NonNull String name, @NonNull String serviceType, @NonNull String ipAddress, int port,
+                       @NonNull String[] txtRecord, long ttl, long ptrTtl);
+    }
+
+    /** Address record type. */
+    private static final int TYPE_A = 1;
+
+    /** PTR record type. */
+    private static final int TYPE_PTR = 12;
+
+    /** TXT record type. */
+    private static final int TYPE_TXT = 16;
+
+    /** SRV record type. */
+    private static final int TYPE_SRV = 33;
+
+    /** Size of a message header. */
+    private static final int HEADER_SIZE = 12;
+
+    /** Maximum amount of handled records indexed per message; further records are ignored. */
+    private static final int MAX_RECORDS = 64;
+
+    /** Maximum amount of compression pointers followed while reading a single name. */
+    private static final int MAX_POINTERS = 32;
+
+    /**
+     * Maximum length of an encoded name, including the terminating zero length label. Reading a longer name means
+     * that its compression pointers loop over its labels.
+     */
+    private static final int MAX_NAME_LENGTH = 255;
+
+    /** Services to search for, as given by the client. */
+    @NonNull
+    private final String[] mServices;
+
+    /** Services to search for, encoded as dns names. */
+    @NonNull
+    private final byte[][] mEncodedServices;
+
+    /** View on the buffer packets are received in. */
+    @NonNull
+    private final ByteBuffer mBuffer;
+
+    /** Offset of the name of each indexed record. */
+    @NonNull
+    private final int[] mNameOffsets;
+
+    /** Type of each indexed record. */
+    @NonNull
+    private final int[] mTypes;
+
+    /** Time to live of each indexed record. */
+    @NonNull
+    private final long[] mTtls;
+
+    /** Offset of the data of each indexed record. */
+    @NonNull
+    private final int[] mDataOffsets;
+
+    /** Length of the data of each indexed record. */
+    @NonNull
+    private final int[] mDataLengths;
+
+    /** Amount of indexed records in the current message. */
+    private int mRecordCount;
+
+    /** Decoded names cache. */
+    @NonNull
+    private final NameCache mNameCache;
+
+    /** Builder reused to format addresses. */
+    @NonNull
+    private final StringBuilder mAddressBuilder;
+
+    /**
+     * Constructor.
+     *
+     * @param services services to search for, as fully qualified dns names
+     * @param buffer   buffer packets are received in
+     */
+    MdnsSdResponseDecoder(@NonNull String[] services, @NonNull byte[] buffer) {
+        mServices = services;
+        mEncodedServices = new byte[services.length][];
+        for (int i = 0; i < services.length; i++) {
+            mEncodedServices[i] = encodeName(services[i]);
+        }
+        mBuffer = ByteBuffer.wrap(buffer);
+        mNameOffsets = new int[MAX_RECORDS];
+        mTypes = new int[MAX_RECORDS];
+        mTtls = new long[MAX_RECORDS];
+        mDataOffsets = new int[MAX_RECORDS];
+        mDataLengths = new int[MAX_RECORDS];
+        mNameCache = new NameCache();
+        mAddressBuilder = new StringBuilder();
+    }
+
+    /**
+     * Decodes a message and reports found services.
+     *
+     * @param length   length of the message, at the beginning of the buffer given at construction
+     * @param callback callback notified of each found service
+     *
+     * @return {@code true} if the message answers any of the searched services, otherwise {@code false}
+     *
+     * @throws IndexOutOfBoundsException in case the message is malformed
+     */
+    boolean decode(int length, @NonNull Callback callback) {
+        mBuffer.limit(length);
+        if (!index()) {
+            return false;
+        }
+        for (int i = 0; i < mServices.length; i++) {
+            int ptr = findRecord(TYPE_PTR, mEncodedServices[i]);
+            if (ptr >= 0) {
+                reportService(i, ptr, callback);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Indexes handled records of the current message.
+     *
+     * @return {@code true} if the message contains a PTR record for any of the searched services, otherwise
+     *         {@code false}
+     */
+    private boolean index() {
+        mRecordCount = 0;
+        if (mBuffer.limit() < HEADER_SIZE || readU16(0) != 0) {
+            return false;
+        }
+        int questionsCnt = readU16(4);
+        int recordsCnt = readU16(6) + readU16(8) + readU16(10);
+        int pos = HEADER_SIZE;
+        // skip questions: name, type and class
+        for (int cnt = 0; cnt < questionsCnt; cnt++) {
+            pos = skipName(pos) + 4;
+        }
+        boolean matches = false;
+        for (int cnt = 0; cnt < recordsCnt && mRecordCount < MAX_RECORDS; cnt++) {
+            int nameOffset = pos;
+            pos = skipName(pos);
+            int type = readU16(pos);
+            long ttl = readU32(pos + 4);
+            int dataLength = readU16(pos + 8);
+            pos += 10;
+            if (pos + dataLength > mBuffer.limit()) {
+                return false;
+            }
+            if (type == TYPE_A || type == TYPE_PTR || type == TYPE_TXT || type == TYPE_SRV) {
+                mNameOffsets[mRecordCount] = nameOffset;
+                mTypes[mRecordCount] = type;
+                mTtls[mRecordCount] = ttl;
+                mDataOffsets[mRecordCount] = pos;
+                mDataLengths[mRecordCount] = dataLength;
+                mRecordCount++;
+                if (type == TYPE_PTR && !matches) {
+                    for (int i = 0; i < mEncodedServices.length && !matches; i++) {
+                        matches = nameEquals(nameOffset, mEncodedServices[i]);
+                    }
+                }
+            }
+            pos += dataLength;
+        }
+        return matches;
+    }
+
+    /**
+     * Decodes and reports a service instance.
+     * <p>
+     * The service is reported only if the message also holds its SRV, TXT and target address records.
+     *
+     * @param service  index of the service type
+     * @param ptr      index of the PTR record pointing to the service instance
+     * @param callback callback to notify
+     */
+    private void reportService(int service, int ptr, @NonNull Callback callback) {
+        int instanceName = mDataOffsets[ptr];
+        int srv = findRecord(TYPE_SRV, instanceName);
+        if (srv < 0) {
+            return;
+        }
+        int srvData = mDataOffsets[srv];
+        int address = findAddress(srvData + 6);
+        int txt = findRecord(TYPE_TXT, instanceName);
+        if (address < 0 || txt < 0) {
+            return;
+        }
+
+        // instance name is the fully qualified name. extract device name
+        String serviceType = mServices[service];
+        String fullName = mNameCache.get(instanceName);
+        int pos = -1;
+        if (fullName.endsWith(serviceType)) {
+            pos = fullName.length() - serviceType.length();
+        }
+        String name = fullName.substring(0, pos > 0 ? pos - 1 : fullName.length());
+
+        callback.onService(name, serviceType, readAddress(mDataOffsets[address]), readU16(srvData + 4),
+                readTexts(mDataOffsets[txt], mDataLengths[txt]), mTtls[srv], mTtls[ptr]);
+    }
+
+    /**
+     * Finds the last indexed record of a given type and name.
+     *
+     * @param type record type
+     * @param name offset of the record name in the message
+     *
+     * @return index of the found record, {@code -1} if none
+     */
+    private int findRecord(int type, int name) {
+        for (int i = mRecordCount - 1; i >= 0; i--) {
+            if (mTypes[i] == type && namesEqual(mNameOffsets[i], name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the last indexed record of a given type and name.
+     *
+     * @param type record type
+     * @param name encoded record name
+     *
+     * @return index of the found record, {@code -1} if none
+     */
+    private int findRecord(int type, @NonNull byte[] name) {
+        for (int i = mRecordCount - 1; i >= 0; i--) {
+            if (mTypes[i] == type && nameEquals(mNameOffsets[i], name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the last indexed IPv4 address record of a given name.
+     *
+     * @param name offset of the record name in the message
+     *
+     * @return index of the found record, {@code -1} if none
+     */
+    private int findAddress(int name) {
+        for (int i = mRecordCount - 1; i >= 0; i--) {
+            if (mTypes[i] == TYPE_A && mDataLengths[i] == 4 && namesEqual(mNameOffsets[i], name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reads an IPv4 address.
+     *
+     * @param pos offset of the address in the message
+     *
+     * @return dotted representation of the address
+     */
+    @NonNull
+    private String readAddress(int pos) {
+        mAddressBuilder.setLength(0);
+        for (int i = 0; i < 4; i++) {
+            if (i > 0) {
+                mAddressBuilder.append('.');
+            }
+            mAddressBuilder.append(readU8(pos + i));
+        }
+        return mAddressBuilder.toString();
+    }
+
+    /**
+     * Reads TXT record data.
+     *
+     * @param pos    offset of the data in the message
+     * @param length data length
+     *
+     * @return TXT strings
+     */
+    @NonNull
+    private String[] readTexts(int pos, int length) {
+        int end = pos + length;
+        int count = 0;
+        for (int i = pos; i < end; i += readU8(i) + 1) {
+            count++;
+        }
+        String[] texts = new String[count];
+        for (int i = 0; i < count; i++) {
+            int len = readU8(pos);
+            texts[i] = new String(mBuffer.array(), pos + 1, Math.min(len, end - pos - 1), StandardCharsets.UTF_8);
+            pos += len + 1;
+        }
+        return texts;
+    }
+
+    /**
+     * Resolves compression pointers.
+     *
+     * @param pos offset of a name or name suffix
+     *
+     * @return offset of the first label of the name or name suffix, {@code -1} if pointers are malformed
+     */
+    private int resolve(int pos) {
+        for (int jumps = 0; jumps <= MAX_POINTERS; jumps++) {
+            int len = readU8(pos);
+            if ((len & 0xC0) == 0) {
+                return pos;
+            } else if ((len & 0xC0) != 0xC0) {
+                return -1;
+            }
+            int target = (len & 0x3F) << 8 | readU8(pos + 1);
+            if (target >= pos) {
+                // pointers only reference prior occurrences
+                return -1;
+            }
+            pos = target;
+        }
+        return -1;
+    }
+
+    /**
+     * Skips a name.
+     *
+     * @param pos offset of the name
+     *
+     * @return offset following the name
+     */
+    private int skipName(int pos) {
+        int len = readU8(pos);
+        while (len != 0) {
+            if ((len & 0xC0) != 0) {
+                // reference to other name, terminates this one
+                return pos + 2;
+            }
+            pos += len + 1;
+            len = readU8(pos);
+        }
+        return pos + 1;
+    }
+
+    /**
+     * Compares two names of the message, ignoring ASCII case.
+     *
+     * @param lhs offset of the first name
+     * @param rhs offset of the second name
+     *
+     * @return {@code true} if both names are equal, otherwise {@code false}
+     */
+    private boolean namesEqual(int lhs, int rhs) {
+        lhs = resolve(lhs);
+        rhs = resolve(rhs);
+        int length = 0;
+        while (lhs >= 0 && rhs >= 0) {
+            int len = readU8(lhs);
+            if (len != readU8(rhs)) {
+                return false;
+            }
+            if (len == 0) {
+                return true;
+            }
+            length += len + 1;
+            if (length >= MAX_NAME_LENGTH) {
+                return false;
+            }
+            for (int i = 1; i <= len; i++) {
+                if (toLowerCase(mBuffer.get(lhs + i)) != toLowerCase(mBuffer.get(rhs + i))) {
+                    return false;
+                }
+            }
+            lhs = resolve(lhs + len + 1);
+            rhs = resolve(rhs + len + 1);
+        }
+        return false;
+    }
+
+    /**
+     * Compares a name of the message to an encoded name, ignoring ASCII case.
+     *
+     * @param pos  offset of the name in the message
+     * @param name encoded name, without compression
+     *
+     * @return {@code true} if both names are equal, otherwise {@code false}
+     */
+    private boolean nameEquals(int pos, @NonNull byte[] name) {
+        int namePos = 0;
+        pos = resolve(pos);
+        while (pos >= 0) {
+            int len = readU8(pos);
+            if (len != name[namePos]) {
+                return false;
+            }
+            if (len == 0) {
+                return true;
+            }
+            for (int i = 1; i <= len; i++) {
+                if (toLowerCase(mBuffer.get(pos + i)) != toLowerCase(name[namePos + i])) {
+                    return false;
+                }
+            }
+            namePos += len + 1;
+            pos = resolve(pos + len + 1);
+        }
+        return false;
+    }
+
+    /**
+     * Read an unsigned 8 bits int.
+     *
+     * @param pos offset in the message
+     *
+     * @return unsigned 8 bits int at given position
+     */
+    private int readU8(int pos) {
+        return mBuffer.get(pos) & 0xFF;
+    }
+
+    /**
+     * Read an unsigned 16 bits int.
+     *
+     * @param pos offset in the message
+     *
+     * @return unsigned 16 bits int at given position
+     */
+    private int readU16(int pos) {
+        return mBuffer.getShort(pos) & 0xFFFF;
+    }
+
+    /**
+     * Read an unsigned 32 bits int.
+     *
+     * @param pos offset in the message
+     *
+     * @return unsigned 32 bits int at given position
+     */
+    private long readU32(int pos) {
+        return mBuffer.getInt(pos) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Converts an ASCII letter to lower case.
+     *
+     * @param b byte to convert
+     *
+     * @return lower case letter if the byte is an ASCII upper case letter, otherwise the byte, unchanged
+     */
+    private static int toLowerCase(byte b) {
+        return b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b;
+    }
+
+    /**
+     * Encodes a dns name.
+     *
+     * @param name the name to encode
+     *
+     * @return encoded name
+     */
+    @NonNull
+    static byte[] encodeName(@NonNull String name) {
+        byte[] bytes = new byte[name.length() + 2];
+        int pos = 0;
+        for (String label : name.split("\\.")) {
+            bytes[pos++] = (byte) label.length();
+            // note: only supports US-ASCII char
+            for (int i = 0, N = label.length(); i < N; i++) {
+                bytes[pos++] = (byte) label.charAt(i);
+            }
+        }
+        bytes[pos] = 0;
+        return bytes;
+    }
+
+    /**
+     * Cache of names decoded from messages.
+     * <p>
+     * Drones announce the same names over and over; caching decoded names by their uncompressed encoding allows to
+     * look them up directly from the message, without allocating.
+     */
+    private final class NameCache {
+
+        /** Cache capacity; must be a power of two. */
+        private static final int CAPACITY = 32;
+
+        /** Uncompressed encoding of cached names, by slot. */
+        @NonNull
+        private final byte[][] mKeys;
+
+        /** Decoded names, by slot. */
+        @NonNull
+        private final String[] mNames;
+
+        /** Builder reused to decode names. */
+        @NonNull
+        private final StringBuilder mBuilder;
+
+        /**
+         * Constructor.
+         */
+        NameCache() {
+            mKeys = new byte[CAPACITY][];
+            mNames = new String[CAPACITY];
+            mBuilder = new StringBuilder();
+        }
+
+        /**
+         * Gets the decoded representation of a name of the message.
+         * <p>
+         * Decoded names are fully qualified, each label being followed by a dot.
+         *
+         * @param pos offset of the name in the message
+         *
+         * @return decoded name
+         *
+         * @throws IllegalArgumentException in case the name is longer than {@link #MAX_NAME_LENGTH}
+         */
+        @NonNull
+        String get(int pos) {
+            int hash = 1;
+            int length = 0;
+            for (int label = resolve(pos); label >= 0 && readU8(label) != 0; label = resolve(label)) {
+                int len = readU8(label);
+                for (int i = 0; i <= len; i++) {
+                    hash = 31 * hash + toLowerCase(mBuffer.get(label + i));
+                }
+                length += len + 1;
+                if (length >= MAX_NAME_LENGTH) {
+                    throw new IllegalArgumentException("Malformed name at offset " + pos);
+                }
+                label += len + 1;
+            }
+            int slot = (hash ^ (hash >>> 16)) & (CAPACITY - 1);
+            byte[] key = mKeys[slot];
+            if (key != null && key.length == length + 1 && nameEquals(pos, key)) {
+                return mNames[slot];
+            }
+
+            key = new byte[length + 1];
+            mBuilder.setLength(0);
+            int keyPos = 0;
+            for (int label = resolve(pos); label >= 0 && readU8(label) != 0; label = resolve(label)) {
+                int len = readU8(label);
+                System.arraycopy(mBuffer.array(), label, key, keyPos, len + 1);
+                mBuilder.append(new String(key, keyPos + 1, len, StandardCharsets.UTF_8)).append('.');
+                keyPos += len + 1;
+                label += len + 1;
+            }
+            mKeys[slot] = key;
+            mNames[slot] = mBuilder.toString();
+            return mNames[slot];
+        }
+    }
+}
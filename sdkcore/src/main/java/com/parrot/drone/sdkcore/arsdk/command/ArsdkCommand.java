@@ -131,10 +131,10 @@ public final class ArsdkCommand extends PooledObject {
          * @return a command.
          */
         @NonNull
-        public synchronized ArsdkCommand obtain(long otherCmdPtr) {
+        public ArsdkCommand obtain(long otherCmdPtr) {
             ArsdkCommand command = obtainEntry();
-            command.mNativePtr = nativeInit(otherCmdPtr);
-            if (command.mNativePtr == 0) {
+            command.mNative.mPtr = nativeInit(otherCmdPtr);
+            if (command.mNative.mPtr == 0) {
                 throw new AssertionError("Failed to create ArsdkCommand native backend");
             }
             return command;
@@ -160,8 +160,29 @@ public final class ArsdkCommand extends PooledObject {
         return nativeGetCmdName(featureId, commandId);
     }
 
-    /** Native command pointer, 0 if empty. */
-    private long mNativePtr;
+    /**
+     * Native command backend.
+     * <p>
+     * Kept apart from the command so that it can be released in case the command is garbage collected without having
+     * been released.
+     */
+    private static final class NativeCommand implements Cleanup {
+
+        /** Native command pointer, 0 if empty. */
+        long mPtr;
+
+        @Override
+        public void clean() {
+            if (mPtr != 0) {
+                nativeRelease(mPtr);
+                mPtr = 0;
+            }
+        }
+    }
+
+    /** Native command backend. */
+    @NonNull
+    private final NativeCommand mNative;
 
     /** Command feature id, lazy initialized. */
     private int mFeatureId;
@@ -175,7 +196,18 @@ public final class ArsdkCommand extends PooledObject {
      * @param pool pool owning this command
      */
     private ArsdkCommand(@NonNull Pool pool) {
-        super(pool);
+        this(pool, new NativeCommand());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param pool          pool owning this command
+     * @param nativeCommand native command backend
+     */
+    private ArsdkCommand(@NonNull Pool pool, @NonNull NativeCommand nativeCommand) {
+        super(pool, nativeCommand);
+        mNative = nativeCommand;
         mFeatureId = -1;
         mCommandId = -1;
     }
@@ -186,7 +218,7 @@ public final class ArsdkCommand extends PooledObject {
      * @param destCmdPtr pointer to the native command to copy to
      */
     public void copyTo(long destCmdPtr) {
-        nativeCopy(mNativePtr, destCmdPtr);
+        nativeCopy(mNative.mPtr, destCmdPtr);
     }
 
     /**
@@ -195,7 +227,7 @@ public final class ArsdkCommand extends PooledObject {
      * @return native command pointer, 0 if not set
      */
     public long getNativePtr() {
-        return mNativePtr;
+        return mNative.mPtr;
     }
 
     /**
@@ -204,8 +236,8 @@ public final class ArsdkCommand extends PooledObject {
      * @return feature id, or -1 if not available
      */
     public int getFeatureId() {
-        if (mFeatureId == -1 && mNativePtr != 0) {
-            mFeatureId = nativeGetFeatureId(mNativePtr);
+        if (mFeatureId == -1 && mNative.mPtr != 0) {
+            mFeatureId = nativeGetFeatureId(mNative.mPtr);
         }
         return mFeatureId;
     }
@@ -216,8 +248,8 @@ public final class ArsdkCommand extends PooledObject {
      * @return command/event id, or -1 if not available
      */
     public int getCommandId() {
-        if (mCommandId == -1 && mNativePtr != 0) {
-            mCommandId = nativeGetCommandId(mNativePtr);
+        if (mCommandId == -1 && mNative.mPtr != 0) {
+            mCommandId = nativeGetCommandId(mNative.mPtr);
         }
         return mCommandId;
     }
@@ -229,7 +261,7 @@ public final class ArsdkCommand extends PooledObject {
      */
     @NonNull
     public String getName() {
-        return nativeGetName(mNativePtr);
+        return nativeGetName(mNative.mPtr);
     }
 
     /**
@@ -237,9 +269,8 @@ public final class ArsdkCommand extends PooledObject {
      */
     @Override
     protected void doRelease() {
-        if (mNativePtr != 0) {
-            nativeRelease(mNativePtr);
-            mNativePtr = 0;
+        if (mNative.mPtr != 0) {
+            mNative.clean();
             mFeatureId = -1;
             mCommandId = -1;
         }
@@ -274,7 +305,7 @@ public final class ArsdkCommand extends PooledObject {
     @VisibleForTesting(otherwise = VisibleForTesting.NONE)
     @NonNull
     public ByteBuffer getData() {
-        return nativeGetData(mNativePtr);
+        return nativeGetData(mNative.mPtr);
     }
 
     /**
@@ -286,6 +317,6 @@ public final class ArsdkCommand extends PooledObject {
      */
     @VisibleForTesting(otherwise = VisibleForTesting.NONE)
     public void setData(@NonNull ByteBuffer buffer) {
-        nativeSetData(mNativePtr, buffer);
+        nativeSetData(mNative.mPtr, buffer);
     }
 }
@@ -0,0 +1,114 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.sdkcore.arsdk.device;
+
+import androidx.annotation.NonNull;
+
+import com.parrot.drone.sdkcore.arsdk.command.ArsdkCommand;
+
+import java.util.Arrays;
+
+/**
+ * A batch of commands received from a device, delivered at once on the main thread.
+ * <p>
+ * Batches are reused: commands in a batch are only valid during the {@link ArsdkDevice.Listener#onCommandsReceived}
+ * call that delivers the batch, and are released right after.
+ */
+public final class ArsdkCommandBatch {
+
+    /** Initial batch capacity. */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** Batched commands. Only the first {@link #mSize} elements are valid. */
+    @NonNull
+    private ArsdkCommand[] mCommands;
+
+    /** Amount of batched commands. */
+    private int mSize;
+
+    /**
+     * Constructor.
+     */
+    ArsdkCommandBatch() {
+        mCommands = new ArsdkCommand[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Gets the amount of commands in the batch.
+     *
+     * @return batch size
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Gets a command from the batch.
+     *
+     * @param index index of the command to get, in reception order
+     *
+     * @return command at the given index
+     *
+     * @throws IndexOutOfBoundsException in case the index is out of bounds
+     */
+    @NonNull
+    public ArsdkCommand get(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + mSize);
+        }
+        return mCommands[index];
+    }
+
+    /**
+     * Appends a command to the batch.
+     *
+     * @param command command to append
+     */
+    void add(@NonNull ArsdkCommand command) {
+        if (mSize == mCommands.length) {
+            mCommands = Arrays.copyOf(mCommands, mSize * 2);
+        }
+        mCommands[mSize++] = command;
+    }
+
+    /**
+     * Releases all commands in the batch and empties it.
+     */
+    void clear() {
+        for (int i = 0; i < mSize; i++) {
+            mCommands[i].release();
+            mCommands[i] = null;
+        }
+        mSize = 0;
+    }
+}
@@ -54,8 +54,9 @@ import com.parrot.drone.sdkcore.ulog.ULog;
 import java.io.PrintWriter;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayDeque;
+import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.CopyOnWriteArraySet;
 
 import javax.net.SocketFactory;
 
@@ -155,6 +156,25 @@ public class ArsdkDevice {
          * @param command received command
          */
         void onCommandReceived(@NonNull ArsdkCommand command);
+
+        /**
+         * A batch of commands has been received.
+         * <p>
+         * Only called when {@link #setCommandBatchingEnabled command batching} is enabled. Commands in the batch are
+         * released once this method returns. <br/>
+         * Batches are delivered in order with the other listener callbacks: all commands in the batch were received
+         * after the callback notified before it, and before the callback notified after it. <br/>
+         * Default implementation forwards each command, in reception order, to {@link #onCommandReceived}.
+         * <p>
+         * Called on <strong>MAIN</strong> thread.
+         *
+         * @param batch received commands batch
+         */
+        default void onCommandsReceived(@NonNull ArsdkCommandBatch batch) {
+            for (int i = 0, N = batch.size(); i < N; i++) {
+                onCommandReceived(batch.get(i));
+            }
+        }
     }
 
     /**
@@ -210,7 +230,17 @@ public class ArsdkDevice {
 
     /** Non-acknowledged command encoders, run on POMP thread. */
     @NonNull
-    private final Set<ArsdkNoAckCmdEncoder> mNoAckEncoders;
+    private final NoAckCmdEncoderRegistry mNoAckEncoders;
+
+    /** Posts device events and received commands on MAIN thread. Replaced in tests. */
+    @VisibleForTesting
+    @NonNull
+    MainDispatcher mMainDispatcher;
+
+    /** Sends commands produced by the non-acknowledged command loop to the device. Replaced in tests. */
+    @VisibleForTesting
+    @NonNull
+    NoAckCmdSender mNoAckCmdSender = command -> nativeSendCommand(mNativePtr, command.getNativePtr());
 
     /** Provides and manges access to video streams. */
     @NonNull
@@ -219,6 +249,68 @@ public class ArsdkDevice {
     /** Current non-acknowledged loop period, in milliseconds. {@code 0} when disabled. */
     private int mNoAckLoopPeriod;
 
+    /** {@code true} when received commands are delivered in batches. Read on POMP thread. */
+    private volatile boolean mCommandBatchingEnabled;
+
+    /** Lock guarding received commands batches. */
+    @NonNull
+    private final Object mBatchLock = new Object();
+
+    /**
+     * Batches of received commands whose delivery is posted on MAIN thread, in posting order. Guarded by
+     * {@link #mBatchLock}.
+     */
+    @NonNull
+    private final Queue<ArsdkCommandBatch> mPendingBatches = new ArrayDeque<>();
+
+    /** Delivered batches, available for reuse. Guarded by {@link #mBatchLock}. */
+    @NonNull
+    private final Queue<ArsdkCommandBatch> mFreeBatches = new ArrayDeque<>();
+
+    /**
+     * Last pending batch, still collecting received commands on POMP thread. {@code null} when no batch is pending, or
+     * when something else was posted on MAIN thread after the last pending batch. Guarded by {@link #mBatchLock}.
+     */
+    @Nullable
+    private ArsdkCommandBatch mFillingBatch;
+
+    /** Total amount of delivered command batches. MAIN thread only. */
+    private long mDeliveredBatchCount;
+
+    /** Total amount of commands delivered in batches. MAIN thread only. */
+    private long mBatchedCommandCount;
+
+    /** Size of the largest delivered command batch. MAIN thread only. */
+    private int mMaxBatchSize;
+
+    /** Posts runnables on MAIN thread. */
+    @VisibleForTesting
+    interface MainDispatcher {
+
+        /**
+         * Posts a runnable on MAIN thread.
+         * <p>
+         * Called on <strong>POMP</strong> thread. Runnables are run in posting order.
+         *
+         * @param runnable runnable to post
+         */
+        void dispatch(@NonNull Runnable runnable);
+    }
+
+    /** Sends commands produced by the non-acknowledged command loop. */
+    @VisibleForTesting
+    interface NoAckCmdSender {
+
+        /**
+         * Sends a command.
+         * <p>
+         * Called on <strong>POMP</strong> thread. The command is released by the caller once this method returns.
+         *
+         * @param command command to send
+         */
+        void send(@NonNull ArsdkCommand command);
+    }
+
     /**
      * Constructor.
      * <p>
@@ -234,6 +326,7 @@ public class ArsdkDevice {
     private ArsdkDevice(@NonNull ArsdkCore arsdkCore, short nativeHandle, @NonNull String uid,
                         @ArsdkDevice.Type int type, @NonNull String name, @Backend.Type int backendType) {
         mArsdkCore = arsdkCore;
+        mMainDispatcher = arsdkCore::dispatchToMain;
         mNativeHandle = nativeHandle;
         mUid = uid;
         mType = type;
@@ -243,7 +336,7 @@ public class ArsdkDevice {
         if (mNativePtr == 0) {
             throw new AssertionError("Failed to create ArsdkDevice native backend");
         }
-        mNoAckEncoders = new CopyOnWriteArraySet<>();
+        mNoAckEncoders = new NoAckCmdEncoderRegistry();
         mStreamController = new ArsdkDeviceStreamController(mArsdkCore, mNativeHandle);
         if (ULog.d(TAG_DEVICE)) {
             ULog.d(TAG_DEVICE, "ArsdkDevice init [handle: " + this + " ,uid: " + mUid
@@ -340,6 +433,25 @@ public class ArsdkDevice {
         }
     }
 
+    /**
+     * Configures whether received commands are delivered in batches.
+     * <p>
+     * When enabled, commands received on the pomp thread are accumulated in a batch which is delivered to the listener
+     * through a single {@link Listener#onCommandsReceived} call per main loop turn, instead of one
+     * {@link Listener#onCommandReceived} call posted for each command.
+     * <p>
+     * In both modes, commands and other listener callbacks are delivered in the order they happened on the pomp thread:
+     * a batch only collects commands received until the next connection event, which is delivered after the batch;
+     * commands received after the event go to a new batch, delivered after the event.
+     * <p>
+     * Must be called on <strong>MAIN</strong> thread.
+     *
+     * @param enabled {@code true} to enable command batching, {@code false} to disable it
+     */
+    public void setCommandBatchingEnabled(boolean enabled) {
+        mCommandBatchingEnabled = enabled;
+    }
+
     /**
      * Sends a command to the device.
      * <p>
@@ -348,7 +460,14 @@ public class ArsdkDevice {
      * @param command command to send
      */
     public void sendCommand(@NonNull ArsdkCommand command) {
-        mArsdkCore.dispatchToPomp(mSendCommandRunnablePool.obtainEntry().init(command));
+        CommandRunnablePool.Entry entry = mSendCommandRunnablePool.obtainEntry().init(command);
+        try {
+            mArsdkCore.dispatchToPomp(entry);
+        } catch (IllegalStateException e) {
+            // pomp loop is gone, the entry will never run; release it, along with the command
+            entry.release();
+            throw e;
+        }
     }
 
     /**
@@ -602,6 +721,41 @@ public class ArsdkDevice {
         }
     };
 
+    /**
+     * Delivers the oldest pending received commands batch on the main thread.
+     * <p>
+     * Once delivered, the batch commands are released and the batch is kept for reuse. The pomp thread keeps on
+     * collecting commands in another batch meanwhile.
+     */
+    private final Runnable mDeliverBatch = new Runnable() {
+
+        @Override
+        public void run() {
+            ArsdkCommandBatch batch;
+            synchronized (mBatchLock) {
+                batch = mPendingBatches.remove();
+                if (batch == mFillingBatch) {
+                    mFillingBatch = null;
+                }
+            }
+            try {
+                int size = batch.size();
+                mDeliveredBatchCount++;
+                mBatchedCommandCount += size;
+                if (size > mMaxBatchSize) {
+                    mMaxBatchSize = size;
+                }
+                assert mListener != null;
+                mListener.onCommandsReceived(batch);
+            } finally {
+                batch.clear();
+                synchronized (mBatchLock) {
+                    mFreeBatches.add(batch);
+                }
+            }
+        }
+    };
+
     /**
      * Starts the non-acknowledged command loop.
      * <p>
@@ -638,7 +792,7 @@ public class ArsdkDevice {
         if (ULog.d(TAG_DEVICE)) {
             ULog.d(TAG_DEVICE, "ArsdkDevice connecting [handle: " + this + "]");
         }
-        mArsdkCore.dispatchToMain(() -> {
+        postToMain(() -> {
             assert mListener != null;
             mListener.onConnecting();
         });
@@ -649,7 +803,7 @@ public class ArsdkDevice {
         if (ULog.d(TAG_DEVICE)) {
             ULog.d(TAG_DEVICE, "ArsdkDevice connected [handle: " + this + "]");
         }
-        mArsdkCore.dispatchToMain(() -> {
+        postToMain(() -> {
             assert mListener != null;
             mListener.onConnected();
         });
@@ -660,7 +814,7 @@ public class ArsdkDevice {
         if (ULog.d(TAG_DEVICE)) {
             ULog.d(TAG_DEVICE, "ArsdkDevice disconnected [handle: " + this + ", removing: " + removing + "]");
         }
-        mArsdkCore.dispatchToMain(() -> {
+        postToMain(() -> {
             mStreamController.closeStreams();
             mNoAckEncoders.clear();
             mNoAckLoopPeriod = 0;
@@ -677,7 +831,7 @@ public class ArsdkDevice {
             ULog.d(TAG_DEVICE, "ArsdkDevice connection canceled [handle: " + this + ", reason: " + reason
                                + ", removing: " + removing + "]");
         }
-        mArsdkCore.dispatchToMain(() -> {
+        postToMain(() -> {
             mStreamController.closeStreams();
             mNoAckEncoders.clear();
             mNoAckLoopPeriod = 0;
@@ -693,7 +847,7 @@ public class ArsdkDevice {
         if (ULog.d(TAG_DEVICE)) {
             ULog.d(TAG_DEVICE, "ArsdkDevice link down [handle: " + this + "]");
         }
-        mArsdkCore.dispatchToMain(() -> {
+        postToMain(() -> {
             mStreamController.closeStreams();
             mNoAckEncoders.clear();
             mNoAckLoopPeriod = 0;
@@ -704,18 +858,61 @@ public class ArsdkDevice {
 
     @SuppressWarnings("unused") /* native-cb */
     private void onCommandReceived(long cmdNativePtr) {
-        mArsdkCore.dispatchToMain(
-                mRecvCommandRunnablePool.obtainEntry().init(ArsdkCommand.Pool.DEFAULT.obtain(cmdNativePtr)));
+        receiveCommand(ArsdkCommand.Pool.DEFAULT.obtain(cmdNativePtr));
     }
 
-    @SuppressWarnings("unused") /* native-cb */
-    private void onNoAckCmdTimerTick() {
-        // TODO: better use classic for-loop, otherwise an iterator is allocated for each tick.
-        // TODO  However, to do this we need to abandon COWArraySet and synchronize access manually.
-        for (ArsdkNoAckCmdEncoder encoder : mNoAckEncoders) {
-            ArsdkCommand cmd = encoder.encodeNoAckCmd();
+    /**
+     * Delivers a received command on MAIN thread, either in a batch or alone, depending on whether
+     * {@link #setCommandBatchingEnabled command batching} is enabled.
+     * <p>
+     * Called on <strong>POMP</strong> thread.
+     *
+     * @param command received command, released once delivered
+     */
+    @VisibleForTesting(otherwise = VisibleForTesting.PRIVATE)
+    void receiveCommand(@NonNull ArsdkCommand command) {
+        if (mCommandBatchingEnabled) {
+            synchronized (mBatchLock) {
+                if (mFillingBatch == null) {
+                    mFillingBatch = mFreeBatches.poll();
+                    if (mFillingBatch == null) {
+                        mFillingBatch = new ArsdkCommandBatch();
+                    }
+                    mPendingBatches.add(mFillingBatch);
+                    mMainDispatcher.dispatch(mDeliverBatch);
+                }
+                mFillingBatch.add(command);
+            }
+        } else {
+            postToMain(mRecvCommandRunnablePool.obtainEntry().init(command));
+        }
+    }
+
+    /**
+     * Posts a runnable on MAIN thread, in order with received commands.
+     * <p>
+     * Commands received after this call are not added to a batch posted before, so that they are delivered after the
+     * runnable has run.
+     * <p>
+     * Called on <strong>POMP</strong> thread.
+     *
+     * @param runnable runnable to post
+     */
+    @VisibleForTesting(otherwise = VisibleForTesting.PRIVATE)
+    void postToMain(@NonNull Runnable runnable) {
+        synchronized (mBatchLock) {
+            mFillingBatch = null;
+            mMainDispatcher.dispatch(runnable);
+        }
+    }
+
+    @VisibleForTesting(otherwise = VisibleForTesting.PRIVATE) /* native-cb */
+    void onNoAckCmdTimerTick() {
+        ArsdkNoAckCmdEncoder[] encoders = mNoAckEncoders.snapshot();
+        for (int i = 0, N = encoders.length; i < N; i++) {
+            ArsdkCommand cmd = encoders[i].encodeNoAckCmd();
             if (cmd != null) {
-                nativeSendCommand(mNativePtr, cmd.getNativePtr());
+                mNoAckCmdSender.send(cmd);
                 cmd.release();
             }
         }
@@ -752,6 +949,13 @@ public class ArsdkDevice {
      * @param prefix prefix string (usually indent) to prepend to each written dump line
      */
     public void dump(@NonNull PrintWriter writer, @NonNull Set<String> args, @NonNull String prefix) {
+        writer.write(prefix + "Command batching: " + (mCommandBatchingEnabled ? "enabled" : "disabled")
+                     + " [batches: " + mDeliveredBatchCount + ", commands: " + mBatchedCommandCount
+                     + ", max batch size: " + mMaxBatchSize + "]\n");
+        writer.write(prefix + "No-ack command loop: period " + mNoAckLoopPeriod + "ms [encoders: "
+                     + mNoAckEncoders.size() + "]\n");
+        mSendCommandRunnablePool.dump(writer, prefix);
+        mRecvCommandRunnablePool.dump(writer, prefix);
         mStreamController.dump(writer, args, prefix);
     }
 
@@ -769,12 +973,13 @@ public class ArsdkDevice {
     ArsdkDevice(short nativeHandle, @NonNull String uid, @ArsdkDevice.Type int type, @NonNull String name,
                 @Backend.Type int backendType) {
         mArsdkCore = null;
+        mMainDispatcher = runnable -> mArsdkCore.dispatchToMain(runnable);
         mNativeHandle = nativeHandle;
         mUid = uid;
         mType = type;
         mName = name;
         mBackendType = backendType;
-        mNoAckEncoders = new CopyOnWriteArraySet<>();
+        mNoAckEncoders = new NoAckCmdEncoderRegistry();
         mStreamController = new ArsdkDeviceStreamController(mArsdkCore, nativeHandle);
     }
 }
@@ -0,0 +1,148 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+
+package com.parrot.drone.sdkcore.arsdk.device;
+
+import androidx.annotation.NonNull;
+
+import com.parrot.drone.sdkcore.arsdk.command.ArsdkNoAckCmdEncoder;
+
+/**
+ * Registry of non-acknowledged command encoders.
+ * <p>
+ * Registered encoders are exposed as an array snapshot that is replaced as a whole each time an encoder is registered
+ * or unregistered. This allows the non-acknowledged command loop, running on <strong>POMP</strong> thread, to iterate
+ * the encoders without locking nor allocating anything, while registration happens on <strong>MAIN</strong> thread.
+ */
+final class NoAckCmdEncoderRegistry {
+
+    /** Empty encoder snapshot. */
+    @NonNull
+    private static final ArsdkNoAckCmdEncoder[] NO_ENCODERS = new ArsdkNoAckCmdEncoder[0];
+
+    /** Current snapshot of registered encoders, in registration order. Never modified once published. */
+    @NonNull
+    private volatile ArsdkNoAckCmdEncoder[] mEncoders;
+
+    /**
+     * Constructor.
+     */
+    NoAckCmdEncoderRegistry() {
+        mEncoders = NO_ENCODERS;
+    }
+
+    /**
+     * Registers an encoder.
+     *
+     * @param encoder encoder to register
+     *
+     * @return {@code true} if the encoder was registered, {@code false} if it was already registered
+     */
+    synchronized boolean add(@NonNull ArsdkNoAckCmdEncoder encoder) {
+        ArsdkNoAckCmdEncoder[] encoders = mEncoders;
+        int count = encoders.length;
+        for (int i = 0; i < count; i++) {
+            if (encoders[i] == encoder) {
+                return false;
+            }
+        }
+        ArsdkNoAckCmdEncoder[] newEncoders = new ArsdkNoAckCmdEncoder[count + 1];
+        System.arraycopy(encoders, 0, newEncoders, 0, count);
+        newEncoders[count] = encoder;
+        mEncoders = newEncoders;
+        return true;
+    }
+
+    /**
+     * Unregisters an encoder.
+     *
+     * @param encoder encoder to unregister
+     *
+     * @return {@code true} if the encoder was unregistered, {@code false} if it was not registered
+     */
+    synchronized boolean remove(@NonNull ArsdkNoAckCmdEncoder encoder) {
+        ArsdkNoAckCmdEncoder[] encoders = mEncoders;
+        int count = encoders.length;
+        for (int i = 0; i < count; i++) {
+            if (encoders[i] == encoder) {
+                if (count == 1) {
+                    mEncoders = NO_ENCODERS;
+                } else {
+                    ArsdkNoAckCmdEncoder[] newEncoders = new ArsdkNoAckCmdEncoder[count - 1];
+                    System.arraycopy(encoders, 0, newEncoders, 0, i);
+                    System.arraycopy(encoders, i + 1, newEncoders, i, count - i - 1);
+                    mEncoders = newEncoders;
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Unregisters all encoders.
+     */
+    synchronized void clear() {
+        mEncoders = NO_ENCODERS;
+    }
+
+    /**
+     * Tells whether no encoder is registered.
+     *
+     * @return {@code true} if no encoder is registered, otherwise {@code false}
+     */
+    boolean isEmpty() {
+        return mEncoders.length == 0;
+    }
+
+    /**
+     * Gives the count of registered encoders.
+     *
+     * @return registered encoders count
+     */
+    int size() {
+        return mEncoders.length;
+    }
+
+    /**
+     * Gives a snapshot of currently registered encoders.
+     * <p>
+     * Returned array <strong>MUST NOT</strong> be modified.
+     *
+     * @return registered encoders, in registration order
+     */
+    @NonNull
+    ArsdkNoAckCmdEncoder[] snapshot() {
+        return mEncoders;
+    }
+}
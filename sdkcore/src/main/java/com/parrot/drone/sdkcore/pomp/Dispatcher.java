@@ -37,31 +37,89 @@ import android.os.Handler;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import java.io.PrintWriter;
 import java.util.ArrayDeque;
 import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Allows to dispatch {@link Runnable runnables} from a thread to the client looper thread.
+ * <p>
+ * A dispatcher operates in one of two modes:
+ * <ul>
+ * <li>locked mode, where posted runnables are collected in a queue guarded by the dispatcher's monitor,</li>
+ * <li>ring mode, where posted runnables are collected in a bounded lock-free {@link RunnableRing ring}; the
+ * looper's handler is only posted to when the client looper thread is not already scheduled to process the queue.
+ * Should the ring become full, runnables overflow to a locked queue, so that posting never fails nor blocks.</li>
+ * </ul>
  */
 class Dispatcher {
 
-    /** Collects all posted runnables that have not been processed yet. */
+    /** Collects all posted runnables that have not been processed yet, in locked mode. Ring overflow in ring mode. */
     @NonNull
     private final Deque<Runnable> mQueue;
 
+    /** Collects posted runnables that have not been processed yet, in ring mode. {@code null} in locked mode. */
+    @Nullable
+    private final RunnableRing mRing;
+
+    /** {@code true} when queue processing is scheduled on the client looper thread, in ring mode. */
+    @NonNull
+    private final AtomicBoolean mScheduled;
+
+    /** Amount of runnables in {@link #mQueue} when used as ring overflow. */
+    private volatile int mOverflowCount;
+
     /** Android Handler that will process runnables. {@code null} when dispatcher is closed. */
     @Nullable
-    private Handler mHandler;
+    private volatile Handler mHandler;
+
+    /** Maximum observed queue depth. */
+    @NonNull
+    private final AtomicInteger mMaxDepth;
+
+    /** Total amount of runnables that did overflow the ring, in ring mode. */
+    @NonNull
+    private final AtomicInteger mTotalOverflows;
+
+    /** Total amount of processed runnables. Client looper thread only. */
+    private long mProcessedCount;
+
+    /** Total amount of times queue processing was run. Client looper thread only. */
+    private long mProcessingCount;
+
+    /** Maximum time a runnable spent in the ring before being processed, in nanoseconds. Client looper thread only. */
+    private long mMaxLatency;
 
     /**
      * Constructor.
      * <p>
+     * Creates a dispatcher in locked mode.
+     * <p>
      * Calling thread <strong>MUST</strong> have a looper.
      */
     Dispatcher() {
+        this(0);
+    }
+
+    /**
+     * Constructor.
+     * <p>
+     * Calling thread <strong>MUST</strong> have a looper.
+     *
+     * @param ringCapacity capacity of the lock-free ring used to collect posted runnables, {@code 0} to create a
+     *                     dispatcher in locked mode
+     */
+    Dispatcher(int ringCapacity) {
         // Use an array-backed collection as we don't want to pay for node allocation of linked-list variants each time
         // we post an element, which may occur quite frequently.
         mQueue = new ArrayDeque<>();
+        mRing = ringCapacity > 0 ? new RunnableRing(ringCapacity) : null;
+        mScheduled = new AtomicBoolean();
+        mMaxDepth = new AtomicInteger();
+        mTotalOverflows = new AtomicInteger();
         mHandler = new Handler();
     }
 
@@ -87,13 +145,18 @@ class Dispatcher {
      * @return {@code true} in case the runnable could be dispatched, otherwise {@code false}
      */
     final boolean post(@NonNull Runnable runnable) {
+        if (mRing != null) {
+            return postToRing(mRing, runnable);
+        }
         synchronized (this) {
-            if (mHandler == null) {
+            Handler handler = mHandler;
+            if (handler == null) {
                 return false;
             }
             mQueue.addLast(runnable);
-            mHandler.removeCallbacksAndMessages(null);
-            if (mHandler.post(mDispatch)) {
+            updateMaxDepth(mQueue.size());
+            handler.removeCallbacksAndMessages(null);
+            if (handler.post(mDispatch)) {
                 return true;
             }
             mQueue.removeLast();
@@ -107,21 +170,40 @@ class Dispatcher {
      * All posted runnable that have not yet been processed are processed synchronously from this method. <br/>
      * Note that {@link #handle(Runnable)} is still called for each such pending runnable as a result.
      * <p>
-     * This method <strong>MUST</strong> be called on the client looper thread.
+     * This method <strong>MUST</strong> be called on the client looper thread. In ring mode, no runnable may be posted
+     * concurrently to this method.
      * <p>
      * Once closed, this {@code Dispatcher} instance cannot be re-used.
      */
     final void close() {
         synchronized (this) {
-            if (mHandler == null) {
+            Handler handler = mHandler;
+            if (handler == null) {
                 throw new IllegalStateException("Already closed");
             }
-            mHandler.removeCallbacksAndMessages(null);
+            handler.removeCallbacksAndMessages(null);
             mHandler = null;
         }
         processQueue();
     }
 
+    /**
+     * Debug dump.
+     *
+     * @param writer writer to dump to
+     * @param prefix prefix string (usually indent) to prepend to each written dump line
+     */
+    final void dump(@NonNull PrintWriter writer, @NonNull String prefix) {
+        writer.write(prefix + "Mode: " + (mRing == null ? "locked" : "ring [capacity: " + mRing.capacity() + "]")
+                     + "\n");
+        writer.write(prefix + "Processed: " + mProcessedCount + " [in " + mProcessingCount + " passes]\n");
+        writer.write(prefix + "Max queue depth: " + mMaxDepth.get() + "\n");
+        if (mRing != null) {
+            writer.write(prefix + "Max latency: " + TimeUnit.NANOSECONDS.toMicros(mMaxLatency) + "us\n");
+            writer.write(prefix + "Overflows: " + mTotalOverflows.get() + " [pending: " + mOverflowCount + "]\n");
+        }
+    }
+
     /**
      * Runnable wrapping call to {@link #processQueue()}.
      * <p>
@@ -131,18 +213,134 @@ class Dispatcher {
     @NonNull
     private final Runnable mDispatch = this::processQueue;
 
+    /**
+     * Posts a runnable to the ring, in ring mode.
+     * <p>
+     * Once some runnable overflows the ring, subsequent runnables also go to the overflow queue until it is fully
+     * processed, so that runnables posted from a given thread are always processed in post order.
+     * <p>
+     * In case processing cannot be scheduled on the client looper thread, the runnable is withdrawn from the ring or
+     * the overflow queue before this method returns {@code false}, so that it is never processed afterwards, not even
+     * when the dispatcher closes. Should the client looper thread have taken the runnable for processing already, this
+     * method returns {@code true}.
+     *
+     * @param ring     ring to post to
+     * @param runnable runnable to post
+     *
+     * @return {@code true} in case the runnable could be dispatched, otherwise {@code false}
+     */
+    private boolean postToRing(@NonNull RunnableRing ring, @NonNull Runnable runnable) {
+        if (mHandler == null) {
+            return false;
+        }
+        int depth = mOverflowCount == 0 ? ring.offer(runnable) : 0;
+        boolean overflow = depth == 0;
+        if (overflow) {
+            synchronized (this) {
+                mQueue.addLast(runnable);
+                mOverflowCount = mQueue.size();
+                depth = ring.capacity() + mOverflowCount;
+            }
+            mTotalOverflows.incrementAndGet();
+        }
+        updateMaxDepth(depth);
+        if (mScheduled.compareAndSet(false, true)) {
+            Handler handler = mHandler;
+            if (handler == null || !handler.post(mDispatch)) {
+                mScheduled.set(false);
+                return !withdraw(ring, runnable, overflow);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Withdraws a posted runnable that has not been processed yet, in ring mode.
+     *
+     * @param ring     ring the runnable was posted to
+     * @param runnable runnable to withdraw
+     * @param overflow {@code true} if the runnable was posted to the overflow queue, {@code false} if it was posted to
+     *                 the ring
+     *
+     * @return {@code true} if the runnable was withdrawn, {@code false} if it was already taken for processing
+     */
+    private boolean withdraw(@NonNull RunnableRing ring, @NonNull Runnable runnable, boolean overflow) {
+        if (!overflow) {
+            return ring.withdraw(runnable);
+        }
+        synchronized (this) {
+            boolean withdrawn = mQueue.removeLastOccurrence(runnable);
+            mOverflowCount = mQueue.size();
+            return withdrawn;
+        }
+    }
+
+    /**
+     * Updates maximum observed queue depth.
+     *
+     * @param depth current queue depth
+     */
+    private void updateMaxDepth(int depth) {
+        int maxDepth = mMaxDepth.get();
+        while (depth > maxDepth && !mMaxDepth.compareAndSet(maxDepth, depth)) {
+            maxDepth = mMaxDepth.get();
+        }
+    }
+
     /**
      * Process all queued runnables in post order.
      */
     private void processQueue() {
+        mProcessingCount++;
+        if (mRing != null) {
+            processRing(mRing);
+            return;
+        }
         Runnable next;
         do {
             synchronized (this) {
                 next = mQueue.pollFirst();
             }
             if (next != null) {
+                mProcessedCount++;
                 handle(next);
             }
         } while (next != null);
     }
+
+    /**
+     * Process all runnables queued in the ring, then in the overflow queue, in post order.
+     * <p>
+     * Processing continues as long as runnables get posted while it runs. Once both queues are found empty, the
+     * scheduled flag is cleared so that the next post schedules processing again.
+     *
+     * @param ring ring to process
+     */
+    private void processRing(@NonNull RunnableRing ring) {
+        do {
+            Runnable next;
+            do {
+                while ((next = ring.poll()) != null) {
+                    long latency = ring.lastLatency();
+                    if (latency > mMaxLatency) {
+                        mMaxLatency = latency;
+                    }
+                    mProcessedCount++;
+                    handle(next);
+                }
+                if (mOverflowCount > 0) {
+                    synchronized (this) {
+                        next = mQueue.pollFirst();
+                        mOverflowCount = mQueue.size();
+                    }
+                    if (next != null) {
+                        mProcessedCount++;
+                        handle(next);
+                    }
+                }
+            } while (next != null);
+            mScheduled.set(false);
+            // a runnable may have been published right before the flag was cleared, without scheduling processing
+        } while ((!ring.isEmpty() || mOverflowCount > 0) && mScheduled.compareAndSet(false, true));
+    }
 }
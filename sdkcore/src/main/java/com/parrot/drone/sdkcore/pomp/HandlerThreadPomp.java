@@ -39,11 +39,19 @@ import android.os.Looper;
 
 import androidx.annotation.NonNull;
 
+import java.io.PrintWriter;
+
 /**
  * {@link PompLoop} implementation that runs the pomp loop on a dedicated background thread.
  */
 final class HandlerThreadPomp implements PompLoop {
 
+    /**
+     * Capacity of the lock-free ring that collects runnables dispatched to the main loop. Sized to absorb the burst of
+     * events received when a device sends all its settings and states upon connection.
+     */
+    private static final int MAIN_DISPATCH_RING_CAPACITY = 512;
+
     /** Main thread, creator of this instance. */
     @NonNull
     private final Thread mMainThread;
@@ -72,7 +80,7 @@ final class HandlerThreadPomp implements PompLoop {
      */
     HandlerThreadPomp(@NonNull String name) {
         mMainThread = Thread.currentThread();
-        mMainDispatcher = new Dispatcher();
+        mMainDispatcher = new Dispatcher(MAIN_DISPATCH_RING_CAPACITY);
         mPompThread = new HandlerThread(name) {
 
             /** Condition unlocked once native SdkCorePomp has been initialized. */
@@ -168,4 +176,10 @@ final class HandlerThreadPomp implements PompLoop {
         }
         mMainDispatcher.close();
     }
+
+    @Override
+    public void dump(@NonNull PrintWriter writer, @NonNull String prefix) {
+        writer.write(prefix + "Main dispatcher:\n");
+        mMainDispatcher.dump(writer, prefix + "\t");
+    }
 }
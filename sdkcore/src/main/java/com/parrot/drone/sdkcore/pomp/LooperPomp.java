@@ -34,6 +34,7 @@ package com.parrot.drone.sdkcore.pomp;
 
 import androidx.annotation.NonNull;
 
+import java.io.PrintWriter;
 import java.nio.ByteBuffer;
 
 /**
@@ -133,6 +134,14 @@ final class LooperPomp implements PompLoop {
         mPompPtr = 0;
     }
 
+    @Override
+    public void dump(@NonNull PrintWriter writer, @NonNull String prefix) {
+        writer.write(prefix + "Main dispatcher:\n");
+        mMainDispatcher.dump(writer, prefix + "\t");
+        writer.write(prefix + "Pomp dispatcher:\n");
+        mPompDispatcher.dump(writer, prefix + "\t");
+    }
+
     /**
      * Dispatcher that manages context flag around posted runnable processing.
      */
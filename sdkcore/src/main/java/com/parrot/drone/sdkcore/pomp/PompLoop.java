@@ -34,6 +34,8 @@ package com.parrot.drone.sdkcore.pomp;
 
 import androidx.annotation.NonNull;
 
+import java.io.PrintWriter;
+
 /**
  * Pomp loop.
  */
@@ -114,4 +116,14 @@ public interface PompLoop {
      * This method <strong>MUST</strong> be called from main loop.
      */
     void dispose();
+
+    /**
+     * Debug dump.
+     * <p>
+     * This method <strong>MUST</strong> be called from main loop.
+     *
+     * @param writer writer to dump to
+     * @param prefix prefix string (usually indent) to prepend to each written dump line
+     */
+    void dump(@NonNull PrintWriter writer, @NonNull String prefix);
 }
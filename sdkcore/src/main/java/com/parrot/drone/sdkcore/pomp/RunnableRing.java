@@ -0,0 +1,224 @@
+/*
+ *     Copyright (C) 2019 Parrot Drones SAS
+ *
+ *     Redistribution and use in source and binary forms, with or without
+ *     modification, are permitted provided that the following conditions
+ *     are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *     * Neither the name of the Parrot Company nor the names
+ *       of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written
+ *       permission.
+ *
+ *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *     "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ *     LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ *     FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ *     PARROT COMPANY BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *     INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ *     BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ *     OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ *     AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *     OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ *     OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ *     SUCH DAMAGE.
+ *
+ */
+
+package com.parrot.drone.sdkcore.pomp;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, lock-free, multi-producer / single-consumer queue of runnables.
+ * <p>
+ * Each slot carries a sequence number that tells whether the slot is free for the producer that claimed the
+ * corresponding position, or published and ready for the consumer. Producers claim positions by CAS on a shared tail
+ * cursor; the single consumer advances a private head cursor.
+ * <p>
+ * A runnable that was offered may be {@link #withdraw withdrawn} by its producer as long as it has not been polled; its
+ * slot then stays published but is skipped by the consumer.
+ * <p>
+ * {@link #offer} and {@link #withdraw} may be called from any thread; {@link #poll}, {@link #isEmpty} and
+ * {@link #lastLatency} must only be called from the consumer thread.
+ */
+final class RunnableRing {
+
+    /** Ring capacity, power of two. */
+    private final int mCapacity;
+
+    /** Mask applied to a position to obtain the index of the corresponding slot. */
+    private final int mMask;
+
+    /** Queued runnables, by slot index. {@code null} for free slots, and for published slots that were withdrawn. */
+    @NonNull
+    private final AtomicReferenceArray<Runnable> mSlots;
+
+    /**
+     * Slot sequence numbers, by slot index. A slot at {@code index} is free for position {@code pos} when its sequence
+     * equals {@code pos}, and published for the consumer when its sequence equals {@code pos + 1}.
+     */
+    @NonNull
+    private final AtomicLongArray mSequences;
+
+    /**
+     * Time at which each queued runnable was offered, by slot index, in nanoseconds. Written before the slot gets
+     * published, hence safely visible to the consumer.
+     */
+    @NonNull
+    private final long[] mOfferTimes;
+
+    /** Next position to be claimed by a producer. */
+    @NonNull
+    private final AtomicLong mTail;
+
+    /** Next position to be consumed. Only written by the consumer, read by producers to compute queue depth. */
+    private volatile long mHead;
+
+    /** Time the last polled runnable spent in the ring, in nanoseconds. Consumer thread only. */
+    private long mLastLatency;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity ring capacity; rounded up to the next power of two
+     */
+    RunnableRing(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        int ringCapacity = 1;
+        while (ringCapacity < capacity) {
+            ringCapacity <<= 1;
+        }
+        mCapacity = ringCapacity;
+        mMask = mCapacity - 1;
+        mSlots = new AtomicReferenceArray<>(mCapacity);
+        mSequences = new AtomicLongArray(mCapacity);
+        for (int i = 0; i < mCapacity; i++) {
+            mSequences.set(i, i);
+        }
+        mOfferTimes = new long[mCapacity];
+        mTail = new AtomicLong();
+    }
+
+    /**
+     * Gets ring capacity.
+     *
+     * @return ring capacity
+     */
+    int capacity() {
+        return mCapacity;
+    }
+
+    /**
+     * Offers a runnable to the ring.
+     * <p>
+     * May be called from any thread.
+     *
+     * @param runnable runnable to queue
+     *
+     * @return queue depth after the runnable has been queued, or {@code 0} if the ring is full
+     */
+    int offer(@NonNull Runnable runnable) {
+        long pos = mTail.get();
+        while (true) {
+            int index = (int) (pos & mMask);
+            long diff = mSequences.get(index) - pos;
+            if (diff == 0) {
+                if (mTail.compareAndSet(pos, pos + 1)) {
+                    mOfferTimes[index] = System.nanoTime();
+                    mSlots.set(index, runnable);
+                    mSequences.set(index, pos + 1);
+                    return (int) (pos + 1 - mHead);
+                }
+                pos = mTail.get();
+            } else if (diff < 0) {
+                return 0;
+            } else {
+                pos = mTail.get();
+            }
+        }
+    }
+
+    /**
+     * Withdraws a runnable from the ring.
+     * <p>
+     * May be called from any thread, usually by the producer that offered the runnable, when it fails to schedule its
+     * processing.
+     *
+     * @param runnable runnable to withdraw
+     *
+     * @return {@code true} if the runnable was withdrawn, {@code false} if it is not in the ring, in particular if it
+     *         has already been polled by the consumer
+     */
+    boolean withdraw(@NonNull Runnable runnable) {
+        // taking the runnable out of its slot is atomic with respect to poll(), so that exactly one of them gets it
+        for (long pos = mHead, tail = mTail.get(); pos < tail; pos++) {
+            if (mSlots.compareAndSet((int) (pos & mMask), runnable, null)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Polls the next published runnable from the ring.
+     * <p>
+     * Slots whose runnable was {@link #withdraw withdrawn} are skipped.
+     * <p>
+     * Consumer thread only.
+     *
+     * @return next runnable in offer order, or {@code null} if the next position is not published yet
+     */
+    @Nullable
+    Runnable poll() {
+        while (true) {
+            long head = mHead;
+            int index = (int) (head & mMask);
+            if (mSequences.get(index) != head + 1) {
+                return null;
+            }
+            Runnable runnable = mSlots.getAndSet(index, null);
+            mLastLatency = System.nanoTime() - mOfferTimes[index];
+            mSequences.set(index, head + mCapacity);
+            mHead = head + 1;
+            if (runnable != null) {
+                return runnable;
+            }
+        }
+    }
+
+    /**
+     * Tells whether the next position is published.
+     * <p>
+     * Consumer thread only.
+     *
+     * @return {@code true} if no runnable can be polled right now, otherwise {@code false}
+     */
+    boolean isEmpty() {
+        long head = mHead;
+        return mSequences.get((int) (head & mMask)) != head + 1;
+    }
+
+    /**
+     * Gets the time the last {@link #poll() polled} runnable spent in the ring.
+     * <p>
+     * Consumer thread only.
+     *
+     * @return last polled runnable latency, in nanoseconds
+     */
+    long lastLatency() {
+        return mLastLatency;
+    }
+}
@@ -112,7 +112,7 @@ public final class TestExecutor {
     private static final BackgroundThreadScheduler DIRECT_BACKGROUND_SCHEDULER = new BackgroundThreadScheduler() {
 
         @Override
-        public <T> Task<T> submit(@NonNull Callable<T> job) {
+        public <T> Task<T> submit(@NonNull Callable<T> job, @NonNull Executor.Lane lane, @NonNull Class<?> origin) {
             return Task.execute(job, DIRECT_EXECUTOR_SERVICE);
         }
 